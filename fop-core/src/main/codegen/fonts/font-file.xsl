@@ -61,6 +61,9 @@ import java.util.Set;
 import org.apache.fop.fonts.Base14Font;
 import org.apache.fop.fonts.CodePointMapping;
 import org.apache.fop.fonts.FontType;
+<xsl:if test="count(kerning) &gt; 0">
+import org.apache.fop.fonts.KerningTable;
+</xsl:if>
 import org.apache.fop.fonts.Typeface;
 
 // CSOFF: ConstantNameCheck
@@ -85,6 +88,7 @@ public class <xsl:value-of select="class-name"/> extends Base14Font {
         CodePointMapping.getMapping("<xsl:value-of select="$encoding"/>");
 <xsl:if test="count(kerning) &gt; 0">
     private static final Map kerning;
+    private static final KerningTable kerningTable;
 </xsl:if>
 
     private boolean enableKerning;
@@ -108,6 +112,7 @@ public class <xsl:value-of select="class-name"/> extends Base14Font {
         Integer second;
         Map pairs;
 <xsl:apply-templates select="kerning"/>
+        kerningTable = KerningTable.create(kerning);
 </xsl:if>
     }
 
@@ -202,6 +207,10 @@ public class <xsl:value-of select="class-name"/> extends Base14Font {
     public java.util.Map getKerningInfo() {
         return kerning;
     }
+
+    public KerningTable getKerningTable() {
+        return enableKerning ? kerningTable : KerningTable.EMPTY;
+    }
 </xsl:when>
 <xsl:otherwise>
     public boolean hasKerningInfo() {
@@ -21,6 +21,7 @@ package org.apache.fop.apps;
 
 // Java
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
@@ -47,6 +48,8 @@ import org.apache.fop.accessibility.Accessibility;
 import org.apache.fop.accessibility.DummyStructureTreeEventHandler;
 import org.apache.fop.accessibility.StructureTreeEventHandler;
 import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.area.JavaPageSerializer;
+import org.apache.fop.area.PageSerializer;
 import org.apache.fop.events.DefaultEventBroadcaster;
 import org.apache.fop.events.Event;
 import org.apache.fop.events.EventBroadcaster;
@@ -56,7 +59,10 @@ import org.apache.fop.events.LoggingEventListener;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.hyphenation.HyphenationResultCache;
+import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.pdf.PDFEncodedStreamCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererConfig;
@@ -104,6 +110,8 @@ public class FOUserAgent {
     private FOEventHandler foEventHandlerOverride;
     private boolean locatorEnabled = true; // true by default (for error messages).
     private boolean conserveMemoryPolicy;
+    private PageSerializer pageSerializer = new JavaPageSerializer();
+    private int conserveMemoryPageThreshold;
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler
             = DummyStructureTreeEventHandler.INSTANCE;
@@ -161,6 +169,28 @@ public class FOUserAgent {
             public Source resolveURI(String uri) {
                 return FOUserAgent.this.resolveURI(uri);
             }
+
+            //The sources may be needed by the parsing and the layout thread at once
+
+            @Override
+            public synchronized Source newSource(String uri) {
+                return super.newSource(uri);
+            }
+
+            @Override
+            public synchronized Source getSource(String uri) {
+                return super.getSource(uri);
+            }
+
+            @Override
+            public synchronized Source needSource(String uri) throws FileNotFoundException {
+                return super.needSource(uri);
+            }
+
+            @Override
+            public synchronized void returnSource(String uri, Source src) {
+                super.returnSource(uri, src);
+            }
         };
     }
 
@@ -639,6 +669,52 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Returns the number of prepared pages that are kept in memory before pages are written
+     * to temporary storage when memory-conservation is enabled.
+     *
+     * @return the number of prepared pages kept in memory (0 by default)
+     */
+    public int getConserveMemoryPageThreshold() {
+        return this.conserveMemoryPageThreshold;
+    }
+
+    /**
+     * Sets the number of prepared pages that are kept in memory before pages are written
+     * to temporary storage when memory-conservation is enabled. Pages waiting for
+     * unresolved references are only written out once this number is exceeded.
+     *
+     * @param threshold the number of prepared pages kept in memory
+     */
+    public void setConserveMemoryPageThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The page threshold must not be negative");
+        }
+        this.conserveMemoryPageThreshold = threshold;
+    }
+
+    /**
+     * Returns the serializer used to write pages to temporary storage when
+     * memory-conservation is enabled.
+     *
+     * @return the page serializer
+     */
+    public PageSerializer getPageSerializer() {
+        return this.pageSerializer;
+    }
+
+    /**
+     * Sets the serializer used to write pages to temporary storage when
+     * memory-conservation is enabled. Use
+     * {@link org.apache.fop.area.CompactPageSerializer} for a smaller and faster encoding
+     * than the default Java object serialization.
+     *
+     * @param pageSerializer the page serializer
+     */
+    public void setPageSerializer(PageSerializer pageSerializer) {
+        this.pageSerializer = pageSerializer;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
@@ -648,6 +724,60 @@ public class FOUserAgent {
         return factory.isComplexScriptFeaturesEnabled();
     }
 
+    /**
+     * Returns the maximum number of active nodes per line kept while breaking a paragraph
+     * into lines.
+     *
+     * @return the maximum number of active nodes per line, 0 if unbounded
+     * @see FopFactoryConfig#getMaxActiveNodesPerLine()
+     */
+    public int getMaxActiveNodesPerLine() {
+        return factory.getMaxActiveNodesPerLine();
+    }
+
+    /**
+     * Returns the number of nodes added while breaking a paragraph into lines after which
+     * only the best node of each line is kept.
+     *
+     * @return the number of nodes, 0 if unbounded
+     * @see FopFactoryConfig#getMaxLineBreakingNodes()
+     */
+    public int getMaxLineBreakingNodes() {
+        return factory.getMaxLineBreakingNodes();
+    }
+
+    /**
+     * Returns the number of pages the page breaking algorithm may look ahead before it
+     * commits the break of a page.
+     *
+     * @return the number of pages, 0 if unbounded
+     * @see FopFactoryConfig#getPageBreakingHorizon()
+     */
+    public int getPageBreakingHorizon() {
+        return factory.getPageBreakingHorizon();
+    }
+
+    /**
+     * Returns the number of parsed page-sequences which may wait for their layout on the
+     * layout thread while the parsing of the document goes on.
+     *
+     * @return the number of page-sequences, 0 if they are laid out on the parsing thread
+     * @see FopFactoryConfig#getPageSequenceLayoutQueueSize()
+     */
+    public int getPageSequenceLayoutQueueSize() {
+        return factory.getPageSequenceLayoutQueueSize();
+    }
+
+    /**
+     * Returns the directory the temporary files of the rendering run are created in.
+     *
+     * @return the directory, or null for the default temporary-file directory of the system
+     * @see FopFactoryConfig#getTempDirectory()
+     */
+    public File getTempDirectory() {
+        return factory.getTempDirectory();
+    }
+
     /**
      * Returns the renderer configuration object for a particular MIME type.
      *
@@ -809,6 +939,22 @@ public class FOUserAgent {
     public InternalResourceResolver getHyphenationResourceResolver() {
         return factory.getHyphenationResourceResolver();
     }
+
+    /** @see FopFactory#getHyphenationResultCache() */
+    public HyphenationResultCache getHyphenationResultCache() {
+        return factory.getHyphenationResultCache();
+    }
+
+    /** @see FopFactory#getHyphenationTreeCache() */
+    public HyphenationTreeCache getHyphenationTreeCache() {
+        return factory.getHyphenationTreeCache();
+    }
+
+    /** @see FopFactory#getPDFEncodedStreamCache() */
+    public PDFEncodedStreamCache getPDFEncodedStreamCache() {
+        return factory.getPDFEncodedStreamCache();
+    }
+
     public SoftMapCache getPDFObjectCache() {
         return pdfObjectCache;
     }
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>Renders a batch of documents concurrently on a pool of worker threads sharing one
+ * {@link FopFactory}, so the renderer configurations, font metrics and hyphenation patterns
+ * loaded for the first documents are reused by all the following ones. Each worker thread
+ * keeps its JAXP {@link Transformer}, created once from the stylesheet of the batch or as an
+ * identity transformer if there is none.</p>
+ *
+ * <p>Documents are submitted one after the other with {@link #submit(Source, OutputStream)},
+ * which waits while twice as many documents as there are worker threads are waiting to be
+ * rendered, so a producer of documents can't run ahead of the rendering. The results of each
+ * document are reported through the returned {@link Future}; the aggregate numbers of the
+ * batch are available at any time and are final once {@link #finish()} has returned.</p>
+ *
+ * <p>Instances are created with {@link FopFactory#newFopBatch(String, Templates, int)}.
+ * The methods of this class are meant to be called by a single submitting thread.</p>
+ */
+public final class FopBatch {
+
+    private static Log log = LogFactory.getLog(FopBatch.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private final FopFactory fopFactory;
+
+    private final String outputFormat;
+
+    private final Templates templates;
+
+    private final ThreadPoolExecutor executor;
+
+    /** Permits for the documents waiting to be rendered or being rendered */
+    private final Semaphore pendingDocuments;
+
+    private final ThreadLocal<Transformer> transformers = new ThreadLocal<Transformer>();
+
+    private final AtomicInteger documentCount = new AtomicInteger();
+
+    private final AtomicInteger failureCount = new AtomicInteger();
+
+    private final AtomicLong pageCount = new AtomicLong();
+
+    private volatile boolean started;
+
+    /** The time of the submission of the first document, only valid once started is set */
+    private volatile long startTime;
+
+    /** The time from the start until the last rendered document was done */
+    private final AtomicLong elapsedTime = new AtomicLong();
+
+    /**
+     * Creates a new batch.
+     * @param fopFactory the factory of the rendering runs
+     * @param outputFormat the MIME type of the output format
+     * @param templates the stylesheet transforming each source into XSL-FO, or null if the
+     *          sources are XSL-FO documents
+     * @param threadCount the number of worker threads
+     */
+    FopBatch(FopFactory fopFactory, String outputFormat, Templates templates, int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("The thread count must be positive: "
+                    + threadCount);
+        }
+        this.fopFactory = fopFactory;
+        this.outputFormat = outputFormat;
+        this.templates = templates;
+        this.pendingDocuments = new Semaphore(threadCount * 2);
+        executor = new ThreadPoolExecutor(threadCount, threadCount,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new BatchThreadFactory());
+        //Don't keep idle threads around if the batch is never finished
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submits a document, rendered with a new user agent of the factory. This method waits
+     * while too many documents are waiting to be rendered.
+     * @param src the source of the document
+     * @param out the stream the document is rendered to, closed once the document is rendered
+     * @return the future results of the document; its {@link Future#get()} method throws an
+     *          {@link java.util.concurrent.ExecutionException} if the rendering failed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Future<FormattingResults> submit(Source src, OutputStream out)
+            throws InterruptedException {
+        return submit(fopFactory.newFOUserAgent(), src, out);
+    }
+
+    /**
+     * Submits a document, rendered with a given user agent. This method waits while too many
+     * documents are waiting to be rendered.
+     * @param userAgent the user agent of the document's rendering run
+     * @param src the source of the document
+     * @param out the stream the document is rendered to, closed once the document is rendered
+     * @return the future results of the document; its {@link Future#get()} method throws an
+     *          {@link java.util.concurrent.ExecutionException} if the rendering failed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Future<FormattingResults> submit(FOUserAgent userAgent, Source src, OutputStream out)
+            throws InterruptedException {
+        pendingDocuments.acquire();
+        if (!started) {
+            //System.nanoTime() may return any value, including 0
+            startTime = System.nanoTime();
+            started = true;
+        }
+        DocumentTask task = new DocumentTask(userAgent, src, out);
+        try {
+            executor.execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            pendingDocuments.release();
+            throw new IllegalStateException("The batch is finished");
+        }
+    }
+
+    /**
+     * Waits until all submitted documents are rendered and stops the worker threads. No
+     * document can be submitted afterwards.
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void finish() throws InterruptedException {
+        executor.shutdown();
+        while (!executor.awaitTermination(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS)) {
+            //wait on
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(documentCount + " documents (" + failureCount + " failed), " + pageCount
+                    + " pages rendered in " + getElapsedTime() + " ms");
+        }
+    }
+
+    /**
+     * Returns the number of documents rendered, including the failed ones.
+     * @return the number of documents
+     */
+    public int getDocumentCount() {
+        return documentCount.get();
+    }
+
+    /**
+     * Returns the number of documents whose rendering failed.
+     * @return the number of failed documents
+     */
+    public int getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Returns the number of pages of the documents rendered successfully.
+     * @return the number of pages
+     */
+    public long getPageCount() {
+        return pageCount.get();
+    }
+
+    /**
+     * Returns the time from the submission of the first document until the last rendered
+     * document was done.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedTime() {
+        return elapsedTime.get() / 1000000;
+    }
+
+    /**
+     * Returns the number of documents rendered per second.
+     * @return the document throughput, 0 if no document has been rendered yet
+     */
+    public double getDocumentsPerSecond() {
+        long elapsedTime = getElapsedTime();
+        return elapsedTime > 0 ? getDocumentCount() * 1000.0 / elapsedTime : 0;
+    }
+
+    /**
+     * Returns the number of pages rendered per second.
+     * @return the page throughput, 0 if no document has been rendered yet
+     */
+    public double getPagesPerSecond() {
+        long elapsedTime = getElapsedTime();
+        return elapsedTime > 0 ? getPageCount() * 1000.0 / elapsedTime : 0;
+    }
+
+    private Transformer getTransformer() throws TransformerConfigurationException {
+        Transformer transformer = transformers.get();
+        if (transformer == null) {
+            if (templates != null) {
+                transformer = templates.newTransformer();
+            } else {
+                transformer = TransformerFactory.newInstance().newTransformer();
+            }
+            transformers.set(transformer);
+        } else {
+            transformer.reset();
+        }
+        return transformer;
+    }
+
+    /**
+     * The future results of a document. The permit of the document is released once it is
+     * done, including when it is cancelled before it has been rendered.
+     */
+    private class DocumentTask extends FutureTask<FormattingResults> {
+
+        DocumentTask(FOUserAgent userAgent, Source src, OutputStream out) {
+            super(new DocumentRun(userAgent, src, out));
+        }
+
+        @Override
+        protected void done() {
+            pendingDocuments.release();
+        }
+    }
+
+    private class DocumentRun implements Callable<FormattingResults> {
+
+        private final FOUserAgent userAgent;
+        private final Source src;
+        private final OutputStream out;
+
+        DocumentRun(FOUserAgent userAgent, Source src, OutputStream out) {
+            this.userAgent = userAgent;
+            this.src = src;
+            this.out = out;
+        }
+
+        public FormattingResults call() throws Exception {
+            boolean succeeded = false;
+            try {
+                Fop fop = fopFactory.newFop(outputFormat, userAgent, out);
+                getTransformer().transform(src, new SAXResult(fop.getDefaultHandler()));
+                out.close();
+                FormattingResults results = fop.getResults();
+                if (results != null) {
+                    pageCount.addAndGet(results.getPageCount());
+                }
+                succeeded = true;
+                return results;
+            } finally {
+                if (!succeeded) {
+                    IOUtils.closeQuietly(out);
+                    //The transformer may be left in an inconsistent state
+                    transformers.remove();
+                    failureCount.incrementAndGet();
+                }
+                documentCount.incrementAndGet();
+                long elapsed = System.nanoTime() - startTime;
+                long previous = elapsedTime.get();
+                while (elapsed > previous && !elapsedTime.compareAndSet(previous, elapsed)) {
+                    previous = elapsedTime.get();
+                }
+            }
+        }
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+
+        private int threadNumber;
+
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FOP batch " + (++threadNumber));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
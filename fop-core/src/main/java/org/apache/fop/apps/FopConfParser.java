@@ -251,6 +251,48 @@ public class FopConfParser {
 
         setHyphenationBase(cfg, resourceResolver, baseURI, fopFactoryBuilder);
         setHyphPatNames(cfg, fopFactoryBuilder, strict);
+        if (cfg.getChild("hyphenation-cache-size", false) != null) {
+            try {
+                fopFactoryBuilder.setHyphenationCacheSize(
+                        cfg.getChild("hyphenation-cache-size").getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+        setHyphenationPreload(cfg, fopFactoryBuilder, strict);
+        setLineBreakingBounds(cfg, fopFactoryBuilder, strict);
+        if (cfg.getChild("page-breaking-horizon", false) != null) {
+            try {
+                fopFactoryBuilder.setPageBreakingHorizon(
+                        cfg.getChild("page-breaking-horizon").getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+        if (cfg.getChild("page-sequence-layout-queue", false) != null) {
+            try {
+                fopFactoryBuilder.setPageSequenceLayoutQueueSize(
+                        cfg.getChild("page-sequence-layout-queue").getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+        if (cfg.getChild("pdf-stream-cache-size", false) != null) {
+            try {
+                fopFactoryBuilder.setPDFStreamCacheSize(
+                        cfg.getChild("pdf-stream-cache-size").getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+        if (cfg.getChild("temp-directory", false) != null) {
+            try {
+                fopFactoryBuilder.setTempDirectory(
+                        new File(cfg.getChild("temp-directory").getValue()));
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
 
         // prefer Renderer over IFDocumentHandler
         if (cfg.getChild(PREFER_RENDERER, false) != null) {
@@ -356,6 +398,48 @@ public class FopConfParser {
         }
     }
 
+    private void setHyphenationPreload(Configuration cfg, FopFactoryBuilder builder, boolean strict)
+            throws FOPException {
+        for (Configuration preloadConfig : cfg.getChildren("hyphenation-preload")) {
+            String location = preloadConfig.getLocation();
+            String lang = preloadConfig.getAttribute("lang", null);
+            String country = preloadConfig.getAttribute("country", null);
+            if ("".equals(country)) {
+                country = null;
+            }
+            if (lang == null || !lang.matches("[a-zA-Z]{2}")) {
+                LogUtil.handleError(log, "The lang attribute of a hyphenation-preload configuration"
+                        + " element must consist of exactly two letters (" + location + ")", strict);
+            } else if (country != null && !country.matches("[a-zA-Z]{2}")) {
+                LogUtil.handleError(log, "The country attribute of a hyphenation-preload"
+                        + " configuration element must consist of exactly two letters ("
+                        + location + ")", strict);
+            } else {
+                builder.preloadHyphenationLanguage(lang.toLowerCase(Locale.getDefault()),
+                        country != null ? country.toUpperCase(Locale.getDefault()) : null);
+            }
+        }
+    }
+
+    private void setLineBreakingBounds(Configuration cfg, FopFactoryBuilder builder, boolean strict)
+            throws FOPException {
+        Configuration lineBreakingConfig = cfg.getChild("line-breaking", false);
+        if (lineBreakingConfig != null) {
+            try {
+                if (lineBreakingConfig.getAttribute("max-active-nodes-per-line", null) != null) {
+                    builder.setMaxActiveNodesPerLine(
+                            lineBreakingConfig.getAttributeAsInteger("max-active-nodes-per-line"));
+                }
+                if (lineBreakingConfig.getAttribute("max-nodes", null) != null) {
+                    builder.setMaxLineBreakingNodes(
+                            lineBreakingConfig.getAttributeAsInteger("max-nodes"));
+                }
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+    }
+
     private static void addError(String message, StringBuffer error) {
         if (error.length() != 0) {
             error.append(". ");
@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import javax.xml.transform.Templates;
+
 import org.xml.sax.SAXException;
 
 import org.apache.avalon.framework.configuration.Configuration;
@@ -44,7 +46,10 @@ import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.fo.ElementMapping;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.hyphenation.HyphenationResultCache;
+import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.pdf.PDFEncodedStreamCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.RendererConfig;
 import org.apache.fop.render.RendererConfig.RendererConfigParser;
@@ -88,6 +93,12 @@ public final class FopFactory implements ImageContext {
 
     private final Map<String, RendererConfig> rendererConfig;
 
+    private final HyphenationResultCache hyphenationResultCache;
+
+    private final HyphenationTreeCache hyphenationTreeCache;
+
+    private final PDFEncodedStreamCache pdfEncodedStreamCache;
+
     private FopFactory(FopFactoryConfig config) {
         this.config = config;
         this.resolver = ResourceResolverFactory.createInternalResourceResolver(config.getBaseURI(),
@@ -98,6 +109,17 @@ public final class FopFactory implements ImageContext {
         this.xmlHandlers = new XMLHandlerRegistry();
         this.imageHandlers = new ImageHandlerRegistry();
         rendererConfig = new HashMap<String, RendererConfig>();
+        int hyphenationCacheSize = config.getHyphenationCacheSize();
+        this.hyphenationResultCache = hyphenationCacheSize > 0
+                ? new HyphenationResultCache(hyphenationCacheSize) : null;
+        this.hyphenationTreeCache = new HyphenationTreeCache();
+        int pdfStreamCacheSize = config.getPDFStreamCacheSize();
+        this.pdfEncodedStreamCache = pdfStreamCacheSize > 0
+                ? new PDFEncodedStreamCache(pdfStreamCacheSize) : null;
+        if (!config.getPreloadedHyphenationLanguages().isEmpty()) {
+            hyphenationTreeCache.preload(config.getPreloadedHyphenationLanguages(),
+                    config.getHyphenationResourceResolver(), config.getHyphenationPatternNames());
+        }
     }
 
     /**
@@ -173,6 +195,26 @@ public final class FopFactory implements ImageContext {
         return config.isComplexScriptFeaturesEnabled();
     }
 
+    int getMaxActiveNodesPerLine() {
+        return config.getMaxActiveNodesPerLine();
+    }
+
+    int getMaxLineBreakingNodes() {
+        return config.getMaxLineBreakingNodes();
+    }
+
+    int getPageBreakingHorizon() {
+        return config.getPageBreakingHorizon();
+    }
+
+    int getPageSequenceLayoutQueueSize() {
+        return config.getPageSequenceLayoutQueueSize();
+    }
+
+    File getTempDirectory() {
+        return config.getTempDirectory();
+    }
+
     /**
      * Returns a new {@link Fop} instance. FOP will be configured with a default user agent
      * instance.
@@ -239,6 +281,23 @@ public final class FopFactory implements ImageContext {
         return userAgent.newFop(outputFormat, stream);
     }
 
+    /**
+     * Returns a new {@link FopBatch} rendering documents concurrently on a pool of worker
+     * threads. Use this factory method to render large numbers of documents with the same
+     * output format and, optionally, the same stylesheet.
+     * <p>
+     * MIME types are used to select the output format (ex. "application/pdf" for PDF). You can
+     * use the constants defined in {@link MimeConstants}.
+     * @param outputFormat the MIME type of the output format to use (ex. "application/pdf").
+     * @param templates the stylesheet transforming each source into XSL-FO, or null if the
+     *          sources are XSL-FO documents
+     * @param threadCount the number of documents rendered at the same time
+     * @return the new FopBatch instance
+     */
+    public FopBatch newFopBatch(String outputFormat, Templates templates, int threadCount) {
+        return new FopBatch(this, outputFormat, templates, threadCount);
+    }
+
     /**
      * Returns a new {@link Fop} instance. Use this factory method if you want to supply your
      * own {@link org.apache.fop.render.Renderer Renderer} or
@@ -364,6 +423,36 @@ public final class FopFactory implements ImageContext {
         return config.getHyphenationResourceResolver();
     }
 
+    /**
+     * Returns the cache of the hyphenation points of the words hyphenated by the rendering
+     * runs of this factory.
+     * @return the hyphenation result cache or null if it is disabled
+     * @see FopFactoryConfig#getHyphenationCacheSize()
+     */
+    public HyphenationResultCache getHyphenationResultCache() {
+        return hyphenationResultCache;
+    }
+
+    /**
+     * Returns the cache of the hyphenation trees used by the rendering runs of this factory.
+     * @return the hyphenation tree cache
+     * @see FopFactoryConfig#getPreloadedHyphenationLanguages()
+     */
+    public HyphenationTreeCache getHyphenationTreeCache() {
+        return hyphenationTreeCache;
+    }
+
+    /**
+     * Returns the cache of the encoded image and color profile data shared by the PDF
+     * documents rendered with this factory. Its hit, miss and eviction counts show how
+     * well the cache serves the documents.
+     * @return the encoded stream cache or null if it is disabled
+     * @see FopFactoryConfig#getPDFStreamCacheSize()
+     */
+    public PDFEncodedStreamCache getPDFEncodedStreamCache() {
+        return pdfEncodedStreamCache;
+    }
+
     /**
      * Returns the conversion factor from pixel units to millimeters. This
      * depends on the desired source resolution.
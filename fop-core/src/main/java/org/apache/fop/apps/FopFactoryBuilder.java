@@ -19,10 +19,12 @@
 
 package org.apache.fop.apps;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,6 +38,7 @@ import org.apache.xmlgraphics.io.ResourceResolver;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
 
 /**
@@ -323,6 +326,120 @@ public final class FopFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of hyphenated words whose hyphenation points are cached by the
+     * {@link FopFactory}.
+     *
+     * @param size the cache size, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setHyphenationCacheSize(int size) {
+        fopFactoryConfigBuilder.setHyphenationCacheSize(size);
+        return this;
+    }
+
+    /**
+     * Adds a language whose hyphenation patterns are loaded in the background when the
+     * {@link FopFactory} is created, so the first document in this language doesn't wait
+     * for them.
+     *
+     * @param lang the language
+     * @param country the country (may be null)
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder preloadHyphenationLanguage(String lang, String country) {
+        fopFactoryConfigBuilder.preloadHyphenationLanguage(
+                HyphenationTreeCache.constructLlccKey(lang, country));
+        return this;
+    }
+
+    /**
+     * Bounds the number of active nodes per line kept while breaking a paragraph into lines,
+     * which limits the time spent on very long paragraphs at the expense of the quality of
+     * the breaks.
+     *
+     * @param max the maximum number of active nodes per line, 0 if unbounded
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setMaxActiveNodesPerLine(int max) {
+        fopFactoryConfigBuilder.setMaxActiveNodesPerLine(max);
+        return this;
+    }
+
+    /**
+     * Sets the number of nodes added while breaking a paragraph into lines after which only
+     * the best node of each line is kept, so the rest of the paragraph is broken nearly as by
+     * a first-fit algorithm.
+     *
+     * @param max the number of nodes, 0 if unbounded
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setMaxLineBreakingNodes(int max) {
+        fopFactoryConfigBuilder.setMaxLineBreakingNodes(max);
+        return this;
+    }
+
+    /**
+     * Sets the number of pages the page breaking algorithm may look ahead before it commits
+     * the break of a page, which bounds the number of breaks considered, and so the time spent
+     * on each break, of very long page-sequences at the expense of their quality. The element
+     * list of a page-sequence is still built in one piece, but the areas of the committed pages
+     * are added, and their elements released, while the rest of it is broken, unless its last
+     * page may be laid out again (for column balancing or a special page-master) or it has
+     * floats.
+     *
+     * @param pages the number of pages, 0 if unbounded
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setPageBreakingHorizon(int pages) {
+        fopFactoryConfigBuilder.setPageBreakingHorizon(pages);
+        return this;
+    }
+
+    /**
+     * Sets the number of parsed page-sequences which may wait for their layout while the
+     * parsing of the document goes on. If positive, the page-sequences are laid out and
+     * rendered in document order on a layout thread, overlapping with the parsing of the
+     * following page-sequences. This is ignored if accessibility is enabled.
+     *
+     * @param size the number of page-sequences, 0 to lay out each page-sequence on the
+     *          parsing thread
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setPageSequenceLayoutQueueSize(int size) {
+        fopFactoryConfigBuilder.setPageSequenceLayoutQueueSize(size);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes of encoded image and color profile data which the PDF
+     * documents rendered with the {@link FopFactory} share through a cache, so an image used
+     * by many documents is only read and compressed once.
+     *
+     * @param size the cache size in bytes, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setPDFStreamCacheSize(int size) {
+        fopFactoryConfigBuilder.setPDFStreamCacheSize(size);
+        return this;
+    }
+
+    /**
+     * Sets the directory the temporary files of the rendering runs are created in, such as
+     * the files the pages are spilled to when memory-conservation is enabled and the file the
+     * PDF streams beyond the stream buffer budget are spilled to. These files are mapped into
+     * memory, so they are not created through the temporary resources of the resource
+     * resolver.
+     *
+     * @param directory the directory, or null for the default temporary-file directory of the
+     *          system
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setTempDirectory(File directory) {
+        fopFactoryConfigBuilder.setTempDirectory(directory);
+        return this;
+    }
+
     public static class FopFactoryConfigImpl implements FopFactoryConfig {
 
         private final EnvironmentProfile enviro;
@@ -362,6 +479,22 @@ public final class FopFactoryBuilder {
 
         private Map<String, String> hyphPatNames;
 
+        private int hyphenationCacheSize = FopFactoryConfig.DEFAULT_HYPHENATION_CACHE_SIZE;
+
+        private Set<String> preloadedHyphenationLanguages = new LinkedHashSet<String>();
+
+        private int maxActiveNodesPerLine;
+
+        private int maxLineBreakingNodes;
+
+        private int pageBreakingHorizon;
+
+        private int pageSequenceLayoutQueueSize;
+
+        private int pdfStreamCacheSize;
+
+        private File tempDirectory;
+
         private static final class ImageContextImpl implements ImageContext {
 
             private final FopFactoryConfig config;
@@ -478,6 +611,46 @@ public final class FopFactoryBuilder {
             return hyphPatNames;
         }
 
+        /** {@inheritDoc} */
+        public int getHyphenationCacheSize() {
+            return hyphenationCacheSize;
+        }
+
+        /** {@inheritDoc} */
+        public Set<String> getPreloadedHyphenationLanguages() {
+            return Collections.unmodifiableSet(preloadedHyphenationLanguages);
+        }
+
+        /** {@inheritDoc} */
+        public int getMaxActiveNodesPerLine() {
+            return maxActiveNodesPerLine;
+        }
+
+        /** {@inheritDoc} */
+        public int getMaxLineBreakingNodes() {
+            return maxLineBreakingNodes;
+        }
+
+        /** {@inheritDoc} */
+        public int getPageBreakingHorizon() {
+            return pageBreakingHorizon;
+        }
+
+        /** {@inheritDoc} */
+        public int getPageSequenceLayoutQueueSize() {
+            return pageSequenceLayoutQueueSize;
+        }
+
+        /** {@inheritDoc} */
+        public int getPDFStreamCacheSize() {
+            return pdfStreamCacheSize;
+        }
+
+        /** {@inheritDoc} */
+        public File getTempDirectory() {
+            return tempDirectory;
+        }
+
         public FallbackResolver getFallbackResolver() {
             return enviro.getFallbackResolver();
         }
@@ -518,6 +691,22 @@ public final class FopFactoryBuilder {
         void setComplexScriptFeaturesEnabled(boolean csf);
 
         void setHyphPatNames(Map<String, String> hyphPatNames);
+
+        void setHyphenationCacheSize(int size);
+
+        void preloadHyphenationLanguage(String llccKey);
+
+        void setMaxActiveNodesPerLine(int max);
+
+        void setMaxLineBreakingNodes(int max);
+
+        void setPageBreakingHorizon(int pages);
+
+        void setPageSequenceLayoutQueueSize(int size);
+
+        void setPDFStreamCacheSize(int size);
+
+        void setTempDirectory(File directory);
     }
 
     private static final class CompletedFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -599,6 +788,38 @@ public final class FopFactoryBuilder {
             throwIllegalStateException();
         }
 
+        public void setHyphenationCacheSize(int size) {
+            throwIllegalStateException();
+        }
+
+        public void preloadHyphenationLanguage(String llccKey) {
+            throwIllegalStateException();
+        }
+
+        public void setMaxActiveNodesPerLine(int max) {
+            throwIllegalStateException();
+        }
+
+        public void setMaxLineBreakingNodes(int max) {
+            throwIllegalStateException();
+        }
+
+        public void setPageBreakingHorizon(int pages) {
+            throwIllegalStateException();
+        }
+
+        public void setPageSequenceLayoutQueueSize(int size) {
+            throwIllegalStateException();
+        }
+
+        public void setPDFStreamCacheSize(int size) {
+            throwIllegalStateException();
+        }
+
+        public void setTempDirectory(File directory) {
+            throwIllegalStateException();
+        }
+
     }
 
     private static final class ActiveFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -679,6 +900,38 @@ public final class FopFactoryBuilder {
         public void setHyphPatNames(Map<String, String> hyphPatNames) {
             config.hyphPatNames = hyphPatNames;
         }
+
+        public void setHyphenationCacheSize(int size) {
+            config.hyphenationCacheSize = size;
+        }
+
+        public void preloadHyphenationLanguage(String llccKey) {
+            config.preloadedHyphenationLanguages.add(llccKey);
+        }
+
+        public void setMaxActiveNodesPerLine(int max) {
+            config.maxActiveNodesPerLine = max;
+        }
+
+        public void setMaxLineBreakingNodes(int max) {
+            config.maxLineBreakingNodes = max;
+        }
+
+        public void setPageBreakingHorizon(int pages) {
+            config.pageBreakingHorizon = pages;
+        }
+
+        public void setPageSequenceLayoutQueueSize(int size) {
+            config.pageSequenceLayoutQueueSize = size;
+        }
+
+        public void setPDFStreamCacheSize(int size) {
+            config.pdfStreamCacheSize = size;
+        }
+
+        public void setTempDirectory(File directory) {
+            config.tempDirectory = directory;
+        }
     }
 
 }
@@ -19,6 +19,7 @@
 
 package org.apache.fop.apps;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Map;
 import java.util.Set;
@@ -62,6 +63,9 @@ public interface FopFactoryConfig {
     /** Defines the default target resolution (72dpi) for FOP */
     float DEFAULT_TARGET_RESOLUTION = 72.0f; //dpi
 
+    /** Defines the default maximum number of hyphenated words cached by a factory */
+    int DEFAULT_HYPHENATION_CACHE_SIZE = 10000;
+
     /**
      * Whether accessibility features are switched on.
      *
@@ -168,6 +172,62 @@ public interface FopFactoryConfig {
 
     InternalResourceResolver getHyphenationResourceResolver();
 
+    /**
+     * Returns the maximum number of hyphenated words whose hyphenation points are cached.
+     * @return the cache size, 0 if the cache is disabled
+     */
+    int getHyphenationCacheSize();
+
+    /**
+     * Returns the languages whose hyphenation patterns are loaded in the background when the
+     * {@link FopFactory} is created.
+     * @return the language keys (ex. "de_CH" or "en")
+     */
+    Set<String> getPreloadedHyphenationLanguages();
+
+    /**
+     * Returns the maximum number of active nodes per line kept by the line breaking algorithm.
+     * @return the maximum number of active nodes per line, 0 if unbounded
+     */
+    int getMaxActiveNodesPerLine();
+
+    /**
+     * Returns the number of nodes the line breaking algorithm adds for a paragraph before it
+     * keeps only the best node of each line.
+     * @return the number of nodes, 0 if unbounded
+     */
+    int getMaxLineBreakingNodes();
+
+    /**
+     * Returns the number of pages the page breaking algorithm may look ahead before it
+     * commits the break of a page.
+     * @return the number of pages, 0 if unbounded
+     */
+    int getPageBreakingHorizon();
+
+    /**
+     * Returns the number of parsed page-sequences which may wait for their layout while the
+     * parsing of the document goes on. The page-sequences are then laid out one after the
+     * other on a layout thread, overlapping with the parsing of the following ones.
+     * @return the number of page-sequences, 0 if each page-sequence is laid out on the
+     *          parsing thread as soon as it is parsed
+     */
+    int getPageSequenceLayoutQueueSize();
+
+    /**
+     * Returns the maximum number of bytes of encoded image and color profile data which the
+     * PDF documents rendered with the factory share through a cache.
+     * @return the cache size in bytes, 0 if the cache is disabled
+     */
+    int getPDFStreamCacheSize();
+
+    /**
+     * Returns the directory the temporary files of the rendering runs are created in, such
+     * as the files the pages and the PDF streams are spilled to.
+     * @return the directory, or null for the default temporary-file directory of the system
+     */
+    File getTempDirectory();
+
     /**
      * Controls the mechanisms that are used in the event that {@link javax.xml.transform.Source}
      * used for resources couldn't be read.
@@ -37,6 +37,8 @@ import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.fo.extensions.ExtensionAttachment;
 import org.apache.fop.fo.extensions.ExternalDocument;
 import org.apache.fop.fo.extensions.destination.Destination;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.flow.RetrieveTableMarker;
 import org.apache.fop.fo.pagination.AbstractPageSequence;
 import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.Root;
@@ -89,6 +91,12 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private int idGen;
 
+    // Lays out the page-sequences while the following ones are parsed, if enabled
+    private PageSequenceLayoutQueue layoutQueue;
+
+    // Whether an fo:retrieve-marker or fo:retrieve-table-marker has been parsed
+    private boolean retrieveMarkerFound;
+
     /**
      * Constructor.
      *
@@ -113,6 +121,12 @@ public class AreaTreeHandler extends FOEventHandler {
 
         this.useComplexScriptFeatures = userAgent.isComplexScriptFeaturesEnabled();
 
+        // The structure tree is built while parsing, so it must stay in step with the layout
+        if (userAgent.getPageSequenceLayoutQueueSize() > 0 && !userAgent.isAccessibilityEnabled()) {
+            this.layoutQueue = new PageSequenceLayoutQueue(
+                    userAgent.getPageSequenceLayoutQueueSize());
+        }
+
         if (log.isDebugEnabled()) {
             statistics = new Statistics();
         }
@@ -223,6 +237,16 @@ public class AreaTreeHandler extends FOEventHandler {
     }
 
     private void startAbstractPageSequence(AbstractPageSequence pageSequence) {
+        // With a layout queue, the page-sequence is started when its layout begins
+        if (layoutQueue == null) {
+            startLayout(pageSequence);
+        }
+    }
+
+    /**
+     * Starts the layout of a page-sequence, once the previous one is laid out.
+     */
+    private void startLayout(AbstractPageSequence pageSequence) {
         rootFObj = pageSequence.getRoot();
 
         //Before the first page-sequence...
@@ -253,12 +277,45 @@ public class AreaTreeHandler extends FOEventHandler {
      * @param pageSequence the page sequence ending
      */
     @Override
-    public void endPageSequence(PageSequence pageSequence) {
+    public void endPageSequence(final PageSequence pageSequence) {
 
         if (statistics != null) {
             statistics.end();
         }
 
+        if (useLayoutQueue(pageSequence)) {
+            layoutQueue.submit(new Runnable() {
+                public void run() {
+                    startLayout(pageSequence);
+                    layoutPageSequence(pageSequence);
+                }
+            });
+        } else {
+            layoutPageSequence(pageSequence);
+        }
+    }
+
+    /**
+     * Checks whether the given page-sequence is to be laid out on the layout thread.
+     * The binding of a retrieve-marker clones the marker subtree with the FO tree builder
+     * state of the parsing thread, which is not thread-safe. So once a retrieve-marker is
+     * found, the queued page-sequences are laid out and the rest of the document is laid out
+     * on the parsing thread.
+     */
+    private boolean useLayoutQueue(AbstractPageSequence pageSequence) {
+        if (layoutQueue != null && retrieveMarkerFound) {
+            layoutQueue.finish();
+            layoutQueue = null;
+            // The page-sequence was not started when its parsing began
+            startLayout(pageSequence);
+        }
+        return layoutQueue != null;
+    }
+
+    /**
+     * Lays out a page-sequence.
+     */
+    private void layoutPageSequence(PageSequence pageSequence) {
         // If no main flow, nothing to layout!
         if (pageSequence.getMainFlow() != null) {
             PageSequenceLayoutManager pageSLM;
@@ -279,11 +336,27 @@ public class AreaTreeHandler extends FOEventHandler {
 
     /** {@inheritDoc} */
     @Override
-    public void endExternalDocument(ExternalDocument document) {
+    public void endExternalDocument(final ExternalDocument document) {
         if (statistics != null) {
             statistics.end();
         }
 
+        if (useLayoutQueue(document)) {
+            layoutQueue.submit(new Runnable() {
+                public void run() {
+                    startLayout(document);
+                    layoutExternalDocument(document);
+                }
+            });
+        } else {
+            layoutExternalDocument(document);
+        }
+    }
+
+    /**
+     * Lays out an external document.
+     */
+    private void layoutExternalDocument(ExternalDocument document) {
         ExternalDocumentLayoutManager edLM;
         edLM = getLayoutManagerMaker().makeExternalDocumentLayoutManager(this, document);
         edLM.activateLayout();
@@ -293,6 +366,18 @@ public class AreaTreeHandler extends FOEventHandler {
 
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void startRetrieveMarker(RetrieveMarker retrieveMarker) {
+        retrieveMarkerFound = true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startRetrieveTableMarker(RetrieveTableMarker retrieveTableMarker) {
+        retrieveMarkerFound = true;
+    }
+
     /**
      * Called by the PageSequenceLayoutManager when it is finished with a
      * page-sequence.
@@ -316,6 +401,9 @@ public class AreaTreeHandler extends FOEventHandler {
     @Override
     public void endDocument() throws SAXException {
 
+        if (layoutQueue != null) {
+            layoutQueue.finish();
+        }
         finishPrevPageSequence(null);
         // process fox:destination elements
         if (rootFObj != null) {
@@ -346,6 +434,16 @@ public class AreaTreeHandler extends FOEventHandler {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void abortDocument() {
+        if (layoutQueue != null) {
+            layoutQueue.cancel();
+            layoutQueue = null;
+        }
+        model.abortDocument();
+    }
+
     /**
      * Add a OffDocumentItem to the area tree model. This checks if the
      * OffDocumentItem is resolvable and attempts to resolve or add the
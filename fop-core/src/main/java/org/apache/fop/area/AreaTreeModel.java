@@ -90,6 +90,12 @@ public class AreaTreeModel {
      */
     public void endDocument() throws SAXException { };
 
+    /**
+     * Signal that the processing of the document was aborted because of an error, so the
+     * resources held for it can be released. {@link #endDocument()} is not called then.
+     */
+    public void abortDocument() { };
+
     /**
      * Returns the currently active page-sequence.
      * @return the currently active page-sequence
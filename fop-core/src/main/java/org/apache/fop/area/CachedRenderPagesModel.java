@@ -19,24 +19,13 @@
 
 package org.apache.fop.area;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.net.URI;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 
 import org.xml.sax.SAXException;
 
-import org.apache.commons.io.IOUtils;
-
-import org.apache.xmlgraphics.io.TempResourceURIGenerator;
-
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fonts.FontInfo;
@@ -45,16 +34,17 @@ import org.apache.fop.fonts.FontInfo;
  * A simple cached render pages model.
  * If the page is prepared for later rendering then this saves
  * the page contents to a file and once the page is resolved
- * the contents are reloaded.
+ * the contents are reloaded. All pages are saved to a single
+ * memory-mapped temporary file in {@link FOUserAgent#getTempDirectory()}, and up to
+ * {@link FOUserAgent#getConserveMemoryPageThreshold()} prepared pages
+ * are kept in memory before pages are saved.
  */
 public class CachedRenderPagesModel extends RenderPagesModel {
 
-    private Map<PageViewport, URI> pageMap = new HashMap<PageViewport, URI>();
+    private final MappedPageStore pageStore;
 
-    /** Base directory to save temporary file in, typically points to the user's temp dir. */
-    private final URI tempBaseURI;
-    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
-            = new TempResourceURIGenerator("cached-pages");
+    /** Number of prepared pages kept in memory before they are saved to the page store. */
+    private final int pageThreshold;
 
     /**
      * Main Constructor
@@ -67,7 +57,8 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     public CachedRenderPagesModel(FOUserAgent userAgent, String outputFormat,
             FontInfo fontInfo, OutputStream stream) throws FOPException {
         super(userAgent, outputFormat, fontInfo, stream);
-        tempBaseURI = TEMP_URI_GENERATOR.generate();
+        pageStore = new MappedPageStore(getPageSerializer(), userAgent.getTempDirectory());
+        pageThreshold = userAgent.getConserveMemoryPageThreshold();
     }
 
     /** {@inheritDoc} */
@@ -79,17 +70,9 @@ public class CachedRenderPagesModel extends RenderPagesModel {
                 if (pageViewport != newpage) {
                     try {
                         // load page from cache
-                        URI tempURI = pageMap.get(pageViewport);
-                        log.debug("Loading page from: " + tempURI);
-                        InputStream inStream = renderer.getUserAgent().getResourceResolver().getResource(tempURI);
-                        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(inStream));
-                        try {
-                            pageViewport.loadPage(in);
-                        } finally {
-                            IOUtils.closeQuietly(inStream);
-                            IOUtils.closeQuietly(in);
+                        if (pageStore.load(pageViewport) && log.isDebugEnabled()) {
+                            log.debug("Page loaded from cache: " + pageViewport.getPageIndex());
                         }
-                        pageMap.remove(pageViewport);
                     } catch (Exception e) {
                         AreaEventProducer eventProducer = AreaEventProducer.Provider.get(
                                 renderer.getUserAgent().getEventBroadcaster());
@@ -106,7 +89,8 @@ public class CachedRenderPagesModel extends RenderPagesModel {
                 }
             }
         }
-        if (newpage != null && newpage.getPage() != null) {
+        if (newpage != null && newpage.getPage() != null
+                && prepared.size() - pageStore.getPageCount() > pageThreshold) {
             savePage(newpage);
             newpage.clear();
         }
@@ -115,26 +99,16 @@ public class CachedRenderPagesModel extends RenderPagesModel {
 
     /**
      * Save a page.
-     * It saves the contents of the page to a file.
+     * It saves the contents of the page to the page store.
      *
      * @param page the page to prepare
      */
     protected void savePage(PageViewport page) {
         try {
             // save page to cache
-            ObjectOutputStream tempstream;
-            String fname = "fop-page-" + page.getPageIndex() + ".ser";
-            URI tempURI = tempBaseURI.resolve(fname);
-            OutputStream outStream = renderer.getUserAgent().getResourceResolver().getOutputStream(tempURI);
-            tempstream = new ObjectOutputStream(new BufferedOutputStream(outStream));
-            try {
-                page.savePage(tempstream);
-            } finally {
-                IOUtils.closeQuietly(tempstream);
-            }
-            pageMap.put(page, tempURI);
+            pageStore.save(page);
             if (log.isDebugEnabled()) {
-                log.debug("Page saved to temporary file: " + tempURI);
+                log.debug("Page saved to cache: " + page.getPageIndex());
             }
         } catch (IOException ioe) {
             AreaEventProducer eventProducer
@@ -144,10 +118,61 @@ public class CachedRenderPagesModel extends RenderPagesModel {
         }
     }
 
+    /**
+     * Returns the serializer used to write pages to the cache and read them back.
+     * @return the page serializer
+     */
+    protected PageSerializer getPageSerializer() {
+        return renderer.getUserAgent().getPageSerializer();
+    }
+
+    /**
+     * Returns the number of pages which have been saved to the cache.
+     * @return the number of spilled pages
+     */
+    public int getSpilledPageCount() {
+        return pageStore.getSpilledPageCount();
+    }
+
+    /**
+     * Returns the number of pages which have been loaded back from the cache.
+     * @return the number of reloaded pages
+     */
+    public int getReloadedPageCount() {
+        return pageStore.getReloadedPageCount();
+    }
+
+    /** @return the temporary file the pages are saved to, or null if none has been created */
+    File getPageCacheFile() {
+        return pageStore.getFile();
+    }
+
     /** {@inheritDoc} */
     @Override
     public void endDocument() throws SAXException {
-        super.endDocument();
+        try {
+            super.endDocument();
+        } finally {
+            if (log.isDebugEnabled()) {
+                log.debug("Pages spilled: " + getSpilledPageCount()
+                        + ", pages reloaded: " + getReloadedPageCount());
+            }
+            closePageStore();
+        }
     }
-}
 
+    /** {@inheritDoc} */
+    @Override
+    public void abortDocument() {
+        closePageStore();
+        super.abortDocument();
+    }
+
+    private void closePageStore() {
+        try {
+            pageStore.close();
+        } catch (IOException ioe) {
+            log.warn("Could not release the page cache: " + ioe.getMessage());
+        }
+    }
+}
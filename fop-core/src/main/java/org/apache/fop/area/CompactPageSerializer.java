@@ -0,0 +1,1263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.w3c.dom.Document;
+
+import org.apache.xmlgraphics.util.QName;
+
+import org.apache.fop.area.inline.Anchor;
+import org.apache.fop.area.inline.BasicLinkArea;
+import org.apache.fop.area.inline.Container;
+import org.apache.fop.area.inline.FilledArea;
+import org.apache.fop.area.inline.ForeignObject;
+import org.apache.fop.area.inline.Image;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.InlineBlockParent;
+import org.apache.fop.area.inline.InlineParent;
+import org.apache.fop.area.inline.InlineViewport;
+import org.apache.fop.area.inline.Leader;
+import org.apache.fop.area.inline.ResolvedPageNumber;
+import org.apache.fop.area.inline.Space;
+import org.apache.fop.area.inline.SpaceArea;
+import org.apache.fop.area.inline.TextArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+import org.apache.fop.area.inline.WordArea;
+import org.apache.fop.fo.extensions.ExtensionAttachment;
+import org.apache.fop.fonts.FontTriplet;
+
+import static org.apache.fop.fo.Constants.FO_REGION_AFTER;
+import static org.apache.fop.fo.Constants.FO_REGION_BEFORE;
+import static org.apache.fop.fo.Constants.FO_REGION_BODY;
+import static org.apache.fop.fo.Constants.FO_REGION_END;
+import static org.apache.fop.fo.Constants.FO_REGION_START;
+
+/**
+ * Page serializer using a compact binary encoding of the area tree instead of Java object
+ * serialization. The area tree is streamed without reflection: integers are written as
+ * variable-length quantities, and strings, fonts and colors are written once per page and
+ * referred to by their index afterwards. Other trait values (borders, backgrounds...) share
+ * a single Java object stream per page.
+ * <p>
+ * Pages containing area classes that are unknown to this serializer (for example areas
+ * created by extensions) are written using Java object serialization instead.
+ * <p>
+ * The adjustment information kept by lines and inline areas while a line is being justified
+ * is not retained. It is not used on a reloaded page since an {@link UnresolvedPageNumber}
+ * does not keep its font either once its page has been cached.
+ */
+public class CompactPageSerializer implements PageSerializer {
+
+    private static final int MAGIC = 0x464F5047; // "FOPG"
+    private static final int VERSION = 1;
+
+    private static final int MODE_COMPACT = 0;
+    private static final int MODE_JAVA = 1;
+
+    private static final int[] REGIONS = {
+        FO_REGION_BEFORE, FO_REGION_START, FO_REGION_BODY, FO_REGION_END, FO_REGION_AFTER};
+
+    // object references
+    private static final int REF_NULL = 0;
+    private static final int REF_NEW = 1;
+    private static final int REF_HANDLE_OFFSET = 2;
+
+    // object types
+    private static final int REGION_VIEWPORT = 1;
+    private static final int REGION_REFERENCE = 2;
+    private static final int BODY_REGION = 3;
+    private static final int SPAN = 4;
+    private static final int BLOCK = 5;
+    private static final int BLOCK_VIEWPORT = 6;
+    private static final int SIDE_FLOAT = 7;
+    private static final int LINE_AREA = 8;
+    private static final int INLINE_AREA = 9;
+    private static final int INLINE_PARENT = 10;
+    private static final int BASIC_LINK_AREA = 11;
+    private static final int FILLED_AREA = 12;
+    private static final int TEXT_AREA = 13;
+    private static final int RESOLVED_PAGE_NUMBER = 14;
+    private static final int UNRESOLVED_PAGE_NUMBER = 15;
+    private static final int WORD_AREA = 16;
+    private static final int SPACE_AREA = 17;
+    private static final int SPACE = 18;
+    private static final int ANCHOR = 19;
+    private static final int LEADER = 20;
+    private static final int INLINE_BLOCK_PARENT = 21;
+    private static final int INLINE_VIEWPORT = 22;
+    private static final int IMAGE = 23;
+    private static final int FOREIGN_OBJECT = 24;
+    private static final int CONTAINER = 25;
+    private static final int LINK_RESOLVER = 26;
+
+    // trait values
+    private static final int VALUE_INT = 0;
+    private static final int VALUE_TRUE = 1;
+    private static final int VALUE_FALSE = 2;
+    private static final int VALUE_STRING = 3;
+    private static final int VALUE_REF = 4;
+    private static final int VALUE_FONT_TRIPLET = 5;
+    private static final int VALUE_COLOR = 6;
+    private static final int VALUE_OBJECT = 7;
+
+    private static final Map<Class<?>, Integer> TYPES = new HashMap<Class<?>, Integer>();
+
+    static {
+        TYPES.put(RegionViewport.class, REGION_VIEWPORT);
+        TYPES.put(RegionReference.class, REGION_REFERENCE);
+        TYPES.put(BodyRegion.class, BODY_REGION);
+        TYPES.put(Span.class, SPAN);
+        TYPES.put(Block.class, BLOCK);
+        TYPES.put(BlockViewport.class, BLOCK_VIEWPORT);
+        TYPES.put(SideFloat.class, SIDE_FLOAT);
+        TYPES.put(LineArea.class, LINE_AREA);
+        TYPES.put(InlineArea.class, INLINE_AREA);
+        TYPES.put(InlineParent.class, INLINE_PARENT);
+        TYPES.put(BasicLinkArea.class, BASIC_LINK_AREA);
+        TYPES.put(FilledArea.class, FILLED_AREA);
+        TYPES.put(TextArea.class, TEXT_AREA);
+        TYPES.put(ResolvedPageNumber.class, RESOLVED_PAGE_NUMBER);
+        TYPES.put(UnresolvedPageNumber.class, UNRESOLVED_PAGE_NUMBER);
+        TYPES.put(WordArea.class, WORD_AREA);
+        TYPES.put(SpaceArea.class, SPACE_AREA);
+        TYPES.put(Space.class, SPACE);
+        TYPES.put(Anchor.class, ANCHOR);
+        TYPES.put(Leader.class, LEADER);
+        TYPES.put(InlineBlockParent.class, INLINE_BLOCK_PARENT);
+        TYPES.put(InlineViewport.class, INLINE_VIEWPORT);
+        TYPES.put(Image.class, IMAGE);
+        TYPES.put(ForeignObject.class, FOREIGN_OBJECT);
+        TYPES.put(Container.class, CONTAINER);
+        TYPES.put(LinkResolver.class, LINK_RESOLVER);
+    }
+
+    private final PageSerializer fallback = new JavaPageSerializer();
+
+    /** {@inheritDoc} */
+    public String getFileExtension() {
+        return ".fpg";
+    }
+
+    /** {@inheritDoc} */
+    public void writePage(Page page, OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeByte(VERSION);
+        if (isSupported(page)) {
+            dout.writeByte(MODE_COMPACT);
+            new PageWriter(dout).writePage(page);
+            dout.flush();
+        } else {
+            dout.writeByte(MODE_JAVA);
+            dout.flush();
+            fallback.writePage(page, out);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Page readPage(InputStream in) throws IOException {
+        DataInputStream din = new DataInputStream(in);
+        if (din.readInt() != MAGIC) {
+            throw new IOException("Not a compact page stream");
+        }
+        int version = din.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported compact page version: " + version);
+        }
+        int mode = din.readUnsignedByte();
+        if (mode == MODE_JAVA) {
+            return fallback.readPage(in);
+        } else if (mode == MODE_COMPACT) {
+            return new PageReader(din).readPage();
+        } else {
+            throw new IOException("Invalid compact page mode: " + mode);
+        }
+    }
+
+    private static boolean isSupported(Page page) {
+        for (int region : REGIONS) {
+            if (!isSupported(page.getRegionViewport(region))) {
+                return false;
+            }
+        }
+        Map<String, List<Resolvable>> unresolved = page.getUnresolvedReferences();
+        if (unresolved != null) {
+            for (List<Resolvable> resolvables : unresolved.values()) {
+                for (Resolvable res : resolvables) {
+                    if (!TYPES.containsKey(res.getClass())) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSupported(List<?> areas) {
+        if (areas != null) {
+            for (Object area : areas) {
+                if (!isSupported((Area) area)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSupported(Area area) {
+        if (area == null) {
+            return true;
+        } else if (!TYPES.containsKey(area.getClass())) {
+            return false;
+        } else if (area instanceof RegionViewport) {
+            return isSupported(((RegionViewport) area).getRegionReference());
+        } else if (area instanceof BodyRegion) {
+            BodyRegion body = (BodyRegion) area;
+            for (Span span : body.getMainReference().getSpans()) {
+                for (int i = 0; i < span.getColumnCount(); i++) {
+                    if (!isSupported(span.getNormalFlow(i).getChildAreas())) {
+                        return false;
+                    }
+                }
+            }
+            return isSupported(body.getBlocks())
+                    && isSupported(body.getBeforeFloat().getChildAreas())
+                    && isSupported(body.getBeforeFloat().getSeparator())
+                    && isSupported(body.getFootnote().getChildAreas())
+                    && isSupported(body.getFootnote().getSeparator());
+        } else if (area instanceof RegionReference) {
+            return isSupported(((RegionReference) area).getBlocks());
+        } else if (area instanceof BlockParent) {
+            return isSupported(((BlockParent) area).getChildAreas());
+        } else if (area instanceof LineArea) {
+            return isSupported(((LineArea) area).getInlineAreas());
+        } else if (area instanceof InlineParent) {
+            return isSupported(((InlineParent) area).getChildAreas());
+        } else if (area instanceof InlineBlockParent) {
+            return isSupported(((InlineBlockParent) area).getChildArea());
+        } else if (area instanceof InlineViewport) {
+            return isSupported(((InlineViewport) area).getContent());
+        } else if (area instanceof Container) {
+            return isSupported(((Container) area).getBlocks());
+        } else {
+            return true;
+        }
+    }
+
+    /** Writes the area tree of a page. */
+    private static final class PageWriter {
+
+        private final DataOutputStream out;
+
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        private final Map<Object, Integer> values = new IdentityHashMap<Object, Integer>();
+
+        private final Map<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+
+        private ByteArrayOutputStream objectBuffer;
+
+        private ObjectOutputStream objectOut;
+
+        private PageWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void writePage(Page page) throws IOException {
+            writeBoolean(page.isFakeNonEmpty());
+            writeAreaTreeObject(page);
+            for (int region : REGIONS) {
+                writeObject(page.getRegionViewport(region));
+            }
+            Map<String, List<Resolvable>> unresolved = page.getUnresolvedReferences();
+            if (unresolved == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(unresolved.size() + 1);
+                for (Map.Entry<String, List<Resolvable>> entry : unresolved.entrySet()) {
+                    writeString(entry.getKey());
+                    writeVarInt(entry.getValue().size());
+                    for (Resolvable res : entry.getValue()) {
+                        writeObject(res);
+                    }
+                }
+            }
+        }
+
+        private void writeObject(Object obj) throws IOException {
+            if (obj == null) {
+                writeVarInt(REF_NULL);
+                return;
+            }
+            Integer handle = handles.get(obj);
+            if (handle != null) {
+                writeVarInt(handle + REF_HANDLE_OFFSET);
+                return;
+            }
+            int type = TYPES.get(obj.getClass());
+            writeVarInt(REF_NEW);
+            writeVarInt(type);
+            writeConstructorArguments(type, obj);
+            handles.put(obj, handles.size());
+            writeContent(type, obj);
+        }
+
+        private void writeConstructorArguments(int type, Object obj) throws IOException {
+            switch (type) {
+            case REGION_VIEWPORT:
+                writeRectangle(((RegionViewport) obj).getViewArea());
+                break;
+            case BODY_REGION:
+                BodyRegion body = (BodyRegion) obj;
+                writeVarInt(body.getRegionClass());
+                writeString(body.getRegionName());
+                writeVarInt(body.getColumnCount());
+                writeInt(body.getColumnGap());
+                break;
+            case REGION_REFERENCE:
+                RegionReference region = (RegionReference) obj;
+                writeVarInt(region.getRegionClass());
+                writeString(region.getRegionName());
+                break;
+            case SPAN:
+                Span span = (Span) obj;
+                writeVarInt(span.getColumnCount());
+                writeInt(span.getColumnGap());
+                writeInt(span.getIPD());
+                break;
+            case UNRESOLVED_PAGE_NUMBER:
+                UnresolvedPageNumber upn = (UnresolvedPageNumber) obj;
+                writeString(upn.getIDRefs()[0]);
+                writeBoolean(upn.getPageType());
+                break;
+            case WORD_AREA:
+                WordArea word = (WordArea) obj;
+                writeString(word.getWord());
+                writeIntArray(word.getLetterAdjustArray());
+                writeIntArray(word.getBidiLevels());
+                int[][] gpos = word.getGlyphPositionAdjustments();
+                if (gpos == null) {
+                    writeVarInt(0);
+                } else {
+                    writeVarInt(gpos.length + 1);
+                    for (int[] adjustments : gpos) {
+                        writeIntArray(adjustments);
+                    }
+                }
+                writeBoolean(word.isReversed());
+                break;
+            case SPACE_AREA:
+                SpaceArea space = (SpaceArea) obj;
+                writeVarInt(space.getSpace().charAt(0));
+                writeBoolean(space.isAdjustable());
+                break;
+            case IMAGE:
+                writeString(((Image) obj).getURL());
+                break;
+            case FOREIGN_OBJECT:
+                writeString(((ForeignObject) obj).getNameSpace());
+                break;
+            case LINK_RESOLVER:
+                LinkResolver resolver = (LinkResolver) obj;
+                writeString(resolver.getIDRefs()[0]);
+                writeBoolean(resolver.isResolved());
+                writeObject(resolver.getArea());
+                break;
+            default:
+                break;
+            }
+        }
+
+        private void writeContent(int type, Object obj) throws IOException {
+            switch (type) {
+            case REGION_VIEWPORT:
+                RegionViewport viewport = (RegionViewport) obj;
+                writeBoolean(viewport.hasClip());
+                writeObject(viewport.getRegionReference());
+                break;
+            case BODY_REGION:
+                BodyRegion body = (BodyRegion) obj;
+                writeCTM(body.getCTM());
+                writeAreas(body.getBlocks());
+                MainReference mainReference = body.getMainReference();
+                writeAreas(mainReference.getSpans());
+                writeAreaState(mainReference);
+                BeforeFloat beforeFloat = body.getBeforeFloat();
+                writeBlockParentContent(beforeFloat);
+                writeObject(beforeFloat.getSeparator());
+                writeAreaState(beforeFloat);
+                Footnote footnote = body.getFootnote();
+                writeBlockParentContent(footnote);
+                writeObject(footnote.getSeparator());
+                writeInt(footnote.getTop());
+                writeAreaState(footnote);
+                break;
+            case REGION_REFERENCE:
+                RegionReference region = (RegionReference) obj;
+                writeCTM(region.getCTM());
+                writeAreas(region.getBlocks());
+                break;
+            case SPAN:
+                Span span = (Span) obj;
+                for (int i = 0; i < span.getColumnCount(); i++) {
+                    NormalFlow flow = span.getNormalFlow(i);
+                    writeBlockParentContent(flow);
+                    writeAreaState(flow);
+                }
+                writeVarInt(span.getCurrentFlowIndex());
+                break;
+            case BLOCK:
+            case SIDE_FLOAT:
+                writeBlockContent((Block) obj);
+                break;
+            case BLOCK_VIEWPORT:
+                BlockViewport blockViewport = (BlockViewport) obj;
+                writeBlockContent(blockViewport);
+                writeBoolean(blockViewport.hasClip());
+                writeCTM(blockViewport.getCTM());
+                break;
+            case LINE_AREA:
+                writeAreas(((LineArea) obj).getInlineAreas());
+                break;
+            case INLINE_PARENT:
+                writeAreas(((InlineParent) obj).getChildAreas());
+                break;
+            case BASIC_LINK_AREA:
+                BasicLinkArea link = (BasicLinkArea) obj;
+                writeAreas(link.getChildAreas());
+                writeObject(link.getResolver());
+                break;
+            case FILLED_AREA:
+                FilledArea filled = (FilledArea) obj;
+                writeInt(filled.getUnitWidth());
+                // getChildAreas() repeats the unit content to fill the area
+                Map<InlineArea, Boolean> unit = new IdentityHashMap<InlineArea, Boolean>();
+                List<InlineArea> unitAreas = new ArrayList<InlineArea>();
+                for (InlineArea child : filled.getChildAreas()) {
+                    if (unit.put(child, Boolean.TRUE) == null) {
+                        unitAreas.add(child);
+                    }
+                }
+                writeAreas(unitAreas);
+                break;
+            case TEXT_AREA:
+            case RESOLVED_PAGE_NUMBER:
+            case UNRESOLVED_PAGE_NUMBER:
+                TextArea text = (TextArea) obj;
+                writeAreas(text.getChildAreas());
+                writeInt(text.getTextWordSpaceAdjust());
+                writeInt(text.getTextLetterSpaceAdjust());
+                writeInt(text.getBaselineOffset());
+                writeBoolean(text.isHyphenated());
+                if (type == UNRESOLVED_PAGE_NUMBER) {
+                    UnresolvedPageNumber upn = (UnresolvedPageNumber) obj;
+                    writeBoolean(upn.isResolved());
+                    if (upn.isResolved()) {
+                        writeString(upn.getText());
+                    }
+                }
+                break;
+            case LEADER:
+                Leader leader = (Leader) obj;
+                writeVarInt(leader.getRuleStyle());
+                writeInt(leader.getRuleThickness());
+                break;
+            case INLINE_BLOCK_PARENT:
+                writeObject(((InlineBlockParent) obj).getChildArea());
+                break;
+            case INLINE_VIEWPORT:
+                InlineViewport inlineViewport = (InlineViewport) obj;
+                writeObject(inlineViewport.getContent());
+                writeBoolean(inlineViewport.hasClip());
+                Rectangle2D contentPosition = inlineViewport.getContentPosition();
+                writeBoolean(contentPosition != null);
+                if (contentPosition != null) {
+                    writeRectangle(contentPosition);
+                }
+                break;
+            case FOREIGN_OBJECT:
+                Document doc = ((ForeignObject) obj).getDocument();
+                writeBoolean(doc != null);
+                if (doc != null) {
+                    writeSerialized(doc);
+                }
+                break;
+            case CONTAINER:
+                writeAreas(((Container) obj).getBlocks());
+                break;
+            case LINK_RESOLVER:
+                return;
+            default:
+                break;
+            }
+            if (obj instanceof InlineArea) {
+                writeInt(((InlineArea) obj).getBlockProgressionOffset());
+            }
+            writeAreaState((Area) obj);
+        }
+
+        private void writeBlockParentContent(BlockParent blockParent) throws IOException {
+            writeInt(blockParent.getXOffset());
+            writeInt(blockParent.getYOffset());
+            writeAreas(blockParent.getChildAreas());
+        }
+
+        private void writeBlockContent(Block block) throws IOException {
+            writeBlockParentContent(block);
+            writeVarInt(block.getPositioning());
+            Locale locale = block.getLocale();
+            writeBoolean(locale != null);
+            if (locale != null) {
+                writeString(locale.getLanguage());
+                writeString(locale.getCountry());
+                writeString(locale.getVariant());
+            }
+            writeString(block.getLocation());
+        }
+
+        private void writeAreas(List<?> areas) throws IOException {
+            if (areas == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(areas.size());
+                for (Object area : areas) {
+                    writeObject(area);
+                }
+            }
+        }
+
+        private void writeAreaState(Area area) throws IOException {
+            writeVarInt(area.getAreaClass());
+            writeInt(area.ipd);
+            writeInt(area.bpd);
+            writeInt(area.effectiveIPD);
+            writeInt(area.bidiLevel);
+            TreeMap<Integer, Object> traits = area.traits;
+            if (traits == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(traits.size() + 1);
+                for (Map.Entry<Integer, Object> trait : traits.entrySet()) {
+                    writeVarInt(trait.getKey());
+                    writeValue(trait.getValue());
+                }
+            }
+            writeAreaTreeObject(area);
+        }
+
+        private void writeAreaTreeObject(AreaTreeObject ato) throws IOException {
+            Map<QName, String> foreignAttributes = ato.foreignAttributes;
+            if (foreignAttributes == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(foreignAttributes.size() + 1);
+                for (Map.Entry<QName, String> att : foreignAttributes.entrySet()) {
+                    writeString(att.getKey().getNamespaceURI());
+                    writeString(att.getKey().getQName());
+                    writeString(att.getValue());
+                }
+            }
+            List<ExtensionAttachment> attachments = ato.extensionAttachments;
+            if (attachments == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(attachments.size() + 1);
+                for (ExtensionAttachment attachment : attachments) {
+                    writeSerialized(attachment);
+                }
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value instanceof Integer) {
+                writeVarInt(VALUE_INT);
+                writeInt((Integer) value);
+            } else if (value instanceof Boolean) {
+                writeVarInt((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+            } else if (value instanceof String) {
+                writeVarInt(VALUE_STRING);
+                writeString((String) value);
+            } else if (values.containsKey(value)) {
+                writeVarInt(VALUE_REF);
+                writeVarInt(values.get(value));
+            } else if (value.getClass() == FontTriplet.class) {
+                values.put(value, values.size());
+                FontTriplet triplet = (FontTriplet) value;
+                writeVarInt(VALUE_FONT_TRIPLET);
+                writeString(triplet.getName());
+                writeString(triplet.getStyle());
+                writeVarInt(triplet.getWeight());
+                writeInt(triplet.getPriority());
+            } else if (value.getClass() == Color.class
+                    && ((Color) value).getColorSpace().isCS_sRGB()) {
+                values.put(value, values.size());
+                writeVarInt(VALUE_COLOR);
+                for (float component : ((Color) value).getRGBComponents(null)) {
+                    out.writeFloat(component);
+                }
+            } else {
+                writeVarInt(VALUE_OBJECT);
+                writeSerialized(value);
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(s);
+            if (index != null) {
+                writeVarInt(index + 2);
+                return;
+            }
+            strings.put(s, strings.size());
+            writeVarInt(1);
+            int length = s.length();
+            writeVarInt(length);
+            for (int i = 0; i < length; i++) {
+                writeVarInt(s.charAt(i));
+            }
+        }
+
+        private void writeIntArray(int[] values) throws IOException {
+            if (values == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(values.length + 1);
+                for (int value : values) {
+                    writeInt(value);
+                }
+            }
+        }
+
+        private void writeRectangle(Rectangle2D rect) throws IOException {
+            out.writeFloat((float) rect.getX());
+            out.writeFloat((float) rect.getY());
+            out.writeFloat((float) rect.getWidth());
+            out.writeFloat((float) rect.getHeight());
+        }
+
+        private void writeCTM(CTM ctm) throws IOException {
+            writeBoolean(ctm != null);
+            if (ctm != null) {
+                for (double value : ctm.toArray()) {
+                    out.writeDouble(value);
+                }
+            }
+        }
+
+        /**
+         * Writes an object using Java serialization. All such objects of a page share one
+         * object stream so that class descriptors and shared instances are written only once.
+         */
+        private void writeSerialized(Object obj) throws IOException {
+            if (objectOut == null) {
+                objectBuffer = new ByteArrayOutputStream();
+                objectOut = new ObjectOutputStream(objectBuffer);
+            }
+            objectOut.writeObject(obj);
+            objectOut.flush();
+            writeVarInt(objectBuffer.size());
+            objectBuffer.writeTo(out);
+            objectBuffer.reset();
+        }
+
+        private void writeBoolean(boolean value) throws IOException {
+            out.writeByte(value ? 1 : 0);
+        }
+
+        /** Writes a signed integer as a zig-zag encoded variable-length quantity. */
+        private void writeInt(int value) throws IOException {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        /** Writes an unsigned integer as a variable-length quantity, 7 bits per byte. */
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    /** Reads the area tree of a page. */
+    private static final class PageReader {
+
+        private final DataInputStream in;
+
+        private final List<String> strings = new ArrayList<String>();
+
+        private final List<Object> values = new ArrayList<Object>();
+
+        private final List<Object> handles = new ArrayList<Object>();
+
+        private final ChunkInputStream objectData;
+
+        private ObjectInputStream objectIn;
+
+        private PageReader(DataInputStream in) {
+            this.in = in;
+            this.objectData = new ChunkInputStream(in);
+        }
+
+        private Page readPage() throws IOException {
+            Page page = new Page();
+            if (readBoolean()) {
+                page.fakeNonEmpty();
+            }
+            readAreaTreeObject(page);
+            for (int region : REGIONS) {
+                RegionViewport viewport = (RegionViewport) readObject(null);
+                if (viewport != null) {
+                    page.setRegionViewport(region, viewport);
+                }
+            }
+            int count = readVarInt();
+            if (count > 0) {
+                Map<String, List<Resolvable>> unresolved = new HashMap<String, List<Resolvable>>();
+                for (int i = 1; i < count; i++) {
+                    String idref = readString();
+                    int size = readVarInt();
+                    List<Resolvable> resolvables = new ArrayList<Resolvable>(size);
+                    for (int j = 0; j < size; j++) {
+                        resolvables.add((Resolvable) readObject(null));
+                    }
+                    unresolved.put(idref, resolvables);
+                }
+                page.setUnresolvedReferences(unresolved);
+            }
+            return page;
+        }
+
+        private Object readObject(Area parent) throws IOException {
+            int ref = readVarInt();
+            if (ref == REF_NULL) {
+                return null;
+            } else if (ref != REF_NEW) {
+                int handle = ref - REF_HANDLE_OFFSET;
+                if (handle >= handles.size()) {
+                    throw new IOException("Invalid object reference: " + handle);
+                }
+                return handles.get(handle);
+            }
+            int type = readVarInt();
+            Object obj = createObject(type, parent);
+            handles.add(obj);
+            readContent(type, obj);
+            return obj;
+        }
+
+        private Object createObject(int type, Area parent) throws IOException {
+            switch (type) {
+            case REGION_VIEWPORT:
+                return new RegionViewport(readRectangle());
+            case BODY_REGION:
+                int regionClass = readVarInt();
+                String regionName = readString();
+                int columnCount = readVarInt();
+                return new BodyRegion(regionClass, regionName, (RegionViewport) parent,
+                        columnCount, readInt());
+            case REGION_REFERENCE:
+                return new RegionReference(readVarInt(), readString(), (RegionViewport) parent);
+            case SPAN:
+                int colCount = readVarInt();
+                int colGap = readInt();
+                return new Span(colCount, colGap, readInt());
+            case BLOCK:
+                return new Block();
+            case BLOCK_VIEWPORT:
+                return new BlockViewport();
+            case SIDE_FLOAT:
+                return new SideFloat();
+            case LINE_AREA:
+                return new LineArea();
+            case INLINE_AREA:
+                return new InlineArea();
+            case INLINE_PARENT:
+                return new InlineParent();
+            case BASIC_LINK_AREA:
+                return new BasicLinkArea();
+            case FILLED_AREA:
+                return new FilledArea();
+            case TEXT_AREA:
+                return new TextArea();
+            case RESOLVED_PAGE_NUMBER:
+                return new ResolvedPageNumber();
+            case UNRESOLVED_PAGE_NUMBER:
+                String pageIDRef = readString();
+                return new UnresolvedPageNumber(pageIDRef, null, readBoolean());
+            case WORD_AREA:
+                String word = readString();
+                int[] letterAdjust = readIntArray();
+                int[] levels = readIntArray();
+                int[][] gpos = null;
+                int gposLength = readVarInt();
+                if (gposLength > 0) {
+                    gpos = new int[gposLength - 1][];
+                    for (int i = 0; i < gpos.length; i++) {
+                        gpos[i] = readIntArray();
+                    }
+                }
+                return new WordArea(0, -1, word, letterAdjust, levels, gpos, readBoolean());
+            case SPACE_AREA:
+                char space = (char) readVarInt();
+                return new SpaceArea(0, -1, space, readBoolean());
+            case SPACE:
+                return new Space();
+            case ANCHOR:
+                return new Anchor();
+            case LEADER:
+                return new Leader();
+            case INLINE_BLOCK_PARENT:
+                return new InlineBlockParent();
+            case INLINE_VIEWPORT:
+                return new InlineViewport(null);
+            case IMAGE:
+                return new Image(readString());
+            case FOREIGN_OBJECT:
+                return new ForeignObject(readString());
+            case CONTAINER:
+                return new Container();
+            case LINK_RESOLVER:
+                String idRef = readString();
+                boolean resolved = readBoolean();
+                LinkResolver resolver = new LinkResolver(idRef, (Area) readObject(null));
+                if (resolved) {
+                    resolver.setResolved();
+                }
+                return resolver;
+            default:
+                throw new IOException("Invalid object type: " + type);
+            }
+        }
+
+        private void readContent(int type, Object obj) throws IOException {
+            switch (type) {
+            case REGION_VIEWPORT:
+                RegionViewport viewport = (RegionViewport) obj;
+                viewport.setClip(readBoolean());
+                viewport.setRegionReference((RegionReference) readObject(viewport));
+                break;
+            case BODY_REGION:
+                BodyRegion body = (BodyRegion) obj;
+                body.setCTM(readCTM());
+                readAreas(body);
+                MainReference mainReference = body.getMainReference();
+                int spanCount = readVarInt();
+                List<Span> spans = new ArrayList<Span>(spanCount);
+                for (int i = 0; i < spanCount; i++) {
+                    spans.add((Span) readObject(mainReference));
+                }
+                mainReference.setSpans(spans);
+                readAreaState(mainReference);
+                BeforeFloat beforeFloat = body.getBeforeFloat();
+                readBlockParentContent(beforeFloat);
+                beforeFloat.setSeparator((Block) readObject(beforeFloat));
+                readAreaState(beforeFloat);
+                Footnote footnote = body.getFootnote();
+                readBlockParentContent(footnote);
+                footnote.setSeparator((Block) readObject(footnote));
+                footnote.setTop(readInt());
+                readAreaState(footnote);
+                break;
+            case REGION_REFERENCE:
+                RegionReference region = (RegionReference) obj;
+                region.setCTM(readCTM());
+                readAreas(region);
+                break;
+            case SPAN:
+                Span span = (Span) obj;
+                for (int i = 0; i < span.getColumnCount(); i++) {
+                    NormalFlow flow = span.getNormalFlow(i);
+                    readBlockParentContent(flow);
+                    readAreaState(flow);
+                }
+                for (int i = readVarInt(); i > 0; i--) {
+                    span.moveToNextFlow();
+                }
+                break;
+            case BLOCK:
+            case SIDE_FLOAT:
+                readBlockContent((Block) obj);
+                break;
+            case BLOCK_VIEWPORT:
+                BlockViewport blockViewport = (BlockViewport) obj;
+                readBlockContent(blockViewport);
+                blockViewport.setClip(readBoolean());
+                blockViewport.setCTM(readCTM());
+                break;
+            case LINE_AREA:
+            case INLINE_PARENT:
+            case TEXT_AREA:
+            case RESOLVED_PAGE_NUMBER:
+                readAreas((Area) obj);
+                break;
+            case BASIC_LINK_AREA:
+                BasicLinkArea link = (BasicLinkArea) obj;
+                readAreas(link);
+                link.setResolver((LinkResolver) readObject(link));
+                break;
+            case FILLED_AREA:
+                FilledArea filled = (FilledArea) obj;
+                filled.setUnitWidth(readInt());
+                readAreas(filled);
+                break;
+            case UNRESOLVED_PAGE_NUMBER:
+                readAreas((Area) obj);
+                break;
+            case LEADER:
+                Leader leader = (Leader) obj;
+                leader.setRuleStyle(readVarInt());
+                leader.setRuleThickness(readInt());
+                break;
+            case INLINE_BLOCK_PARENT:
+                InlineBlockParent inlineBlockParent = (InlineBlockParent) obj;
+                Area child = (Area) readObject(inlineBlockParent);
+                if (child != null) {
+                    inlineBlockParent.addChildArea(child);
+                }
+                break;
+            case INLINE_VIEWPORT:
+                InlineViewport inlineViewport = (InlineViewport) obj;
+                inlineViewport.setContent((Area) readObject(inlineViewport));
+                inlineViewport.setClip(readBoolean());
+                if (readBoolean()) {
+                    inlineViewport.setContentPosition(readRectangle());
+                }
+                break;
+            case FOREIGN_OBJECT:
+                if (readBoolean()) {
+                    ((ForeignObject) obj).setDocument((Document) readSerialized());
+                }
+                break;
+            case CONTAINER:
+                readAreas((Area) obj);
+                break;
+            case LINK_RESOLVER:
+                return;
+            default:
+                break;
+            }
+            if (obj instanceof TextArea) {
+                TextArea text = (TextArea) obj;
+                text.setTextWordSpaceAdjust(readInt());
+                text.setTextLetterSpaceAdjust(readInt());
+                text.setBaselineOffset(readInt());
+                if (readBoolean()) {
+                    text.setHyphenated();
+                }
+                if (type == UNRESOLVED_PAGE_NUMBER && readBoolean()) {
+                    ((UnresolvedPageNumber) obj).setResolved(readString());
+                }
+            }
+            if (obj instanceof InlineArea) {
+                ((InlineArea) obj).setBlockProgressionOffset(readInt());
+            }
+            readAreaState((Area) obj);
+        }
+
+        private void readBlockParentContent(BlockParent blockParent) throws IOException {
+            blockParent.setXOffset(readInt());
+            blockParent.setYOffset(readInt());
+            readAreas(blockParent);
+        }
+
+        private void readBlockContent(Block block) throws IOException {
+            readBlockParentContent(block);
+            block.setPositioning(readVarInt());
+            if (readBoolean()) {
+                String language = readString();
+                String country = readString();
+                block.setLocale(new Locale(language, country, readString()));
+            }
+            block.setLocation(readString());
+        }
+
+        /** Reads a list of areas and adds them as children of the given parent area. */
+        private void readAreas(Area parent) throws IOException {
+            for (int i = readVarInt(); i > 0; i--) {
+                Area child = (Area) readObject(parent);
+                if (child instanceof BasicLinkArea) {
+                    addLinkArea(parent, (BasicLinkArea) child);
+                } else {
+                    parent.addChildArea(child);
+                }
+            }
+        }
+
+        /**
+         * Adds a basic link area to its parent. The offsets of a link area are adjusted when
+         * it is added to its parent, which has already happened to the offsets that were
+         * written, so they are put back once the link has been added.
+         */
+        private void addLinkArea(Area parent, BasicLinkArea link) {
+            List<InlineArea> children = link.getChildAreas();
+            int[] offsets = new int[children.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = children.get(i).getBlockProgressionOffset();
+            }
+            int offset = link.getBlockProgressionOffset();
+            int bpd = link.getBPD();
+            parent.addChildArea(link);
+            for (int i = 0; i < offsets.length; i++) {
+                children.get(i).setBlockProgressionOffset(offsets[i]);
+            }
+            link.setBlockProgressionOffset(offset);
+            link.setBPD(bpd);
+        }
+
+        private void readAreaState(Area area) throws IOException {
+            area.setAreaClass(readVarInt());
+            area.ipd = readInt();
+            area.bpd = readInt();
+            area.effectiveIPD = readInt();
+            area.setBidiLevel(readInt());
+            int count = readVarInt();
+            if (count == 0) {
+                area.traits = null;
+            } else {
+                TreeMap<Integer, Object> traits = new TreeMap<Integer, Object>();
+                for (int i = 1; i < count; i++) {
+                    Integer key = readVarInt();
+                    traits.put(key, readValue());
+                }
+                area.traits = traits;
+            }
+            readAreaTreeObject(area);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void readAreaTreeObject(AreaTreeObject ato) throws IOException {
+            int count = readVarInt();
+            if (count > 0) {
+                Map<QName, String> foreignAttributes = new HashMap<QName, String>();
+                for (int i = 1; i < count; i++) {
+                    String namespaceURI = readString();
+                    String qName = readString();
+                    foreignAttributes.put(new QName(namespaceURI, qName), readString());
+                }
+                ato.foreignAttributes = foreignAttributes;
+            }
+            count = readVarInt();
+            if (count > 0) {
+                List<ExtensionAttachment> attachments = new ArrayList<ExtensionAttachment>();
+                for (int i = 1; i < count; i++) {
+                    attachments.add((ExtensionAttachment) readSerialized());
+                }
+                ato.extensionAttachments = attachments;
+            }
+        }
+
+        private Object readValue() throws IOException {
+            int tag = readVarInt();
+            Object value;
+            switch (tag) {
+            case VALUE_INT:
+                return readInt();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_STRING:
+                return readString();
+            case VALUE_REF:
+                int index = readVarInt();
+                if (index >= values.size()) {
+                    throw new IOException("Invalid trait value reference: " + index);
+                }
+                return values.get(index);
+            case VALUE_FONT_TRIPLET:
+                String name = readString();
+                String style = readString();
+                int weight = readVarInt();
+                value = new FontTriplet(name, style, weight, readInt());
+                break;
+            case VALUE_COLOR:
+                float[] rgba = new float[4];
+                for (int i = 0; i < rgba.length; i++) {
+                    rgba[i] = in.readFloat();
+                }
+                value = new Color(rgba[0], rgba[1], rgba[2], rgba[3]);
+                break;
+            case VALUE_OBJECT:
+                return readSerialized();
+            default:
+                throw new IOException("Invalid trait value type: " + tag);
+            }
+            values.add(value);
+            return value;
+        }
+
+        private String readString() throws IOException {
+            int ref = readVarInt();
+            if (ref == 0) {
+                return null;
+            } else if (ref > 1) {
+                int index = ref - 2;
+                if (index >= strings.size()) {
+                    throw new IOException("Invalid string reference: " + index);
+                }
+                return strings.get(index);
+            }
+            char[] chars = new char[readVarInt()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) readVarInt();
+            }
+            String s = new String(chars);
+            strings.add(s);
+            return s;
+        }
+
+        private int[] readIntArray() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            int[] values = new int[length - 1];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readInt();
+            }
+            return values;
+        }
+
+        private Rectangle2D readRectangle() throws IOException {
+            return new Rectangle2D.Float(in.readFloat(), in.readFloat(),
+                    in.readFloat(), in.readFloat());
+        }
+
+        private CTM readCTM() throws IOException {
+            if (!readBoolean()) {
+                return null;
+            }
+            return new CTM(in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readDouble(), in.readDouble(), in.readDouble());
+        }
+
+        private Object readSerialized() throws IOException {
+            objectData.setLength(readVarInt());
+            if (objectIn == null) {
+                objectIn = new ObjectInputStream(objectData);
+            }
+            try {
+                return objectIn.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            } finally {
+                objectData.skipRemaining();
+            }
+        }
+
+        private boolean readBoolean() throws IOException {
+            return in.readUnsignedByte() != 0;
+        }
+
+        private int readInt() throws IOException {
+            int value = readVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+    }
+
+    /** Gives access to a limited number of bytes of the underlying stream at a time. */
+    private static final class ChunkInputStream extends InputStream {
+
+        private final InputStream in;
+
+        private int remaining;
+
+        private ChunkInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        private void setLength(int length) {
+            remaining = length;
+        }
+
+        private void skipRemaining() throws IOException {
+            while (remaining > 0) {
+                if (read() < 0) {
+                    throw new EOFException();
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = in.read(b, off, Math.min(len, remaining));
+            if (count > 0) {
+                remaining -= count;
+            }
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Math.min(remaining, in.available());
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Page serializer using standard Java object serialization.
+ */
+public class JavaPageSerializer implements PageSerializer {
+
+    /** {@inheritDoc} */
+    public String getFileExtension() {
+        return ".ser";
+    }
+
+    /** {@inheritDoc} */
+    public void writePage(Page page, OutputStream out) throws IOException {
+        ObjectOutputStream oout = new ObjectOutputStream(out);
+        oout.writeObject(page);
+        oout.flush();
+    }
+
+    /** {@inheritDoc} */
+    public Page readPage(InputStream in) throws IOException {
+        ObjectInputStream oin = new ObjectInputStream(in);
+        try {
+            return (Page) oin.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+}
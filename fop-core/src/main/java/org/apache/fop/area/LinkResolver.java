@@ -63,6 +63,16 @@ public class LinkResolver implements Resolvable, Serializable {
         return resolved;
     }
 
+    /** @return the area that will have the link attribute, null once resolved */
+    Area getArea() {
+        return area;
+    }
+
+    /** Marks this link as resolved, without touching the area. */
+    void setResolved() {
+        resolved = true;
+    }
+
     /**
      * Get the references for this link.
      *
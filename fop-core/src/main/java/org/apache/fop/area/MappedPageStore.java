@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.fop.util.MappedSpillFile;
+
+/**
+ * Append-only store for the pages spilled by {@link CachedRenderPagesModel}. All pages of a
+ * rendering run are appended to a single temporary file which is memory-mapped in segments,
+ * so that saving and loading a page does not involve creating or opening any file.
+ * The space used by a page is not reclaimed once it has been loaded again; the file is
+ * unmapped and deleted when the store is closed.
+ */
+class MappedPageStore implements Closeable {
+
+    /** The default size of the segments the spill file is mapped in. */
+    static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private final PageSerializer serializer;
+
+    private final int segmentSize;
+
+    private final Map<PageViewport, Entry> entries = new HashMap<PageViewport, Entry>();
+
+    private final MappedSpillFile spillFile;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private int spilledPageCount;
+
+    private int reloadedPageCount;
+
+    /** Location of a page in the spill file. */
+    private static final class Entry {
+
+        private final int segment;
+
+        private final int offset;
+
+        private final int length;
+
+        private Entry(int segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Creates a new page store.
+     * @param serializer the serializer used to encode the pages
+     * @param directory the directory the spill file is created in, or null for the default
+     *          temporary-file directory
+     */
+    MappedPageStore(PageSerializer serializer, File directory) {
+        this(serializer, directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new page store.
+     * @param serializer the serializer used to encode the pages
+     * @param directory the directory the spill file is created in, or null for the default
+     *          temporary-file directory
+     * @param segmentSize the size of the segments the spill file is mapped in
+     */
+    MappedPageStore(PageSerializer serializer, File directory, int segmentSize) {
+        this.serializer = serializer;
+        this.spillFile = new MappedSpillFile("fop-pages", serializer.getFileExtension(),
+                directory);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Saves the contents of a page to the spill file and clears them from the page.
+     * @param page the page to save
+     * @throws IOException if an I/O error occurs while saving the page
+     */
+    void save(PageViewport page) throws IOException {
+        buffer.reset();
+        page.savePage(serializer, buffer);
+        int length = buffer.size();
+        MappedByteBuffer segment = getSegment(length);
+        int offset = segment.position();
+        // write the page straight from the buffer's internal array
+        buffer.writeTo(new ByteBufferOutputStream(segment));
+        entries.put(page, new Entry(spillFile.getSegmentCount() - 1, offset, length));
+        spilledPageCount++;
+    }
+
+    /**
+     * Loads the contents of a page from the spill file if the page has been saved to it.
+     * @param page the page to load
+     * @return true if the page was loaded, false if it has not been saved to the store
+     * @throws IOException if an I/O error occurs while loading the page
+     */
+    boolean load(PageViewport page) throws IOException {
+        Entry entry = entries.remove(page);
+        if (entry == null) {
+            return false;
+        }
+        ByteBuffer data = spillFile.getSegment(entry.segment).duplicate();
+        data.limit(entry.offset + entry.length);
+        data.position(entry.offset);
+        page.loadPage(serializer, new ByteBufferInputStream(data));
+        reloadedPageCount++;
+        return true;
+    }
+
+    /**
+     * Indicates whether a page has been saved to the store and not been loaded since.
+     * @param page the page
+     * @return true if the contents of the page are in the store
+     */
+    boolean contains(PageViewport page) {
+        return entries.containsKey(page);
+    }
+
+    /** @return the number of pages currently held by the store */
+    int getPageCount() {
+        return entries.size();
+    }
+
+    /** @return the number of pages that have been saved to the store */
+    int getSpilledPageCount() {
+        return spilledPageCount;
+    }
+
+    /** @return the number of pages that have been loaded from the store */
+    int getReloadedPageCount() {
+        return reloadedPageCount;
+    }
+
+    /** @return the temporary file the pages are spilled to, or null if none has been created */
+    File getFile() {
+        return spillFile.getFile();
+    }
+
+    private MappedByteBuffer getSegment(int length) throws IOException {
+        int count = spillFile.getSegmentCount();
+        if (count > 0) {
+            MappedByteBuffer segment = spillFile.getSegment(count - 1);
+            if (segment.remaining() >= length) {
+                return segment;
+            }
+        }
+        return spillFile.addSegment(Math.max(segmentSize, length));
+    }
+
+    /**
+     * Unmaps and deletes the spill file. Pages which have not been loaded yet are lost.
+     * @throws IOException if an I/O error occurs
+     */
+    public void close() throws IOException {
+        entries.clear();
+        spillFile.close();
+    }
+
+    /** Writes to a byte buffer. */
+    private static final class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            buffer.put(b, off, len);
+        }
+    }
+
+    /** Reads from a byte buffer. */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return buffer.remaining();
+        }
+    }
+}
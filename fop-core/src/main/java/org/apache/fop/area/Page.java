@@ -153,6 +153,11 @@ public class Page extends AreaTreeObject implements Serializable {
         this.fakeNonEmpty = true;
     }
 
+    /** @return true if this page has been told to pretend not to be empty */
+    boolean isFakeNonEmpty() {
+        return fakeNonEmpty;
+    }
+
     /**
      * Creates a RegionViewport Area object for this pagination Region.
      * @param r the region the viewport is to be created for
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lays out page-sequences one after the other on a layout thread, while the parsing thread
+ * builds the FO tree of the following page-sequences. The layout of a page-sequence only
+ * starts when the previous one is finished, so its starting page number, the resolution of
+ * its references and the order of the rendered pages are the same as in a serial layout.
+ * The parsing thread waits when more than a given number of parsed page-sequences are
+ * waiting for their layout, which bounds the number of FO trees held in memory.
+ */
+class PageSequenceLayoutQueue {
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private final ThreadPoolExecutor executor;
+
+    private final LinkedList<Future<?>> pendingLayouts = new LinkedList<Future<?>>();
+
+    private final int capacity;
+
+    /**
+     * Creates a new queue.
+     * @param capacity the number of page-sequences which may wait for their layout
+     */
+    PageSequenceLayoutQueue(int capacity) {
+        this.capacity = capacity;
+        executor = new ThreadPoolExecutor(1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new LayoutThreadFactory());
+        //Don't keep an idle thread around if the document is never finished
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues the layout of a page-sequence behind the previous ones. If too many page-sequences
+     * are waiting, this method waits until the layout of the oldest one is done. The failure
+     * of a finished layout is rethrown on the calling thread and cancels the queued layouts.
+     * @param layout the layout of the page-sequence
+     */
+    void submit(Runnable layout) {
+        pendingLayouts.add(executor.submit(layout));
+        while (!pendingLayouts.isEmpty()
+                && (pendingLayouts.size() > capacity || pendingLayouts.getFirst().isDone())) {
+            waitForOldest();
+        }
+    }
+
+    /**
+     * Waits until all queued page-sequences are laid out and stops the layout thread.
+     * The failure of a layout is rethrown on the calling thread.
+     */
+    void finish() {
+        while (!pendingLayouts.isEmpty()) {
+            waitForOldest();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Cancels the queued layouts, for example when the parsing of the document failed, and
+     * waits until the layout in progress is done, so that no more events are fired by the
+     * layout thread once this method returns.
+     */
+    void cancel() {
+        for (Future<?> layout : pendingLayouts) {
+            layout.cancel(false);
+        }
+        pendingLayouts.clear();
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS)) {
+                //Wait for the layout in progress
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void waitForOldest() {
+        boolean succeeded = false;
+        try {
+            waitFor(pendingLayouts.removeFirst());
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                cancel();
+            }
+        }
+    }
+
+    private static void waitFor(Future<?> layout) {
+        try {
+            layout.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the layout", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static class LayoutThreadFactory implements ThreadFactory {
+
+        private int threadNumber;
+
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FOP page-sequence layout " + (++threadNumber));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Strategy for writing the contents of a page to a stream and reading it back.
+ * It is used by {@link CachedRenderPagesModel} to swap out pages that cannot be
+ * rendered yet because they contain unresolved references.
+ * The map of unresolved references set on the page
+ * (see {@link Page#setUnresolvedReferences(java.util.Map)}) must be preserved,
+ * and the {@link Resolvable} objects in it must remain identical to the ones
+ * found in the area tree of the reloaded page.
+ */
+public interface PageSerializer {
+
+    /**
+     * Returns the file name extension used for pages written by this serializer.
+     * @return the file name extension (ex. ".ser")
+     */
+    String getFileExtension();
+
+    /**
+     * Writes a page to a stream. The stream is not closed.
+     * @param page the page to write
+     * @param out the output stream
+     * @throws IOException if an I/O error occurs
+     */
+    void writePage(Page page, OutputStream out) throws IOException;
+
+    /**
+     * Reads a page previously written by {@link #writePage(Page, OutputStream)}.
+     * The stream is not closed.
+     * @param in the input stream
+     * @return the page
+     * @throws IOException if an I/O error occurs or the data is invalid
+     */
+    Page readPage(InputStream in) throws IOException;
+
+}
@@ -21,8 +21,10 @@ package org.apache.fop.area;
 
 import java.awt.Rectangle;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -418,7 +420,38 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
      * @throws IOException if an I/O error occurred while loading the page
      */
     public void loadPage(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        page = (Page) in.readObject();
+        setLoadedPage((Page) in.readObject());
+    }
+
+    /**
+     * Save the page contents to a stream using the given serializer.
+     * The map of unresolved references are set on the page so that
+     * the resolvers can be properly serialized and reloaded.
+     * @param serializer the page serializer
+     * @param out the output stream to write the contents to
+     * @throws IOException in case of an I/O error while serializing the page
+     */
+    public void savePage(PageSerializer serializer, OutputStream out) throws IOException {
+        // set the unresolved references so they are serialized
+        page.setUnresolvedReferences(unresolvedIDRefs);
+        serializer.writePage(page, out);
+        page = null;
+    }
+
+    /**
+     * Load the page contents from a stream using the given serializer.
+     * If there are any unresolved references that were resolved
+     * while saved they will be resolved on the page contents.
+     * @param serializer the page serializer
+     * @param in the input stream to read the page from
+     * @throws IOException if an I/O error occurred while loading the page
+     */
+    public void loadPage(PageSerializer serializer, InputStream in) throws IOException {
+        setLoadedPage(serializer.readPage(in));
+    }
+
+    private void setLoadedPage(Page loadedPage) {
+        page = loadedPage;
         unresolvedIDRefs = page.getUnresolvedReferences();
         if (unresolvedIDRefs != null && pendingResolved != null) {
             for (Map.Entry<String, List<PageViewport>> e : pendingResolved.entrySet()) {
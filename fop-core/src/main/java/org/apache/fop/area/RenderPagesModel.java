@@ -267,5 +267,11 @@ public class RenderPagesModel extends AreaTreeModel {
             throw new SAXException(ex);
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public void abortDocument() {
+        renderer.abortRenderer();
+    }
 }
 
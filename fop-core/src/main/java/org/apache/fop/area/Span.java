@@ -81,6 +81,15 @@ public class Span extends Area {
         return colCount;
     }
 
+    /**
+     * Get the gap between the columns of this span
+     *
+     * @return the column gap
+     */
+    int getColumnGap() {
+        return colGap;
+    }
+
     /**
      * Get the width of a single column within this Span
      *
@@ -148,6 +148,24 @@ public class UnresolvedPageNumber extends TextArea implements Resolvable {
        return resolved;
     }
 
+    /**
+     * Indicates whether the first or the last page containing the referenced ID is cited.
+     * @return {@link #FIRST} or {@link #LAST}
+     */
+    public boolean getPageType() {
+        return pageType;
+    }
+
+    /**
+     * Restores the state of a page number that was already resolved, for example when
+     * a cached page is reloaded. The child areas are not changed.
+     * @param text the text of the resolved page number
+     */
+    public void setResolved(String text) {
+        this.text = text;
+        this.resolved = true;
+    }
+
     /**
      * recursively apply the variation factor to all descendant areas
      * @param variationFactor the variation factor that must be applied to adjustment ratios
@@ -31,6 +31,7 @@ import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.MimeConstants;
 
@@ -190,6 +191,14 @@ public final class Main {
             } finally {
                 IOUtils.closeQuietly(out);
             }
+            try {
+                // The FO tree builder saves the font cache after each document, but the area
+                // tree and intermediate format inputs are rendered without it
+                foUserAgent.getFontManager().saveCache();
+            } catch (FOPException e) {
+                // It's just a cache
+                options.getLogger().warn("Could not save the font cache: " + e.getMessage());
+            }
 
             // System.exit(0) called to close AWT/SVG-created threads, if any.
             // AWTRenderer closes with window shutdown, so exit() should not
@@ -125,6 +125,14 @@ public abstract class FOEventHandler {
     public void endDocument() throws SAXException {
     }
 
+    /**
+     * This method is called instead of {@link #endDocument()} when the document run is
+     * aborted because of an error.
+     * <p>The default implementation of this method does nothing.</p>
+     */
+    public void abortDocument() {
+    }
+
     /**
      * Called upon start of root element.
      * @param root element
@@ -167,7 +167,23 @@ public class FOTreeBuilder extends DefaultHandler {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Parsing of document complete");
         }
-        foEventHandler.endDocument();
+        try {
+            foEventHandler.endDocument();
+        } catch (SAXException e) {
+            foEventHandler.abortDocument();
+            throw e;
+        } catch (RuntimeException e) {
+            foEventHandler.abortDocument();
+            throw e;
+        }
+        try {
+            // Font metrics cached while the document was rendered are kept for the next
+            // documents; the cache is only written if it changed
+            userAgent.getFontManager().saveCache();
+        } catch (FOPException e) {
+            // It's just a cache
+            LOG.warn("Could not save the font cache: " + e.getMessage());
+        }
     }
 
     /** {@inheritDoc} */
@@ -179,6 +195,11 @@ public class FOTreeBuilder extends DefaultHandler {
             delegate.startElement(namespaceURI, localName, rawName, attlist);
         } catch (SAXException e) {
             errorinstart = true;
+            foEventHandler.abortDocument();
+            throw e;
+        } catch (RuntimeException e) {
+            errorinstart = true;
+            foEventHandler.abortDocument();
             throw e;
         }
     }
@@ -187,7 +208,15 @@ public class FOTreeBuilder extends DefaultHandler {
     public void endElement(String uri, String localName, String rawName)
                 throws SAXException {
         if (!errorinstart) {
-            this.delegate.endElement(uri, localName, rawName);
+            try {
+                this.delegate.endElement(uri, localName, rawName);
+            } catch (SAXException e) {
+                foEventHandler.abortDocument();
+                throw e;
+            } catch (RuntimeException e) {
+                foEventHandler.abortDocument();
+                throw e;
+            }
             this.depth--;
             if (depth == 0) {
                 if (delegate != mainFOHandler) {
@@ -213,6 +242,7 @@ public class FOTreeBuilder extends DefaultHandler {
     /** {@inheritDoc} */
     public void fatalError(SAXParseException e) throws SAXException {
         LOG.error(e.toString());
+        foEventHandler.abortDocument();
         throw e;
     }
 
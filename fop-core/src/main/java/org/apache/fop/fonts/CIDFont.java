@@ -38,6 +38,15 @@ public abstract class CIDFont extends CustomFont {
         super(resourceResolver);
     }
 
+    /**
+     * Creates a font sharing the metrics, including the character widths, of another font.
+     * @param metrics the font whose metrics are shared
+     */
+    protected CIDFont(CIDFont metrics) {
+        super(metrics);
+        this.width = metrics.width;
+    }
+
     // ---- Required ----
     /**
      * Returns the type of the CID font.
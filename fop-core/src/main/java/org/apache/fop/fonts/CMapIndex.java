@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index over the segments of a character map for looking up the glyph index of a
+ * character. The segments are kept sorted by their first character in primitive arrays and
+ * binary searched. The results for the Basic Multilingual Plane are memoized in a two-level
+ * table of pages of 256 characters which are allocated on first use, so repeated lookups of
+ * the characters of a script cost two array accesses.
+ * <p>
+ * If segments overlap, the first matching segment of the character map wins as it always
+ * did, so the index falls back to scanning the character map in that case.
+ */
+final class CMapIndex {
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int BMP_PAGES = 0x10000 >> PAGE_SHIFT;
+
+    /** Marks a character of an allocated page which has not been looked up yet */
+    private static final int UNKNOWN = -1;
+
+    private final List<CMapSegment> cmap;
+
+    private int[] starts;
+    private int[] ends;
+    private int[] glyphStarts;
+    private int count;
+    private boolean overlapping;
+
+    private final int[][] pages = new int[BMP_PAGES][];
+
+    /**
+     * Creates an index over a character map.
+     * @param cmap the segments of the character map, in their order of precedence
+     */
+    CMapIndex(List<CMapSegment> cmap) {
+        this.cmap = cmap;
+        CMapSegment[] segments = new CMapSegment[cmap.size()];
+        for (CMapSegment segment : cmap) {
+            //Empty segments never match any character
+            if (segment.getUnicodeStart() <= segment.getUnicodeEnd()) {
+                segments[count++] = segment;
+            }
+        }
+        Arrays.sort(segments, 0, count, new Comparator<CMapSegment>() {
+            public int compare(CMapSegment s1, CMapSegment s2) {
+                int start1 = s1.getUnicodeStart();
+                int start2 = s2.getUnicodeStart();
+                return start1 < start2 ? -1 : (start1 == start2 ? 0 : 1);
+            }
+        });
+        int capacity = Math.max(count, 16);
+        starts = new int[capacity];
+        ends = new int[capacity];
+        glyphStarts = new int[capacity];
+        int maxEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            CMapSegment segment = segments[i];
+            starts[i] = segment.getUnicodeStart();
+            ends[i] = segment.getUnicodeEnd();
+            glyphStarts[i] = segment.getGlyphStartIndex();
+            if (starts[i] <= maxEnd) {
+                overlapping = true;
+            }
+            maxEnd = Math.max(maxEnd, ends[i]);
+        }
+    }
+
+    /**
+     * Returns the glyph index for a character.
+     * @param c the Unicode character
+     * @return the glyph index or {@link SingleByteEncoding#NOT_FOUND_CODE_POINT} if the
+     *          character is not in the character map
+     */
+    int findGlyphIndex(int c) {
+        if (c < 0 || c > 0xFFFF) {
+            return lookup(c);
+        }
+        int[] page = pages[c >> PAGE_SHIFT];
+        if (page == null) {
+            page = new int[PAGE_SIZE];
+            Arrays.fill(page, UNKNOWN);
+            pages[c >> PAGE_SHIFT] = page;
+        }
+        int glyphIndex = page[c & PAGE_MASK];
+        if (glyphIndex == UNKNOWN) {
+            glyphIndex = lookup(c);
+            page[c & PAGE_MASK] = glyphIndex;
+        }
+        return glyphIndex;
+    }
+
+    private int lookup(int c) {
+        if (overlapping) {
+            return scan(c);
+        }
+        //Find the last segment starting at or before the character
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= c) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (high >= 0 && ends[high] >= c) {
+            return glyphStarts[high] + c - starts[high];
+        }
+        return SingleByteEncoding.NOT_FOUND_CODE_POINT;
+    }
+
+    private int scan(int c) {
+        for (CMapSegment segment : cmap) {
+            if (segment.getUnicodeStart() <= c && segment.getUnicodeEnd() >= c) {
+                int glyphIndex = segment.getGlyphStartIndex() + c - segment.getUnicodeStart();
+                if (glyphIndex != SingleByteEncoding.NOT_FOUND_CODE_POINT) {
+                    return glyphIndex;
+                }
+            }
+        }
+        return SingleByteEncoding.NOT_FOUND_CODE_POINT;
+    }
+
+    /**
+     * Adds a segment which has been appended to the character map.
+     * @param segment the segment
+     */
+    void add(CMapSegment segment) {
+        int start = segment.getUnicodeStart();
+        int end = segment.getUnicodeEnd();
+        if (start > end) {
+            return;
+        }
+        int index = 0;
+        while (index < count && starts[index] <= start) {
+            index++;
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            glyphStarts = Arrays.copyOf(glyphStarts, count * 2);
+        }
+        System.arraycopy(starts, index, starts, index + 1, count - index);
+        System.arraycopy(ends, index, ends, index + 1, count - index);
+        System.arraycopy(glyphStarts, index, glyphStarts, index + 1, count - index);
+        starts[index] = start;
+        ends[index] = end;
+        glyphStarts[index] = segment.getGlyphStartIndex();
+        count++;
+        if ((index > 0 && ends[index - 1] >= start)
+                || (index < count - 1 && starts[index + 1] <= end)) {
+            overlapping = true;
+        }
+        //Forget the memoized results for the characters of the segment
+        for (int c = Math.max(start, 0); c <= Math.min(end, 0xFFFF); c++) {
+            int[] page = pages[c >> PAGE_SHIFT];
+            if (page != null) {
+                page[c & PAGE_MASK] = UNKNOWN;
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Stores the metrics of OpenType fonts loaded in CID mode in the {@link FontCache}, so
+ * {@link LazyFont} can build the {@link MultiByteFont} again without parsing the font
+ * file. Only the metrics used for layout are cached (names, widths, bounding boxes, the
+ * character map and kerning): a font whose GDEF, GSUB or GPOS tables are needed is always
+ * loaded from the font file.
+ */
+public final class CachedFontMetrics {
+
+    private static Log log = LogFactory.getLog(CachedFontMetrics.class);
+
+    private static final int KERNING_LOADED = 1;
+    private static final int ADVANCED_LOADED = 2;
+    private static final int HAS_ADVANCED_TABLES = 4;
+    private static final int OTF_FILE = 8;
+
+    private CachedFontMetrics() {
+    }
+
+    /**
+     * Builds a font from the metrics cached for a font file.
+     * @param fontCache the font cache (may be null)
+     * @param fontUri the URI of the font file
+     * @param subFontName the sub-font name for TrueType Collections (null otherwise)
+     * @param lastModified the last modified date/time of the font file
+     * @param embeddingMode the embedding mode of the font
+     * @param useKerning true if kerning information is needed
+     * @param useAdvanced true if advanced typographic information is needed
+     * @param resourceResolver the resource resolver of the font
+     * @return the font or null if no usable metrics are cached for the font file
+     */
+    public static MultiByteFont load(FontCache fontCache, final URI fontUri,
+            final String subFontName, final long lastModified, EmbeddingMode embeddingMode,
+            final boolean useKerning, final boolean useAdvanced,
+            final InternalResourceResolver resourceResolver) {
+        if (fontCache == null || lastModified <= 0) {
+            return null;
+        }
+        final EmbeddingMode effectiveEmbeddingMode = getEffectiveEmbeddingMode(embeddingMode);
+        String key = getKey(fontUri, subFontName, effectiveEmbeddingMode, resourceResolver);
+        try {
+            return fontCache.decodeFontMetrics(key,
+                    new FontCache.FontMetricsDecoder<MultiByteFont>() {
+                public MultiByteFont decode(ByteBuffer record) {
+                    if (record.getLong() != lastModified) {
+                        return null;
+                    }
+                    int bits = record.get();
+                    if (useKerning && (bits & KERNING_LOADED) == 0) {
+                        return null;
+                    }
+                    if (useAdvanced && ((bits & ADVANCED_LOADED) == 0
+                            || (bits & HAS_ADVANCED_TABLES) != 0)) {
+                        return null;
+                    }
+                    MultiByteFont font = new MultiByteFont(resourceResolver,
+                            effectiveEmbeddingMode);
+                    font.setIsOTFFile((bits & OTF_FILE) != 0);
+                    font.setTTCName(subFontName);
+                    font.setFontURI(fontUri);
+                    font.setEmbedURI(fontUri);
+                    readMetrics(record, font, useKerning);
+                    return font;
+                }
+            });
+        } catch (RuntimeException e) {
+            //BufferUnderflowException, NegativeArraySizeException...: it's just a cache
+            log.warn("Discarding corrupt font metrics cached for " + key);
+            fontCache.removeFontMetrics(key);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the metrics of a font loaded from a font file. Fonts other than OpenType fonts
+     * loaded in CID mode are ignored.
+     * @param fontCache the font cache (may be null)
+     * @param fontUri the URI of the font file
+     * @param lastModified the last modified date/time of the font file
+     * @param customFont the font loaded from the font file
+     * @param kerningLoaded true if the font was loaded with kerning information
+     * @param advancedLoaded true if the font was loaded with advanced typographic information
+     * @param resourceResolver the resource resolver of the font
+     */
+    public static void store(FontCache fontCache, URI fontUri, long lastModified,
+            CustomFont customFont, boolean kerningLoaded, boolean advancedLoaded,
+            InternalResourceResolver resourceResolver) {
+        if (fontCache == null || lastModified <= 0
+                || customFont.getClass() != MultiByteFont.class
+                || customFont.getFontType() != FontType.TYPE0
+                || customFont.getEmbedFileURI() == null) {
+            return;
+        }
+        MultiByteFont font = (MultiByteFont) customFont;
+        String key = getKey(fontUri, font.getTTCName(), font.getEmbeddingMode(),
+                resourceResolver);
+        int bits = 0;
+        if (kerningLoaded) {
+            bits |= KERNING_LOADED;
+        }
+        if (advancedLoaded) {
+            bits |= ADVANCED_LOADED;
+            if (font.getGDEF() != null || font.getGSUB() != null || font.getGPOS() != null) {
+                bits |= HAS_ADVANCED_TABLES;
+            }
+        }
+        if (font.isOTFFile()) {
+            bits |= OTF_FILE;
+        }
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bout);
+            out.writeLong(lastModified);
+            out.writeByte(bits);
+            writeMetrics(out, font);
+            out.flush();
+            fontCache.putFontMetrics(key, bout.toByteArray());
+        } catch (IOException e) {
+            //Should never happen when writing to memory
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static EmbeddingMode getEffectiveEmbeddingMode(EmbeddingMode embeddingMode) {
+        //Same default as OFFontLoader
+        return embeddingMode == EmbeddingMode.AUTO ? EmbeddingMode.SUBSET : embeddingMode;
+    }
+
+    private static String getKey(URI fontUri, String subFontName, EmbeddingMode embeddingMode,
+            InternalResourceResolver resourceResolver) {
+        URI uri = resourceResolver != null ? resourceResolver.resolveFromBase(fontUri) : fontUri;
+        return uri.toASCIIString() + '|' + (subFontName != null ? subFontName : "")
+                + '|' + embeddingMode.getName();
+    }
+
+    private static void writeMetrics(DataOutputStream out, MultiByteFont font)
+            throws IOException {
+        FontCache.writeString(out, font.getFontName());
+        FontCache.writeString(out, font.getFullName());
+        FontCache.writeString(out, font.getFontSubName());
+        Set<String> familyNames = font.getFamilyNames();
+        out.writeInt(familyNames.size());
+        for (String familyName : familyNames) {
+            FontCache.writeString(out, familyName);
+        }
+        out.writeInt(font.getCapHeight());
+        out.writeInt(font.getXHeight(1));
+        out.writeInt(font.getAscender());
+        out.writeInt(font.getDescender());
+        writeInts(out, font.getFontBBox());
+        writeInts(out, font.getRawLineMetrics());
+        out.writeInt(font.getFlags());
+        out.writeInt(font.getStemV());
+        out.writeInt(font.getItalicAngle());
+        out.writeInt(font.getWeight());
+        out.writeBoolean(font.getCIDType() == CIDFontType.CIDTYPE0);
+        writeInts(out, font.width);
+        Rectangle[] boundingBoxes = font.boundingBoxes;
+        out.writeInt(boundingBoxes.length);
+        for (Rectangle bbox : boundingBoxes) {
+            out.writeInt(bbox.x);
+            out.writeInt(bbox.y);
+            out.writeInt(bbox.width);
+            out.writeInt(bbox.height);
+        }
+        CMapSegment[] cmap = font.getCMap();
+        out.writeInt(cmap.length);
+        for (CMapSegment segment : cmap) {
+            out.writeInt(segment.getUnicodeStart());
+            out.writeInt(segment.getUnicodeEnd());
+            out.writeInt(segment.getGlyphStartIndex());
+        }
+        Map<Integer, Map<Integer, Integer>> kerning = font.getKerningInfo();
+        out.writeInt(kerning.size());
+        for (Map.Entry<Integer, Map<Integer, Integer>> entry : kerning.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Map.Entry<Integer, Integer> pair : entry.getValue().entrySet()) {
+                out.writeInt(pair.getKey());
+                out.writeInt(pair.getValue());
+            }
+        }
+    }
+
+    private static void readMetrics(ByteBuffer in, MultiByteFont font, boolean useKerning) {
+        font.setFontName(FontCache.readString(in));
+        font.setFullName(FontCache.readString(in));
+        font.setFontSubFamilyName(FontCache.readString(in));
+        int familyCount = in.getInt();
+        Set<String> familyNames = new HashSet<String>();
+        for (int i = 0; i < familyCount; i++) {
+            familyNames.add(FontCache.readString(in));
+        }
+        font.setFamilyNames(familyNames);
+        font.setCapHeight(in.getInt());
+        font.setXHeight(in.getInt());
+        font.setAscender(in.getInt());
+        font.setDescender(in.getInt());
+        font.setFontBBox(readInts(in));
+        int[] lineMetrics = readInts(in);
+        font.setUnderlinePosition(lineMetrics[0]);
+        font.setUnderlineThickness(lineMetrics[1]);
+        font.setStrikeoutPosition(lineMetrics[2]);
+        font.setStrikeoutThickness(lineMetrics[3]);
+        font.setFlags(in.getInt());
+        font.setStemV(in.getInt());
+        font.setItalicAngle(in.getInt());
+        font.setMissingWidth(0);
+        font.setWeight(in.getInt());
+        font.setCIDType(in.get() != 0 ? CIDFontType.CIDTYPE0 : CIDFontType.CIDTYPE2);
+        font.setWidthArray(readInts(in));
+        Rectangle[] boundingBoxes = new Rectangle[in.getInt()];
+        for (int i = 0; i < boundingBoxes.length; i++) {
+            boundingBoxes[i] = new Rectangle(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+        }
+        font.setBBoxArray(boundingBoxes);
+        CMapSegment[] cmap = new CMapSegment[in.getInt()];
+        for (int i = 0; i < cmap.length; i++) {
+            cmap[i] = new CMapSegment(in.getInt(), in.getInt(), in.getInt());
+        }
+        font.setCMap(cmap);
+        int kerningCount = in.getInt();
+        for (int i = 0; i < kerningCount; i++) {
+            Integer first = in.getInt();
+            int pairCount = in.getInt();
+            Map<Integer, Integer> pairs = new HashMap<Integer, Integer>();
+            for (int j = 0; j < pairCount; j++) {
+                pairs.put(in.getInt(), in.getInt());
+            }
+            if (useKerning) {
+                font.putKerningEntry(first, pairs);
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * 4);
+        return values;
+    }
+}
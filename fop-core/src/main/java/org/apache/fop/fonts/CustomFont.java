@@ -92,6 +92,46 @@ public abstract class CustomFont extends Typeface
         this.resourceResolver = resourceResolver;
     }
 
+    /**
+     * Creates a font sharing the metrics of another font. The character map is copied as
+     * private use mappings may be added to it, the other per-document state starts empty.
+     * @param metrics the font whose metrics are shared
+     */
+    protected CustomFont(CustomFont metrics) {
+        this.resourceResolver = metrics.resourceResolver;
+        this.fontFileURI = metrics.fontFileURI;
+        this.fontName = metrics.fontName;
+        this.fullName = metrics.fullName;
+        this.familyNames = metrics.familyNames;
+        this.fontSubName = metrics.fontSubName;
+        this.embedFileURI = metrics.embedFileURI;
+        this.embedResourceName = metrics.embedResourceName;
+        this.embeddingMode = metrics.embeddingMode;
+        this.capHeight = metrics.capHeight;
+        this.xHeight = metrics.xHeight;
+        this.ascender = metrics.ascender;
+        this.descender = metrics.descender;
+        this.fontBBox = metrics.fontBBox;
+        this.flags = metrics.flags;
+        this.weight = metrics.weight;
+        this.stemV = metrics.stemV;
+        this.italicAngle = metrics.italicAngle;
+        this.missingWidth = metrics.missingWidth;
+        this.fontType = metrics.fontType;
+        this.firstChar = metrics.firstChar;
+        this.lastChar = metrics.lastChar;
+        this.underlinePosition = metrics.underlinePosition;
+        this.underlineThickness = metrics.underlineThickness;
+        this.strikeoutPosition = metrics.strikeoutPosition;
+        this.strikeoutThickness = metrics.strikeoutThickness;
+        this.kerning = metrics.kerning;
+        this.useKerning = metrics.useKerning;
+        setKerningTable(metrics.getKerningTable());
+        this.cmap.addAll(metrics.cmap);
+        this.useAdvanced = metrics.useAdvanced;
+        this.simulateStyle = metrics.simulateStyle;
+    }
+
 
     /** {@inheritDoc} */
     public URI getFontURI() {
@@ -485,6 +525,7 @@ public abstract class CustomFont extends Typeface
      */
     public void setKerningEnabled(boolean enabled) {
         this.useKerning = enabled;
+        setKerningTable(null);
     }
 
     /**
@@ -511,6 +552,7 @@ public abstract class CustomFont extends Typeface
             kerning = new HashMap<Integer, Map<Integer, Integer>>();
         }
         this.kerning.put(key, value);
+        setKerningTable(null);
     }
 
     /**
@@ -524,6 +566,7 @@ public abstract class CustomFont extends Typeface
         } else {
             this.kerning = kerningMap;
         }
+        setKerningTable(null);
     }
 
     /**
@@ -581,6 +624,16 @@ public abstract class CustomFont extends Typeface
         this.strikeoutThickness = strikeoutThickness;
     }
 
+    /**
+     * Returns the underline position and thickness and the strikeout position and thickness
+     * as they were set, that is, without the defaults applied when they are unknown.
+     * @return the raw line metrics (0 where unknown)
+     */
+    int[] getRawLineMetrics() {
+        return new int[] {underlinePosition, underlineThickness,
+                strikeoutPosition, strikeoutThickness};
+    }
+
     /**
      * Returns a Map of used Glyphs.
      * @return Map Map of used Glyphs
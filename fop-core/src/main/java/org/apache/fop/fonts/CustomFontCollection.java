@@ -31,6 +31,8 @@ public class CustomFontCollection implements FontCollection {
     private final List<EmbedFontInfo> embedFontInfoList;
     private final InternalResourceResolver uriResolver;
     private final boolean useComplexScripts;
+    private final FontCache fontCache;
+    private final FontMetricsRegistry fontMetricsRegistry;
 
     /**
      * Main constructor.
@@ -40,9 +42,25 @@ public class CustomFontCollection implements FontCollection {
      */
     public CustomFontCollection(InternalResourceResolver fontResolver,
             List<EmbedFontInfo> customFonts, boolean useComplexScriptFeatures) {
+        this(fontResolver, customFonts, useComplexScriptFeatures, null, null);
+    }
+
+    /**
+     * Constructor taking font metrics from a font cache and sharing them between documents.
+     * @param fontResolver a font resolver
+     * @param customFonts the list of custom fonts
+     * @param useComplexScriptFeatures true if complex script features enabled
+     * @param fontCache the font cache (may be null)
+     * @param fontMetricsRegistry the registry of shared font metrics (may be null)
+     */
+    public CustomFontCollection(InternalResourceResolver fontResolver,
+            List<EmbedFontInfo> customFonts, boolean useComplexScriptFeatures,
+            FontCache fontCache, FontMetricsRegistry fontMetricsRegistry) {
         this.uriResolver = fontResolver;
         this.embedFontInfoList = customFonts;
         this.useComplexScripts = useComplexScriptFeatures;
+        this.fontCache = fontCache;
+        this.fontMetricsRegistry = fontMetricsRegistry;
     }
 
     /** {@inheritDoc} */
@@ -57,13 +75,9 @@ public class CustomFontCollection implements FontCollection {
             internalName = "F" + num;
             num++;
 
-            LazyFont font = new LazyFont(embedFontInfo, this.uriResolver, useComplexScripts);
-            fontInfo.addMetrics(internalName, font);
-
-            List<FontTriplet> triplets = embedFontInfo.getFontTriplets();
-            for (FontTriplet triplet : triplets) {
-                fontInfo.addFontProperties(internalName, triplet);
-            }
+            LazyFont font = new LazyFont(embedFontInfo, this.uriResolver, useComplexScripts,
+                    fontCache, fontMetricsRegistry);
+            fontInfo.addFont(internalName, font, embedFontInfo.getFontTriplets());
         }
         return num;
     }
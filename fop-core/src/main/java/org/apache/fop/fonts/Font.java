@@ -82,6 +82,9 @@ public class Font implements Substitutable, Positionable {
 
     private final FontMetrics metric;
 
+    /** The kerning table of the font, looked up on first use */
+    private KerningTable kerningTable;
+
     /**
      * Main constructor
      * @param key key of the font
@@ -197,21 +200,61 @@ public class Font implements Substitutable, Positionable {
      * @return the distance to adjust for kerning, 0 if there's no kerning
      */
     public int getKernValue(int ch1, int ch2) {
+        return getKernValue(getKerningTable(), ch1, ch2);
+    }
+
+    private int getKernValue(KerningTable kerningTable, int ch1, int ch2) {
         // Isolate surrogate pair
         if ((ch1 >= 0xD800) && (ch1 <= 0xE000)) {
             return 0;
         } else if ((ch2 >= 0xD800) && (ch2 <= 0xE000)) {
             return 0;
         }
+        return kerningTable.getKerning(ch1, ch2) * getFontSize() / 1000;
+    }
 
-        Map<Integer, Integer> kernPair = getKerning().get(ch1);
-        if (kernPair != null) {
-            Integer width = kernPair.get(ch2);
-            if (width != null) {
-                return width * getFontSize() / 1000;
+    /**
+     * Returns the amounts of kerning between the consecutive characters of a text, such as a
+     * word, in one call. The value stored for a code point is the kerning between it and the
+     * preceding code point, or the given preceding character for the first code point.
+     *
+     * The values are measured in pt. So they are already adjusted for font size.
+     *
+     * @param cs the text
+     * @param precedingChar the character preceding the text, 0 if none
+     * @param kernings the array receiving the kerning values, one per code point of the text
+     * @return true if at least one kerning value is not 0
+     */
+    public boolean getKernValues(CharSequence cs, int precedingChar, int[] kernings) {
+        KerningTable kerningTable = getKerningTable();
+        boolean hasKerning = false;
+        int previous = precedingChar != 0 ? precedingChar : -1;
+        int index = 0;
+        for (int offset = 0; offset < cs.length(); index++) {
+            int cp = Character.codePointAt(cs, offset);
+            int kern = 0;
+            if (previous >= 0 && !kerningTable.isEmpty()) {
+                kern = getKernValue(kerningTable, previous, cp);
+            }
+            kernings[index] = kern;
+            hasKerning |= kern != 0;
+            previous = cp;
+            offset += Character.charCount(cp);
+        }
+        return hasKerning;
+    }
+
+    private KerningTable getKerningTable() {
+        if (kerningTable == null) {
+            if (metric instanceof Typeface) {
+                kerningTable = ((Typeface) metric).getKerningTable();
+            } else if (metric.hasKerningInfo()) {
+                kerningTable = KerningTable.create(metric.getKerningInfo());
+            } else {
+                kerningTable = KerningTable.EMPTY;
             }
         }
-        return 0;
+        return kerningTable;
     }
 
     /**
@@ -19,9 +19,17 @@
 
 package org.apache.fop.fonts;
 
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.fonts.autodetect.FontInfoFinder;
@@ -48,7 +56,9 @@ public class FontAdder {
     }
 
     /**
-     * Iterates over font url list adding to font info list
+     * Iterates over font url list adding to font info list. The font files are parsed on
+     * {@link FontManager#getFontDetectionThreadCount()} threads, the font infos are added in
+     * the order of the font url list.
      * @param fontURLList font file list
      * @param fontInfoList a configured font info list
      * @throws URISyntaxException if a URI syntax error is found
@@ -56,19 +66,86 @@ public class FontAdder {
     public void add(List<URL> fontURLList, List<EmbedFontInfo> fontInfoList)
             throws URISyntaxException {
         FontCache cache = manager.getFontCache();
+        int threadCount = Math.min(manager.getFontDetectionThreadCount(), fontURLList.size());
+        if (threadCount > 1) {
+            addInParallel(fontURLList, fontInfoList, cache, threadCount);
+            return;
+        }
         FontInfoFinder finder = new FontInfoFinder();
         finder.setEventListener(listener);
 
         for (URL fontURL : fontURLList) {
             EmbedFontInfo[] embedFontInfos = finder.find(fontURL.toURI(), resourceResolver, cache);
-            if (embedFontInfos == null) {
-                continue;
+            addFontInfos(embedFontInfos, fontInfoList);
+        }
+    }
+
+    private void addInParallel(List<URL> fontURLList, List<EmbedFontInfo> fontInfoList,
+            final FontCache cache, int threadCount) throws URISyntaxException {
+        List<URI> fontURIList = new ArrayList<URI>(fontURLList.size());
+        for (URL fontURL : fontURLList) {
+            fontURIList.add(fontURL.toURI());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+                new DetectionThreadFactory());
+        try {
+            List<Future<EmbedFontInfo[]>> results
+                    = new ArrayList<Future<EmbedFontInfo[]>>(fontURIList.size());
+            for (final URI fontURI : fontURIList) {
+                results.add(executor.submit(new Callable<EmbedFontInfo[]>() {
+                    public EmbedFontInfo[] call() {
+                        FontInfoFinder finder = new FontInfoFinder();
+                        finder.setEventListener(listener);
+                        return finder.find(fontURI, resourceResolver, cache);
+                    }
+                }));
+            }
+            //Merge in submission order so the font registration order stays deterministic
+            for (Future<EmbedFontInfo[]> result : results) {
+                addFontInfos(getResult(result), fontInfoList);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static EmbedFontInfo[] getResult(Future<EmbedFontInfo[]> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
             }
-            for (EmbedFontInfo fontInfo : embedFontInfos) {
-                if (fontInfo != null) {
-                    fontInfoList.add(fontInfo);
-                }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static void addFontInfos(EmbedFontInfo[] embedFontInfos,
+            List<EmbedFontInfo> fontInfoList) {
+        if (embedFontInfos == null) {
+            return;
+        }
+        for (EmbedFontInfo fontInfo : embedFontInfos) {
+            if (fontInfo != null) {
+                fontInfoList.add(fontInfo);
             }
         }
     }
+
+    private static class DetectionThreadFactory implements ThreadFactory {
+
+        private int threadNumber;
+
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FOP font detection " + (++threadNumber));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
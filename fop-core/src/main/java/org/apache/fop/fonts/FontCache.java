@@ -19,20 +19,25 @@
 
 package org.apache.fop.fonts;
 
-import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
@@ -43,9 +48,13 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.util.LogUtil;
+import org.apache.fop.util.MappedBufferUtil;
 
 /**
- * Fop cache (currently only used for font info caching)
+ * Fop cache (currently only used for font info caching). The cache file is written in a
+ * versioned binary format and memory-mapped when it is read: the font infos are decoded
+ * right away but the font metrics records (see {@link CachedFontMetrics}) are only decoded
+ * when a font is actually used.
  */
 public final class FontCache implements Serializable {
 
@@ -64,6 +73,17 @@ public final class FontCache implements Serializable {
     /** font cache file path */
     private static final String DEFAULT_CACHE_FILENAME = "fop-fonts.cache";
 
+    /** identifies a font cache file ("FOPC") */
+    private static final int MAGIC = 0x464F5043;
+
+    /**
+     * Version of the cache file format. Change this value whenever the format changes, so
+     * the user's cache file is purged after an update.
+     */
+    private static final int VERSION = 1;
+
+    private static final String UTF_8 = "UTF-8";
+
     /** has this cache been changed since it was last read? */
     private transient boolean changed;
 
@@ -84,6 +104,15 @@ public final class FontCache implements Serializable {
      */
     private Map<String, Long> failedFontMap;
 
+    /**
+     * mapping of font metrics key -&gt; encoded font metrics. The records read from the cache
+     * file are slices of the memory-mapped file.
+     */
+    private transient Map<String, ByteBuffer> metricsMap;
+
+    /** the memory-mapped cache file this cache was read from, if any */
+    private transient ByteBuffer mappedFile;
+
     private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
         ois.defaultReadObject();
     }
@@ -159,34 +188,227 @@ public final class FontCache implements Serializable {
                     log.trace("Loading font cache from "
                             + cacheFile.getCanonicalPath());
                 }
-                InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
-                ObjectInputStream oin = new ObjectInputStream(in);
+                FontCache fontCache = new FontCache();
+                fontCache.mappedFile = mapFile(cacheFile);
+                boolean read = false;
                 try {
-                    return (FontCache) oin.readObject();
+                    fontCache.read(fontCache.mappedFile.duplicate());
+                    read = true;
                 } finally {
-                    IOUtils.closeQuietly(oin);
+                    if (!read) {
+                        //Unmap the file, so that it can be deleted
+                        MappedBufferUtil.unmap(fontCache.mappedFile);
+                    }
                 }
-            } catch (ClassNotFoundException e) {
-                // We don't really care about the exception since it's just a
-                // cache file
-                log.warn("Could not read font cache. Discarding font cache file. Reason: "
-                        + e.getMessage());
+                return fontCache;
             } catch (IOException ioe) {
                 // We don't really care about the exception since it's just a
                 // cache file
                 log.warn("I/O exception while reading font cache ("
                         + ioe.getMessage() + "). Discarding font cache file.");
-                try {
-                    cacheFile.delete();
-                } catch (SecurityException ex) {
-                    log.warn("Failed to delete font cache file: "
-                            + cacheFile.getAbsolutePath());
-                }
+                deleteCacheFile(cacheFile);
+            } catch (RuntimeException re) {
+                // BufferUnderflowException, IllegalArgumentException...: truncated or
+                // corrupt cache file
+                log.warn("Could not read font cache. Discarding font cache file. Reason: "
+                        + re);
+                deleteCacheFile(cacheFile);
             }
         }
         return null;
     }
 
+    private static void deleteCacheFile(File cacheFile) {
+        try {
+            cacheFile.delete();
+        } catch (SecurityException ex) {
+            log.warn("Failed to delete font cache file: "
+                    + cacheFile.getAbsolutePath());
+        }
+    }
+
+    private static ByteBuffer mapFile(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            //The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private void read(ByteBuffer in) throws IOException {
+        if (in.remaining() < 8 || in.getInt() != MAGIC) {
+            throw new IOException("Not a font cache file");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported font cache version " + version);
+        }
+        int fileCount = in.getInt();
+        for (int i = 0; i < fileCount; i++) {
+            String embedUrl = readString(in);
+            CachedFontFile cachedFontFile = new CachedFontFile(in.getLong());
+            int fontCount = in.getInt();
+            for (int j = 0; j < fontCount; j++) {
+                cachedFontFile.put(readFontInfo(in));
+            }
+            getFontFileMap().put(embedUrl, cachedFontFile);
+        }
+        int failedCount = in.getInt();
+        for (int i = 0; i < failedCount; i++) {
+            String embedUrl = readString(in);
+            getFailedFontMap().put(embedUrl, in.getLong());
+        }
+        int metricsCount = in.getInt();
+        for (int i = 0; i < metricsCount; i++) {
+            String key = readString(in);
+            int length = in.getInt();
+            ByteBuffer record = in.slice();
+            record.limit(length);
+            in.position(in.position() + length);
+            getMetricsMap().put(key, record);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(getFontFileMap().size());
+        for (Map.Entry<String, CachedFontFile> entry : getFontFileMap().entrySet()) {
+            writeString(out, entry.getKey());
+            CachedFontFile cachedFontFile = entry.getValue();
+            out.writeLong(cachedFontFile.lastModified());
+            EmbedFontInfo[] fontInfos = cachedFontFile.getEmbedFontInfos();
+            out.writeInt(fontInfos.length);
+            for (EmbedFontInfo fontInfo : fontInfos) {
+                writeFontInfo(out, fontInfo);
+            }
+        }
+        out.writeInt(getFailedFontMap().size());
+        for (Map.Entry<String, Long> entry : getFailedFontMap().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeInt(getMetricsMap().size());
+        byte[] buf = new byte[0];
+        for (Map.Entry<String, ByteBuffer> entry : getMetricsMap().entrySet()) {
+            writeString(out, entry.getKey());
+            ByteBuffer record = entry.getValue().duplicate();
+            int length = record.remaining();
+            if (buf.length < length) {
+                buf = new byte[length];
+            }
+            record.get(buf, 0, length);
+            out.writeInt(length);
+            out.write(buf, 0, length);
+        }
+    }
+
+    private static EmbedFontInfo readFontInfo(ByteBuffer in) {
+        FontUris fontUris = new FontUris(readURI(in), readURI(in), readURI(in), readURI(in));
+        boolean kerning = in.get() != 0;
+        boolean advanced = in.get() != 0;
+        String encodingMode = readString(in);
+        String embeddingMode = readString(in);
+        boolean simulateStyle = in.get() != 0;
+        boolean embedAsType1 = in.get() != 0;
+        String postScriptName = readString(in);
+        String subFontName = readString(in);
+        List<FontTriplet> fontTriplets = null;
+        int tripletCount = in.getInt();
+        if (tripletCount >= 0) {
+            fontTriplets = new ArrayList<FontTriplet>(tripletCount);
+            for (int i = 0; i < tripletCount; i++) {
+                fontTriplets.add(new FontTriplet(readString(in), readString(in),
+                        in.getInt(), in.getInt()));
+            }
+        }
+        EmbedFontInfo fontInfo = new EmbedFontInfo(fontUris, kerning, advanced, fontTriplets,
+                subFontName,
+                encodingMode != null ? EncodingMode.getValue(encodingMode) : null,
+                embeddingMode != null ? EmbeddingMode.getValue(embeddingMode) : null,
+                simulateStyle, embedAsType1);
+        fontInfo.setPostScriptName(postScriptName);
+        return fontInfo;
+    }
+
+    private static void writeFontInfo(DataOutput out, EmbedFontInfo fontInfo)
+            throws IOException {
+        FontUris fontUris = fontInfo.getFontUris();
+        writeURI(out, fontUris.getEmbed());
+        writeURI(out, fontUris.getMetrics());
+        writeURI(out, fontUris.getAfm());
+        writeURI(out, fontUris.getPfm());
+        out.writeBoolean(fontInfo.getKerning());
+        out.writeBoolean(fontInfo.getAdvanced());
+        EncodingMode encodingMode = fontInfo.getEncodingMode();
+        writeString(out, encodingMode != null ? encodingMode.getName() : null);
+        EmbeddingMode embeddingMode = fontInfo.getEmbeddingMode();
+        writeString(out, embeddingMode != null ? embeddingMode.getName() : null);
+        out.writeBoolean(fontInfo.getSimulateStyle());
+        out.writeBoolean(fontInfo.getEmbedAsType1());
+        writeString(out, fontInfo.getPostScriptName());
+        writeString(out, fontInfo.getSubFontName());
+        List<FontTriplet> fontTriplets = fontInfo.getFontTriplets();
+        if (fontTriplets == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(fontTriplets.size());
+            for (FontTriplet triplet : fontTriplets) {
+                writeString(out, triplet.getName());
+                writeString(out, triplet.getStyle());
+                out.writeInt(triplet.getWeight());
+                out.writeInt(triplet.getPriority());
+            }
+        }
+    }
+
+    private static URI readURI(ByteBuffer in) {
+        String uri = readString(in);
+        return uri != null ? URI.create(uri) : null;
+    }
+
+    private static void writeURI(DataOutput out, URI uri) throws IOException {
+        writeString(out, uri != null ? uri.toASCIIString() : null);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutput, String)}.
+     * @param in the buffer to read from
+     * @return the string (may be null)
+     */
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        try {
+            return new String(bytes, UTF_8);
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes a string as its length followed by its UTF-8 bytes.
+     * @param out the output to write to
+     * @param value the string (may be null)
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
     /**
      * Writes the font cache to disk.
      *
@@ -210,13 +432,24 @@ public final class FontCache implements Serializable {
             if (changed) {
                 try {
                     log.trace("Writing font cache to " + cacheFile.getCanonicalPath());
-                    OutputStream out = new java.io.FileOutputStream(cacheFile);
-                    out = new java.io.BufferedOutputStream(out);
-                    ObjectOutputStream oout = new ObjectOutputStream(out);
+                    //Write to a temporary file first: the current file may still be mapped
+                    File dir = cacheFile.getAbsoluteFile().getParentFile();
+                    File tempFile = File.createTempFile("fop-fonts", ".tmp", dir);
+                    OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile));
                     try {
-                        oout.writeObject(this);
+                        DataOutputStream dout = new DataOutputStream(out);
+                        write(dout);
+                        dout.flush();
                     } finally {
-                        IOUtils.closeQuietly(oout);
+                        IOUtils.closeQuietly(out);
+                    }
+                    releaseMappedFile();
+                    if (!tempFile.renameTo(cacheFile)) {
+                        cacheFile.delete();
+                        if (!tempFile.renameTo(cacheFile)) {
+                            tempFile.delete();
+                            throw new IOException("Could not replace " + cacheFile);
+                        }
                     }
                 } catch (IOException ioe) {
                     LogUtil.handleException(log, ioe, true);
@@ -260,7 +493,9 @@ public final class FontCache implements Serializable {
      * @return boolean
      */
     public boolean containsFont(String embedUrl) {
-        return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        synchronized (changeLock) {
+            return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        }
     }
 
     /**
@@ -271,8 +506,10 @@ public final class FontCache implements Serializable {
      * @return font
      */
     public boolean containsFont(EmbedFontInfo fontInfo) {
-        return (fontInfo != null && getFontFileMap().containsKey(
-                getCacheKey(fontInfo)));
+        synchronized (changeLock) {
+            return (fontInfo != null && getFontFileMap().containsKey(
+                    getCacheKey(fontInfo)));
+        }
     }
 
     /**
@@ -351,7 +588,9 @@ public final class FontCache implements Serializable {
      * @return CachedFontFile object
      */
     public CachedFontFile getFontFile(String embedUrl) {
-        return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        synchronized (changeLock) {
+            return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        }
     }
 
     /**
@@ -367,12 +606,16 @@ public final class FontCache implements Serializable {
      *         if it is outdated
      */
     public EmbedFontInfo[] getFontInfos(String embedUrl, long lastModified) {
-        CachedFontFile cff = getFontFile(embedUrl);
-        if (cff.lastModified() == lastModified) {
-            return cff.getEmbedFontInfos();
-        } else {
-            removeFont(embedUrl);
-            return null;
+        synchronized (changeLock) {
+            CachedFontFile cff = getFontFile(embedUrl);
+            if (cff == null) {
+                return null;
+            } else if (cff.lastModified() == lastModified) {
+                return cff.getEmbedFontInfos();
+            } else {
+                removeFont(embedUrl);
+                return null;
+            }
         }
     }
 
@@ -445,6 +688,94 @@ public final class FontCache implements Serializable {
         return failedFontMap;
     }
 
+    /**
+     * Copies the font metrics records still read from the memory-mapped cache file to the
+     * heap and unmaps the file, so that it can be replaced.
+     */
+    private void releaseMappedFile() {
+        if (mappedFile == null) {
+            return;
+        }
+        for (Map.Entry<String, ByteBuffer> entry : getMetricsMap().entrySet()) {
+            if (entry.getValue().isDirect()) {
+                entry.setValue(copy(entry.getValue()));
+            }
+        }
+        MappedBufferUtil.unmap(mappedFile);
+        mappedFile = null;
+    }
+
+    private static ByteBuffer copy(ByteBuffer record) {
+        ByteBuffer copy = ByteBuffer.allocate(record.remaining());
+        copy.put(record.duplicate());
+        copy.flip();
+        return copy;
+    }
+
+    private Map<String, ByteBuffer> getMetricsMap() {
+        if (metricsMap == null) {
+            metricsMap = new HashMap<String, ByteBuffer>();
+        }
+        return metricsMap;
+    }
+
+    /**
+     * Decodes an encoded font metrics record.
+     * @param <T> the type of the decoded font metrics
+     */
+    interface FontMetricsDecoder<T> {
+
+        /**
+         * Decodes a record, which must not be accessed after this method returns.
+         * @param record the encoded font metrics
+         * @return the decoded font metrics
+         */
+        T decode(ByteBuffer record);
+    }
+
+    /**
+     * Decodes the font metrics stored under a key. A record read from the cache file is
+     * decoded in place, while holding the lock of the cache, since the file is unmapped when
+     * the cache is saved.
+     * @param <T> the type of the decoded font metrics
+     * @param key the font metrics key
+     * @param decoder the decoder of the record
+     * @return the decoded font metrics or null if none are cached
+     */
+    <T> T decodeFontMetrics(String key, FontMetricsDecoder<T> decoder) {
+        synchronized (changeLock) {
+            ByteBuffer record = getMetricsMap().get(key);
+            return record != null ? decoder.decode(record.duplicate()) : null;
+        }
+    }
+
+    /**
+     * Stores encoded font metrics.
+     * @param key the font metrics key
+     * @param record the encoded font metrics
+     */
+    void putFontMetrics(String key, byte[] record) {
+        synchronized (changeLock) {
+            if (log.isTraceEnabled()) {
+                log.trace("Font metrics added to cache: " + key);
+            }
+            getMetricsMap().put(key, ByteBuffer.wrap(record));
+            changed = true;
+        }
+    }
+
+    /**
+     * Removes the font metrics stored under a key.
+     * @param key the font metrics key
+     */
+    void removeFontMetrics(String key) {
+        synchronized (changeLock) {
+            if (getMetricsMap().remove(key) != null) {
+                changed = true;
+            }
+        }
+    }
+
     /**
      * Clears font cache
      */
@@ -455,6 +786,7 @@ public final class FontCache implements Serializable {
             }
             fontfileMap = null;
             failedFontMap = null;
+            metricsMap = null;
             changed = true;
         }
     }
@@ -56,7 +56,7 @@ public final class FontCacheManagerFactory {
 
         private FontCache fontCache;
 
-        public FontCache load() {
+        public synchronized FontCache load() {
             if (fontCache == null) {
                 fontCache = FontCache.loadFrom(getCacheFile(false));
                 if (fontCache == null) {
@@ -66,13 +66,13 @@ public final class FontCacheManagerFactory {
             return fontCache;
         }
 
-        public void save() throws FOPException {
+        public synchronized void save() throws FOPException {
             if (fontCache != null && fontCache.hasChanged()) {
                 fontCache.saveTo(getCacheFile(true));
             }
         }
 
-        public void delete() throws FOPException {
+        public synchronized void delete() throws FOPException {
             if (!getCacheFile(true).delete()) {
                 throw new FOPException("Failed to flush the font cache file '" + cacheFile + "'.");
             }
@@ -85,7 +85,7 @@ public final class FontCacheManagerFactory {
             return FontCache.getDefaultCacheFile(forWriting);
         }
 
-        public void setCacheFile(URI fontCacheURI) {
+        public synchronized void setCacheFile(URI fontCacheURI) {
             cacheFile = new File(fontCacheURI);
         }
     }
@@ -22,6 +22,7 @@ package org.apache.fop.fonts;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -64,6 +65,18 @@ public class FontInfo {
     /** Event listener for font events */
     private FontEventListener eventListener;
 
+    /** True if fonts added through addFont() are only registered when they are looked up */
+    private boolean lazyFontRegistration;
+
+    /** Fonts added through addFont() that are not registered yet (String = font key) */
+    private Map<String, Typeface> pendingFonts;
+
+    /** Font triplets of the fonts not registered yet, resolved by priority (String = font key) */
+    private Map<FontTriplet, String> pendingTriplets;
+
+    /** look up a pending font-triplet to find its priority */
+    private Map<FontTriplet, Integer> pendingTripletPriorities;
+
     /**
      * Main constructor
      */
@@ -89,11 +102,140 @@ public class FontInfo {
      * @return True if valid
      */
     public boolean isSetupValid() {
+        registerPendingTriplet(Font.DEFAULT_FONT);
         //We're only called when font setup is done:
-        tripletPriorities = null; // candidate for garbage collection
+        if (pendingTriplets == null) {
+            tripletPriorities = null; // candidate for garbage collection
+        }
         return triplets.containsKey(Font.DEFAULT_FONT);
     }
 
+    /**
+     * Controls whether the fonts added through {@link #addFont(String, Typeface, List)} are
+     * registered lazily. A lazily registered font is only added to the registered fonts and
+     * font triplets when one of its font triplets is looked up (or when all registered fonts
+     * are requested), which saves work for documents using a few of many configured fonts.
+     * The font selected for a font triplet is the same as with eager registration.
+     * @param lazy true to register the fonts lazily
+     */
+    public void setLazyFontRegistration(boolean lazy) {
+        this.lazyFontRegistration = lazy;
+    }
+
+    /**
+     * Indicates whether the fonts added through {@link #addFont(String, Typeface, List)} are
+     * registered lazily.
+     * @return true if the fonts are registered lazily
+     */
+    public boolean isLazyFontRegistration() {
+        return this.lazyFontRegistration;
+    }
+
+    /**
+     * Adds a font with its font triplets. This is equivalent to calling
+     * {@link #addMetrics(String, FontMetrics)} and then
+     * {@link #addFontProperties(String, FontTriplet)} for each font triplet, except that the
+     * registration is deferred until the font is looked up if lazy font registration is
+     * enabled.
+     * @param internalFontKey internal font key
+     * @param font the font
+     * @param fontTriplets the font triplets to associate with the internal key
+     */
+    public void addFont(String internalFontKey, Typeface font, List<FontTriplet> fontTriplets) {
+        if (!lazyFontRegistration) {
+            addMetrics(internalFontKey, font);
+            for (FontTriplet triplet : fontTriplets) {
+                addFontProperties(internalFontKey, triplet);
+            }
+            return;
+        }
+        if (pendingFonts == null) {
+            pendingFonts = new LinkedHashMap<String, Typeface>();
+            pendingTriplets = new HashMap<FontTriplet, String>();
+            pendingTripletPriorities = new HashMap<FontTriplet, Integer>();
+        }
+        pendingFonts.put(internalFontKey, font);
+        for (FontTriplet triplet : fontTriplets) {
+            //Same rule as addFontProperties(): the last font with the lowest priority wins
+            Integer oldPriority = pendingTripletPriorities.get(triplet);
+            if (oldPriority == null || oldPriority >= triplet.getPriority()) {
+                pendingTriplets.put(triplet, internalFontKey);
+                pendingTripletPriorities.put(triplet, triplet.getPriority());
+            }
+        }
+    }
+
+    /**
+     * Registers the pending font selected for a font triplet, if any.
+     * @param triplet the font triplet
+     */
+    private void registerPendingTriplet(FontTriplet triplet) {
+        if (pendingTriplets == null) {
+            return;
+        }
+        String internalFontKey = pendingTriplets.remove(triplet);
+        if (internalFontKey != null) {
+            int priority = pendingTripletPriorities.remove(triplet);
+            registerPendingFont(internalFontKey);
+            addFontProperties(internalFontKey, new FontTriplet(triplet.getName(),
+                    triplet.getStyle(), triplet.getWeight(), priority));
+        }
+    }
+
+    /**
+     * Registers the metrics of a pending font, if any.
+     * @param internalFontKey internal font key
+     */
+    private void registerPendingFont(String internalFontKey) {
+        if (pendingFonts != null) {
+            Typeface font = pendingFonts.remove(internalFontKey);
+            if (font != null) {
+                addMetrics(internalFontKey, font);
+            }
+        }
+    }
+
+    /**
+     * Registers the pending font triplets selecting a font.
+     * @param internalFontKey internal font key
+     */
+    private void registerPendingTriplets(String internalFontKey) {
+        if (pendingTriplets == null) {
+            return;
+        }
+        List<FontTriplet> fontTriplets = new ArrayList<FontTriplet>();
+        for (Map.Entry<FontTriplet, String> entry : pendingTriplets.entrySet()) {
+            if (internalFontKey.equals(entry.getValue())) {
+                fontTriplets.add(entry.getKey());
+            }
+        }
+        for (FontTriplet triplet : fontTriplets) {
+            registerPendingTriplet(triplet);
+        }
+    }
+
+    /**
+     * Registers all pending fonts and font triplets.
+     */
+    private void registerPendingFonts() {
+        if (pendingFonts == null) {
+            return;
+        }
+        for (Map.Entry<String, Typeface> entry : pendingFonts.entrySet()) {
+            addMetrics(entry.getKey(), entry.getValue());
+        }
+        Map<FontTriplet, String> remainingTriplets = pendingTriplets;
+        Map<FontTriplet, Integer> remainingPriorities = pendingTripletPriorities;
+        pendingFonts = null;
+        pendingTriplets = null;
+        pendingTripletPriorities = null;
+        for (Map.Entry<FontTriplet, String> entry : remainingTriplets.entrySet()) {
+            FontTriplet triplet = entry.getKey();
+            addFontProperties(entry.getValue(), new FontTriplet(triplet.getName(),
+                    triplet.getStyle(), triplet.getWeight(), remainingPriorities.get(triplet)));
+        }
+    }
+
     /**
      * Adds a new font triplet.
      * @param name internal key
@@ -131,6 +273,8 @@ public class FontInfo {
         if (log.isDebugEnabled()) {
             log.debug("Registering: " + triplet + " under " + internalFontKey);
         }
+        //A pending font for the triplet was added before this one
+        registerPendingTriplet(triplet);
         String oldName = triplets.get(triplet);
         int newPriority = triplet.getPriority();
         if (oldName != null) {
@@ -281,6 +425,7 @@ public class FontInfo {
      * @param internalName the internal font name (F1, F2 etc.)
      */
     public void useFont(String internalName) {
+        registerPendingFont(internalName);
         usedFonts.put(internalName, fonts.get(internalName));
     }
 
@@ -317,6 +462,7 @@ public class FontInfo {
     }
 
     private List<FontTriplet> getTripletsForName(String fontName) {
+        registerPendingFonts();
         List<FontTriplet> matchedTriplets = new ArrayList<FontTriplet>();
         for (FontTriplet triplet : triplets.keySet()) {
             String tripletName = triplet.getName();
@@ -515,6 +661,7 @@ public class FontInfo {
      */
     public boolean hasFont(String family, String style, int weight) {
         FontTriplet key = createFontKey(family, style, weight);
+        registerPendingTriplet(key);
         return this.triplets.containsKey(key);
     }
 
@@ -524,6 +671,7 @@ public class FontInfo {
      * @return the associated internal key or null, if not found
      */
     public String getInternalFontKey(FontTriplet triplet) {
+        registerPendingTriplet(triplet);
         return triplets.get(triplet);
     }
 
@@ -543,6 +691,7 @@ public class FontInfo {
      * @return a read-only Map with font key/FontMetrics pairs
      */
     public Map<String, Typeface> getFonts() {
+        registerPendingFonts();
         return Collections.unmodifiableMap(this.fonts);
     }
 
@@ -551,6 +700,7 @@ public class FontInfo {
      * @return a Map with FontTriplet/font key pairs
      */
     public Map<FontTriplet, String> getFontTriplets() {
+        registerPendingFonts();
         return this.triplets;
     }
 
@@ -570,6 +720,7 @@ public class FontInfo {
      * @return font metrics
      */
     public FontMetrics getMetricsFor(String fontName) {
+        registerPendingFont(fontName);
         Typeface metrics = fonts.get(fontName);
         usedFonts.put(fontName, metrics);
         return metrics;
@@ -581,6 +732,7 @@ public class FontInfo {
      * @return A list of matching font triplets
      */
     public List<FontTriplet> getTripletsFor(String fontName) {
+        registerPendingTriplets(fontName);
         List<FontTriplet> foundTriplets = new ArrayList<FontTriplet>();
         for (Map.Entry<FontTriplet, String> tripletEntry : triplets.entrySet()) {
             if (fontName.equals((tripletEntry.getValue()))) {
@@ -644,6 +796,7 @@ public class FontInfo {
      * Diagnostic method for logging all registered fonts to System.out.
      */
     public void dumpAllTripletsToSystemOut() {
+        registerPendingFonts();
         SortedSet<String> entries = new TreeSet<String>();
         for (FontTriplet triplet : this.triplets.keySet()) {
             String key = getInternalFontKey(triplet);
@@ -52,6 +52,15 @@ public class FontManager {
     /** FontTriplet matcher for fonts that shall be referenced rather than embedded. */
     private FontTriplet.Matcher referencedFontsMatcher;
 
+    /** Number of threads parsing the font files found by font detection, default is 1 */
+    private int fontDetectionThreadCount = 1;
+
+    /** Registers the custom fonts only when they are looked up, default is false */
+    private boolean lazyFontRegistration;
+
+    /** Font metrics shared by the documents rendered concurrently */
+    private final FontMetricsRegistry fontMetricsRegistry = new FontMetricsRegistry();
+
     /**
      * Main constructor
      *
@@ -91,6 +100,43 @@ public class FontManager {
         this.enableBase14Kerning = value;
     }
 
+    /** @return true if the custom fonts are registered lazily */
+    public boolean isLazyFontRegistrationEnabled() {
+        return this.lazyFontRegistration;
+    }
+
+    /**
+     * Controls whether the custom fonts are registered in the {@link FontInfo} only when a
+     * document looks them up rather than when the fonts are set up.
+     * @param value true if the custom fonts should be registered lazily
+     * @see FontInfo#setLazyFontRegistration(boolean)
+     */
+    public void setLazyFontRegistrationEnabled(boolean value) {
+        this.lazyFontRegistration = value;
+    }
+
+    /**
+     * Returns the number of threads parsing the font files found by font detection.
+     * @return the number of threads (1 if the font files are parsed serially)
+     */
+    public int getFontDetectionThreadCount() {
+        return this.fontDetectionThreadCount;
+    }
+
+    /**
+     * Sets the number of threads parsing the font files found by font auto-detection and in
+     * the configured font directories. The fonts are registered in the same order whatever
+     * the number of threads.
+     * @param threadCount the number of threads (1 to parse the font files serially)
+     */
+    public void setFontDetectionThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException(
+                    "The number of font detection threads must be at least 1: " + threadCount);
+        }
+        this.fontDetectionThreadCount = threadCount;
+    }
+
     /**
      * Sets the font substitutions
      * @param substitutions font substitutions
@@ -133,6 +179,15 @@ public class FontManager {
         return fontCacheManager.load();
     }
 
+    /**
+     * Returns the registry sharing the metrics of the fonts used by the documents rendered
+     * with this font manager.
+     * @return the font metrics registry
+     */
+    public FontMetricsRegistry getFontMetricsRegistry() {
+        return this.fontMetricsRegistry;
+    }
+
     /**
      * Saves the FontCache as necessary
      *
@@ -158,6 +213,9 @@ public class FontManager {
      */
     public void setup(FontInfo fontInfo, FontCollection[] fontCollections) {
         int startNum = 1;
+        if (lazyFontRegistration) {
+            fontInfo.setLazyFontRegistration(true);
+        }
 
         for (FontCollection fontCollection : fontCollections) {
             startNum = fontCollection.setup(startNum, fontInfo);
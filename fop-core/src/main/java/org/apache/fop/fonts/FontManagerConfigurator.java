@@ -116,6 +116,26 @@ public class FontManagerConfigurator {
             }
         }
 
+        if (cfg.getChild("lazy-font-registration", false) != null) {
+            try {
+                fontManager.setLazyFontRegistrationEnabled(
+                        cfg.getChild("lazy-font-registration").getValueAsBoolean());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, true);
+            }
+        }
+
+        if (cfg.getChild("font-detection-threads", false) != null) {
+            try {
+                fontManager.setFontDetectionThreadCount(
+                        cfg.getChild("font-detection-threads").getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, true);
+            } catch (IllegalArgumentException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
         // global font configuration
         Configuration fontsCfg = cfg.getChild("fonts", false);
         if (fontsCfg != null) {
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Shares the metrics of the OpenType fonts loaded in CID mode between the rendering runs
+ * of a {@link org.apache.fop.apps.FopFactory}, so concurrent documents using the same
+ * font hold a single copy of its widths, bounding boxes, kerning and advanced typographic
+ * tables. Each document gets its own {@link MultiByteFont} referencing the shared metrics
+ * and recording the glyphs used by the document.
+ * <p>
+ * A registered font is held weakly: it stays registered as long as a font created from it
+ * is in use by a document and is released with the last one.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class FontMetricsRegistry {
+
+    private final Map<String, WeakReference<MultiByteFont>> fonts
+            = new HashMap<String, WeakReference<MultiByteFont>>();
+
+    /**
+     * Returns a new font for a document sharing the metrics registered under a key.
+     * @param key the key identifying the font file and the options it was loaded with
+     * @return the font or null if no font is registered under the key
+     */
+    public synchronized MultiByteFont getFont(String key) {
+        WeakReference<MultiByteFont> ref = fonts.get(key);
+        if (ref == null) {
+            return null;
+        }
+        MultiByteFont sharedFont = ref.get();
+        if (sharedFont == null) {
+            fonts.remove(key);
+            return null;
+        }
+        return new MultiByteFont(sharedFont);
+    }
+
+    /**
+     * Registers the metrics of a font just loaded and returns a new font for a document
+     * sharing them. If another thread registered the same font in the meantime, its metrics
+     * are shared instead.
+     * @param key the key identifying the font file and the options it was loaded with
+     * @param font the font loaded from the font file or the font cache, which must not be
+     *          used by any document itself
+     * @return the font for the document
+     */
+    public synchronized MultiByteFont register(String key, MultiByteFont font) {
+        MultiByteFont registered = getFont(key);
+        if (registered != null) {
+            return registered;
+        }
+        removeReleasedFonts();
+        fonts.put(key, new WeakReference<MultiByteFont>(font));
+        return new MultiByteFont(font);
+    }
+
+    /**
+     * Returns the number of fonts whose metrics are currently shared.
+     * @return the number of registered fonts still in use
+     */
+    public synchronized int getFontCount() {
+        removeReleasedFonts();
+        return fonts.size();
+    }
+
+    private void removeReleasedFonts() {
+        Iterator<WeakReference<MultiByteFont>> iter = fonts.values().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().get() == null) {
+                iter.remove();
+            }
+        }
+    }
+}
@@ -198,30 +198,12 @@ public class GlyphMapping {
         int numCodepoints = Character.codePointCount(mcs, 0, mcs.length());
         // extract kerning array
         int[] kernings = new int[numCodepoints]; // kerning array
-
-        int prevCp = -1;
-        int i = 0;
-        for (int cp : CharUtilities.codepointsIter(mcs)) {
-            if (prevCp >= 0) {
-                kernings[i] = font.getKernValue(prevCp, cp);
-            }
-            prevCp = cp;
-            i++;
-        }
-        // was there a non-zero kerning?
-        boolean hasKerning = false;
-        for (int kerningValue : kernings) {
-            if (kerningValue != 0) {
-                hasKerning = true;
-                break;
-            }
-        }
         // if non-zero kerning, then create and return glyph position adjustment array
-        if (hasKerning) {
+        if (font.getKernValues(mcs, 0, kernings)) {
             if (gpa == null) {
                 gpa = new int[numCodepoints][4];
             }
-            for (i = 0; i < numCodepoints; i++) {
+            for (int i = 0; i < numCodepoints; i++) {
                 if (i > 0) {
                     gpa [i - 1][GlyphPositioningTable.Value.IDX_X_ADVANCE] += kernings[i];
                 }
@@ -246,6 +228,14 @@ public class GlyphMapping {
         }
 
         CharSequence ics = text.subSequence(startIndex, endIndex);
+        // kerning of the whole word in one call
+        int[] kernings = null;
+        if (kerning) {
+            kernings = new int[ics.length()];
+            if (!font.getKernValues(ics, precedingChar, kernings)) {
+                kernings = null;
+            }
+        }
         int offset = 0;
         for (int currentChar : CharUtilities.codepointsIter(ics)) {
 
@@ -254,14 +244,8 @@ public class GlyphMapping {
             wordIPD = wordIPD.plus(charWidth);
 
             // kerning
-            if (kerning) {
-                int kern = 0;
-                if (offset > 0) {
-                    int previousChar = Character.codePointAt(ics, offset - 1);
-                    kern = font.getKernValue(previousChar, currentChar);
-                } else if (precedingChar != 0) {
-                    kern = font.getKernValue(precedingChar, currentChar);
-                }
+            if (kernings != null) {
+                int kern = kernings[offset];
                 if (kern != 0) {
                     addToLetterAdjust(letterSpaceAdjustArray, startIndex + offset, kern);
                     wordIPD = wordIPD.plus(kern);
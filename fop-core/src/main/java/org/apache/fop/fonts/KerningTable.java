@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable kerning table mapping character pairs to kerning values. The pairs are kept in
+ * an open-addressing hash table of primitive longs, so a lookup costs neither boxing nor
+ * the two map lookups of the kerning map returned by {@link FontMetrics#getKerningInfo()}.
+ */
+public final class KerningTable {
+
+    /** Marks an empty slot: pairs of non-negative character codes are never negative */
+    private static final long FREE = -1L;
+
+    /** The kerning table of fonts without kerning information. */
+    public static final KerningTable EMPTY = new KerningTable(new long[1], new int[1], 0);
+
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+    private final int size;
+
+    private KerningTable(long[] keys, int[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+        if (size == 0) {
+            keys[0] = FREE;
+        }
+    }
+
+    /**
+     * Builds a kerning table from a kerning map.
+     * @param kerning the kerning map (first character to second character to kerning value)
+     * @return the kerning table
+     */
+    public static KerningTable create(Map<Integer, Map<Integer, Integer>> kerning) {
+        int size = 0;
+        for (Map<Integer, Integer> pairs : kerning.values()) {
+            if (pairs != null) {
+                size += pairs.size();
+            }
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        //Keep the load factor at or below 0.5 so probe sequences stay short
+        int capacity = Integer.highestOneBit(size) << 2;
+        long[] keys = new long[capacity];
+        int[] values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        int mask = capacity - 1;
+        int count = 0;
+        for (Map.Entry<Integer, Map<Integer, Integer>> entry : kerning.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            int first = entry.getKey();
+            for (Map.Entry<Integer, Integer> pair : entry.getValue().entrySet()) {
+                int second = pair.getKey();
+                if (first < 0 || second < 0 || pair.getValue() == null) {
+                    continue;
+                }
+                long key = key(first, second);
+                int slot = hash(key) & mask;
+                while (keys[slot] != FREE && keys[slot] != key) {
+                    slot = (slot + 1) & mask;
+                }
+                if (keys[slot] == FREE) {
+                    count++;
+                }
+                keys[slot] = key;
+                values[slot] = pair.getValue();
+            }
+        }
+        return new KerningTable(keys, values, count);
+    }
+
+    private static long key(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the kerning value for a character pair.
+     * @param first the first character
+     * @param second the second character
+     * @return the kerning value in font units (1/1000 em), 0 if the pair is not kerned
+     */
+    public int getKerning(int first, int second) {
+        if (size == 0 || first < 0 || second < 0) {
+            return 0;
+        }
+        long key = key(first, second);
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Indicates whether the table contains no kerning pairs.
+     * @return true if no pair is kerned
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of kerned character pairs.
+     * @return the number of pairs
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.fop.fonts;
 import java.awt.Rectangle;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
@@ -52,6 +53,8 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private final String subFontName;
     private final boolean embedded;
     private final InternalResourceResolver resourceResolver;
+    private final FontCache fontCache;
+    private final FontMetricsRegistry fontMetricsRegistry;
 
     private boolean isMetricsLoaded;
     private Typeface realFont;
@@ -64,6 +67,21 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      */
     public LazyFont(EmbedFontInfo fontInfo, InternalResourceResolver resourceResolver,
             boolean useComplexScripts) {
+        this(fontInfo, resourceResolver, useComplexScripts, null, null);
+    }
+
+    /**
+     * Constructor taking the metrics of OpenType fonts from the documents rendered
+     * concurrently or from a font cache when possible rather than parsing the font file.
+     * @param fontInfo  the font info to embed
+     * @param resourceResolver the font resolver to handle font URIs
+     * @param useComplexScripts true if complex script features are enabled
+     * @param fontCache the font cache (may be null)
+     * @param fontMetricsRegistry the registry of shared font metrics (may be null)
+     */
+    public LazyFont(EmbedFontInfo fontInfo, InternalResourceResolver resourceResolver,
+            boolean useComplexScripts, FontCache fontCache,
+            FontMetricsRegistry fontMetricsRegistry) {
 
         this.fontUris = fontInfo.getFontUris();
         this.useKerning = fontInfo.getKerning();
@@ -81,6 +99,8 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         this.subFontName = fontInfo.getSubFontName();
         this.embedded = fontInfo.isEmbedded();
         this.resourceResolver = resourceResolver;
+        this.fontCache = fontCache;
+        this.fontMetricsRegistry = fontMetricsRegistry;
     }
 
     /** {@inheritDoc} */
@@ -116,8 +136,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
                     if (fontUris.getEmbed() == null) {
                         throw new RuntimeException("Cannot load font. No font URIs available.");
                     }
-                    realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
-                                encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1);
+                    realFont = loadFont();
                 }
                 if (realFont instanceof FontDescriptor) {
                     realFontDescriptor = (FontDescriptor) realFont;
@@ -137,6 +156,59 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         }
     }
 
+    private CustomFont loadFont() throws IOException {
+        boolean shareable = fontMetricsRegistry != null && resourceResolver != null
+                && embedded && !embedAsType1 && encodingMode != EncodingMode.SINGLE_BYTE;
+        String sharedKey = null;
+        if (shareable) {
+            sharedKey = getSharedFontKey();
+            MultiByteFont font = fontMetricsRegistry.getFont(sharedKey);
+            if (font != null) {
+                return font;
+            }
+        }
+        CustomFont font = loadFontMetrics();
+        if (shareable && font.getClass() == MultiByteFont.class
+                && font.getFontType() == FontType.TYPE0) {
+            return fontMetricsRegistry.register(sharedKey, (MultiByteFont) font);
+        }
+        return font;
+    }
+
+    private String getSharedFontKey() {
+        return resourceResolver.resolveFromBase(fontUris.getEmbed()).toASCIIString()
+                + '|' + (subFontName != null ? subFontName : "")
+                + '|' + embeddingMode.getName() + '|' + encodingMode.getName()
+                + '|' + useKerning + '|' + useAdvanced + '|' + simulateStyle;
+    }
+
+    private CustomFont loadFontMetrics() throws IOException {
+        boolean cacheable = fontCache != null && embedded && !embedAsType1
+                && encodingMode != EncodingMode.SINGLE_BYTE;
+        long lastModified = -1;
+        if (cacheable) {
+            lastModified = FontCache.getLastModified(resourceResolver.resolveFromBase(
+                    fontUris.getEmbed()));
+            MultiByteFont font = CachedFontMetrics.load(fontCache, fontUris.getEmbed(),
+                    subFontName, lastModified, embeddingMode, useKerning, useAdvanced,
+                    resourceResolver);
+            if (font != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Font metrics taken from the font cache: " + fontUris.getEmbed());
+                }
+                font.setSimulateStyle(simulateStyle);
+                return font;
+            }
+        }
+        CustomFont font = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
+                encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1);
+        if (cacheable) {
+            CachedFontMetrics.store(fontCache, fontUris.getEmbed(), lastModified, font,
+                    useKerning, useAdvanced, resourceResolver);
+        }
+        return font;
+    }
+
     /**
      * Gets the real font.
      * @return the real font
@@ -319,6 +391,13 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         return realFont.getKerningInfo();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public KerningTable getKerningTable() {
+        load(true);
+        return realFont.getKerningTable();
+    }
+
     /** {@inheritDoc} */
     public boolean hasFeature(int tableType, String script, String language, String feature) {
         load(true);
@@ -80,13 +80,15 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     private boolean isOTFFile;
 
-    // since for most users the most likely glyphs are in the first cmap segments we store their mapping.
-    private static final int NUM_MOST_LIKELY_GLYPHS = 256;
-    private int[] mostLikelyGlyphs = new int[NUM_MOST_LIKELY_GLYPHS];
+    /** The index over the character map, built on first lookup */
+    private CMapIndex cmapIndex;
 
     //A map to store each used glyph from the CID set against the glyph name.
     private LinkedHashMap<Integer, String> usedGlyphNames = new LinkedHashMap<Integer, String>();
 
+    /** The font whose metrics are shared, kept reachable while this font is in use */
+    private final MultiByteFont sharedFont;
+
     /**
      * Default constructor
      */
@@ -99,6 +101,32 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         } else {
             cidSet = new CIDFull(this);
         }
+        sharedFont = null;
+    }
+
+    /**
+     * Creates a font for a document sharing the metrics, character map and advanced
+     * typographic tables of a font registered in a {@link FontMetricsRegistry}. The glyphs
+     * used by the document are recorded in this font only.
+     * @param sharedFont the font whose metrics are shared (not used by any document itself)
+     */
+    MultiByteFont(MultiByteFont sharedFont) {
+        super(sharedFont);
+        if (getEmbeddingMode() != EmbeddingMode.FULL) {
+            cidSet = new CIDSubset(this);
+        } else {
+            cidSet = new CIDFull(this);
+        }
+        this.sharedFont = sharedFont;
+        this.ttcName = sharedFont.ttcName;
+        this.encoding = sharedFont.encoding;
+        this.defaultWidth = sharedFont.defaultWidth;
+        this.cidType = sharedFont.cidType;
+        this.gdef = sharedFont.gdef;
+        this.gsub = sharedFont.gsub;
+        this.gpos = sharedFont.gpos;
+        this.boundingBoxes = sharedFont.boundingBoxes;
+        this.isOTFFile = sharedFont.isOTFFile;
     }
 
     /** {@inheritDoc} */
@@ -218,32 +246,20 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param c the Unicode character index
      * @return the glyph index (or 0 if the glyph is not available)
      */
-    // [TBD] - needs optimization, i.e., change from linear search to binary search
     public int findGlyphIndex(int c) {
-        int idx = c;
-        int retIdx = SingleByteEncoding.NOT_FOUND_CODE_POINT;
-
-        // for most users the most likely glyphs are in the first cmap segments (meaning the one with
-        // the lowest unicode start values)
-        if (idx < NUM_MOST_LIKELY_GLYPHS && mostLikelyGlyphs[idx] != 0) {
-            return mostLikelyGlyphs[idx];
+        CMapIndex index = cmapIndex;
+        if (index == null) {
+            index = new CMapIndex(cmap);
+            cmapIndex = index;
         }
-        for (CMapSegment i : cmap) {
-            if (retIdx == 0
-                    && i.getUnicodeStart() <= idx
-                    && i.getUnicodeEnd() >= idx) {
-                retIdx = i.getGlyphStartIndex()
-                    + idx
-                    - i.getUnicodeStart();
-                if (idx < NUM_MOST_LIKELY_GLYPHS) {
-                    mostLikelyGlyphs[idx] = retIdx;
-                }
-                if (retIdx != 0) {
-                    break;
-                }
-            }
-        }
-        return retIdx;
+        return index.findGlyphIndex(c);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setCMap(CMapSegment[] cmap) {
+        super.setCMap(cmap);
+        cmapIndex = null;
     }
 
     /**
@@ -252,7 +268,11 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      */
     protected synchronized void addPrivateUseMapping(int pu, int gi) {
         assert findGlyphIndex(pu) == SingleByteEncoding.NOT_FOUND_CODE_POINT;
-        cmap.add(new CMapSegment(pu, pu, gi));
+        CMapSegment segment = new CMapSegment(pu, pu, gi);
+        cmap.add(segment);
+        if (cmapIndex != null) {
+            cmapIndex.add(segment);
+        }
     }
 
     /**
@@ -53,6 +53,9 @@ public abstract class Typeface implements FontMetrics {
 
     private Set<Character> warnedChars;
 
+    /** The kerning information as a primitive table, built on first use */
+    private volatile KerningTable kerningTable;
+
     /**
      * Get the encoding of the font.
      * @return the encoding
@@ -112,6 +115,34 @@ public abstract class Typeface implements FontMetrics {
         return false;
     }
 
+    /**
+     * Returns the kerning information of the font as a primitive table for fast lookups.
+     * The table is built from {@link #getKerningInfo()} on first use.
+     * @return the kerning table ({@link KerningTable#EMPTY} if the font has no kerning
+     *          information or kerning is disabled)
+     */
+    public KerningTable getKerningTable() {
+        KerningTable table = this.kerningTable;
+        if (table == null) {
+            if (hasKerningInfo()) {
+                table = KerningTable.create(getKerningInfo());
+            } else {
+                table = KerningTable.EMPTY;
+            }
+            this.kerningTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * Sets the kerning table, for example to share the table of a font with the same
+     * metrics or to discard it (null) when the kerning information changes.
+     * @param kerningTable the kerning table or null to build it again on next use
+     */
+    protected void setKerningTable(KerningTable kerningTable) {
+        this.kerningTable = kerningTable;
+    }
+
     /**
      * Sets the font event listener that can be used to receive events about particular events
      * in this class.
@@ -31,6 +31,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.fonts.CachedFontMetrics;
 import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.EmbedFontInfo;
 import org.apache.fop.fonts.EmbeddingMode;
@@ -138,10 +139,11 @@ public class FontInfoFinder {
      * @param fontUri the font URI
      * @param customFont the custom font
      * @param fontCache font cache (may be null)
+     * @param lastModified the last modified date/time of the font file
      * @return FontInfo from the given custom font
      */
     private EmbedFontInfo getFontInfoFromCustomFont(URI fontUri, CustomFont customFont,
-            FontCache fontCache, InternalResourceResolver resourceResolver) {
+            FontCache fontCache, InternalResourceResolver resourceResolver, long lastModified) {
         FontUris fontUris = new FontUris(fontUri, null);
         List<FontTriplet> fontTripletList = new java.util.ArrayList<FontTriplet>();
         generateTripletsFromFont(customFont, fontTripletList);
@@ -154,6 +156,10 @@ public class FontInfoFinder {
         fontInfo.setPostScriptName(customFont.getFontName());
         if (fontCache != null) {
             fontCache.addFont(fontInfo, resourceResolver);
+            //The font was parsed anyway, spare LazyFont from parsing it again
+            CachedFontMetrics.store(fontCache, fontUri, lastModified, customFont,
+                    customFont.isKerningEnabled(), customFont.isAdvancedEnabled(),
+                    resourceResolver);
         }
         return fontInfo;
     }
@@ -239,7 +245,7 @@ public class FontInfoFinder {
                     continue;
                 }
                 EmbedFontInfo fi = getFontInfoFromCustomFont(fontURI, customFont, fontCache,
-                        resourceResolver);
+                        resourceResolver, fileLastModified);
                 if (fi != null) {
                     embedFontInfoList.add(fi);
                 }
@@ -265,7 +271,8 @@ public class FontInfoFinder {
                 }
                 return null;
             }
-            EmbedFontInfo fi = getFontInfoFromCustomFont(fontURI, customFont, fontCache, resourceResolver);
+            EmbedFontInfo fi = getFontInfoFromCustomFont(fontURI, customFont, fontCache, resourceResolver,
+                    fileLastModified);
             if (fi != null) {
                 return new EmbedFontInfo[] {fi};
             } else {
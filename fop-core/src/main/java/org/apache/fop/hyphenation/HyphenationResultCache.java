@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A bounded cache of the hyphenation points of words, shared by the rendering runs of a
+ * {@link org.apache.fop.apps.FopFactory}, so words occurring many times don't walk the
+ * hyphenation tree every time a paragraph is hyphenated.</p>
+ *
+ * <p>The words are kept in a number of segments, each holding the least recently used
+ * words up to its share of the capacity. Threads only contend when they hyphenate words
+ * of the same segment.</p>
+ */
+public class HyphenationResultCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    /** Cached result for words without hyphenation points */
+    private static final int[] NO_POINTS = new int[0];
+
+    private final Segment[] segments;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     * @param capacity the maximum number of words kept in the cache
+     */
+    public HyphenationResultCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(Math.max(1, (capacity + SEGMENT_COUNT - 1) / SEGMENT_COUNT));
+        }
+    }
+
+    /**
+     * Returns the hyphenation of a word, hyphenating it with a hyphenation tree if it
+     * isn't in the cache.
+     * @param patternKey the key of the hyphenation patterns (language, country and the
+     *          configured pattern file)
+     * @param hTree the hyphenation tree of the patterns
+     * @param word the word to hyphenate
+     * @param remainCharCount the minimum number of characters before the hyphenation point
+     * @param pushCharCount the minimum number of characters after the hyphenation point
+     * @return the hyphenation or null if the word has no hyphenation points
+     */
+    public Hyphenation hyphenate(String patternKey, HyphenationTree hTree, String word,
+            int remainCharCount, int pushCharCount) {
+        Key key = new Key(patternKey, word, remainCharCount, pushCharCount);
+        Segment segment = segments[((key.hashCode() >>> 16) ^ key.hashCode()) & (SEGMENT_COUNT - 1)];
+        int[] points;
+        synchronized (segment) {
+            points = segment.get(key);
+        }
+        if (points != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+            Hyphenation hyph = hTree.hyphenate(word, remainCharCount, pushCharCount);
+            points = hyph != null ? hyph.getHyphenationPoints().clone() : NO_POINTS;
+            synchronized (segment) {
+                segment.put(key, points);
+            }
+        }
+        if (points == NO_POINTS) {
+            return null;
+        }
+        return new Hyphenation(word, points.clone());
+    }
+
+    /**
+     * Returns the number of words whose hyphenation was found in the cache.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of words which had to be hyphenated with a hyphenation tree.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of words in the cache.
+     * @return the number of cached words
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all words from the cache. This method can be used if the hyphenation patterns
+     * are changed at runtime.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<Key, int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private static final class Key {
+
+        private final String patternKey;
+        private final String word;
+        private final int remainCharCount;
+        private final int pushCharCount;
+        private final int hash;
+
+        Key(String patternKey, String word, int remainCharCount, int pushCharCount) {
+            this.patternKey = patternKey;
+            this.word = word;
+            this.remainCharCount = remainCharCount;
+            this.pushCharCount = pushCharCount;
+            int hc = 17;
+            hc = 31 * hc + patternKey.hashCode();
+            hc = 31 * hc + word.hashCode();
+            hc = 31 * hc + remainCharCount;
+            hc = 31 * hc + pushCharCount;
+            this.hash = hc;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Key) {
+                Key k = (Key) o;
+                return k.hash == hash
+                    && k.remainCharCount == remainCharCount
+                    && k.pushCharCount == pushCharCount
+                    && k.word.equals(word)
+                    && k.patternKey.equals(patternKey);
+            }
+            return false;
+        }
+    }
+}
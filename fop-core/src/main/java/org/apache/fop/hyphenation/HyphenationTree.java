@@ -21,12 +21,11 @@ package org.apache.fop.hyphenation;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -635,9 +634,9 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
             = new BufferedReader(new java.io.InputStreamReader(System.in));
         while (true) {
             System.out.print("l:\tload patterns from XML\n"
-                    + "L:\tload patterns from serialized object\n"
+                    + "L:\tload patterns from compiled pattern file\n"
                     + "s:\tset minimum character count\n"
-                    + "w:\twrite hyphenation tree to object file\n"
+                    + "w:\twrite hyphenation tree to compiled pattern file\n"
                     + "h:\thyphenate\n"
                     + "f:\tfind pattern\n"
                     + "b:\tbenchmark\n"
@@ -674,53 +673,28 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
                 token = token.trim();
                 ht.loadPatterns(token);
             } else if (token.equals("L")) {
-                ObjectInputStream ois = null;
-                System.out.print("Object file name: ");
+                System.out.print("Pattern file name: ");
                 token = in.readLine();
                 if (token == null) {
                     break;
                 }
                 token = token.trim();
-                try {
-                    ois = new ObjectInputStream(new FileInputStream(token));
-                    ht = (HyphenationTree)ois.readObject();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                } finally {
-                    if (ois != null) {
-                        try {
-                            ois.close();
-                        } catch (IOException e) {
-                            //ignore
-                        }
-                    }
-                }
+                ht = Hyphenator.readHyphenationTree(new File(token));
             } else if (token.equals("w")) {
-                System.out.print("Object file name: ");
+                System.out.print("Pattern file name: ");
                 token = in.readLine();
                 if (token == null) {
                     break;
                 }
                 token = token.trim();
-                ObjectOutputStream oos = null;
+                OutputStream out = null;
                 try {
-                    oos = new ObjectOutputStream(new FileOutputStream(token));
-                    oos.writeObject(ht);
+                    out = new FileOutputStream(token);
+                    HyphenationTreeFile.write(ht, out);
                 } catch (Exception e) {
                     e.printStackTrace();
                 } finally {
-                    if (oos != null) {
-                        try {
-                            oos.flush();
-                        } catch (IOException e) {
-                            //ignore
-                        }
-                        try {
-                            oos.close();
-                        } catch (IOException e) {
-                            //ignore
-                        }
-                    }
+                    IOUtils.closeQuietly(out);
                 }
             } else if (token.equals("h")) {
                 System.out.print("Word: ");
@@ -19,19 +19,44 @@
 
 package org.apache.fop.hyphenation;
 
-import java.util.Hashtable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
 
 /**
  * <p>This is a cache for HyphenationTree instances.</p>
+ *
+ * <p>The cache can be shared by any number of threads without locking. The hyphenation trees
+ * of a set of languages can be preloaded in a background thread, so the first document in
+ * one of these languages doesn't have to wait for the patterns to be loaded.</p>
  */
 public class HyphenationTreeCache {
 
+    /**
+     * The maximum number of keys noted as missing. The language and country codes come from
+     * the documents, so their number isn't bounded by the available pattern files.
+     */
+    private static final int MAX_MISSING_KEYS = 1000;
+
     /** Contains the cached hyphenation trees */
-    private Hashtable hyphenTrees = new Hashtable();
+    private final ConcurrentMap<String, HyphenationTree> hyphenTrees
+            = new ConcurrentHashMap<String, HyphenationTree>();
     /** Used to avoid multiple error messages for the same language if a pattern file is missing. */
-    private Set missingHyphenationTrees;
+    private final Set<String> missingHyphenationTrees
+            = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    /** The hyphenation trees which are being preloaded or wait to be */
+    private final ConcurrentMap<String, FutureTask<HyphenationTree>> preloads
+            = new ConcurrentHashMap<String, FutureTask<HyphenationTree>>();
 
     /**
      * Looks in the cache if a hyphenation tree is available and returns it if it is found.
@@ -43,13 +68,11 @@ public class HyphenationTreeCache {
         String key = constructLlccKey(lang, country);
 
         // first try to find it in the cache
-        if (hyphenTrees.containsKey(key)) {
-            return (HyphenationTree)hyphenTrees.get(key);
-        } else if (hyphenTrees.containsKey(lang)) {
-            return (HyphenationTree)hyphenTrees.get(lang);
-        } else {
-            return null;
+        HyphenationTree hTree = hyphenTrees.get(key);
+        if (hTree == null) {
+            hTree = hyphenTrees.get(lang);
         }
+        return hTree;
     }
 
     /**
@@ -101,10 +124,9 @@ public class HyphenationTreeCache {
      * @param key the key (ex. "de_CH" or "en")
      */
     public void noteMissing(String key) {
-        if (missingHyphenationTrees == null) {
-            missingHyphenationTrees = new java.util.HashSet();
+        if (missingHyphenationTrees.size() < MAX_MISSING_KEYS) {
+            missingHyphenationTrees.add(key);
         }
-        missingHyphenationTrees.add(key);
     }
 
     /**
@@ -115,7 +137,70 @@ public class HyphenationTreeCache {
      * @return true if the hyphenation tree is unavailable
      */
     public boolean isMissing(String key) {
-        return (missingHyphenationTrees != null && missingHyphenationTrees.contains(key));
+        return missingHyphenationTrees.contains(key);
+    }
+
+    /**
+     * Starts loading the hyphenation trees of a number of languages in a background thread.
+     * A thread asking for one of these trees while they are being loaded waits for the
+     * background thread instead of loading the tree a second time.
+     * @param llccKeys the keys of the languages (ex. "de_CH" or "en")
+     * @param resolver resolver to find the hyphenation files (may be null)
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     */
+    public void preload(Collection<String> llccKeys, final InternalResourceResolver resolver,
+            final Map hyphPatNames) {
+        final List<FutureTask<HyphenationTree>> tasks = new ArrayList<FutureTask<HyphenationTree>>();
+        for (final String llccKey : llccKeys) {
+            int sep = llccKey.indexOf('_');
+            final String lang = sep < 0 ? llccKey : llccKey.substring(0, sep);
+            final String country = sep < 0 ? null : llccKey.substring(sep + 1);
+            FutureTask<HyphenationTree> task = new FutureTask<HyphenationTree>(
+                    new Callable<HyphenationTree>() {
+                public HyphenationTree call() {
+                    try {
+                        return Hyphenator.loadHyphenationTree(lang, country, resolver,
+                                hyphPatNames, null, HyphenationTreeCache.this);
+                    } finally {
+                        preloads.remove(llccKey);
+                    }
+                }
+            });
+            if (preloads.putIfAbsent(llccKey, task) == null) {
+                tasks.add(task);
+            }
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                for (FutureTask<HyphenationTree> task : tasks) {
+                    task.run();
+                }
+            }
+        }, "FOP hyphenation preloading");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for a hyphenation tree which is being preloaded. If the background thread hasn't
+     * started loading it yet, the tree is loaded by the calling thread.
+     * @param llccKey the key (ex. "de_CH" or "en")
+     */
+    void awaitPreload(String llccKey) {
+        FutureTask<HyphenationTree> task = preloads.get(llccKey);
+        if (task != null) {
+            task.run();
+            try {
+                task.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ee) {
+                //The caller tries to load the tree itself
+            }
+        }
     }
 
 }
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Reads and writes compiled hyphenation pattern files (.hyp) in a compact binary format.
+ * The arrays of the ternary trees and the packed interletter values are stored as they are
+ * held in memory, so loading a file costs little more than copying them out of a (memory
+ * mapped) buffer, unlike the Java serialization used by earlier versions.</p>
+ *
+ * <p>The file starts with the magic number "FHYP" and the format version, followed by the
+ * pattern tree, the interletter values, the character class tree and the hyphenation
+ * exceptions. All values are big-endian. A tree is stored as its root, the number of nodes
+ * and of keys, the lo, hi, eq and splitchar arrays of the nodes and the key array. Strings
+ * are stored as their length, or -1 for null, followed by their characters.</p>
+ */
+public final class HyphenationTreeFile {
+
+    /** The magic number at the start of a binary hyphenation pattern file */
+    public static final int MAGIC = 0x46485950; // "FHYP"
+
+    /** The version of the binary format written by this class */
+    public static final int VERSION = 1;
+
+    private static final byte STRING_ITEM = 0;
+    private static final byte HYPHEN_ITEM = 1;
+
+    private HyphenationTreeFile() { }
+
+    /**
+     * Indicates whether a buffer starts with a binary hyphenation pattern file. The position
+     * of the buffer is not changed.
+     * @param buffer the buffer
+     * @return true if the buffer starts with the magic number of the binary format
+     */
+    public static boolean isHyphenationTreeFile(ByteBuffer buffer) {
+        return buffer.remaining() >= 4 && buffer.slice().getInt() == MAGIC;
+    }
+
+    /**
+     * Indicates whether the first bytes of a file are those of a binary hyphenation pattern
+     * file.
+     * @param header the first bytes of the file
+     * @param length the number of bytes in the header array
+     * @return true if the header starts with the magic number of the binary format
+     */
+    public static boolean isHyphenationTreeFile(byte[] header, int length) {
+        return length >= 4 && isHyphenationTreeFile(ByteBuffer.wrap(header, 0, length));
+    }
+
+    /**
+     * Maps a file into memory.
+     * @param file the file
+     * @return the read-only buffer of the file's content
+     * @throws IOException if an I/O error occurs
+     */
+    public static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads a hyphenation tree in the binary format.
+     * @param in the buffer, positioned at the magic number; its position is not changed
+     * @return the hyphenation tree
+     * @throws IOException if the buffer doesn't hold a hyphenation tree of a supported version
+     */
+    public static HyphenationTree read(ByteBuffer in) throws IOException {
+        ByteBuffer buffer = in.slice();
+        if (!isHyphenationTreeFile(buffer)) {
+            throw new IOException("Not a binary hyphenation pattern file");
+        }
+        try {
+            buffer.getInt();
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version of hyphenation pattern file: "
+                        + version);
+            }
+            HyphenationTree hTree = new HyphenationTree();
+            readTree(buffer, hTree);
+            byte[] values = new byte[checkCount(buffer, buffer.getInt(), 1)];
+            buffer.get(values);
+            hTree.vspace = new ByteVector(values);
+            readTree(buffer, hTree.classmap);
+            int exceptionCount = buffer.getInt();
+            for (int i = 0; i < exceptionCount; i++) {
+                String word = readString(buffer);
+                int itemCount = buffer.getInt();
+                ArrayList items = new ArrayList(itemCount);
+                for (int j = 0; j < itemCount; j++) {
+                    byte type = buffer.get();
+                    if (type == STRING_ITEM) {
+                        items.add(readString(buffer));
+                    } else if (type == HYPHEN_ITEM) {
+                        String preBreak = readString(buffer);
+                        String noBreak = readString(buffer);
+                        String postBreak = readString(buffer);
+                        items.add(new Hyphen(preBreak, noBreak, postBreak));
+                    } else {
+                        throw new IOException("Invalid hyphenation exception item: " + type);
+                    }
+                }
+                hTree.stoplist.put(word, items);
+            }
+            return hTree;
+        } catch (BufferUnderflowException bue) {
+            throw new IOException("Truncated hyphenation pattern file");
+        }
+    }
+
+    private static void readTree(ByteBuffer buffer, TernaryTree tree) throws IOException {
+        tree.root = buffer.getChar();
+        tree.freenode = buffer.getChar();
+        tree.length = buffer.getInt();
+        int nodeCount = tree.freenode;
+        if (tree.root >= nodeCount) {
+            throw new IOException("Invalid hyphenation pattern tree");
+        }
+        tree.lo = readChars(buffer, nodeCount);
+        tree.hi = readChars(buffer, nodeCount);
+        tree.eq = readChars(buffer, nodeCount);
+        tree.sc = readChars(buffer, nodeCount);
+        tree.kv = new CharVector(readChars(buffer, buffer.getInt()));
+    }
+
+    private static int checkCount(ByteBuffer buffer, int count, int size) {
+        if (count < 0 || count > buffer.remaining() / size) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static char[] readChars(ByteBuffer buffer, int count) {
+        checkCount(buffer, count, 2);
+        char[] chars = new char[count];
+        buffer.asCharBuffer().get(chars);
+        buffer.position(buffer.position() + count * 2);
+        return chars;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(readChars(buffer, length));
+    }
+
+    /**
+     * Writes a hyphenation tree in the binary format.
+     * @param hTree the hyphenation tree
+     * @param out the stream to write to, which is flushed but not closed
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(HyphenationTree hTree, OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        writeTree(dout, hTree);
+        dout.writeInt(hTree.vspace.length());
+        dout.write(hTree.vspace.getArray(), 0, hTree.vspace.length());
+        writeTree(dout, hTree.classmap);
+        Map stoplist = hTree.stoplist;
+        dout.writeInt(stoplist.size());
+        for (Iterator iter = stoplist.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry entry = (Map.Entry) iter.next();
+            writeString(dout, (String) entry.getKey());
+            List items = (List) entry.getValue();
+            dout.writeInt(items.size());
+            for (Object item : items) {
+                if (item instanceof Hyphen) {
+                    Hyphen hyphen = (Hyphen) item;
+                    dout.writeByte(HYPHEN_ITEM);
+                    writeString(dout, hyphen.preBreak);
+                    writeString(dout, hyphen.noBreak);
+                    writeString(dout, hyphen.postBreak);
+                } else {
+                    dout.writeByte(STRING_ITEM);
+                    writeString(dout, (String) item);
+                }
+            }
+        }
+        dout.flush();
+    }
+
+    private static void writeTree(DataOutputStream out, TernaryTree tree) throws IOException {
+        int nodeCount = tree.freenode;
+        out.writeChar(tree.root);
+        out.writeChar(tree.freenode);
+        out.writeInt(tree.length);
+        writeChars(out, tree.lo, nodeCount);
+        writeChars(out, tree.hi, nodeCount);
+        writeChars(out, tree.eq, nodeCount);
+        writeChars(out, tree.sc, nodeCount);
+        out.writeInt(tree.kv.length());
+        writeChars(out, tree.kv.getArray(), tree.kv.length());
+    }
+
+    private static void writeChars(DataOutputStream out, char[] chars, int count)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeChar(chars[i]);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(s.length());
+            writeChars(out, s.toCharArray(), s.length());
+        }
+    }
+}
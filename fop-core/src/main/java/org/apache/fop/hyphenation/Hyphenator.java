@@ -20,10 +20,14 @@
 package org.apache.fop.hyphenation;
 
 import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 import org.xml.sax.InputSource;
@@ -47,7 +51,7 @@ public final class Hyphenator {
     /** logging instance */
     private static final Log log = LogFactory.getLog(Hyphenator.class);
 
-    private static HyphenationTreeCache hTreeCache;
+    private static volatile HyphenationTreeCache hTreeCache = new HyphenationTreeCache();
 
     /** Enables a dump of statistics. Note: If activated content is sent to System.out! */
     private static boolean statisticsDump;
@@ -60,11 +64,12 @@ public final class Hyphenator {
      */
     private Hyphenator() { }
 
-    /** @return the default (static) hyphenation tree cache */
-    public static synchronized HyphenationTreeCache getHyphenationTreeCache() {
-        if (hTreeCache == null) {
-            hTreeCache = new HyphenationTreeCache();
-        }
+    /**
+     * Returns the default (static) hyphenation tree cache, used by the methods which aren't
+     * given the cache of a {@link org.apache.fop.apps.FopFactory}.
+     * @return the default hyphenation tree cache
+     */
+    public static HyphenationTreeCache getHyphenationTreeCache() {
         return hTreeCache;
     }
 
@@ -72,7 +77,7 @@ public final class Hyphenator {
      * Clears the default hyphenation tree cache.<br>
      * This method can be used if the underlying data files are changed at runtime.
      */
-    public static synchronized void clearHyphenationTreeCache() {
+    public static void clearHyphenationTreeCache() {
         hTreeCache = new HyphenationTreeCache();
     }
 
@@ -93,8 +98,41 @@ public final class Hyphenator {
 
     public static HyphenationTree getHyphenationTree(String lang, String country,
                        InternalResourceResolver resourceResolver, Map hyphPatNames, EventBroadcaster eventBroadcaster) {
+        return getHyphenationTree(lang, country, resourceResolver, hyphPatNames, eventBroadcaster,
+                getHyphenationTreeCache());
+    }
+
+    /**
+     * Returns a hyphenation tree for a given language and country,
+     * with fallback from (lang,country) to (lang).
+     * The hyphenation trees are cached in the given cache.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param eventBroadcaster the event broadcaster notified of missing patterns (may be null)
+     * @param cache the cache of the hyphenation trees (null for the default cache)
+     * @return the hyphenation tree
+     */
+    public static HyphenationTree getHyphenationTree(String lang, String country,
+            InternalResourceResolver resourceResolver, Map hyphPatNames, EventBroadcaster eventBroadcaster,
+            HyphenationTreeCache cache) {
+        if (cache == null) {
+            cache = getHyphenationTreeCache();
+        }
+        // wait for the tree if it is being preloaded
+        cache.awaitPreload(HyphenationTreeCache.constructLlccKey(lang, country));
+        return loadHyphenationTree(lang, country, resourceResolver, hyphPatNames, eventBroadcaster, cache);
+    }
+
+    /**
+     * Returns a hyphenation tree from the cache or loads it, without waiting for a tree
+     * which is being preloaded.
+     */
+    static HyphenationTree loadHyphenationTree(String lang, String country,
+            InternalResourceResolver resourceResolver, Map hyphPatNames, EventBroadcaster eventBroadcaster,
+            HyphenationTreeCache cache) {
         String llccKey = HyphenationTreeCache.constructLlccKey(lang, country);
-        HyphenationTreeCache cache = getHyphenationTreeCache();
 
         // If this hyphenation tree has been registered as missing, return immediately
         if (cache.isMissing(llccKey)) {
@@ -103,7 +141,7 @@ public final class Hyphenator {
 
         HyphenationTree hTree;
         // first try to find it in the cache
-        hTree = getHyphenationTreeCache().getHyphenationTree(lang, country);
+        hTree = cache.getHyphenationTree(lang, country);
         if (hTree != null) {
             return hTree;
         }
@@ -120,7 +158,7 @@ public final class Hyphenator {
         }
 
         if (hTree == null && country != null && !country.equals("none")) {
-            return getHyphenationTree(lang, null, resourceResolver, hyphPatNames, eventBroadcaster);
+            return getHyphenationTree(lang, null, resourceResolver, hyphPatNames, eventBroadcaster, cache);
         }
 
         // put it into the pattern cache
@@ -139,8 +177,8 @@ public final class Hyphenator {
         return hTree;
     }
 
-    private static InputStream getResourceStream(String key) {
-        InputStream is = null;
+    private static URL getResource(String key) {
+        URL url = null;
         // Try to use Context Class Loader to load the properties file.
         try {
             java.lang.reflect.Method getCCL = Thread.class.getMethod(
@@ -149,8 +187,8 @@ public final class Hyphenator {
                 ClassLoader contextClassLoader = (ClassLoader)getCCL.invoke(
                         Thread.currentThread(),
                         new Object[0]);
-                is = contextClassLoader.getResourceAsStream("hyph/" + key
-                                                            + ".hyp");
+                url = contextClassLoader.getResource("hyph/" + key
+                                                     + ".hyp");
             }
         } catch (NoSuchMethodException e) {
             //ignore, fallback further down
@@ -160,19 +198,39 @@ public final class Hyphenator {
             //ignore, fallback further down
         }
 
-        if (is == null) {
-            is = Hyphenator.class.getResourceAsStream("/hyph/" + key
-                                                      + ".hyp");
+        if (url == null) {
+            url = Hyphenator.class.getResource("/hyph/" + key
+                                               + ".hyp");
         }
 
-        return is;
+        return url;
     }
 
+    /**
+     * Reads a compiled hyphenation pattern file, either in the binary format of
+     * {@link HyphenationTreeFile} or Java serialized by earlier versions.
+     */
     private static HyphenationTree readHyphenationTree(InputStream in) {
         HyphenationTree hTree = null;
         try {
-            ObjectInputStream ois = new ObjectInputStream(in);
-            hTree = (HyphenationTree)ois.readObject();
+            if (!in.markSupported()) {
+                in = new BufferedInputStream(in);
+            }
+            byte[] header = new byte[4];
+            in.mark(header.length);
+            int length = 0;
+            int n;
+            while (length < header.length
+                    && (n = in.read(header, length, header.length - length)) > 0) {
+                length += n;
+            }
+            in.reset();
+            if (HyphenationTreeFile.isHyphenationTreeFile(header, length)) {
+                hTree = HyphenationTreeFile.read(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+            } else {
+                ObjectInputStream ois = new ObjectInputStream(in);
+                hTree = (HyphenationTree)ois.readObject();
+            }
         } catch (IOException ioe) {
             log.error("I/O error while loading precompiled hyphenation pattern file", ioe);
         } catch (ClassNotFoundException cnfe) {
@@ -182,29 +240,63 @@ public final class Hyphenator {
     }
 
     /**
-     * Returns a hyphenation tree. This method looks in the resources (getResourceStream) for
+     * Reads a compiled hyphenation pattern file. A file in the binary format is memory
+     * mapped rather than read through a stream.
+     * @param file the pattern file
+     * @return the hyphenation tree or null if the file couldn't be read
+     */
+    static HyphenationTree readHyphenationTree(File file) {
+        try {
+            ByteBuffer buffer = HyphenationTreeFile.map(file);
+            if (HyphenationTreeFile.isHyphenationTreeFile(buffer)) {
+                return HyphenationTreeFile.read(buffer);
+            }
+            InputStream in = new FileInputStream(file);
+            try {
+                return readHyphenationTree(in);
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        } catch (IOException ioe) {
+            log.error("I/O error while loading precompiled hyphenation pattern file", ioe);
+            return null;
+        }
+    }
+
+    /**
+     * Returns a hyphenation tree. This method looks in the resources (getResource) for
      * the hyphenation patterns.
      * @param key the language/country key
      * @return the hyphenation tree or null if it wasn't found in the resources
      */
     public static HyphenationTree getFopHyphenationTree(String key) {
-        HyphenationTree hTree = null;
-        ObjectInputStream ois = null;
+        URL url = getResource(key);
+        if (url == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Couldn't find precompiled hyphenation pattern "
+                          + key + " in resources");
+            }
+            return null;
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return readHyphenationTree(new File(url.toURI()));
+            } catch (URISyntaxException use) {
+                log.debug("An exception was thrown while attempting to load " + url, use);
+            } catch (IllegalArgumentException iae) {
+                log.debug("An exception was thrown while attempting to load " + url, iae);
+            }
+        }
         InputStream is = null;
         try {
-            is = getResourceStream(key);
-            if (is == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Couldn't find precompiled hyphenation pattern "
-                              + key + " in resources");
-                }
-                return null;
-            }
-            hTree = readHyphenationTree(is);
+            is = url.openStream();
+            return readHyphenationTree(is);
+        } catch (IOException ioe) {
+            log.error("I/O error while loading precompiled hyphenation pattern file", ioe);
+            return null;
         } finally {
-            IOUtils.closeQuietly(ois);
+            IOUtils.closeQuietly(is);
         }
-        return hTree;
     }
 
     /**
@@ -304,10 +396,63 @@ public final class Hyphenator {
     public static Hyphenation hyphenate(String lang, String country, InternalResourceResolver resourceResolver,
                                         Map hyphPatNames, String word, int leftMin, int rightMin,
                                         EventBroadcaster eventBroadcaster) {
-        HyphenationTree hTree = getHyphenationTree(lang, country, resourceResolver, hyphPatNames, eventBroadcaster);
+        return hyphenate(lang, country, resourceResolver, hyphPatNames, word, leftMin, rightMin,
+                eventBroadcaster, null);
+    }
+
+    /**
+     * Hyphenates a word, looking up the hyphenation points of words hyphenated before in a
+     * cache.
+     * @param lang the language
+     * @param country the optional country code (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param word the word to hyphenate
+     * @param leftMin the minimum number of characters before the hyphenation point
+     * @param rightMin the minimum number of characters after the hyphenation point
+     * @param eventBroadcaster the event broadcaster notified of missing patterns (may be null)
+     * @param resultCache the cache of hyphenated words (may be null)
+     * @return the hyphenation result
+     */
+    public static Hyphenation hyphenate(String lang, String country, InternalResourceResolver resourceResolver,
+                                        Map hyphPatNames, String word, int leftMin, int rightMin,
+                                        EventBroadcaster eventBroadcaster, HyphenationResultCache resultCache) {
+        return hyphenate(lang, country, resourceResolver, hyphPatNames, word, leftMin, rightMin,
+                eventBroadcaster, null, resultCache);
+    }
+
+    /**
+     * Hyphenates a word with the hyphenation trees of a cache, looking up the hyphenation
+     * points of words hyphenated before in a cache.
+     * @param lang the language
+     * @param country the optional country code (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param word the word to hyphenate
+     * @param leftMin the minimum number of characters before the hyphenation point
+     * @param rightMin the minimum number of characters after the hyphenation point
+     * @param eventBroadcaster the event broadcaster notified of missing patterns (may be null)
+     * @param treeCache the cache of the hyphenation trees (null for the default cache)
+     * @param resultCache the cache of hyphenated words (may be null)
+     * @return the hyphenation result
+     */
+    public static Hyphenation hyphenate(String lang, String country, InternalResourceResolver resourceResolver,
+                                        Map hyphPatNames, String word, int leftMin, int rightMin,
+                                        EventBroadcaster eventBroadcaster, HyphenationTreeCache treeCache,
+                                        HyphenationResultCache resultCache) {
+        HyphenationTree hTree = getHyphenationTree(lang, country, resourceResolver, hyphPatNames, eventBroadcaster,
+                treeCache);
         if (hTree == null) {
             return null;
         }
-        return hTree.hyphenate(word, leftMin, rightMin);
+        if (resultCache == null) {
+            return hTree.hyphenate(word, leftMin, rightMin);
+        }
+        String patternKey = HyphenationTreeCache.constructLlccKey(lang, country);
+        String userKey = HyphenationTreeCache.constructUserKey(lang, country, hyphPatNames);
+        if (userKey != null) {
+            patternKey += "/" + userKey;
+        }
+        return resultCache.hyphenate(patternKey, hTree, word, leftMin, rightMin);
     }
 }
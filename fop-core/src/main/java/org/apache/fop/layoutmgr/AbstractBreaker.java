@@ -210,9 +210,30 @@ public abstract class AbstractBreaker {
 
     }
 
+    /**
+     * The position reached in an element list by the addition of the areas of its parts.
+     */
+    private static final class PartCursor {
+
+        /** the index of the next part */
+        private int part;
+        private int startElementIndex;
+        private int endElementIndex;
+        private int lastBreak = -1;
+        /** the index of the first element which is not released */
+        private int releasedElementIndex = 1;
+
+        private PartCursor(int part) {
+            this.part = part;
+        }
+    }
+
     // used by doLayout and getNextBlockList*
     protected List<BlockSequence> blockLists;
 
+    /** the parts of the current element list whose areas were added while it was broken */
+    private PartCursor committedParts;
+
     private boolean empty = true;
     /** blockListIndex of the current BlockSequence in blockLists */
     protected int blockListIndex;
@@ -264,6 +285,15 @@ public abstract class AbstractBreaker {
         return false;
     }
 
+    /**
+     * @return the number of parts the breaking algorithm may look ahead before it commits the
+     *          break of a part, 0 if unbounded
+     * @see PageBreakingAlgorithm#setPageHorizon(int)
+     */
+    protected int getPageHorizon() {
+        return 0;
+    }
+
     /**
      * Returns the PageProvider if any. PageBreaker overrides this method because each
      * page may have a different available BPD which needs to be accessible to the breaking
@@ -405,12 +435,23 @@ public abstract class AbstractBreaker {
                 //*** Phase 2: Alignment and breaking ***
                 log.debug("PLM> start of algorithm (" + this.getClass().getName()
                         + "), flow BPD =" + flowBPD);
-                PageBreakingAlgorithm alg = new PageBreakingAlgorithm(getTopLevelLM(),
+                final PageBreakingAlgorithm alg = new PageBreakingAlgorithm(getTopLevelLM(),
                          getPageProvider(), createLayoutListener(),
                          alignment, alignmentLast, footnoteSeparatorLength,
                          isPartOverflowRecoveryActivated(), autoHeight, isSinglePartFavored());
 
                 alg.setConstantLineWidth(flowBPD);
+                alg.setPageHorizon(getPageHorizon());
+                committedParts = null;
+                if (getPageHorizon() > 0 && canAddCommittedParts(blockList)) {
+                    committedParts = new PartCursor(0);
+                    final BlockSequence committedList = blockList;
+                    alg.setCommittedPagesListener(new PageBreakingAlgorithm.CommittedPagesListener() {
+                        public void notifyPagesCommitted(int pageCount) {
+                            addCommittedParts(alg, pageCount, committedList);
+                        }
+                    });
+                }
                 int optimalPageCount = alg.findBreakingPoints(blockList, 1, true,
                         BreakingAlgorithm.ALL_BREAKS);
                 boolean ipdChangesOnNextPage = (alg.getIPDdifference() != 0);
@@ -614,10 +655,65 @@ public abstract class AbstractBreaker {
      */
     protected void addAreas(PageBreakingAlgorithm alg, int startPart, int partCount,
             BlockSequence originalList, BlockSequence effectiveList, final LayoutContext childLC) {
-        int startElementIndex = 0;
-        int endElementIndex = 0;
-        int lastBreak = -1;
-        for (int p = startPart; p < startPart + partCount; p++) {
+        PartCursor cursor;
+        if (startPart == 0 && committedParts != null) {
+            // continue after the parts added while the element list was broken
+            cursor = committedParts;
+            committedParts = null;
+        } else {
+            cursor = new PartCursor(startPart);
+        }
+        addParts(alg, cursor, startPart + partCount, originalList, effectiveList, childLC);
+        if (alg.handlingFloat()) {
+            addAreasForFloats(alg, startPart, partCount, originalList, effectiveList, childLC,
+                    cursor.lastBreak, cursor.startElementIndex, cursor.endElementIndex);
+        }
+    }
+
+    /**
+     * Returns whether the areas of the parts committed by the breaking algorithm may be added
+     * before the whole element list is broken.
+     * @param blockList the element list
+     * @return true if the committed parts may be added while the element list is broken
+     * @see PageBreakingAlgorithm#setPageHorizon(int)
+     */
+    protected boolean canAddCommittedParts(BlockSequence blockList) {
+        return false;
+    }
+
+    /**
+     * Adds the areas of the parts committed while the element list is broken, then releases
+     * the elements before the last break, which neither the breaking algorithm nor the parts
+     * still to be added look at any more.
+     * @param alg the breaking algorithm, whose page breaks are the ones of the committed parts
+     * @param partCount the number of committed parts
+     * @param blockList the element list
+     */
+    protected void addCommittedParts(PageBreakingAlgorithm alg, int partCount,
+            BlockSequence blockList) {
+        PartCursor cursor = committedParts;
+        addParts(alg, cursor, partCount, blockList, blockList, LayoutContext.newInstance());
+        for (int i = cursor.releasedElementIndex; i < cursor.lastBreak; i++) {
+            blockList.set(i, null);
+        }
+        cursor.releasedElementIndex = Math.max(cursor.releasedElementIndex, cursor.lastBreak);
+    }
+
+    /**
+     * Adds the areas of the parts from the one of the cursor up to the given part.
+     * @param alg PageBreakingAlgorithm instance which determined the breaks
+     * @param cursor the position reached in the element list, updated for the added parts
+     * @param endPart index of the part after the last one to be rendered
+     * @param originalList original Knuth element list
+     * @param effectiveList effective Knuth element list (after adjustments)
+     * @param childLC the layout context
+     */
+    private void addParts(PageBreakingAlgorithm alg, PartCursor cursor, int endPart,
+            BlockSequence originalList, BlockSequence effectiveList, final LayoutContext childLC) {
+        int startElementIndex = cursor.startElementIndex;
+        int endElementIndex = cursor.endElementIndex;
+        int lastBreak = cursor.lastBreak;
+        for (int p = cursor.part; p < endPart; p++) {
             PageBreakPosition pbp = alg.getPageBreaks().get(p);
 
             // Check the last break position for forced breaks
@@ -709,10 +805,10 @@ public abstract class AbstractBreaker {
             lastBreak = endElementIndex;
             startElementIndex = pbp.getLeafPos() + 1;
         }
-        if (alg.handlingFloat()) {
-            addAreasForFloats(alg, startPart, partCount, originalList, effectiveList, childLC, lastBreak,
-                    startElementIndex, endElementIndex);
-        }
+        cursor.part = Math.max(cursor.part, endPart);
+        cursor.startElementIndex = startElementIndex;
+        cursor.endElementIndex = endElementIndex;
+        cursor.lastBreak = lastBreak;
     }
     /**
      * Notifies the layout managers about the space and conditional length situation based on
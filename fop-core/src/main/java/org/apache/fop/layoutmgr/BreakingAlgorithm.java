@@ -115,6 +115,9 @@ public abstract class BreakingAlgorithm {
      */
     protected KnuthSequence par;
 
+    /** The values of the elements of the paragraph, in primitive arrays. */
+    protected KnuthSequenceColumns columns;
+
     /**
      * The width of a line (or height of a column in page-breaking mode).
      * -1 indicates that the line widths are different for each line.
@@ -192,6 +195,21 @@ public abstract class BreakingAlgorithm {
     private boolean partOverflowRecoveryActivated = true;
     private KnuthNode lastRecovered;
 
+    /** The maximum number of active nodes per line, 0 if unbounded. */
+    private int maxActiveNodesPerLine;
+
+    /** The number of nodes after which only the best node of each line is kept, 0 if none */
+    private int maxNodeCount;
+
+    /** The number of active nodes added while finding the breaking points */
+    private int nodeCount;
+
+    /** The number of active nodes dropped to respect the bounds */
+    private int prunedNodeCount;
+
+    /** The number of times the algorithm restarted because no active node was left */
+    private int recoveryCount;
+
     /**
      * Create a new instance.
      *
@@ -483,6 +501,59 @@ public abstract class BreakingAlgorithm {
                                      KnuthSequence sequence,
                                      int total);
 
+    /**
+     * Bounds the work done for very long paragraphs. When a line already has the maximum
+     * number of active nodes, a new node for this line only replaces the node with the
+     * highest demerits if it has fewer demerits itself. Once the given number of nodes has
+     * been added, only the best node of each line is kept, so the remaining breaks are
+     * chosen nearly as by a first-fit algorithm.
+     * @param maxActiveNodesPerLine the maximum number of active nodes per line, 0 if
+     *          unbounded
+     * @param maxNodeCount the number of nodes after which only one active node per line is
+     *          kept, 0 if unbounded
+     */
+    public void setBounds(int maxActiveNodesPerLine, int maxNodeCount) {
+        this.maxActiveNodesPerLine = maxActiveNodesPerLine;
+        this.maxNodeCount = maxNodeCount;
+    }
+
+    /**
+     * Returns whether the active nodes are bounded, so that a line between other active lines
+     * may lose all its nodes.
+     * @return true if bounds are set
+     * @see #setBounds(int, int)
+     */
+    protected boolean isBounded() {
+        return maxActiveNodesPerLine > 0 || maxNodeCount > 0;
+    }
+
+    /**
+     * @return the number of active nodes added by the last call to
+     *          {@link #findBreakingPoints(KnuthSequence, int, double, boolean, int)}
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return the number of active nodes dropped by the last call to
+     *          {@link #findBreakingPoints(KnuthSequence, int, double, boolean, int)} because
+     *          of the bounds
+     * @see #setBounds(int, int)
+     */
+    public int getPrunedNodeCount() {
+        return prunedNodeCount;
+    }
+
+    /**
+     * @return the number of times the last call to
+     *          {@link #findBreakingPoints(KnuthSequence, int, double, boolean, int)} ran
+     *          out of active nodes and restarted from a forced break
+     */
+    public int getRecoveryCount() {
+        return recoveryCount;
+    }
+
     /** @param lineWidth the line width */
     public void setConstantLineWidth(int lineWidth) {
         this.lineWidth = lineWidth;
@@ -506,6 +577,16 @@ public abstract class BreakingAlgorithm {
         return findBreakingPoints(par, 0, threshold, force, allowedBreaks);
     }
 
+    /**
+     * Sets the columns into which the elements of the paragraphs are copied, so their arrays
+     * can be reused for the paragraphs broken by other instances. The columns must not be
+     * used by another algorithm while this one is finding breaking points.
+     * @param columns the columns
+     */
+    public void setSequenceColumns(KnuthSequenceColumns columns) {
+        this.columns = columns;
+    }
+
     /**
      * Finds an optimal set of breakpoints for the given paragraph.
      *
@@ -525,6 +606,13 @@ public abstract class BreakingAlgorithm {
         this.par = par;
         this.threshold = threshold;
         this.force = force;
+        if (columns == null) {
+            columns = new KnuthSequenceColumns();
+        }
+        columns.load(par);
+        nodeCount = 0;
+        prunedNodeCount = 0;
+        recoveryCount = 0;
 
         // initialize the algorithm
         initialize();
@@ -537,7 +625,7 @@ public abstract class BreakingAlgorithm {
         // penalties+glues used for the filler spaces
         int previousPosition = startIndex;
         if (alignment != Constants.EN_CENTER) {
-            int firstBoxIndex = par.getFirstBoxIndex(startIndex);
+            int firstBoxIndex = columns.getFirstBoxIndex(startIndex);
             previousPosition = (firstBoxIndex >= par.size()) ? startIndex : firstBoxIndex - 1;
         }
         previousPosition = (previousPosition < 0) ? 0 : previousPosition;
@@ -585,6 +673,7 @@ public abstract class BreakingAlgorithm {
                     lastForced = lastTooShort;
                     this.lastRecovered = null;
                 }
+                recoveryCount++;
                 elementIndex = restartFrom(lastForced, elementIndex);
             }
 
@@ -592,6 +681,11 @@ public abstract class BreakingAlgorithm {
 
         finish();
 
+        if (log.isDebugEnabled()) {
+            log.debug("Breaking points found with " + nodeCount + " active nodes ("
+                    + prunedNodeCount + " pruned) and " + recoveryCount + " recovery passes");
+        }
+
         // there is at least one set of breaking points
         // select one or more active nodes, removing the others from the list
         int line = filterActiveNodes();
@@ -645,6 +739,7 @@ public abstract class BreakingAlgorithm {
             ListElement el = (ListElement)this.par.get(0);
             if (!el.isPenalty()) {
                 this.par.add(0, KnuthPenalty.DUMMY_ZERO_PENALTY);
+                columns.load(par);
             }
         }
 
@@ -878,6 +973,40 @@ public abstract class BreakingAlgorithm {
         return lastForced;
     }
 
+    /**
+     * Forgets the nodes kept to recover from an overflow which are not reached through the
+     * given node, so that a recovery can't change the breaks up to this node any more.
+     * @param node the node through which the kept nodes must be reached
+     */
+    protected void retainRecoveryNodes(KnuthNode node) {
+        if (!isReachedThrough(lastTooShort, node)) {
+            lastTooShort = null;
+        }
+        if (!isReachedThrough(lastTooLong, node)) {
+            lastTooLong = null;
+        }
+        if (!isReachedThrough(lastDeactivated, node)) {
+            lastDeactivated = null;
+        }
+        if (!isReachedThrough(lastRecovered, node)) {
+            lastRecovered = null;
+        }
+    }
+
+    /**
+     * Checks if the breaks leading to a node go through another node.
+     * @param node the node, may be null
+     * @param through the other node
+     * @return {@code true} if the node is null, is the other node or is reached through it
+     */
+    protected static boolean isReachedThrough(KnuthNode node, KnuthNode through) {
+        KnuthNode pathNode = node;
+        while (pathNode != null && pathNode.line > through.line) {
+            pathNode = pathNode.previous;
+        }
+        return node == null || pathNode == through;
+    }
+
     /**
      * Restart from the given node at the given index.
      *
@@ -904,8 +1033,8 @@ public abstract class BreakingAlgorithm {
         // advance in the sequence in order to avoid taking into account
         // these elements twice
         int restartingIndex = restartingNode.position;
-        while (restartingIndex + 1 < par.size()
-               && !(getElement(restartingIndex + 1).isBox())) {
+        while (restartingIndex + 1 < columns.size()
+               && !columns.isBox(restartingIndex + 1)) {
             restartingIndex++;
         }
         return restartingIndex;
@@ -1021,15 +1150,15 @@ public abstract class BreakingAlgorithm {
         // the values stored in the node; these would be as if the break
         // was just before the next box element, thus ignoring glues and
         // penalties between the "real" break and the following box
-        for (int i = elementIdx; i < par.size(); i++) {
-            KnuthElement tempElement = getElement(i);
-            if (tempElement.isBox()) {
+        for (int i = elementIdx; i < columns.size(); i++) {
+            byte type = columns.getType(i);
+            if (type == KnuthSequenceColumns.BOX) {
                 break;
-            } else if (tempElement.isGlue()) {
-                newWidth += tempElement.getWidth();
-                newStretch += tempElement.getStretch();
-                newShrink += tempElement.getShrink();
-            } else if (tempElement.isForcedBreak() && i != elementIdx) {
+            } else if (type == KnuthSequenceColumns.GLUE) {
+                newWidth += columns.getWidth(i);
+                newStretch += columns.getStretch(i);
+                newShrink += columns.getShrink(i);
+            } else if (columns.isForcedBreak(i) && i != elementIdx) {
                 break;
             }
         }
@@ -1140,15 +1269,15 @@ public abstract class BreakingAlgorithm {
         // the values stored in the node; these would be as if the break
         // was just before the next box element, thus ignoring glues and
         // penalties between the "real" break and the following box
-        for (int i = elementIdx; i < par.size(); i++) {
-            KnuthElement tempElement = getElement(i);
-            if (tempElement.isBox()) {
+        for (int i = elementIdx; i < columns.size(); i++) {
+            byte type = columns.getType(i);
+            if (type == KnuthSequenceColumns.BOX) {
                 break;
-            } else if (tempElement.isGlue()) {
-                newWidth += tempElement.getWidth();
-                newStretch += tempElement.getStretch();
-                newShrink += tempElement.getShrink();
-            } else if (tempElement.isForcedBreak() && i != elementIdx) {
+            } else if (type == KnuthSequenceColumns.GLUE) {
+                newWidth += columns.getWidth(i);
+                newStretch += columns.getStretch(i);
+                newShrink += columns.getShrink(i);
+            } else if (columns.isForcedBreak(i) && i != elementIdx) {
                 break;
             }
         }
@@ -1165,12 +1294,46 @@ public abstract class BreakingAlgorithm {
                 }
                 KnuthNode newNode = createNode(elementIdx, line + 1, i,
                                                newWidth, newStretch, newShrink);
-                addNode(line + 1, newNode);
+                addNodeWithinBounds(line + 1, newNode);
             }
         }
         best.reset();
     }
 
+    /**
+     * Adds a new node for a feasible break within the bounds set by
+     * {@link #setBounds(int, int)}: if the line already has as many active nodes as allowed,
+     * the new node replaces the node with the highest demerits if it has fewer, and is
+     * dropped otherwise.
+     * @param line the line ending at the new node's breakpoint
+     * @param node the new node
+     */
+    private void addNodeWithinBounds(int line, KnuthNode node) {
+        int limit = (maxNodeCount > 0 && nodeCount >= maxNodeCount) ? 1 : maxActiveNodesPerLine;
+        if (limit <= 0 || line * 2 >= activeLines.length) {
+            addNode(line, node);
+            return;
+        }
+        int count = 0;
+        KnuthNode worstNode = null;
+        for (KnuthNode n = getNode(line); n != null; n = n.next) {
+            count++;
+            if (worstNode == null || n.totalDemerits > worstNode.totalDemerits) {
+                worstNode = n;
+            }
+        }
+        if (count < limit) {
+            addNode(line, node);
+        } else {
+            prunedNodeCount++;
+            if (worstNode.totalDemerits > node.totalDemerits) {
+                // add before removing, so the line doesn't become empty in between
+                addNode(line, node);
+                removeNode(line, worstNode);
+            }
+        }
+    }
+
     /**
      * Return the difference between the natural width of a line that would be made
      * between the given active node and the given element, and the available width of the
@@ -1258,8 +1421,7 @@ public abstract class BreakingAlgorithm {
         }
 
         if (element.isPenalty() && ((KnuthPenalty) element).isPenaltyFlagged()
-            && getElement(activeNode.position).isPenalty()
-            && ((KnuthPenalty) getElement(activeNode.position)).isPenaltyFlagged()) {
+            && columns.isFlaggedPenalty(activeNode.position)) {
             // add demerit for consecutive breaks at flagged penalties
             demerits += repeatedFlaggedDemerit;
             // there are at least two consecutive lines ending with a flagged penalty;
@@ -1269,9 +1431,7 @@ public abstract class BreakingAlgorithm {
             for (KnuthNode prevNode = activeNode.previous;
                  prevNode != null && flaggedPenaltiesCount <= maxFlaggedPenaltiesCount;
                  prevNode = prevNode.previous) {
-                KnuthElement prevElement = getElement(prevNode.position);
-                if (prevElement.isPenalty()
-                    && ((KnuthPenalty) prevElement).isPenaltyFlagged()) {
+                if (columns.isFlaggedPenalty(prevNode.position)) {
                     // the previous line ends with a flagged penalty too
                     flaggedPenaltiesCount++;
                 } else {
@@ -1352,10 +1512,16 @@ public abstract class BreakingAlgorithm {
             activeLines[headIdx + 1].next = node;
         } else {
             activeLines[headIdx] = node;
-            endLine = line + 1;
+            if (isBounded()) {
+                // a line between others may have lost all its nodes when the bounds are applied
+                endLine = Math.max(endLine, line + 1);
+            } else {
+                endLine = line + 1;
+            }
         }
         activeLines[headIdx + 1] = node;
         activeNodeCount++;
+        nodeCount++;
     }
 
     /**
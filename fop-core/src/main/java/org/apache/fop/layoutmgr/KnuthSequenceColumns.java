@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.List;
+
+/**
+ * The values of the elements of a {@link KnuthSequence} stored column by column in primitive
+ * arrays, so the breaking algorithms can scan the elements without dereferencing and type
+ * checking every element object. The arrays grow as needed and are reused when the next
+ * sequence is loaded.
+ */
+public final class KnuthSequenceColumns {
+
+    /** The type of a {@link KnuthBox} */
+    public static final byte BOX = 0;
+    /** The type of a {@link KnuthGlue} */
+    public static final byte GLUE = 1;
+    /** The type of a {@link KnuthPenalty} */
+    public static final byte PENALTY = 2;
+
+    private static final byte FLAGGED = 1;
+    private static final byte AUXILIARY = 2;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] widths = new int[INITIAL_CAPACITY];
+    private int[] stretches = new int[INITIAL_CAPACITY];
+    private int[] shrinks = new int[INITIAL_CAPACITY];
+    private int[] penalties = new int[INITIAL_CAPACITY];
+
+    /**
+     * Copies the values of the elements of a sequence into the columns, replacing those of
+     * the previously loaded sequence. The sequence must be reloaded if it is modified.
+     * @param elements the Knuth elements
+     */
+    public void load(List elements) {
+        int count = elements.size();
+        if (types.length < count) {
+            int capacity = Math.max(count, types.length * 2);
+            types = new byte[capacity];
+            flags = new byte[capacity];
+            widths = new int[capacity];
+            stretches = new int[capacity];
+            shrinks = new int[capacity];
+            penalties = new int[capacity];
+        }
+        for (int i = 0; i < count; i++) {
+            KnuthElement element = (KnuthElement) elements.get(i);
+            byte flag = element.isAuxiliary() ? AUXILIARY : 0;
+            widths[i] = element.getWidth();
+            if (element.isBox()) {
+                types[i] = BOX;
+                stretches[i] = 0;
+                shrinks[i] = 0;
+                penalties[i] = 0;
+            } else if (element.isGlue()) {
+                types[i] = GLUE;
+                stretches[i] = element.getStretch();
+                shrinks[i] = element.getShrink();
+                penalties[i] = 0;
+            } else {
+                types[i] = PENALTY;
+                stretches[i] = 0;
+                shrinks[i] = 0;
+                penalties[i] = element.getPenalty();
+                if (((KnuthPenalty) element).isPenaltyFlagged()) {
+                    flag |= FLAGGED;
+                }
+            }
+            flags[i] = flag;
+        }
+        size = count;
+    }
+
+    /** @return the number of elements */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of an element
+     * @return the type of the element: {@link #BOX}, {@link #GLUE} or {@link #PENALTY}
+     */
+    public byte getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * @param index the index of an element
+     * @return true if the element is a box
+     */
+    public boolean isBox(int index) {
+        return types[index] == BOX;
+    }
+
+    /**
+     * @param index the index of an element
+     * @return true if the element is a glue
+     */
+    public boolean isGlue(int index) {
+        return types[index] == GLUE;
+    }
+
+    /**
+     * @param index the index of an element
+     * @return true if the element is a penalty
+     */
+    public boolean isPenalty(int index) {
+        return types[index] == PENALTY;
+    }
+
+    /**
+     * @param index the index of an element
+     * @return true if the element is a flagged penalty
+     */
+    public boolean isFlaggedPenalty(int index) {
+        return (flags[index] & FLAGGED) != 0;
+    }
+
+    /**
+     * @param index the index of an element
+     * @return true if the element is a penalty forcing a break
+     */
+    public boolean isForcedBreak(int index) {
+        return types[index] == PENALTY && penalties[index] == -KnuthElement.INFINITE;
+    }
+
+    /**
+     * @param index the index of an element
+     * @return true if the element is an auxiliary one
+     */
+    public boolean isAuxiliary(int index) {
+        return (flags[index] & AUXILIARY) != 0;
+    }
+
+    /**
+     * @param index the index of an element
+     * @return the width of the element
+     */
+    public int getWidth(int index) {
+        return widths[index];
+    }
+
+    /**
+     * @param index the index of an element
+     * @return the stretch of the element, 0 if it isn't a glue
+     */
+    public int getStretch(int index) {
+        return stretches[index];
+    }
+
+    /**
+     * @param index the index of an element
+     * @return the shrink of the element, 0 if it isn't a glue
+     */
+    public int getShrink(int index) {
+        return shrinks[index];
+    }
+
+    /**
+     * @param index the index of an element
+     * @return the penalty value of the element, 0 if it isn't a penalty
+     */
+    public int getPenalty(int index) {
+        return penalties[index];
+    }
+
+    /**
+     * Returns the index of the first box at or after an index.
+     * @param startIndex the index to start at
+     * @return the index of the box, or the number of elements if there is none, or the
+     *          start index if it is out of range
+     */
+    public int getFirstBoxIndex(int startIndex) {
+        if (startIndex < 0) {
+            return startIndex;
+        }
+        int index = startIndex;
+        while (index < size && types[index] != BOX) {
+            index++;
+        }
+        return index;
+    }
+}
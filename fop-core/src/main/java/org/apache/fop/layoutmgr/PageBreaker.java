@@ -30,6 +30,7 @@ import org.apache.fop.area.Footnote;
 import org.apache.fop.area.PageViewport;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.Region;
 import org.apache.fop.fo.pagination.RegionBody;
 import org.apache.fop.fo.pagination.StaticContent;
@@ -50,6 +51,7 @@ public class PageBreaker extends AbstractBreaker {
     private Block separatorArea;
     private boolean spanAllActive;
     private boolean layoutRedone;
+    private boolean addingCommittedParts;
     private int previousIndex;
     private boolean handlingStartOfFloat;
     private boolean handlingEndOfFloat;
@@ -104,6 +106,41 @@ public class PageBreaker extends AbstractBreaker {
         return pslm.getPageProvider();
     }
 
+    /** {@inheritDoc} */
+    protected int getPageHorizon() {
+        return pslm.getFObj().getUserAgent().getPageBreakingHorizon();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Not for the element lists whose last part may be laid out again, for column balancing or
+     * a special page-master, nor for those with floats.
+     */
+    protected boolean canAddCommittedParts(BlockSequence blockList) {
+        PageSequence pageSequence = pslm.getPageSequence();
+        if (needColumnBalancing || layoutRedone || handlingFloat()
+                || pageSequence.hasPagePositionLast() || pageSequence.hasPagePositionOnly()) {
+            return false;
+        }
+        for (Object element : blockList) {
+            if (element instanceof KnuthBlockBox && ((KnuthBlockBox) element).hasFloatAnchors()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    protected void addCommittedParts(PageBreakingAlgorithm alg, int partCount,
+            BlockSequence blockList) {
+        addingCommittedParts = true;
+        try {
+            super.addCommittedParts(alg, partCount, blockList);
+        } finally {
+            addingCommittedParts = false;
+        }
+    }
+
     /**
      * Starts the page breaking process.
      * @param flowBPD the constant available block-progression-dimension (used for every part)
@@ -510,9 +547,12 @@ public class PageBreaker extends AbstractBreaker {
                 // otherwise, we may simply need a new page
                 handleBreakTrait(breakClass, emptyContent);
             }
-            pageProvider.setStartOfNextElementList(pslm.getCurrentPageNum(),
-                    pslm.getCurrentPV().getCurrentSpan().getCurrentFlowIndex(),
-                    this.spanAllActive);
+            if (!addingCommittedParts) {
+                // the breaking algorithm still counts the parts from the start of the element list
+                pageProvider.setStartOfNextElementList(pslm.getCurrentPageNum(),
+                        pslm.getCurrentPV().getCurrentSpan().getCurrentFlowIndex(),
+                        this.spanAllActive);
+            }
         }
         pageBreakHandled = false;
         // add static areas and resolve any new id areas
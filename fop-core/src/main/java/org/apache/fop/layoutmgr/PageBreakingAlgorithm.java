@@ -111,6 +111,15 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
     private int previousFootnoteElementIndex = -2;
     private boolean relayingFootnotes;
 
+    /** The number of pages of lookahead after which breaks are committed, 0 if unbounded */
+    private int pageHorizon;
+    /** The number of the last page whose break has been committed */
+    private int committedPage;
+    /** The node ending the last committed page, null if none */
+    private KnuthNode committedNode;
+    /** Receives the breaks of the committed pages, may be null */
+    private CommittedPagesListener committedPagesListener;
+
     /**
      * Construct a page breaking algorithm.
      * @param topLevelLM the top level layout manager
@@ -509,6 +518,150 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
         super.considerLegalBreak(element, elementIdx);
         newFootnotes = false;
+        if (pageHorizon > 0 && endLine - 1 - startLine > pageHorizon) {
+            commitPages(endLine - 1 - pageHorizon);
+        }
+    }
+
+    /**
+     * Sets the number of pages the algorithm may look ahead. Once the active nodes end more
+     * pages than that after a page, the break of this page is committed: the break on the
+     * path of the best active node is kept and all the active nodes not reached through it are
+     * deactivated. This bounds the number of active nodes of very long page-sequences, at the
+     * expense of breaks that are optimal over fewer pages. The breaks of the committed pages
+     * are final, so the areas of these pages may be added before all the pages are broken.
+     * @param pageHorizon the number of pages, 0 if unbounded
+     * @see #setCommittedPagesListener(CommittedPagesListener)
+     */
+    public void setPageHorizon(int pageHorizon) {
+        this.pageHorizon = pageHorizon;
+    }
+
+    /**
+     * Sets the listener notified each time the breaks of pages are committed.
+     * @param listener the listener, null if none
+     * @see #setPageHorizon(int)
+     */
+    public void setCommittedPagesListener(CommittedPagesListener listener) {
+        this.committedPagesListener = listener;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isBounded() {
+        return super.isBounded() || pageHorizon > 0;
+    }
+
+    /**
+     * Returns the number of pages whose breaks were committed before the end of the element
+     * list was reached.
+     * @return the number of the last committed page, 0 if none
+     * @see #setPageHorizon(int)
+     */
+    public int getCommittedPageCount() {
+        return committedPage;
+    }
+
+    /**
+     * Commits the break ending a page, deactivating the active nodes whose path doesn't go
+     * through the break of this page on the path of the best active node. The breaks of the
+     * pages up to this one are added to the page breaks and the listener is notified.
+     * @param page the number of the page, which must be lower than the line of all active nodes
+     */
+    private void commitPages(int page) {
+        if (page <= committedPage) {
+            //Already committed at an earlier legal break
+            return;
+        }
+        if (handlingFloat() || bestNodeForIPDChange != null) {
+            //The breaks will be recomputed from a node which may not be on the committed path
+            return;
+        }
+        KnuthNode bestNode = null;
+        for (int line = startLine; line < endLine; line++) {
+            for (KnuthNode node = getNode(line); node != null; node = node.next) {
+                bestNode = compareNodes(bestNode, node);
+            }
+        }
+        KnuthNode pageNode = getPathNode(bestNode, page);
+        if (pageNode == null || pageNode.line != page) {
+            return;
+        }
+        for (int line = startLine; line < endLine; line++) {
+            KnuthNode node = getNode(line);
+            while (node != null) {
+                KnuthNode next = node.next;
+                if (getPathNode(node, page) != pageNode) {
+                    removeNode(line, node);
+                }
+                node = next;
+            }
+        }
+        retainRecoveryNodes(pageNode);
+        if (!isReachedThrough(lastBeforeKeepContextSwitch, pageNode)) {
+            lastBeforeKeepContextSwitch = null;
+        }
+        if (!isReachedThrough(bestFloatEdgeNode, pageNode)) {
+            bestFloatEdgeNode = null;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Committed the break of page " + page + " at " + pageNode.position
+                    + ", " + activeNodeCount + " active nodes left");
+        }
+
+        //The committed pages are never the last one
+        LinkedList<PageBreakPosition> committedBreaks = pageBreaks;
+        pageBreaks = null;
+        for (KnuthNode node = pageNode; node.line > committedPage; node = node.previous) {
+            updateData2(node, par, page + 1);
+        }
+        if (committedBreaks != null) {
+            pageBreaks.addAll(0, committedBreaks);
+        }
+        committedNode = pageNode;
+        committedPage = page;
+        if (committedPagesListener != null) {
+            committedPagesListener.notifyPagesCommitted(page);
+        }
+    }
+
+    /**
+     * Determines the breaks of the pages after the last committed one, and adds them after the
+     * breaks of the committed pages.
+     * {@inheritDoc}
+     */
+    @Override
+    protected void calculateBreakPoints(KnuthNode node, KnuthSequence par, int total) {
+        if (committedNode == null) {
+            super.calculateBreakPoints(node, par, total);
+            return;
+        }
+        LinkedList<PageBreakPosition> committedBreaks = pageBreaks;
+        pageBreaks = null;
+        KnuthNode bestActiveNode = node;
+        while (bestActiveNode.line > committedPage) {
+            updateData2(bestActiveNode, par, total);
+            bestActiveNode = bestActiveNode.previous;
+        }
+        assert (bestActiveNode == committedNode);
+        if (pageBreaks != null) {
+            committedBreaks.addAll(pageBreaks);
+        }
+        pageBreaks = committedBreaks;
+    }
+
+    /**
+     * Returns the node of a path that ends the given page.
+     * @param node the last node of the path
+     * @param page the number of the page
+     * @return the node or null if none ends this page
+     */
+    private static KnuthNode getPathNode(KnuthNode node, int page) {
+        KnuthNode pathNode = node;
+        while (pathNode != null && pathNode.line > page) {
+            pathNode = pathNode.previous;
+        }
+        return pathNode;
     }
 
     /** {@inheritDoc} */
@@ -676,7 +829,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
             int index;
             // ignore suppressed elements
             for (index = prevBreakIndex + 1;
-                    !par.getElement(index).isBox();
+                    !columns.isBox(index);
                     index++) {
                 //nop
             }
@@ -684,10 +837,9 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
             for (;
                  index < breakIndex;
                  index++) {
-                if (par.getElement(index).isGlue() && par.getElement(index - 1).isBox()
-                    || par.getElement(index).isPenalty()
-                       && ((KnuthElement) par
-                           .getElement(index)).getPenalty() < KnuthElement.INFINITE) {
+                if (columns.isGlue(index) && columns.isBox(index - 1)
+                    || columns.isPenalty(index)
+                       && columns.getPenalty(index) < KnuthElement.INFINITE) {
                     // break found
                     break;
                 }
@@ -907,8 +1059,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
 
         if (element.isPenalty() && ((KnuthPenalty) element).isPenaltyFlagged()
-            && getElement(activeNode.position).isPenalty()
-            && ((KnuthPenalty) getElement(activeNode.position)).isPenaltyFlagged()) {
+            && columns.isFlaggedPenalty(activeNode.position)) {
             // add demerit for consecutive breaks at flagged penalties
             demerits += repeatedFlaggedDemerit;
         }
@@ -1201,6 +1352,21 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
 
     }
 
+    /**
+     * Interface to receive the breaks of the pages committed while the element list is broken.
+     * @see PageBreakingAlgorithm#setPageHorizon(int)
+     */
+    public interface CommittedPagesListener {
+
+        /**
+         * Issued when the breaks of pages are committed. Until the breaking is finished, the
+         * page breaks of the algorithm are the breaks of the committed pages.
+         * @param pageCount the number of pages committed so far
+         */
+        void notifyPagesCommitted(int pageCount);
+
+    }
+
     @Override
     protected KnuthNode recoverFromOverflow() {
         if (compareIPDs(getLastTooLong().line - 1) != 0) {
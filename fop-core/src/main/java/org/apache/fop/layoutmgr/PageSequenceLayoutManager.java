@@ -39,6 +39,7 @@ import org.apache.fop.fo.pagination.RegionBody;
 import org.apache.fop.fo.pagination.SideRegion;
 import org.apache.fop.fo.pagination.StaticContent;
 import org.apache.fop.layoutmgr.inline.ContentLayoutManager;
+import org.apache.fop.text.linebreak.LineBreakScanner;
 import org.apache.fop.traits.MinOptMax;
 
 /**
@@ -63,6 +64,12 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
     private int startIntrusionAdjustment;
     private int endIntrusionAdjustment;
 
+    /** Determines the break opportunities of the text of this page-sequence */
+    private LineBreakScanner lineBreakScanner;
+
+    /** Holds the elements of the paragraphs of this page-sequence while their lines are broken */
+    private KnuthSequenceColumns paragraphColumns;
+
     /**
      * Constructor
      *
@@ -94,6 +101,30 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         return this;
     }
 
+    /**
+     * Returns the line break scanner shared by the text layout managers of this page-sequence,
+     * so the array of break actions is reused from one text to the next.
+     * @return the line break scanner
+     */
+    public LineBreakScanner getLineBreakScanner() {
+        if (lineBreakScanner == null) {
+            lineBreakScanner = new LineBreakScanner();
+        }
+        return lineBreakScanner;
+    }
+
+    /**
+     * Returns the columns shared by the line breaking algorithms of the paragraphs of this
+     * page-sequence, which are broken one after the other.
+     * @return the columns for the elements of a paragraph
+     */
+    public KnuthSequenceColumns getParagraphColumns() {
+        if (paragraphColumns == null) {
+            paragraphColumns = new KnuthSequenceColumns();
+        }
+        return paragraphColumns;
+    }
+
     public FlowLayoutManager getFlowLayoutManager() {
         if (pageBreaker == null) {
             throw new IllegalStateException("This method can be called only during layout");
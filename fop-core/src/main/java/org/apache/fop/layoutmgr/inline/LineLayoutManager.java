@@ -29,6 +29,7 @@ import java.util.ListIterator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.area.Area;
 import org.apache.fop.area.LineArea;
 import org.apache.fop.area.Trait;
@@ -853,6 +854,9 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                                             ? 0 : hyphenationLadderCount.getValue(),
                                         this);
         alg.setConstantLineWidth(ipd);
+        alg.setSequenceColumns(getPSLM().getParagraphColumns());
+        FOUserAgent userAgent = fobj.getUserAgent();
+        alg.setBounds(userAgent.getMaxActiveNodesPerLine(), userAgent.getMaxLineBreakingNodes());
         boolean canWrap = (wrapOption != EN_NO_WRAP);
         boolean canHyphenate = (canWrap && hyphenationProperties.hyphenate.getEnum() == EN_TRUE);
 
@@ -1435,7 +1439,9 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                                sbChars.toString(),
                                hyphenationProperties.hyphenationRemainCharacterCount.getValue(),
                                hyphenationProperties.hyphenationPushCharacterCount.getValue(),
-                               getFObj().getUserAgent().getEventBroadcaster());
+                               getFObj().getUserAgent().getEventBroadcaster(),
+                               getFObj().getUserAgent().getHyphenationTreeCache(),
+                               getFObj().getUserAgent().getHyphenationResultCache());
         // They hyph structure contains the information we need
         // Now start from prev: reset to that position, ask that LM to get
         // a Position for the first hyphenation offset. If the offset isn't in
@@ -757,7 +757,9 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         if (LOG.isDebugEnabled()) {
             LOG.debug("GK: [" + nextStart + "," + foText.length() + "]");
         }
-        LineBreakStatus lineBreakStatus = new LineBreakStatus();
+        final int scanStart = nextStart;
+        final byte[] breakActions = keepTogether ? null
+                : getPSLM().getLineBreakScanner().scan(foText, scanStart, foText.length());
         thisStart = nextStart;
         boolean inWord = false;
         boolean inWhitespace = false;
@@ -771,7 +773,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             boolean breakOpportunity = false;
             byte breakAction = keepTogether
                     ? LineBreakStatus.PROHIBITED_BREAK
-                    : lineBreakStatus.nextChar(ch);
+                    : breakActions[nextStart - scanStart];
             switch (breakAction) {
                 case LineBreakStatus.COMBINING_PROHIBITED_BREAK:
                 case LineBreakStatus.PROHIBITED_BREAK:
@@ -19,9 +19,16 @@
 
 package org.apache.fop.pdf;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.io.output.CountingOutputStream;
 
@@ -32,6 +39,19 @@ import org.apache.fop.util.CloseBlockerOutputStream;
  */
 public abstract class AbstractPDFStream extends PDFObject {
 
+    /** Stands for the encoded data of a stream whose data is written as-is on output */
+    private static final Future<StreamCache> WRITTEN_AS_IS;
+
+    static {
+        FutureTask<StreamCache> nothing = new FutureTask<StreamCache>(new Callable<StreamCache>() {
+            public StreamCache call() {
+                return null;
+            }
+        });
+        nothing.run();
+        WRITTEN_AS_IS = nothing;
+    }
+
     private final PDFDictionary dictionary;
 
     /** The filters that should be applied */
@@ -41,6 +61,9 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private PDFNumber refLength = new PDFNumber();
 
+    /** The stream data being encoded by a worker thread, if encoded ahead of output */
+    private Future<StreamCache> encodedAhead;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -165,17 +188,73 @@ public abstract class AbstractPDFStream extends PDFObject {
      * @throws IOException in case of an I/O problem
      */
     protected StreamCache encodeStream() throws IOException {
+        return encodeStream(findEncodedStreamCacheKey());
+    }
+
+    private StreamCache encodeStream(String cacheKey) throws IOException {
+        PDFEncodedStreamCache cache = null;
+        if (cacheKey != null) {
+            cache = getDocumentSafely().getEncodedStreamCache();
+            byte[] cached = cache.get(cacheKey);
+            if (cached != null) {
+                StreamCache encodedStream = getStreamCacheFactory().createStreamCache(cached.length);
+                encodedStream.write(cached);
+                return encodedStream;
+            }
+        }
         //Allocate a temporary buffer to find out the size of the encoded stream
-        final StreamCache encodedStream = StreamCacheFactory.getInstance()
-                .createStreamCache(getSizeHint());
+        final StreamCache encodedStream = getStreamCacheFactory().createStreamCache(getSizeHint());
         OutputStream filteredOutput
                 = getFilterList().applyFilters(encodedStream.getOutputStream());
         outputRawStreamData(filteredOutput);
         filteredOutput.flush();
         filteredOutput.close();
+        if (cache != null && cache.accepts(encodedStream.getSize())) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(encodedStream.getSize());
+            encodedStream.outputContents(bytes);
+            cache.put(cacheKey, bytes.toByteArray());
+        }
         return encodedStream;
     }
 
+    private StreamCacheFactory getStreamCacheFactory() {
+        PDFDocument doc = getDocument();
+        return doc != null ? doc.getStreamCacheFactory() : StreamCacheFactory.getInstance();
+    }
+
+    /**
+     * Returns a key identifying the raw stream data across documents, such as the URI of an
+     * image file, so the encoded data can be kept in the {@link PDFEncodedStreamCache} of
+     * the document and copied into the next documents using the same data.
+     * @return the key or null if the encoded data must not be cached
+     * @throws IOException in case of an I/O problem
+     */
+    protected String getEncodedStreamCacheKey() throws IOException {
+        return null;
+    }
+
+    private boolean isEncodedStreamCacheUsed() {
+        PDFDocument doc = getDocument();
+        return doc != null && doc.getEncodedStreamCache() != null && !doc.isEncryptionActive();
+    }
+
+    /**
+     * Returns the key of the encoded data in the cache of the document, made of the key of
+     * the raw data and of the filters, which must have been set up.
+     * @return the key or null if the encoded data isn't cached
+     */
+    private String findEncodedStreamCacheKey() throws IOException {
+        if (!isEncodedStreamCacheUsed()) {
+            return null;
+        }
+        String sourceKey = getEncodedStreamCacheKey();
+        if (sourceKey == null) {
+            return null;
+        }
+        String encodingKey = getFilterList().getEncodingKey();
+        return encodingKey != null ? sourceKey + '\n' + encodingKey : null;
+    }
+
     /**
      * Encodes and writes a stream directly to an OutputStream. The length of
      * the stream, in this case, is set on a PDFNumber object that has to be
@@ -210,6 +289,82 @@ public abstract class AbstractPDFStream extends PDFObject {
         return bytesWritten;
     }
 
+    /**
+     * Indicates whether the stream data may be encoded on another thread before the stream
+     * is output. This is only the case if the raw data is complete once the stream has been
+     * added to the document and doesn't depend on other objects being written first.
+     * @return true if the stream may be encoded ahead of its output
+     */
+    protected boolean isEncodeAheadAllowed() {
+        return false;
+    }
+
+    /**
+     * Sets up the filters and submits the encoding of the stream data to the given executor.
+     * The encoded data is picked up by {@link #output(OutputStream)}. If the filters leave the
+     * data unchanged, as for a JPEG image, nothing is submitted: buffering the data would
+     * only copy it once more, so it is copied straight from its source to the output when
+     * the stream is written.
+     * @param executor the executor running the encoding
+     */
+    void encodeAhead(ExecutorService executor) {
+        setupFilterList();
+        if (getFilterList().isPassThrough() && !isEncodedStreamCacheUsed()) {
+            encodedAhead = WRITTEN_AS_IS;
+            return;
+        }
+        encodedAhead = executor.submit(new Callable<StreamCache>() {
+            public StreamCache call() throws IOException {
+                return encodeStream();
+            }
+        });
+    }
+
+    /**
+     * Sets up the filters and encodes the stream data on the calling thread, keeping the
+     * encoded data for {@link #output(OutputStream)}.
+     * @return the encoded data
+     * @throws IOException in case of an I/O problem
+     */
+    StreamCache encodeNow() throws IOException {
+        setupFilterList();
+        final StreamCache encodedStream = encodeStream();
+        FutureTask<StreamCache> done = new FutureTask<StreamCache>(new Callable<StreamCache>() {
+            public StreamCache call() {
+                return encodedStream;
+            }
+        });
+        done.run();
+        encodedAhead = done;
+        return encodedStream;
+    }
+
+    /** @return true if the stream data is being, or has been, encoded ahead of output */
+    boolean isEncodedAhead() {
+        return encodedAhead != null;
+    }
+
+    private StreamCache takeEncodedAhead() throws IOException {
+        try {
+            return encodedAhead.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding a PDF stream");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            encodedAhead = null;
+        }
+    }
+
     /**
      * Overload the base object method so we don't have to copy
      * byte arrays around so much
@@ -217,12 +372,21 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     @Override
     public int output(OutputStream stream) throws IOException {
-        setupFilterList();
+        StreamCache encodedStream = null;
+        if (encodedAhead != null) {
+            encodedStream = takeEncodedAhead();
+        } else {
+            setupFilterList();
+            String cacheKey = findEncodedStreamCacheKey();
+            if (cacheKey != null) {
+                //Encoded through the cache, even if the stream would be encoded on the fly
+                encodedStream = encodeStream(cacheKey);
+            }
+        }
 
         CountingOutputStream cout = new CountingOutputStream(stream);
         StringBuilder textBuffer = new StringBuilder(64);
 
-        StreamCache encodedStream = null;
         final Object lengthEntry;
         if (encodeOnTheFly) {
             if (!refLength.hasObjectNumber()) {
@@ -230,7 +394,9 @@ public abstract class AbstractPDFStream extends PDFObject {
             }
             lengthEntry = refLength;
         } else {
-            encodedStream = encodeStream();
+            if (encodedStream == null) {
+                encodedStream = encodeStream();
+            }
             lengthEntry = encodedStream.getSize();
         }
 
@@ -242,6 +408,9 @@ public abstract class AbstractPDFStream extends PDFObject {
         if (encodedStream == null) {
             encodeAndWriteStream(cout, refLength);
         } else {
+            if (encodeOnTheFly) {
+                refLength.setNumber(encodedStream.getSize());
+            }
             outputStreamData(encodedStream, cout);
             encodedStream.clear(); //Encoded stream can now be discarded
         }
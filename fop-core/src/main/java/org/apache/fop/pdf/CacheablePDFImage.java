@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+/**
+ * Interface for a PDF image whose raw data can be identified across documents, for example
+ * by the URI of an image file, so its encoded data can be shared through a
+ * {@link PDFEncodedStreamCache}.
+ */
+public interface CacheablePDFImage extends PDFImage {
+
+    /**
+     * Returns a key identifying the data written by {@link #outputContents(java.io.OutputStream)}
+     * across documents. The key must be different whenever the data may be different.
+     * This method is called after {@link #setup(PDFDocument)}.
+     *
+     * @return the key or null if the data can't be identified
+     */
+    String getSourceKey();
+}
@@ -21,6 +21,8 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import org.apache.xmlgraphics.util.io.FlateEncodeOutputStream;
 
@@ -75,10 +77,21 @@ public class FlateFilter extends PDFFilter {
     public static final int PREDICTION_PNG_OPT = 15;
 
 
+    /** Name of the default Deflater strategy */
+    public static final String STRATEGY_DEFAULT = "default";
+
+    /** Name of the Deflater strategy for data made of small values with a random distribution */
+    public static final String STRATEGY_FILTERED = "filtered";
+
+    /** Name of the Deflater strategy only using Huffman coding */
+    public static final String STRATEGY_HUFFMAN_ONLY = "huffman-only";
+
     private int predictor = PREDICTION_NONE;
     private int colors;
     private int bitsPerComponent;
     private int columns;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int strategy = Deflater.DEFAULT_STRATEGY;
 
     /**
      * Get the name of this filter.
@@ -208,12 +221,84 @@ public class FlateFilter extends PDFFilter {
     }
 
 
+    /**
+     * Set the compression level used when this filter compresses data.
+     *
+     * @param level the compression level, from 0 (no compression) to 9 (best compression),
+     * or -1 for the Deflater's default level
+     */
+    public void setCompressionLevel(int level) {
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+                && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.compressionLevel = level;
+    }
+
+    /**
+     * Get the compression level used when this filter compresses data.
+     *
+     * @return the compression level
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Set the Deflater strategy used when this filter compresses data.
+     *
+     * @param strategy one of {@link #STRATEGY_DEFAULT}, {@link #STRATEGY_FILTERED}
+     * and {@link #STRATEGY_HUFFMAN_ONLY}
+     */
+    public void setStrategy(String strategy) {
+        if (STRATEGY_DEFAULT.equals(strategy)) {
+            this.strategy = Deflater.DEFAULT_STRATEGY;
+        } else if (STRATEGY_FILTERED.equals(strategy)) {
+            this.strategy = Deflater.FILTERED;
+        } else if (STRATEGY_HUFFMAN_ONLY.equals(strategy)) {
+            this.strategy = Deflater.HUFFMAN_ONLY;
+        } else {
+            throw new IllegalArgumentException("Invalid compression strategy: " + strategy);
+        }
+    }
+
+    /**
+     * Get the Deflater strategy used when this filter compresses data.
+     *
+     * @return the strategy, as a {@link Deflater} constant
+     */
+    public int getStrategy() {
+        return strategy;
+    }
+
     /** {@inheritDoc} */
     public OutputStream applyFilter(OutputStream out) throws IOException {
         if (isApplied()) {
             return out;
-        } else {
+        } else if (compressionLevel == Deflater.DEFAULT_COMPRESSION
+                && strategy == Deflater.DEFAULT_STRATEGY) {
             return new FlateEncodeOutputStream(out);
+        } else {
+            Deflater deflater = new Deflater(compressionLevel);
+            deflater.setStrategy(strategy);
+            return new DeflaterEncodeOutputStream(out, deflater);
+        }
+    }
+
+    /** Compresses with a specific Deflater, which is released when the stream is closed. */
+    private static class DeflaterEncodeOutputStream extends DeflaterOutputStream {
+
+        DeflaterEncodeOutputStream(OutputStream out, Deflater deflater) {
+            super(out, deflater);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
         }
     }
 
@@ -57,6 +57,12 @@ public class ObjectStream extends PDFStream {
         return reference;
     }
 
+    @Override
+    protected boolean isEncodeAheadAllowed() {
+        //The raw data is made of objects that may still change until this stream is output
+        return false;
+    }
+
     @Override
     protected void outputRawStreamData(OutputStream out) throws IOException {
         int currentOffset = 0;
@@ -422,6 +422,15 @@ public class PDFCMap extends PDFStream {
         return new CMapBuilder(writer, this.name);
     }
 
+    /**
+     * {@inheritDoc}
+     * The CMap is only written into the stream buffer when the stream is output.
+     */
+    @Override
+    protected boolean isEncodeAheadAllowed() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     public int output(OutputStream stream) throws IOException {
         CMapBuilder builder = createCMapBuilder(getBufferWriter());
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes the operators and operands of a PDF content stream directly into a reusable byte
+ * buffer, which is written to an output stream when it is full or flushed. Characters are
+ * encoded in {@link PDFDocument#ENCODING}, with '?' for the characters it can't represent,
+ * and numbers are formatted like {@link PDFNumber#doubleOut(double, int)}, so the bytes are
+ * the same as those of the formatted strings, without creating the strings.
+ * <p>
+ * The I/O errors of the output stream are not thrown by the methods adding content but by
+ * the next {@link #flush()}, so the operators of a page can be added without handling them.
+ */
+public final class PDFContentEncoder {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    /** The number of decimal places of {@link PDFNumber#doubleOut(double)} */
+    private static final int DEFAULT_DECIMALS = 6;
+
+    private final OutputStream out;
+
+    private byte[] buffer;
+
+    private int count;
+
+    /** The first error of the output stream, reported by {@link #flush()} */
+    private IOException error;
+
+    /** Reused to format numbers */
+    private final StringBuffer numberBuffer = new StringBuffer(32);
+
+    /**
+     * Creates a new encoder.
+     * @param out the stream the encoded bytes are written to
+     */
+    public PDFContentEncoder(OutputStream out) {
+        this.out = out;
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        } else if (count + length > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() {
+        if (count > 0) {
+            if (error == null) {
+                try {
+                    out.write(buffer, 0, count);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            count = 0;
+        }
+    }
+
+    /**
+     * Adds a character.
+     * @param c the character
+     * @return this encoder
+     */
+    public PDFContentEncoder add(char c) {
+        ensureCapacity(1);
+        buffer[count++] = c < 256 ? (byte) c : (byte) '?';
+        return this;
+    }
+
+    /**
+     * Adds a sequence of characters, such as an operator or PDF code.
+     * @param s the characters
+     * @return this encoder
+     */
+    public PDFContentEncoder add(CharSequence s) {
+        return add(s, 0, s.length());
+    }
+
+    /**
+     * Adds a part of a sequence of characters.
+     * @param s the characters
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @return this encoder
+     */
+    public PDFContentEncoder add(CharSequence s, int start, int end) {
+        ensureCapacity(0);
+        for (int i = start; i < end; i++) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            char c = s.charAt(i);
+            if (c < 256) {
+                buffer[count++] = (byte) c;
+            } else {
+                //Like the charset encoder, a surrogate pair is replaced by a single '?'
+                if (Character.isHighSurrogate(c) && i + 1 < end
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    i++;
+                }
+                buffer[count++] = (byte) '?';
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds a part of an array of characters.
+     * @param chars the characters
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return this encoder
+     */
+    public PDFContentEncoder add(char[] chars, int offset, int length) {
+        ensureCapacity(0);
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            char c = chars[i];
+            if (c < 256) {
+                buffer[count++] = (byte) c;
+            } else {
+                if (Character.isHighSurrogate(c) && i + 1 < end
+                        && Character.isLowSurrogate(chars[i + 1])) {
+                    i++;
+                }
+                buffer[count++] = (byte) '?';
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds a name, i.e. a slash followed by the name.
+     * @param name the name, without the slash
+     * @return this encoder
+     */
+    public PDFContentEncoder addName(String name) {
+        return add('/').add(name);
+    }
+
+    /**
+     * Adds an integer.
+     * @param value the integer
+     * @return this encoder
+     */
+    public PDFContentEncoder addNumber(int value) {
+        if (value == Integer.MIN_VALUE) {
+            return add(Integer.toString(value));
+        }
+        ensureCapacity(11);
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+        return this;
+    }
+
+    /**
+     * Adds a real number with up to 6 decimal places, like
+     * {@link PDFNumber#doubleOut(double)}.
+     * @param value the number
+     * @return this encoder
+     */
+    public PDFContentEncoder addNumber(double value) {
+        return addNumber(value, DEFAULT_DECIMALS);
+    }
+
+    /**
+     * Adds a real number with up to a given number of decimal places, like
+     * {@link PDFNumber#doubleOut(double, int)}.
+     * @param value the number
+     * @param decimals the maximum number of decimal places
+     * @return this encoder
+     */
+    public PDFContentEncoder addNumber(double value, int decimals) {
+        numberBuffer.setLength(0);
+        PDFNumber.doubleOut(value, decimals, numberBuffer);
+        return add(numberBuffer);
+    }
+
+    /**
+     * Returns the number of bytes waiting in the buffer.
+     * @return the number of buffered bytes
+     */
+    public int getBufferedCount() {
+        return count;
+    }
+
+    /**
+     * Writes the buffered bytes to the output stream, without flushing the output stream.
+     * @throws IOException if an I/O error occurred while writing to the output stream, now
+     *          or since the encoder was created
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.apache.fop.pdf;
 
 // Java
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
@@ -174,6 +175,21 @@ public class PDFDocument {
 
     private boolean linearizationEnabled;
 
+    private boolean streamingEnabled;
+
+    private int compressionThreadCount;
+
+    private ParallelStreamEncoder streamEncoder;
+
+    /** Finds XObjects with the same content, null if XObject deduplication is disabled */
+    private PDFXObjectPool xObjectPool;
+
+    /** The encoded stream data shared with other documents, null if not shared */
+    private PDFEncodedStreamCache encodedStreamCache;
+
+    /** Creates the buffers holding the data of the streams */
+    private StreamCacheFactory streamCacheFactory = StreamCacheFactory.getInstance();
+
     protected boolean outputStarted;
 
     /**
@@ -506,7 +522,9 @@ public class PDFDocument {
         }
         if (obj instanceof PDFPage) {
             this.pages.notifyKidRegistered((PDFPage)obj);
-            pageObjs.add((PDFPage) obj);
+            if (!isStreamingEnabled()) {
+                pageObjs.add((PDFPage) obj);
+            }
         }
         if (obj instanceof PDFLaunch) {
             this.launches.add((PDFLaunch) obj);
@@ -868,7 +886,17 @@ public class PDFDocument {
         // setup image
         img.setup(this);
         // create a new XObject
-        xObject = new PDFImageXObject(++this.xObjectCount, img);
+        xObject = new PDFImageXObject(this.xObjectCount + 1, img);
+        PDFXObject pooled = findDuplicate(xObject);
+        if (pooled instanceof PDFImageXObject) {
+            xObject = (PDFImageXObject) pooled;
+            if (res != null) {
+                res.addXObject(xObject);
+            }
+            this.xObjectsMap.put(key, xObject);
+            return xObject;
+        }
+        this.xObjectCount++;
         registerObject(xObject);
         this.resources.addXObject(xObject);
         if (res != null) {
@@ -882,7 +910,8 @@ public class PDFDocument {
      * Add a form XObject to the PDF document.
      * This adds a Form XObject to the PDF objects.
      * If a Form XObject with the same key already exists it will return the
-     * old {@link PDFFormXObject}.
+     * old {@link PDFFormXObject}. With XObject deduplication enabled, the contents must
+     * be complete when the Form XObject is added.
      *
      * @param res the PDF resource context to add to, may be null
      * @param cont the PDF Stream contents of the Form XObject
@@ -906,9 +935,19 @@ public class PDFDocument {
         }
 
         xObject = new PDFFormXObject(
-                ++this.xObjectCount,
+                this.xObjectCount + 1,
                 cont,
                 formres);
+        PDFXObject pooled = findDuplicate(xObject);
+        if (pooled instanceof PDFFormXObject) {
+            xObject = (PDFFormXObject) pooled;
+            if (res != null) {
+                res.addXObject(xObject);
+            }
+            this.xObjectsMap.put(key, xObject);
+            return xObject;
+        }
+        this.xObjectCount++;
         registerObject(xObject);
         this.resources.addXObject(xObject);
         if (res != null) {
@@ -918,6 +957,18 @@ public class PDFDocument {
         return xObject;
     }
 
+    private PDFXObject findDuplicate(PDFXObject xObject) {
+        //With PDF/VT, the image data is read again when written
+        if (xObjectPool == null || isEncryptionActive() || getProfile().isPDFVTActive()) {
+            return null;
+        }
+        try {
+            return xObjectPool.findDuplicate(xObject);
+        } catch (IOException ioe) {
+            throw new RuntimeException("I/O error while encoding an XObject", ioe);
+        }
+    }
+
     /**
      * Get the root Outlines object. This method does not write
      * the outline to the PDF document, it simply creates a
@@ -989,10 +1040,39 @@ public class PDFDocument {
         //Write out objects until the list is empty. This approach (used with a
         //LinkedList) allows for output() methods to create and register objects
         //on the fly even during serialization.
+        ParallelStreamEncoder encoder = getStreamEncoder();
         while (this.objects.size() > 0) {
+            if (encoder != null) {
+                encoder.encodeAhead(this.objects);
+            }
             PDFObject object = this.objects.remove(0);
             streamIndirectObject(object, stream);
         }
+        if (isStreamingEnabled()) {
+            //Everything in these lists has just been written, they are only kept to find
+            //duplicates, so don't let them grow with the page count.
+            this.links.clear();
+            this.launches.clear();
+            this.gotoremotes.clear();
+        }
+    }
+
+    /**
+     * Returns the number of PDF objects currently held by this document: objects waiting to
+     * be written, trailer objects and objects kept for lookups. With streaming enabled this
+     * number should stay roughly flat regardless of the number of pages.
+     *
+     * @return the number of objects held
+     */
+    public int getHeldObjectCount() {
+        int count = objects.size() + trailerObjects.size() + pageObjs.size()
+                + links.size() + launches.size() + filespecs.size() + gotoremotes.size()
+                + xObjectsMap.size() + gstates.size() + functions.size() + shadings.size()
+                + patterns.size();
+        if (structureTreeElements != null) {
+            count += structureTreeElements.size();
+        }
+        return count;
     }
 
     protected void writeTrailer(OutputStream stream, int first, int last, int size, long mainOffset, long startxref)
@@ -1095,7 +1175,12 @@ public class PDFDocument {
     public void outputTrailer(OutputStream stream) throws IOException {
         createDestinations();
         output(stream);
+        if (streamEncoder != null) {
+            streamEncoder.shutdown();
+            streamEncoder = null;
+        }
         outputTrailerObjectsAndXref(stream);
+        releaseStreamBuffers();
     }
 
     private void createDestinations() {
@@ -1229,4 +1314,180 @@ public class PDFDocument {
         linearizationEnabled = b;
     }
 
+    /**
+     * Returns the number of threads used to compress streams ahead of their output.
+     *
+     * @return the number of compression threads, 0 if streams are compressed while written
+     */
+    public int getCompressionThreadCount() {
+        return compressionThreadCount;
+    }
+
+    /**
+     * Sets the number of threads used to compress content and image streams ahead of their
+     * output. The streams are still written in order, so the output is the same as with
+     * serial compression. Ignored when encryption or linearization is active.
+     *
+     * @param count the number of compression threads, 0 to compress streams while written
+     */
+    public void setCompressionThreadCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Compression thread count must be 0 or more");
+        }
+        if (streamEncoder != null) {
+            streamEncoder.shutdown();
+            streamEncoder = null;
+        }
+        compressionThreadCount = count;
+    }
+
+    private ParallelStreamEncoder getStreamEncoder() {
+        if (compressionThreadCount == 0 || isEncryptionActive() || linearizationEnabled) {
+            return null;
+        }
+        if (streamEncoder == null) {
+            streamEncoder = new ParallelStreamEncoder(compressionThreadCount);
+        }
+        return streamEncoder;
+    }
+
+    /**
+     * Enables or disables the deduplication of image and form XObjects by their content.
+     * When enabled, the stream data of an XObject is encoded when it is added, and an
+     * XObject with the same dictionary and stream data as one added before, though with a
+     * different key, is replaced by the earlier one. Ignored when encryption or PDF/VT is
+     * active.
+     *
+     * @param enabled true to deduplicate XObjects by their content
+     */
+    public void setXObjectDeduplicationEnabled(boolean enabled) {
+        xObjectPool = enabled ? new PDFXObjectPool(this) : null;
+    }
+
+    /**
+     * Returns the pool finding the XObjects with the same content, which reports the number
+     * of duplicates and of bytes saved.
+     *
+     * @return the XObject pool or null if XObject deduplication is disabled
+     */
+    public PDFXObjectPool getXObjectPool() {
+        return xObjectPool;
+    }
+
+    /**
+     * Sets the cache through which the encoded data of images and color profiles is shared
+     * with other documents. The cache isn't used when encryption is active.
+     *
+     * @param cache the cache or null to encode all stream data for this document
+     */
+    public void setEncodedStreamCache(PDFEncodedStreamCache cache) {
+        this.encodedStreamCache = cache;
+    }
+
+    /**
+     * Returns the cache through which the encoded data of images and color profiles is
+     * shared with other documents.
+     *
+     * @return the cache or null if the stream data isn't shared
+     */
+    public PDFEncodedStreamCache getEncodedStreamCache() {
+        return encodedStreamCache;
+    }
+
+    /**
+     * Sets the amount of off-heap memory buffering the data of the streams created from now
+     * on. With a budget, stream data is kept in pooled chunks of direct memory and, beyond
+     * the budget, in a memory-mapped temporary file, instead of in byte arrays on the heap.
+     * The memory is released when the trailer has been written.
+     *
+     * @param budget the number of bytes of direct memory, 0 to buffer streams on the heap
+     */
+    public void setStreamBufferBudget(long budget) {
+        setStreamBufferBudget(budget, null);
+    }
+
+    /**
+     * Sets the amount of off-heap memory buffering the data of the streams created from now
+     * on, spilling beyond the budget to a temporary file in the given directory.
+     *
+     * @param budget the number of bytes of direct memory, 0 to buffer streams on the heap
+     * @param directory the directory the spill file is created in, or null for the default
+     *          temporary-file directory
+     * @see #setStreamBufferBudget(long)
+     */
+    public void setStreamBufferBudget(long budget, File directory) {
+        releaseStreamBuffers();
+        if (budget > 0) {
+            streamCacheFactory = StreamCacheFactory.getInstance(new StreamBufferPool(budget,
+                    StreamBufferPool.DEFAULT_CHUNK_SIZE, directory));
+        } else {
+            streamCacheFactory = StreamCacheFactory.getInstance();
+        }
+    }
+
+    /**
+     * Returns the pool providing the off-heap memory buffering the data of the streams.
+     *
+     * @return the pool or null if streams are buffered on the heap
+     */
+    public StreamBufferPool getStreamBufferPool() {
+        return streamCacheFactory.getStreamBufferPool();
+    }
+
+    /**
+     * Returns the factory creating the buffers holding the data of the streams.
+     *
+     * @return the stream cache factory
+     */
+    public StreamCacheFactory getStreamCacheFactory() {
+        return streamCacheFactory;
+    }
+
+    /**
+     * Releases the off-heap memory and the temporary file buffering the data of the streams,
+     * if any. The streams which have not been written yet lose their data. This is also called
+     * when the rendering of the document failed.
+     */
+    public void releaseStreamBuffers() {
+        StreamBufferPool pool = streamCacheFactory.getStreamBufferPool();
+        if (pool != null) {
+            if (streamEncoder != null) {
+                boolean stopped = streamEncoder.shutdownAndWait();
+                streamEncoder = null;
+                if (!stopped) {
+                    //The compression threads may still read the buffers, leave them to the GC
+                    return;
+                }
+            }
+            try {
+                pool.close();
+            } catch (IOException e) {
+                log.warn("Could not release the stream buffers: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Indicates whether objects are released once they have been written. Streaming has no
+     * effect when linearization is enabled since the linearized layout needs every page
+     * until the end of the document.
+     *
+     * @return true if streaming is enabled
+     */
+    public boolean isStreamingEnabled() {
+        return streamingEnabled && !linearizationEnabled;
+    }
+
+    /**
+     * Enables or disables streaming. When enabled, pages, links and stream buffers are
+     * released as soon as they have been written to the output stream. Only objects that
+     * can be referenced forward (page tree, fonts, structure tree...) are kept until the
+     * end of the document.
+     *
+     * @param b true to enable streaming
+     */
+    public void setStreamingEnabled(boolean b) {
+        streamingEnabled = b;
+    }
+
 }
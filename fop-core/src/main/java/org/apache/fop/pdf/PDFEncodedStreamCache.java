@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A bounded cache of encoded stream data, shared by the documents rendered with a
+ * {@link org.apache.fop.apps.FopFactory}, so an image or a color profile used by many
+ * documents is only read and compressed once. The data is kept with a key made of the
+ * identity of the raw data, such as the URI of an image file, and of the filters
+ * encoding it. It is copied as-is into the documents, which are therefore the same as if
+ * the data had been encoded again.</p>
+ *
+ * <p>The least recently used data is removed from the cache when the total size of the
+ * cached data goes beyond the capacity. Data larger than the capacity isn't cached.</p>
+ */
+public final class PDFEncodedStreamCache {
+
+    private final long capacity;
+
+    private final Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+
+    private long byteCount;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     * @param capacity the maximum number of bytes of encoded data kept in the cache
+     */
+    public PDFEncodedStreamCache(long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the encoded data cached with a key. The returned array must not be modified.
+     * @param key the key of the raw data and the filters
+     * @return the encoded data or null if it isn't in the cache
+     */
+    public byte[] get(String key) {
+        byte[] data;
+        synchronized (entries) {
+            data = entries.get(key);
+        }
+        if (data != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return data;
+    }
+
+    /**
+     * Puts encoded data into the cache, removing the least recently used data if the
+     * capacity would be exceeded. The array must not be modified afterwards.
+     * @param key the key of the raw data and the filters
+     * @param data the encoded data
+     */
+    public void put(String key, byte[] data) {
+        if (!accepts(data.length)) {
+            return;
+        }
+        synchronized (entries) {
+            byte[] previous = entries.put(key, data);
+            if (previous != null) {
+                byteCount -= previous.length;
+            }
+            byteCount += data.length;
+            Iterator<byte[]> iter = entries.values().iterator();
+            while (byteCount > capacity) {
+                byteCount -= iter.next().length;
+                iter.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Indicates whether encoded data of the given size may be put into the cache.
+     * @param size the size of the encoded data
+     * @return true if the data isn't larger than the capacity
+     */
+    public boolean accepts(long size) {
+        return size <= capacity;
+    }
+
+    /**
+     * Returns the number of lookups which found encoded data in the cache.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups which didn't find encoded data in the cache.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of entries removed from the cache to stay within its capacity.
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the maximum number of bytes of encoded data kept in the cache.
+     * @return the capacity
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of bytes of encoded data in the cache.
+     * @return the number of cached bytes
+     */
+    public long getByteCount() {
+        synchronized (entries) {
+            return byteCount;
+        }
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     * @return the number of cached entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Removes all encoded data from the cache. This method can be used if images or color
+     * profiles are changed at runtime.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            byteCount = 0;
+        }
+    }
+}
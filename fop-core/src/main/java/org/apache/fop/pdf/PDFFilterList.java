@@ -123,6 +123,8 @@ public class PDFFilterList {
         }
         if (filterType.equals("flate")) {
             addFilter(new FlateFilter());
+        } else if (filterType.startsWith("flate;")) {
+            addFilter(createFlateFilter(filterType));
         } else if (filterType.equals("null")) {
             addFilter(new NullFilter());
         } else if (filterType.equals("ascii-85")) {
@@ -143,6 +145,35 @@ public class PDFFilterList {
         }
     }
 
+    /**
+     * Creates a flate filter from a type of the form
+     * <code>flate;level=&lt;0-9&gt;;strategy=&lt;default|filtered|huffman-only&gt;</code>,
+     * where both parameters are optional.
+     */
+    private FlateFilter createFlateFilter(String filterType) {
+        FlateFilter filter = new FlateFilter();
+        String[] params = filterType.split(";");
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i];
+            int eq = param.indexOf('=');
+            String name = eq < 0 ? param : param.substring(0, eq);
+            String value = eq < 0 ? "" : param.substring(eq + 1);
+            if (name.equals("level")) {
+                try {
+                    filter.setCompressionLevel(Integer.parseInt(value));
+                } catch (NumberFormatException nfe) {
+                    throw new IllegalArgumentException("Invalid compression level: " + value);
+                }
+            } else if (name.equals("strategy")) {
+                filter.setStrategy(value);
+            } else {
+                throw new IllegalArgumentException(
+                    "Unsupported parameter for the flate filter: " + param);
+            }
+        }
+        return filter;
+    }
+
     /**
      * Checks the filter list for the filter and adds it in the correct
      * place if necessary.
@@ -202,6 +233,50 @@ public class PDFFilterList {
         return Collections.unmodifiableList(filters);
     }
 
+    /**
+     * Indicates whether the data passes through the filters unchanged, because the filters
+     * are disabled, are null filters or have already been applied to the data.
+     * @return true if the filters leave the data unchanged
+     */
+    boolean isPassThrough() {
+        if (!isDisableAllFilters()) {
+            for (PDFFilter filter : filters) {
+                if (!filter.isApplied() && !(filter instanceof NullFilter)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a key describing how the filters encode the data, so two filter lists with
+     * the same key encode the same data to the same bytes. Filters which have already been
+     * applied don't change the data and are left out.
+     * @return the key or null if a filter isn't known to encode the same way every time
+     */
+    String getEncodingKey() {
+        StringBuilder sb = new StringBuilder();
+        if (!isDisableAllFilters()) {
+            for (PDFFilter filter : filters) {
+                if (filter.isApplied() || filter instanceof NullFilter) {
+                    continue;
+                }
+                if (filter instanceof FlateFilter) {
+                    FlateFilter flate = (FlateFilter) filter;
+                    sb.append("flate;").append(flate.getCompressionLevel())
+                            .append(';').append(flate.getStrategy());
+                } else if (filter instanceof ASCII85Filter || filter instanceof ASCIIHexFilter) {
+                    sb.append(filter.getName());
+                } else {
+                    return null;
+                }
+                sb.append(' ');
+            }
+        }
+        return sb.toString();
+    }
+
     /**
      * Apply the filters to the data
      * in the order given and return the /Filter and /DecodeParms
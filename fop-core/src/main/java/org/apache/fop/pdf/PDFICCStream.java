@@ -22,6 +22,7 @@ package org.apache.fop.pdf;
 import java.awt.color.ICC_Profile;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.security.MessageDigest;
 
 /**
  * Special PDFStream for ICC profiles (color profiles).
@@ -77,6 +78,16 @@ public class PDFICCStream extends PDFStream {
         cp.write(out);
     }
 
+    /**
+     * {@inheritDoc}
+     * The profile is identified by a digest of its data.
+     */
+    @Override
+    protected String getEncodedStreamCacheKey() {
+        MessageDigest digest = PDFXObjectPool.newDigest();
+        return "ICC:" + PDFText.toHex(digest.digest(cp.getData()), false);
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void populateStreamDict(Object lengthEntry) {
@@ -153,6 +153,28 @@ public class PDFImageXObject extends PDFXObject {
         pdfimage.outputContents(out);
     }
 
+    /**
+     * {@inheritDoc}
+     * Not allowed with PDF/VT since the image data is then also read when the stream is output.
+     */
+    @Override
+    protected boolean isEncodeAheadAllowed() {
+        return !getDocumentSafely().getProfile().isPDFVTActive();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only images implementing {@link CacheablePDFImage} are identified across documents.
+     */
+    @Override
+    protected String getEncodedStreamCacheKey() {
+        if (pdfimage instanceof CacheablePDFImage) {
+            String sourceKey = ((CacheablePDFImage) pdfimage).getSourceKey();
+            return sourceKey != null ? "Image:" + sourceKey : null;
+        }
+        return null;
+    }
+
     /** {@inheritDoc} */
     protected int getSizeHint() throws IOException {
         return 0;
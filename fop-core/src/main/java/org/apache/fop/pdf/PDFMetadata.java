@@ -95,6 +95,15 @@ public class PDFMetadata extends PDFStream {
         return length;
     }
 
+    /**
+     * {@inheritDoc}
+     * The XMP metadata may still be updated until the stream is output.
+     */
+    @Override
+    protected boolean isEncodeAheadAllowed() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     protected void outputRawStreamData(OutputStream out) throws IOException {
         try {
@@ -22,7 +22,6 @@ package org.apache.fop.pdf;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Arrays;
 
@@ -41,8 +40,11 @@ public class PDFStream extends AbstractPDFStream {
      */
     protected StreamCache data;
 
+    /** The factory which created the data buffer */
+    private StreamCacheFactory dataFactory;
+
+    private transient PDFContentEncoder contentEncoder;
     private transient Writer streamWriter;
-    private transient char[] charBuffer;
 
     /**
      * Create an empty stream object
@@ -68,28 +70,63 @@ public class PDFStream extends AbstractPDFStream {
 
     private void setUp() {
         try {
-            data = StreamCacheFactory.getInstance().createStreamCache();
-            this.streamWriter = new OutputStreamWriter(
-                    getBufferOutputStream(), PDFDocument.ENCODING);
-            //Buffer to minimize calls to the converter
-            this.streamWriter = new java.io.BufferedWriter(this.streamWriter);
+            dataFactory = StreamCacheFactory.getInstance();
+            data = dataFactory.createStreamCache();
+            //The cache's output stream is looked up on every write, as clearing the cache
+            //may replace it
+            this.contentEncoder = new PDFContentEncoder(new OutputStream() {
+                public void write(int b) throws IOException {
+                    data.getOutputStream().write(b);
+                }
+
+                public void write(byte[] b, int off, int len) throws IOException {
+                    data.getOutputStream().write(b, off, len);
+                }
+            });
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * The data is moved to a buffer of the kind used by the document, as the document may
+     * keep stream data off the heap.
+     */
+    @Override
+    public void setDocument(PDFDocument doc) {
+        super.setDocument(doc);
+        if (doc != null && data != null && doc.getStreamCacheFactory() != dataFactory) {
+            try {
+                StreamCache cache = doc.getStreamCacheFactory().createStreamCache();
+                flush();
+                data.outputContents(cache.getOutputStream());
+                data.clear();
+                data = cache;
+                dataFactory = doc.getStreamCacheFactory();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the encoder writing PDF operators and operands directly to the buffer of this
+     * stream. Using it is equivalent to adding the formatted strings with
+     * {@link #add(String)}.
+     * @return the content encoder
+     */
+    public PDFContentEncoder getContentEncoder() {
+        return this.contentEncoder;
+    }
+
     /**
      * Append data to the stream
      *
      * @param s the string of PDF to add
      */
     public void add(String s) {
-        try {
-            this.streamWriter.write(s);
-        } catch (IOException ex) {
-            //TODO throw the exception and catch it elsewhere
-            ex.printStackTrace();
-        }
+        this.contentEncoder.add(s);
     }
 
     /**
@@ -98,30 +135,11 @@ public class PDFStream extends AbstractPDFStream {
      * @param sb the string buffer of PDF to add
      */
     public void add(StringBuffer sb) {
-        try {
-            int nHave = sb.length();
-            if (charBuffer == null) {
-                charBuffer = new char [ nHave * 2 ];
-            } else {
-                int nAvail = charBuffer.length;
-                if (nAvail < nHave) {
-                    int nAlloc = nAvail;
-                    while (nAlloc < nHave) {
-                        nAlloc *= 2;
-                    }
-                    charBuffer = new char [ nAlloc ];
-                }
-            }
-            sb.getChars(0, nHave, charBuffer, 0);
-            this.streamWriter.write(charBuffer, 0, nHave);
-        } catch (IOException ex) {
-            //TODO throw the exception and catch it elsewhere
-            ex.printStackTrace();
-        }
+        this.contentEncoder.add(sb);
     }
 
     private void flush() throws IOException {
-        this.streamWriter.flush();
+        this.contentEncoder.flush();
     }
 
     /**
@@ -129,6 +147,25 @@ public class PDFStream extends AbstractPDFStream {
      * @return the Writer
      */
     public Writer getBufferWriter() {
+        if (this.streamWriter == null) {
+            this.streamWriter = new Writer() {
+                public void write(char[] cbuf, int off, int len) throws IOException {
+                    contentEncoder.add(cbuf, off, len);
+                }
+
+                public void write(String str, int off, int len) throws IOException {
+                    contentEncoder.add(str, off, off + len);
+                }
+
+                public void flush() throws IOException {
+                    contentEncoder.flush();
+                }
+
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
         return this.streamWriter;
     }
 
@@ -139,9 +176,7 @@ public class PDFStream extends AbstractPDFStream {
      * @throws IOException In case of an I/O problem
      */
     public OutputStream getBufferOutputStream() throws IOException {
-        if (this.streamWriter != null) {
-            flush(); //Just to be sure
-        }
+        flush(); //Just to be sure
         return this.data.getOutputStream();
     }
 
@@ -190,9 +225,19 @@ public class PDFStream extends AbstractPDFStream {
 
         //Now that the data has been written, it can be discarded.
 //        this.data = null;
+        PDFDocument doc = getDocument();
+        if (doc != null && doc.isStreamingEnabled()) {
+            data.clear();
+        }
         return len;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isEncodeAheadAllowed() {
+        return true;
+    }
+
     public int streamHashCode() throws IOException {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         outputRawStreamData(bos);
@@ -58,6 +58,10 @@ public abstract class PDFTextUtil {
     private String currentFontName;
     private double currentFontSize;
 
+    /** Reused for the operators other than "TJ" */
+    private final StringBuffer operatorBuffer = new StringBuffer();
+    private final double[] matrix = new double[6];
+
     /**
      * Main constructor.
      */
@@ -77,8 +81,13 @@ public abstract class PDFTextUtil {
      */
     protected abstract void write(StringBuffer code);
 
+    private StringBuffer newOperator() {
+        operatorBuffer.setLength(0);
+        return operatorBuffer;
+    }
+
     private void writeAffineTransform(AffineTransform at, StringBuffer sb) {
-        double[] lt = new double[6];
+        double[] lt = matrix;
         at.getMatrix(lt);
         PDFNumber.doubleOut(lt[0], DEC, sb);
         sb.append(' ');
@@ -96,7 +105,8 @@ public abstract class PDFTextUtil {
     private static void writeChar(int codePoint, StringBuffer sb, boolean multibyte, boolean cid) {
         if (!multibyte) {
             if (cid || codePoint < 32 || codePoint > 127) {
-                sb.append("\\").append(Integer.toOctalString(codePoint));
+                sb.append('\\');
+                appendOctal(codePoint, sb);
             } else {
                 switch (codePoint) {
                 case '(':
@@ -113,6 +123,13 @@ public abstract class PDFTextUtil {
         }
     }
 
+    private static void appendOctal(int value, StringBuffer sb) {
+        if (value >= 8) {
+            appendOctal(value >>> 3, sb);
+        }
+        sb.append((char) ('0' + (value & 7)));
+    }
+
     private void writeChar(int codePoint, StringBuffer sb) {
         writeChar(codePoint, sb, useMultiByte, useCid);
     }
@@ -169,7 +186,7 @@ public abstract class PDFTextUtil {
     public void concatMatrix(AffineTransform at) {
         if (!at.isIdentity()) {
             writeTJ();
-            StringBuffer sb = new StringBuffer();
+            StringBuffer sb = newOperator();
             writeAffineTransform(at, sb);
             sb.append(" cm\n");
             write(sb);
@@ -183,7 +200,7 @@ public abstract class PDFTextUtil {
      */
     public void writeTf(String fontName, double fontSize) {
         checkInTextObject();
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = newOperator();
         sb.append('/');
         sb.append(fontName);
         sb.append(' ');
@@ -252,7 +269,7 @@ public abstract class PDFTextUtil {
      * @param localTransform the new text transformation matrix
      */
     public void writeTextMatrix(AffineTransform localTransform) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = newOperator();
         writeAffineTransform(localTransform, sb);
         sb.append(" Tm ");
         write(sb);
@@ -336,7 +353,7 @@ public abstract class PDFTextUtil {
      * @param y coordinate
      */
     public void writeTd(double x, double y) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = newOperator();
         PDFNumber.doubleOut(x, DEC, sb);
         sb.append(' ');
         PDFNumber.doubleOut(y, DEC, sb);
@@ -349,7 +366,7 @@ public abstract class PDFTextUtil {
      * @param ch character code to write
      */
     public void writeTj(char ch, boolean multibyte, boolean cid) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = newOperator();
         sb.append(startText);
         writeChar(ch, sb, multibyte, cid);
         sb.append(endText);
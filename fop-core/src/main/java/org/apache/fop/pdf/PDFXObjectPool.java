@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Finds the image and form XObjects of a document which have the same content as an
+ * XObject added before, whatever the key they were added with, so the same logo loaded
+ * from different URIs is only embedded once. The content is identified by a digest of
+ * the stream dictionary, without the name and the length, and of the encoded stream data.
+ * <p>
+ * To compute the digest, the stream data is encoded when the XObject is added, and the
+ * encoded data is kept until the XObject is written.
+ */
+public final class PDFXObjectPool {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final PDFDocument document;
+
+    private final MessageDigest digest;
+
+    private final Map<ByteBuffer, PDFXObject> xObjects = new HashMap<ByteBuffer, PDFXObject>();
+
+    private int duplicateCount;
+
+    private long savedByteCount;
+
+    /**
+     * Creates a new pool.
+     * @param document the document the XObjects are added to
+     */
+    PDFXObjectPool(PDFDocument document) {
+        this.document = document;
+        this.digest = newDigest();
+    }
+
+    /**
+     * Creates a new message digest of the content of streams.
+     * @return a SHA-256 message digest
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform is required to support SHA-256
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Returns an XObject added before with the same content as a new XObject. If there is
+     * none, the new XObject is remembered and expected to be registered by the caller.
+     * @param xObject the new XObject, not registered yet
+     * @return the XObject with the same content or null if the content is new
+     * @throws IOException in case of an I/O problem while encoding the stream data
+     */
+    PDFXObject findDuplicate(PDFXObject xObject) throws IOException {
+        xObject.setDocument(document);
+        StreamCache encodedStream = xObject.encodeNow();
+        xObject.populateStreamDict(encodedStream.getSize());
+
+        digest.reset();
+        DigestOutputStream out = new DigestOutputStream(new NullOutputStream(), digest);
+        StringBuilder textBuffer = new StringBuilder();
+        textBuffer.append(xObject.getClass().getName()).append('\n');
+        PDFDictionary dictionary = xObject.getDictionary();
+        for (String key : new TreeSet<String>(dictionary.keySet())) {
+            if (!"Name".equals(key) && !"Length".equals(key)) {
+                textBuffer.append(PDFName.escapeName(key)).append(' ');
+                dictionary.formatObject(dictionary.get(key), out, textBuffer);
+                textBuffer.append('\n');
+            }
+        }
+        PDFDocument.flushTextBuffer(textBuffer, out);
+        encodedStream.outputContents(out);
+        ByteBuffer key = ByteBuffer.wrap(digest.digest());
+
+        PDFXObject pooled = xObjects.get(key);
+        if (pooled != null) {
+            duplicateCount++;
+            savedByteCount += encodedStream.getSize();
+            encodedStream.clear();
+        } else {
+            xObjects.put(key, xObject);
+        }
+        return pooled;
+    }
+
+    /**
+     * Returns the number of XObjects which were found to be duplicates and not embedded.
+     * @return the number of duplicates
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Returns the number of encoded stream bytes which were not embedded because the
+     * XObjects were duplicates.
+     * @return the number of bytes saved
+     */
+    public long getSavedByteCount() {
+        return savedByteCount;
+    }
+
+    /**
+     * Returns the number of distinct XObjects in the pool.
+     * @return the number of distinct XObjects
+     */
+    public int size() {
+        return xObjects.size();
+    }
+}
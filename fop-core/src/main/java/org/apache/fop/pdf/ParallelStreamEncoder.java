@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes (compresses) PDF streams on a bounded pool of worker threads ahead of their
+ * output. Only a small window of the pending objects is encoded ahead, so the number of
+ * encoded buffers held in memory stays bounded. The streams are still written in their
+ * original order by {@link PDFDocument}, so the output is identical to the serial one.
+ */
+class ParallelStreamEncoder {
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int window;
+
+    /**
+     * Creates a new encoder.
+     * @param threadCount the number of worker threads
+     */
+    ParallelStreamEncoder(int threadCount) {
+        executor = new ThreadPoolExecutor(threadCount, threadCount,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new EncoderThreadFactory());
+        //Don't keep idle threads around if the document is never finished
+        executor.allowCoreThreadTimeOut(true);
+        window = threadCount * 2;
+    }
+
+    /**
+     * Submits the encoding of the streams found at the head of the list of pending objects.
+     * @param pending the objects waiting to be written, in output order
+     */
+    void encodeAhead(List<PDFObject> pending) {
+        int count = 0;
+        for (PDFObject obj : pending) {
+            if (count++ >= window) {
+                break;
+            }
+            if (obj instanceof AbstractPDFStream) {
+                AbstractPDFStream stream = (AbstractPDFStream) obj;
+                if (!stream.isEncodedAhead() && stream.isEncodeAheadAllowed()) {
+                    stream.encodeAhead(executor);
+                }
+            }
+        }
+    }
+
+    /** Stops the worker threads once pending encodings are done. */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Stops the worker threads and waits until the pending encodings are done.
+     * @return false if the calling thread was interrupted while waiting
+     */
+    boolean shutdownAndWait() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS)) {
+                //wait on
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static class EncoderThreadFactory implements ThreadFactory {
+
+        private int threadNumber;
+
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FOP PDF stream encoder " + (++threadNumber));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StreamCache implementation that keeps the data in chunks of off-heap memory taken from a
+ * {@link StreamBufferPool} rather than in a growing byte array on the heap.
+ */
+public class PooledStreamCache implements StreamCache {
+
+    private final StreamBufferPool pool;
+
+    private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+
+    private ByteBuffer current;
+
+    private int size;
+
+    private final OutputStream output = new OutputStream() {
+
+        public void write(int b) throws IOException {
+            checkOpen();
+            if (current == null || !current.hasRemaining()) {
+                nextChunk();
+            }
+            current.put((byte) b);
+            size++;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkOpen();
+            while (len > 0) {
+                if (current == null || !current.hasRemaining()) {
+                    nextChunk();
+                }
+                int count = Math.min(len, current.remaining());
+                current.put(b, off, count);
+                off += count;
+                len -= count;
+                size += count;
+            }
+        }
+    };
+
+    /**
+     * Creates a new PooledStreamCache.
+     * @param pool the pool providing the chunks
+     */
+    public PooledStreamCache(StreamBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /** The chunks of a closed pool are freed, so they must not be touched anymore */
+    private void checkOpen() throws IOException {
+        if (pool.isClosed()) {
+            throw new IOException("The stream buffer pool is closed");
+        }
+    }
+
+    private void nextChunk() throws IOException {
+        current = pool.acquire();
+        chunks.add(current);
+    }
+
+    /** {@inheritDoc} */
+    public OutputStream getOutputStream() throws IOException {
+        return output;
+    }
+
+    /** {@inheritDoc} */
+    public void write(byte[] data) throws IOException {
+        output.write(data, 0, data.length);
+    }
+
+    /** {@inheritDoc} */
+    public int outputContents(OutputStream out) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        checkOpen();
+        byte[] buffer = new byte[Math.min(size, pool.getChunkSize())];
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer data = chunk.duplicate();
+            data.flip();
+            while (data.hasRemaining()) {
+                int count = Math.min(buffer.length, data.remaining());
+                data.get(buffer, 0, count);
+                out.write(buffer, 0, count);
+            }
+        }
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    public int getSize() throws IOException {
+        return size;
+    }
+
+    /**
+     * Clears the cache and gives its chunks back to the pool.
+     * @throws IOException if an I/O error occurs
+     */
+    public void clear() throws IOException {
+        for (ByteBuffer chunk : chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        current = null;
+        size = 0;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.util.MappedBufferUtil;
+import org.apache.fop.util.MappedSpillFile;
+
+/**
+ * <p>A pool of fixed-size chunks of off-heap memory buffering the data of PDF streams, used
+ * by {@link PooledStreamCache}. Chunks are allocated as direct byte buffers up to the budget
+ * of the pool. Beyond the budget, chunks are taken from a single temporary file which is
+ * memory-mapped in segments. Released chunks are kept in the pool and handed out again, so a
+ * document whose streams are written and cleared as it goes needs few chunks.</p>
+ *
+ * <p>This class is thread-safe, as streams may be compressed on several threads. The spill
+ * file is deleted when the pool is closed.</p>
+ */
+public final class StreamBufferPool implements Closeable {
+
+    /** The default size of the chunks */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+    /** The size of the segments the spill file is mapped in */
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static Log log = LogFactory.getLog(StreamBufferPool.class);
+
+    private final long budget;
+
+    private final int chunkSize;
+
+    private final List<ByteBuffer> freeChunks = new ArrayList<ByteBuffer>();
+
+    private final List<ByteBuffer> freeSpilledChunks = new ArrayList<ByteBuffer>();
+
+    private final Set<ByteBuffer> spilledChunks
+            = Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+
+    /** All the chunks of direct memory, freed when the pool is closed */
+    private final List<ByteBuffer> directChunks = new ArrayList<ByteBuffer>();
+
+    /** The file the chunks beyond the budget are taken from, deleted when the pool is closed */
+    private final MappedSpillFile spillFile;
+
+    private long directBytes;
+
+    private long usedBytes;
+
+    private long peakUsedBytes;
+
+    private MappedByteBuffer segment;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pool with chunks of the default size.
+     * @param budget the maximum number of bytes of direct memory allocated by the pool
+     */
+    public StreamBufferPool(long budget) {
+        this(budget, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new pool.
+     * @param budget the maximum number of bytes of direct memory allocated by the pool
+     * @param chunkSize the size of the chunks
+     */
+    public StreamBufferPool(long budget, int chunkSize) {
+        this(budget, chunkSize, null);
+    }
+
+    /**
+     * Creates a new pool.
+     * @param budget the maximum number of bytes of direct memory allocated by the pool
+     * @param chunkSize the size of the chunks
+     * @param directory the directory the spill file is created in, or null for the default
+     *          temporary-file directory
+     */
+    public StreamBufferPool(long budget, int chunkSize, File directory) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("The budget must be 0 or more: " + budget);
+        }
+        if (chunkSize <= 0 || SEGMENT_SIZE % chunkSize != 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.budget = budget;
+        this.chunkSize = chunkSize;
+        this.spillFile = new MappedSpillFile("fop-streams", ".tmp", directory);
+    }
+
+    /**
+     * Takes an empty chunk from the pool. The chunk must be given back with
+     * {@link #release(ByteBuffer)} once its data isn't needed anymore.
+     * @return a chunk, positioned at 0 with the chunk size as limit
+     * @throws IOException if the spill file cannot be extended
+     */
+    public synchronized ByteBuffer acquire() throws IOException {
+        if (closed) {
+            throw new IOException("The stream buffer pool is closed");
+        }
+        ByteBuffer chunk;
+        if (!freeChunks.isEmpty()) {
+            chunk = freeChunks.remove(freeChunks.size() - 1);
+        } else if (directBytes + chunkSize <= budget) {
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+            directChunks.add(chunk);
+            directBytes += chunkSize;
+        } else if (!freeSpilledChunks.isEmpty()) {
+            chunk = freeSpilledChunks.remove(freeSpilledChunks.size() - 1);
+        } else {
+            chunk = spillChunk();
+        }
+        usedBytes += chunkSize;
+        peakUsedBytes = Math.max(peakUsedBytes, usedBytes);
+        return chunk;
+    }
+
+    private ByteBuffer spillChunk() throws IOException {
+        if (segment == null || !segment.hasRemaining()) {
+            if (spillFile.getFile() == null && log.isDebugEnabled()) {
+                log.debug("Stream buffer budget of " + budget + " bytes exceeded");
+            }
+            segment = spillFile.addSegment(SEGMENT_SIZE);
+        }
+        segment.limit(segment.position() + chunkSize);
+        ByteBuffer chunk = segment.slice();
+        segment.position(segment.limit());
+        segment.limit(segment.capacity());
+        spilledChunks.add(chunk);
+        return chunk;
+    }
+
+    /**
+     * Gives a chunk back to the pool.
+     * @param chunk a chunk obtained from {@link #acquire()}
+     */
+    public synchronized void release(ByteBuffer chunk) {
+        if (closed) {
+            return;
+        }
+        chunk.clear();
+        if (spilledChunks.contains(chunk)) {
+            freeSpilledChunks.add(chunk);
+        } else {
+            freeChunks.add(chunk);
+        }
+        usedBytes -= chunkSize;
+    }
+
+    /** @return the maximum number of bytes of direct memory allocated by the pool */
+    public long getBudget() {
+        return budget;
+    }
+
+    /** @return the size of the chunks */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /** @return the number of bytes in the chunks currently in use */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /** @return the highest number of bytes in the chunks in use at the same time */
+    public synchronized long getPeakUsedBytes() {
+        return peakUsedBytes;
+    }
+
+    /** @return the number of bytes of direct memory allocated by the pool */
+    public synchronized long getDirectBytes() {
+        return directBytes;
+    }
+
+    /** @return the size of the spill file, 0 if the budget has never been exceeded */
+    public synchronized long getSpilledBytes() {
+        return spillFile.getLength();
+    }
+
+    /** @return true if the pool has been closed */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /** @return the temporary file the chunks beyond the budget are taken from, or null */
+    File getFile() {
+        return spillFile.getFile();
+    }
+
+    /**
+     * Frees the direct memory, unmaps and deletes the spill file. The data of the streams using
+     * the pool is lost, and the streams must not be used anymore: no other thread may be
+     * accessing their chunks when this method is called.
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        freeChunks.clear();
+        freeSpilledChunks.clear();
+        spilledChunks.clear();
+        for (ByteBuffer chunk : directChunks) {
+            MappedBufferUtil.unmap(chunk);
+        }
+        directChunks.clear();
+        segment = null;
+        spillFile.close();
+    }
+}
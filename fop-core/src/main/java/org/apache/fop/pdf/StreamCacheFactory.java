@@ -26,7 +26,9 @@ import java.io.IOException;
  */
 public final class StreamCacheFactory {
 
-    private static StreamCacheFactory memoryInstance = new StreamCacheFactory();
+    private static StreamCacheFactory memoryInstance = new StreamCacheFactory(null);
+
+    private final StreamBufferPool pool;
 
     /**
      * Returns an instance of a StreamCacheFactory with the requested features.
@@ -36,11 +38,27 @@ public final class StreamCacheFactory {
         return memoryInstance;
     }
 
+    /**
+     * Returns a StreamCacheFactory creating caches which keep their data in chunks of
+     * off-heap memory taken from the given pool.
+     * @param pool the pool providing the chunks
+     * @return StreamCacheFactory the requested factory
+     */
+    public static StreamCacheFactory getInstance(StreamBufferPool pool) {
+        return new StreamCacheFactory(pool);
+    }
+
     /**
      * Creates a new StreamCacheFactory.
-     * @param cacheToFile True if file shall be cached using a temporary file
+     * @param pool the pool providing the chunks of the caches, null for in-memory caches
      */
-    private StreamCacheFactory() {
+    private StreamCacheFactory(StreamBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /** @return the pool providing the chunks of the caches, null for in-memory caches */
+    public StreamBufferPool getStreamBufferPool() {
+        return pool;
     }
 
     /**
@@ -50,6 +68,9 @@ public final class StreamCacheFactory {
      * @return a new StreamCache for caching streams
      */
     public StreamCache createStreamCache() throws IOException {
+        if (pool != null) {
+            return new PooledStreamCache(pool);
+        }
         return new InMemoryStreamCache();
     }
 
@@ -61,6 +82,9 @@ public final class StreamCacheFactory {
      * @return a new StreamCache for caching streams
      */
     public StreamCache createStreamCache(int hintSize) throws IOException {
+        if (pool != null) {
+            return new PooledStreamCache(pool);
+        }
         return new InMemoryStreamCache(hintSize);
     }
 }
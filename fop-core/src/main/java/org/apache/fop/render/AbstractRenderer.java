@@ -148,6 +148,9 @@ public abstract class AbstractRenderer
     public void stopRenderer()
         throws IOException { }
 
+    /** {@inheritDoc} */
+    public void abortRenderer() { }
+
     /**
      * Check if this renderer supports out of order rendering. If this renderer
      * supports out of order rendering then it means that the pages that are
@@ -88,7 +88,8 @@ public abstract class PrintRenderer extends AbstractRenderer {
         FontCollection[] fontCollections = new FontCollection[] {
                 new Base14FontCollection(fontManager.isBase14KerningEnabled()),
                 new CustomFontCollection(fontManager.getResourceResolver(), getFontList(),
-                        userAgent.isComplexScriptFeaturesEnabled())
+                        userAgent.isComplexScriptFeaturesEnabled(), fontManager.getFontCache(),
+                        fontManager.getFontMetricsRegistry())
         };
         fontManager.setup(getFontInfo(), fontCollections);
     }
@@ -158,8 +158,10 @@ public abstract class PrintRendererConfigurator extends AbstractRendererConfigur
      */
     protected FontCollection createCollectionFromFontList(InternalResourceResolver resolver,
             List<EmbedFontInfo> fontList) {
+        FontManager fontManager = userAgent.getFontManager();
         return new CustomFontCollection(resolver, fontList,
-                userAgent.isComplexScriptFeaturesEnabled());
+                userAgent.isComplexScriptFeaturesEnabled(), fontManager.getFontCache(),
+                fontManager.getFontMetricsRegistry());
     }
 
     private List<EmbedFontInfo> buildFontList(String mimeType) throws FOPException {
@@ -82,6 +82,12 @@ public interface Renderer {
     void stopRenderer()
         throws IOException;
 
+    /**
+     * Signals that the rendering was aborted because of an error. The renderer should dispose
+     * of any resources held for the rendering. {@link #stopRenderer()} is not called then.
+     */
+    void abortRenderer();
+
     /**
      * Returns the associated user agent.
      * @return the user agent
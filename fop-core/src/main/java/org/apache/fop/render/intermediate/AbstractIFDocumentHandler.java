@@ -85,6 +85,11 @@ public abstract class AbstractIFDocumentHandler implements IFDocumentHandler {
         //nop
     }
 
+    /** {@inheritDoc} */
+    public void abortDocument() {
+        //nop
+    }
+
     /** {@inheritDoc} */
     public void startDocumentTrailer() throws IFException {
         //nop
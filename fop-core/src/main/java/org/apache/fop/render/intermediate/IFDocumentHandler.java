@@ -153,6 +153,13 @@ public interface IFDocumentHandler {
      */
     void endDocument() throws IFException;
 
+    /**
+     * Indicates that the document was aborted because of an error. Implementations can release
+     * the resources held for the document. {@link #endDocument()} is not called then, and no
+     * event method may be called afterwards.
+     */
+    void abortDocument();
+
     /**
     * @param locale Locale of the document.
     */
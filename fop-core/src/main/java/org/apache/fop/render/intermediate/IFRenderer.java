@@ -303,6 +303,14 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
         log.debug("Rendering finished.");
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void abortRenderer() {
+        if (documentHandler != null) {
+            documentHandler.abortDocument();
+        }
+    }
+
     @Override
     public void setDocumentLocale(Locale locale) {
         documentHandler.setDocumentLocale(locale);
@@ -187,6 +187,11 @@ public class IFDocumentHandlerProxy implements IFDocumentHandler {
         this.delegate.endDocument();
     }
 
+    /** {@inheritDoc} */
+    public void abortDocument() {
+        this.delegate.abortDocument();
+    }
+
     /** {@inheritDoc} */
     public void handleExtensionObject(Object extension) throws IFException {
         this.delegate.handleExtensionObject(extension);
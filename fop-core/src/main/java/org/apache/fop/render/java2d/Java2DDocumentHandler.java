@@ -89,6 +89,10 @@ public class Java2DDocumentHandler implements IFDocumentHandler {
         throw new UnsupportedOperationException();
     }
 
+    public void abortDocument() {
+        //nop
+    }
+
     public void setDocumentLocale(Locale locale) {
         throw new UnsupportedOperationException();
     }
@@ -84,6 +84,18 @@ public abstract class AbstractImageAdapter implements PDFImage {
         return this.key;
     }
 
+    /**
+     * Returns a key identifying the image data across documents, made of the class of this
+     * adapter and of the original URI of the image, which also identifies the image in the
+     * image cache of the factory. Adapters implementing
+     * {@link org.apache.fop.pdf.CacheablePDFImage} share their encoded data with this key.
+     * @return the key or null if the URI of the image is unknown
+     */
+    public String getSourceKey() {
+        String uri = image.getInfo().getOriginalURI();
+        return uri != null ? getClass().getName() + ':' + uri : null;
+    }
+
     /**
      * Returns the image's color space.
      * @return the color space
@@ -30,6 +30,7 @@ import org.apache.xmlgraphics.image.loader.impl.JPEGConstants;
 import org.apache.xmlgraphics.image.loader.impl.JPEGFile;
 import org.apache.xmlgraphics.image.loader.util.ImageUtil;
 
+import org.apache.fop.pdf.CacheablePDFImage;
 import org.apache.fop.pdf.DCTFilter;
 import org.apache.fop.pdf.PDFDeviceColorSpace;
 import org.apache.fop.pdf.PDFDocument;
@@ -42,9 +43,10 @@ import org.apache.fop.pdf.PDFFilterList;
  * The JPEG is copied to the XObject's stream as-is but some elements (marker segments) are
  * filtered. For example, an embedded color profile is filtered since it is already added as
  * a PDF object and associated with the XObject. This way, the PDF file size is kept as small
- * as possible.
+ * as possible. The copied data is shared with the next documents through the encoded stream
+ * cache of the factory, if enabled.
  */
-public class ImageRawJPEGAdapter extends AbstractImageAdapter {
+public class ImageRawJPEGAdapter extends AbstractImageAdapter implements CacheablePDFImage {
 
     private PDFFilter pdfFilter;
 
@@ -41,18 +41,20 @@ import org.apache.xmlgraphics.image.loader.impl.ImageRawPNG;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
 
 import org.apache.fop.pdf.BitmapImage;
+import org.apache.fop.pdf.CacheablePDFImage;
 import org.apache.fop.pdf.FlateFilter;
 import org.apache.fop.pdf.PDFColor;
 import org.apache.fop.pdf.PDFDeviceColorSpace;
 import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFEncodedStreamCache;
 import org.apache.fop.pdf.PDFFilter;
 import org.apache.fop.pdf.PDFFilterException;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFReference;
 
-public class ImageRawPNGAdapter extends AbstractImageAdapter {
+public class ImageRawPNGAdapter extends AbstractImageAdapter implements CacheablePDFImage {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(ImageRawPNGAdapter.class);
@@ -114,35 +116,18 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
         if (cm.hasAlpha() && cm.getTransparency() == ColorModel.TRANSLUCENT) {
             doc.getProfile().verifyTransparencyAllowed(image.getInfo().getOriginalURI());
             // TODO: Implement code to combine image with background color if transparency is not allowed
-            // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha channel
-            // and then deflate it back again
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            DeflaterOutputStream dos = new DeflaterOutputStream(baos, new Deflater());
-            InputStream in = ((ImageRawStream) image).createInputStream();
-            try {
-                InflaterInputStream infStream = new InflaterInputStream(in, new Inflater());
-                DataInputStream dataStream = new DataInputStream(infStream);
-                // offset is the byte offset of the alpha component
-                int offset = numberOfInterleavedComponents - 1; // 1 for GA, 3 for RGBA
-                int numColumns = image.getSize().getWidthPx();
-                int bytesPerRow = numberOfInterleavedComponents * numColumns;
-                int filter;
-                // read line by line; the first byte holds the filter
-                while ((filter = dataStream.read()) != -1) {
-                    byte[] bytes = new byte[bytesPerRow];
-                    dataStream.readFully(bytes, 0, bytesPerRow);
-                    dos.write((byte) filter);
-                    for (int j = 0; j < numColumns; j++) {
-                        dos.write(bytes, offset, 1);
-                        offset += numberOfInterleavedComponents;
-                    }
-                    offset = numberOfInterleavedComponents - 1;
+            // the alpha channel of an image used before is taken from the cache of the factory
+            PDFEncodedStreamCache cache = doc.getEncodedStreamCache();
+            String alphaKey = getSourceKey() != null ? "Mask:" + getSourceKey() : null;
+            byte[] alphaChannel = null;
+            if (cache != null && alphaKey != null) {
+                alphaChannel = cache.get(alphaKey);
+            }
+            if (alphaChannel == null) {
+                alphaChannel = extractAlphaChannel();
+                if (cache != null && alphaKey != null) {
+                    cache.put(alphaKey, alphaChannel);
                 }
-                dos.close();
-            } catch (IOException e) {
-                throw new RuntimeException("Error processing transparency channel:", e);
-            } finally {
-                IOUtils.closeQuietly(in);
             }
             // set up alpha channel compression
             FlateFilter transFlate;
@@ -157,7 +142,7 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
                 throw new RuntimeException("FlateFilter configuration error", e);
             }
             BitmapImage alphaMask = new BitmapImage("Mask:" + this.getKey(), image.getSize().getWidthPx(),
-                    image.getSize().getHeightPx(), baos.toByteArray(), null);
+                    image.getSize().getHeightPx(), alphaChannel, null);
             alphaMask.setPDFFilter(transFlate);
             alphaMask.disallowMultipleFilters();
             alphaMask.setColorSpace(new PDFDeviceColorSpace(PDFDeviceColorSpace.DEVICE_GRAY));
@@ -165,6 +150,49 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
         }
     }
 
+    private boolean hasInterleavedAlpha() {
+        // 2 for gray + alpha, 4 for rgb + alpha
+        return numberOfInterleavedComponents == 2 || numberOfInterleavedComponents == 4;
+    }
+
+    private byte[] extractAlphaChannel() {
+        // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha channel
+        // and then deflate it back again
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater();
+        DeflaterOutputStream dos = new DeflaterOutputStream(baos, deflater);
+        InputStream in = ((ImageRawStream) image).createInputStream();
+        Inflater inflater = new Inflater();
+        try {
+            InflaterInputStream infStream = new InflaterInputStream(in, inflater);
+            DataInputStream dataStream = new DataInputStream(infStream);
+            int numColumns = image.getSize().getWidthPx();
+            int bytesPerRow = numberOfInterleavedComponents * numColumns;
+            byte[] bytes = new byte[bytesPerRow];
+            byte[] alpha = new byte[1 + numColumns];
+            int filter;
+            // read line by line; the first byte holds the filter
+            while ((filter = dataStream.read()) != -1) {
+                dataStream.readFully(bytes, 0, bytesPerRow);
+                alpha[0] = (byte) filter;
+                // offset is the byte offset of the alpha component: 1 for GA, 3 for RGBA
+                for (int j = 0, offset = numberOfInterleavedComponents - 1; j < numColumns; j++) {
+                    alpha[1 + j] = bytes[offset];
+                    offset += numberOfInterleavedComponents;
+                }
+                dos.write(alpha);
+            }
+            dos.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error processing transparency channel:", e);
+        } finally {
+            IOUtils.closeQuietly(in);
+            inflater.end();
+            deflater.end();
+        }
+        return baos.toByteArray();
+    }
+
     /** {@inheritDoc} */
     public PDFDeviceColorSpace getColorSpace() {
         // DeviceGray, DeviceRGB, or DeviceCMYK
@@ -211,33 +239,41 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
         InputStream in = ((ImageRawStream) image).createInputStream();
 
         try {
-            if (numberOfInterleavedComponents == 1 || numberOfInterleavedComponents == 3) {
+            if (!hasInterleavedAlpha()) {
                 // means we have Gray, RGB, or Palette
                 IOUtils.copy(in, out);
             } else {
                 // means we have Gray + alpha or RGB + alpha
-                // TODO: since we have alpha here do this when the alpha channel is extracted
+                // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha
+                // channel and then deflate the RGB channels back again, a whole row at a time
                 int numBytes = numberOfInterleavedComponents - 1; // 1 for Gray, 3 for RGB
                 int numColumns = image.getSize().getWidthPx();
-                InflaterInputStream infStream = new InflaterInputStream(in, new Inflater());
-                DataInputStream dataStream = new DataInputStream(infStream);
-                int offset = 0;
                 int bytesPerRow = numberOfInterleavedComponents * numColumns;
-                int filter;
-                // here we need to inflate the PNG pixel data, which includes alpha, separate the alpha
-                // channel and then deflate the RGB channels back again
-                DeflaterOutputStream dos = new DeflaterOutputStream(out, new Deflater());
-                while ((filter = dataStream.read()) != -1) {
-                    byte[] bytes = new byte[bytesPerRow];
-                    dataStream.readFully(bytes, 0, bytesPerRow);
-                    dos.write((byte) filter);
-                    for (int j = 0; j < numColumns; j++) {
-                        dos.write(bytes, offset, numBytes);
-                        offset += numberOfInterleavedComponents;
+                byte[] bytes = new byte[bytesPerRow];
+                byte[] colors = new byte[1 + numBytes * numColumns];
+                Inflater inflater = new Inflater();
+                Deflater deflater = new Deflater();
+                try {
+                    InflaterInputStream infStream = new InflaterInputStream(in, inflater);
+                    DeflaterOutputStream dos = new DeflaterOutputStream(out, deflater);
+                    DataInputStream dataStream = new DataInputStream(infStream);
+                    int filter;
+                    while ((filter = dataStream.read()) != -1) {
+                        dataStream.readFully(bytes, 0, bytesPerRow);
+                        colors[0] = (byte) filter;
+                        int target = 1;
+                        for (int offset = 0; offset < bytesPerRow; offset += numberOfInterleavedComponents) {
+                            for (int k = 0; k < numBytes; k++) {
+                                colors[target++] = bytes[offset + k];
+                            }
+                        }
+                        dos.write(colors);
                     }
-                    offset = 0;
+                    dos.finish();
+                } finally {
+                    inflater.end();
+                    deflater.end();
                 }
-                dos.close();
             }
         } finally {
             IOUtils.closeQuietly(in);
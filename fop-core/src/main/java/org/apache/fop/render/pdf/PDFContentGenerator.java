@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import org.apache.fop.pdf.PDFColorHandler;
+import org.apache.fop.pdf.PDFContentEncoder;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFLinearization;
@@ -65,6 +66,11 @@ public class PDFContentGenerator {
     private boolean inArtifactMode;
     private AffineTransform transform;
 
+    /** Reused for the matrices of the "cm" operators */
+    private final double[] matrix = new double[6];
+    /** Reused for the color operators */
+    private final StringBuffer colorBuffer = new StringBuffer();
+
     /**
      * Main constructor. Creates a new PDF stream and additional helper classes for text painting
      * and state management.
@@ -221,9 +227,8 @@ public class PDFContentGenerator {
         if (structElemType != null) {
             String actualTextProperty = actualText == null ? ""
                     : " /ActualText " + PDFText.escapeText(actualText);
-            getStream().add(structElemType + " <</MCID " + String.valueOf(mcid)
-                    + actualTextProperty + ">>\n"
-                    + "BDC\n");
+            getStream().getContentEncoder().add(structElemType).add(" <</MCID ").addNumber(mcid)
+                    .add(actualTextProperty).add(">>\nBDC\n");
         } else {
             getStream().add("/Artifact\nBMC\n");
             this.inArtifactMode = true;
@@ -356,7 +361,12 @@ public class PDFContentGenerator {
         this.transform = transform;
         if (!transform.isIdentity()) {
             getState().concatenate(transform);
-            getStream().add(CTMHelper.toPDFString(transform, false) + " cm\n");
+            transform.getMatrix(matrix);
+            PDFContentEncoder encoder = getStream().getContentEncoder();
+            for (int i = 0; i < matrix.length; i++) {
+                encoder.addNumber(matrix[i], 8).add(' ');
+            }
+            encoder.add("cm\n");
         }
     }
 
@@ -365,12 +375,11 @@ public class PDFContentGenerator {
      * @param rect the clip rectangle
      */
     public void clipRect(Rectangle rect) {
-        StringBuffer sb = new StringBuffer();
-        sb.append(format(rect.x / 1000f)).append(' ');
-        sb.append(format(rect.y / 1000f)).append(' ');
-        sb.append(format(rect.width / 1000f)).append(' ');
-        sb.append(format(rect.height / 1000f)).append(" re W n\n");
-        add(sb.toString());
+        getStream().getContentEncoder()
+                .addNumber(rect.x / 1000f).add(' ')
+                .addNumber(rect.y / 1000f).add(' ')
+                .addNumber(rect.width / 1000f).add(' ')
+                .addNumber(rect.height / 1000f).add(" re W n\n");
     }
 
     /**
@@ -397,7 +406,7 @@ public class PDFContentGenerator {
     public void updateLineWidth(float width) {
         if (getState().setLineWidth(width)) {
             //Only write if value has changed WRT the current line width
-            getStream().add(format(width) + " w\n");
+            getStream().getContentEncoder().addNumber(width).add(" w\n");
         }
     }
 
@@ -407,7 +416,7 @@ public class PDFContentGenerator {
      */
     public void updateCharacterSpacing(float value) {
         if (getState().setCharacterSpacing(value)) {
-            getStream().add(format(value) + " Tc\n");
+            getStream().getContentEncoder().addNumber(value).add(" Tc\n");
         }
     }
 
@@ -419,9 +428,9 @@ public class PDFContentGenerator {
      */
     public void setColor(Color col, boolean fill, PDFStream stream) {
         assert stream != null;
-        StringBuffer sb = new StringBuffer();
-        setColor(col, fill, sb);
-        stream.add(sb.toString());
+        colorBuffer.setLength(0);
+        setColor(col, fill, colorBuffer);
+        stream.add(colorBuffer);
     }
 
     /**
@@ -482,14 +491,19 @@ public class PDFContentGenerator {
      */
     public void placeImage(float x, float y, float w, float h, PDFXObject xobj) {
         saveGraphicsState();
-        add(format(w) + " 0 0 "
-                          + format(-h) + " "
-                          + format(x) + " "
-                          + format(y + h)
-                          + " cm\n" + xobj.getName() + " Do\n");
+        addImagePlacement(x, y, w, h, xobj);
         restoreGraphicsState();
     }
 
+    private void addImagePlacement(float x, float y, float w, float h, PDFXObject xobj) {
+        getStream().getContentEncoder()
+                .addNumber(w).add(" 0 0 ")
+                .addNumber(-h).add(' ')
+                .addNumber(x).add(' ')
+                .addNumber(y + h).add(" cm\n")
+                .add(xobj.getName().toString()).add(" Do\n");
+    }
+
     public void placeImage(AffineTransform at, String stream) {
         saveGraphicsState();
         concatenate(at);
@@ -513,11 +527,7 @@ public class PDFContentGenerator {
     public void placeImage(float x, float y, float w, float h, PDFXObject xobj,
             String structElemType, int mcid) {
         saveGraphicsState(structElemType, mcid);
-        add(format(w) + " 0 0 "
-                          + format(-h) + " "
-                          + format(x) + " "
-                          + format(y + h)
-                          + " cm\n" + xobj.getName() + " Do\n");
+        addImagePlacement(x, y, w, h, xobj);
         restoreGraphicsStateAccess();
     }
 
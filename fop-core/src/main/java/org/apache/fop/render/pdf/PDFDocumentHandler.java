@@ -44,6 +44,8 @@ import org.apache.fop.pdf.PDFPage;
 import org.apache.fop.pdf.PDFReference;
 import org.apache.fop.pdf.PDFResources;
 import org.apache.fop.pdf.PDFStream;
+import org.apache.fop.pdf.PDFXObjectPool;
+import org.apache.fop.pdf.StreamBufferPool;
 import org.apache.fop.render.extensions.prepress.PageBoundaries;
 import org.apache.fop.render.extensions.prepress.PageScale;
 import org.apache.fop.render.intermediate.AbstractBinaryWritingIFDocumentHandler;
@@ -190,17 +192,40 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             } else {
                 pdfDoc.outputTrailer(this.outputStream);
             }
+            PDFXObjectPool xObjectPool = pdfDoc.getXObjectPool();
+            if (xObjectPool != null && log.isDebugEnabled()) {
+                log.debug(xObjectPool.getDuplicateCount() + " duplicate XObjects not embedded, "
+                        + xObjectPool.getSavedByteCount() + " bytes saved");
+            }
+            StreamBufferPool streamBufferPool = pdfDoc.getStreamBufferPool();
+            if (streamBufferPool != null) {
+                pdfDoc.releaseStreamBuffers();
+                if (log.isDebugEnabled()) {
+                    log.debug("Stream buffers: " + streamBufferPool.getPeakUsedBytes()
+                            + " bytes used at peak, " + streamBufferPool.getSpilledBytes()
+                            + " bytes spilled to disk");
+                }
+            }
             this.pdfDoc = null;
 
             pdfResources = null;
             this.generator = null;
             currentPage = null;
         } catch (IOException ioe) {
+            abortDocument();
             throw new IFException("I/O error in endDocument()", ioe);
         }
         super.endDocument();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void abortDocument() {
+        if (pdfDoc != null) {
+            pdfDoc.releaseStreamBuffers();
+        }
+    }
+
     /** {@inheritDoc} */
     public void startPageSequence(String id) throws IFException {
         //nop
@@ -299,6 +324,10 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             if (!pdfDoc.isLinearizationEnabled()) {
                 this.generator.flushPDFDoc();
                 this.generator = null;
+                if (log.isDebugEnabled()) {
+                    log.debug("PDF objects held after page " + (currentPage.getPageIndex() + 1)
+                            + ": " + pdfDoc.getHeldObjectCount());
+                }
             }
         } catch (IOException ioe) {
             throw new IFException("I/O error in endPage()", ioe);
@@ -25,6 +25,7 @@ import java.awt.Rectangle;
 import java.io.IOException;
 
 import org.apache.fop.fo.Constants;
+import org.apache.fop.pdf.PDFNumber;
 import org.apache.fop.render.intermediate.ArcToBezierCurveTransformer;
 import org.apache.fop.render.intermediate.BezierCurvePainter;
 import org.apache.fop.render.intermediate.BorderPainter;
@@ -232,15 +233,6 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
         restoreGraphicsState();
     }
 
-    private static String format(int coordinate) {
-        //TODO lose scale?
-        return format(coordinate / 1000f);
-    }
-
-    private static String format(float coordinate) {
-        return PDFContentGenerator.format(coordinate);
-    }
-
     /** {@inheritDoc} */
     public void moveTo(int x, int y) {
         generator.moveTo(x, y);
@@ -302,23 +294,29 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
     // TODO consider enriching PDFContentGenerator with part of this API
     private static class PDFContentGeneratorHelper {
 
+        /** The number of decimal places of {@link PDFContentGenerator#format(float)} */
+        private static final int DECIMALS = 6;
+
         private final PDFContentGenerator generator;
 
+        /** Reused for the operands and the operator, which are added as one string */
+        private final StringBuffer operation = new StringBuffer();
+
         public PDFContentGeneratorHelper(PDFContentGenerator generator) {
             this.generator = generator;
         }
 
         public PDFContentGeneratorHelper moveTo(int x, int y) {
-            return add("m", format(x), format(y));
+            return arg(x).arg(y).add("m");
         }
 
         public PDFContentGeneratorHelper lineTo(int x, int y) {
-            return add("l", format(x), format(y));
+            return arg(x).arg(y).add("l");
         }
 
         /** {@inheritDoc} */
         public PDFContentGeneratorHelper cubicBezierTo(int p1x, int p1y, int p2x, int p2y, int p3x, int p3y) {
-            return add("c", format(p1x), format(p1y), format(p2x), format(p2y), format(p3x), format(p3y));
+            return arg(p1x).arg(p1y).arg(p2x).arg(p2y).arg(p3x).arg(p3y).add("c");
         }
 
         public PDFContentGeneratorHelper closePath() {
@@ -348,61 +346,55 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
         }
 
         public PDFContentGeneratorHelper setRoundCap() {
-            return add("J", "1");
+            operation.append("1 ");
+            return add("J");
         }
 
         public PDFContentGeneratorHelper strokeLine(float xStart, float yStart, float xEnd, float yEnd) {
-            add("m", xStart, yStart);
-            return addLine("l S", xEnd, yEnd);
+            return arg(xStart).arg(yStart).add("m")
+                    .arg(xEnd).arg(yEnd).addLine("l S");
         }
 
         public PDFContentGeneratorHelper fillRect(int xStart, int yStart, int xEnd, int yEnd) {
-            String xS = format(xStart);
-            String xE = format(xEnd);
-            String yS = format(yStart);
-            String yE = format(yEnd);
-            return addLine("m", xS, yS)
-                    .addLine("l", xE, yS)
-                    .addLine("l", xE, yE)
-                    .addLine("l", xS, yE)
+            return arg(xStart).arg(yStart).addLine("m")
+                    .arg(xEnd).arg(yStart).addLine("l")
+                    .arg(xEnd).arg(yEnd).addLine("l")
+                    .arg(xStart).arg(yEnd).addLine("l")
                     .addLine("h")
                     .addLine("f");
         }
 
         public PDFContentGeneratorHelper fillRidge(RuleStyle style, int xStart, int yStart, int xEnd,
                 int yEnd, int half) {
-            String xS = format(xStart);
-            String xE = format(xEnd);
-            String yS = format(yStart);
             if (style == RuleStyle.GROOVE) {
-                addLine("m", xS, yS)
-                        .addLine("l", xE, yS)
-                        .addLine("l", xE, format(yStart + half))
-                        .addLine("l", format(xStart + half), format(yStart + half))
-                        .addLine("l", xS, format(yStart + 2 * half));
+                arg(xStart).arg(yStart).addLine("m")
+                        .arg(xEnd).arg(yStart).addLine("l")
+                        .arg(xEnd).arg(yStart + half).addLine("l")
+                        .arg(xStart + half).arg(yStart + half).addLine("l")
+                        .arg(xStart).arg(yStart + 2 * half).addLine("l");
             } else {
-                addLine("m", xE, yS)
-                        .addLine("l", xE, format(yStart + 2 * half))
-                        .addLine("l", xS, format(yStart + 2 * half))
-                        .addLine("l", xS, format(yStart + half))
-                        .addLine("l", format(xEnd - half), format(yStart + half));
+                arg(xEnd).arg(yStart).addLine("m")
+                        .arg(xEnd).arg(yStart + 2 * half).addLine("l")
+                        .arg(xStart).arg(yStart + 2 * half).addLine("l")
+                        .arg(xStart).arg(yStart + half).addLine("l")
+                        .arg(xEnd - half).arg(yStart + half).addLine("l");
             }
             return addLine("h").addLine("f");
         }
 
         public PDFContentGeneratorHelper setLineWidth(float width) {
-            return addLine("w", width);
+            return arg(width).addLine("w");
         }
 
         public PDFContentGeneratorHelper setDashLine(float first, float... rest) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("[").append(format(first));
+            operation.append('[');
+            PDFNumber.doubleOut(first, DECIMALS, operation);
             for (float unit : rest) {
-                sb.append(" ").append(format(unit));
+                operation.append(' ');
+                PDFNumber.doubleOut(unit, DECIMALS, operation);
             }
-            sb.append("] 0 d ");
-            generator.add(sb.toString());
-            return this;
+            operation.append("] 0 d ");
+            return flush();
         }
 
         public PDFContentGeneratorHelper setColor(Color col) {
@@ -417,74 +409,46 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
 
         public PDFContentGeneratorHelper transformFloatCoordinates(float a, float b, float c, float d,
                 float e, float f) {
-            return add("cm", a, b, c, d, e, f);
+            return arg(a).arg(b).arg(c).arg(d).arg(e).arg(f).add("cm");
         }
 
         public PDFContentGeneratorHelper transformCoordinates(int a, int b, int c, int d, int e, int f) {
-            return add("cm", format(a), format(b), format(c), format(d), format(e), format(f));
+            return arg(a).arg(b).arg(c).arg(d).arg(e).arg(f).add("cm");
         }
 
         public PDFContentGeneratorHelper transformCoordinatesLine(int a, int b, int c, int d, int e, int f) {
-            return addLine("cm", format(a), format(b), format(c), format(d), format(e), format(f));
+            return arg(a).arg(b).arg(c).arg(d).arg(e).arg(f).addLine("cm");
         }
 
         public PDFContentGeneratorHelper add(String op) {
             assert op.equals(op.trim());
-            generator.add(op + " ");
-            return this;
-        }
-
-        private PDFContentGeneratorHelper add(String op, String... args) {
-            add(createArgs(args), op);
-            return this;
+            operation.append(op).append(' ');
+            return flush();
         }
 
         public PDFContentGeneratorHelper addLine(String op) {
             assert op.equals(op.trim());
-            generator.add(op + "\n");
-            return this;
+            operation.append(op).append('\n');
+            return flush();
         }
 
-        public PDFContentGeneratorHelper addLine(String op, String... args) {
-            addLine(createArgs(args), op);
-            return this;
+        /** Adds an operand in millipoints, followed by a space. */
+        private PDFContentGeneratorHelper arg(int coordinate) {
+            //TODO lose scale?
+            return arg(coordinate / 1000f);
         }
 
-        private PDFContentGeneratorHelper add(String op, float... args) {
-            add(createArgs(args), op);
+        /** Adds an operand in points, followed by a space. */
+        private PDFContentGeneratorHelper arg(float coordinate) {
+            PDFNumber.doubleOut(coordinate, DECIMALS, operation).append(' ');
             return this;
         }
 
-        public PDFContentGeneratorHelper addLine(String op, float... args) {
-            addLine(createArgs(args), op);
+        private PDFContentGeneratorHelper flush() {
+            generator.add(operation.toString());
+            operation.setLength(0);
             return this;
         }
-
-        private StringBuilder createArgs(float... args) {
-            StringBuilder sb = new StringBuilder();
-            for (float arg : args) {
-                sb.append(format(arg)).append(" ");
-            }
-            return sb;
-        }
-
-        private StringBuilder createArgs(String... args) {
-            StringBuilder sb = new StringBuilder();
-            for (String arg : args) {
-                sb.append(arg).append(" ");
-            }
-            return sb;
-        }
-
-        private void add(StringBuilder args, String op) {
-            assert op.equals(op.trim());
-            generator.add(args.append(op).append(" ").toString());
-        }
-
-        private void addLine(StringBuilder args, String op) {
-            assert op.equals(op.trim());
-            generator.add(args.append(op).append("\n").toString());
-        }
     }
 
 }
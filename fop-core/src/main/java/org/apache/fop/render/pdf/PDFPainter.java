@@ -46,6 +46,7 @@ import org.apache.fop.fonts.LazyFont;
 import org.apache.fop.fonts.SingleByteFont;
 import org.apache.fop.fonts.Typeface;
 import org.apache.fop.pdf.PDFArray;
+import org.apache.fop.pdf.PDFContentEncoder;
 import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFNumber;
@@ -257,13 +258,19 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
      */
     private void placeImage(Rectangle rect, PDFXObject xobj) {
         generator.saveGraphicsState();
-        generator.add(format(rect.width) + " 0 0 "
-                          + format(-rect.height) + " "
-                          + format(rect.x) + " "
-                          + format(rect.y + rect.height)
-                          + " cm " + xobj.getName() + " Do\n");
+        addImagePlacement(rect, xobj);
         generator.restoreGraphicsState();
     }
+
+    private void addImagePlacement(Rectangle rect, PDFXObject xobj) {
+        generator.getStream().getContentEncoder()
+                .addNumber(rect.width / 1000f).add(" 0 0 ")
+                .addNumber(-rect.height / 1000f).add(' ')
+                .addNumber(rect.x / 1000f).add(' ')
+                .addNumber((rect.y + rect.height) / 1000f).add(" cm ")
+                .add(xobj.getName().toString()).add(" Do\n");
+    }
+
     /**
      * Places a previously registered image at a certain place on the page - Accessibility version
      * @param rect the rectangle for the image
@@ -271,11 +278,7 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
      */
     private void placeImageAccess(Rectangle rect, PDFXObject xobj) {
         generator.saveGraphicsState(imageMCI.tag, imageMCI.mcid);
-        generator.add(format(rect.width) + " 0 0 "
-                          + format(-rect.height) + " "
-                          + format(rect.x) + " "
-                          + format(rect.y + rect.height)
-                          + " cm " + xobj.getName() + " Do\n");
+        addImagePlacement(rect, xobj);
         generator.restoreGraphicsStateAccess();
     }
 
@@ -347,20 +350,19 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
                     throw new UnsupportedOperationException("Non-Color paints NYI");
                 }
             }
-            StringBuffer sb = new StringBuffer();
-            sb.append(format(rect.x)).append(' ');
-            sb.append(format(rect.y)).append(' ');
-            sb.append(format(rect.width)).append(' ');
-            sb.append(format(rect.height)).append(" re");
+            PDFContentEncoder encoder = generator.getStream().getContentEncoder();
+            encoder.addNumber(rect.x / 1000f).add(' ');
+            encoder.addNumber(rect.y / 1000f).add(' ');
+            encoder.addNumber(rect.width / 1000f).add(' ');
+            encoder.addNumber(rect.height / 1000f).add(" re");
             if (fill != null) {
-                sb.append(" f");
+                encoder.add(" f");
             }
             /* Removed from method signature as it is currently not used
             if (stroke != null) {
-                sb.append(" S");
+                encoder.add(" S");
             }*/
-            sb.append('\n');
-            generator.add(sb.toString());
+            encoder.add('\n');
             if (accessEnabled && getUserAgent().isPdfUAEnabled()) {
                 generator.endMarkedContentSequence();
             }
@@ -56,6 +56,7 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINT;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINTHQ;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
@@ -65,7 +66,10 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAMING;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAM_BUFFER_BUDGET;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
+import static org.apache.fop.render.pdf.PDFRendererOption.XOBJECT_DEDUPLICATION;
 
 /**
  * The PDF renderer configuration data object.
@@ -151,6 +155,10 @@ public final class PDFRendererConfig implements RendererConfig {
                 parseAndPut(DISABLE_SRGB_COLORSPACE, cfg);
                 parseAndPut(MERGE_FONTS, cfg);
                 parseAndPut(LINEARIZATION, cfg);
+                parseAndPut(STREAMING, cfg);
+                parseAndPut(COMPRESSION_THREADS, cfg);
+                parseAndPut(STREAM_BUFFER_BUDGET, cfg);
+                parseAndPut(XOBJECT_DEDUPLICATION, cfg);
 
                 parseAndPut(VERSION, cfg);
             } catch (ConfigurationException e) {
@@ -189,7 +197,7 @@ public final class PDFRendererConfig implements RendererConfig {
                 String type = filters.getAttribute("type", PDFFilterList.DEFAULT_FILTER);
                 List<String> filterList = new ArrayList<String>();
                 for (Configuration nameCfg : filters.getChildren("value")) {
-                    filterList.add(nameCfg.getValue());
+                    filterList.add(parseFilter(nameCfg));
                 }
                 if (!filterList.isEmpty() && LOG.isDebugEnabled()) {
                     StringBuffer debug = new StringBuffer("Adding PDF filter");
@@ -215,6 +223,38 @@ public final class PDFRendererConfig implements RendererConfig {
             put(FILTER_LIST, filterMap);
         }
 
+        /**
+         * Parses a filter name. The flate filter may carry a compression level and a Deflater
+         * strategy, e.g. <code>&lt;value level="9" strategy="filtered"&gt;flate&lt;/value&gt;</code>,
+         * which are passed on as <code>flate;level=9;strategy=filtered</code>.
+         */
+        private String parseFilter(Configuration nameCfg) throws ConfigurationException {
+            String name = nameCfg.getValue();
+            String level = nameCfg.getAttribute("level", null);
+            String strategy = nameCfg.getAttribute("strategy", null);
+            if (level == null && strategy == null) {
+                return name;
+            }
+            if (!"flate".equals(name)) {
+                throw new ConfigurationException("Compression level and strategy are only"
+                        + " supported by the flate filter, not by '" + name + "'");
+            }
+            StringBuilder sb = new StringBuilder(name);
+            if (level != null) {
+                sb.append(";level=").append(level);
+            }
+            if (strategy != null) {
+                sb.append(";strategy=").append(strategy);
+            }
+            try {
+                //Validate the parameters now rather than when the first stream is written
+                new PDFFilterList().addFilter(sb.toString());
+            } catch (IllegalArgumentException iae) {
+                throw new ConfigurationException(iae.getMessage(), iae);
+            }
+            return sb.toString();
+        }
+
         private String parseConfig(Configuration cfg, RendererConfigOption option) {
             Configuration child = cfg.getChild(option.getName());
             return child.getValue(null);
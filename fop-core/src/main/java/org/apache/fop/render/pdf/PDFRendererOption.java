@@ -93,6 +93,43 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /** Rendering Options key for releasing PDF objects once they are written, default: false */
+    STREAMING("streaming", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for the number of threads compressing streams ahead of their
+     * output, default: 0 (streams are compressed while written)
+     */
+    COMPRESSION_THREADS("compression-threads", 0) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for the number of bytes of off-heap memory buffering the data of
+     * PDF streams, default: 0 (stream data is buffered on the heap)
+     */
+    STREAM_BUFFER_BUDGET("stream-buffer-budget", 0L) {
+        @Override
+        Long deserialize(String value) {
+            return Long.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for embedding image and form XObjects with the same content only
+     * once, default: false
+     */
+    XOBJECT_DEDUPLICATION("xobject-deduplication", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
@@ -31,6 +31,7 @@ import org.apache.fop.pdf.PDFVTMode;
 import org.apache.fop.pdf.PDFXMode;
 import org.apache.fop.pdf.Version;
 
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
@@ -40,7 +41,10 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAMING;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAM_BUFFER_BUDGET;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
+import static org.apache.fop.render.pdf.PDFRendererOption.XOBJECT_DEDUPLICATION;
 
 /**
  * The renderer options configuration data.
@@ -142,4 +146,20 @@ public final class PDFRendererOptionsConfig {
     public Boolean getLinearizationEnabled() {
         return (Boolean)properties.get(LINEARIZATION);
     }
+
+    public Boolean getStreamingEnabled() {
+        return (Boolean)properties.get(STREAMING);
+    }
+
+    public Integer getCompressionThreadCount() {
+        return (Integer)properties.get(COMPRESSION_THREADS);
+    }
+
+    public Long getStreamBufferBudget() {
+        return (Long)properties.get(STREAM_BUFFER_BUDGET);
+    }
+
+    public Boolean getXObjectDeduplicationEnabled() {
+        return (Boolean)properties.get(XOBJECT_DEDUPLICATION);
+    }
 }
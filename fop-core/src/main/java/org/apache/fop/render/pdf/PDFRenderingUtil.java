@@ -621,6 +621,12 @@ class PDFRenderingUtil {
         this.pdfDoc.enableAccessibility(userAgent.isAccessibilityEnabled());
         pdfDoc.setMergeFontsEnabled(rendererConfig.getMergeFontsEnabled());
         pdfDoc.setLinearizationEnabled(rendererConfig.getLinearizationEnabled());
+        pdfDoc.setStreamingEnabled(rendererConfig.getStreamingEnabled());
+        pdfDoc.setCompressionThreadCount(rendererConfig.getCompressionThreadCount());
+        pdfDoc.setStreamBufferBudget(rendererConfig.getStreamBufferBudget(),
+                userAgent.getTempDirectory());
+        pdfDoc.setXObjectDeduplicationEnabled(rendererConfig.getXObjectDeduplicationEnabled());
+        pdfDoc.setEncodedStreamCache(userAgent.getPDFEncodedStreamCache());
 
         return this.pdfDoc;
     }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.text.linebreak;
+
+/**
+ * Determines the break actions of all characters of a text in one pass, following the same
+ * rules as {@link LineBreakStatus#nextChar(char)}. The line breaking classes of the Latin-1
+ * characters are resolved in advance and the pair table is flattened, and the break actions
+ * are written to an array which is reused for the next text, so scanning a text doesn't
+ * allocate anything once the array has grown to the length of the longest text.
+ * <p>
+ * An instance is not thread-safe; it is meant to be shared by the text of a page sequence.
+ */
+public final class LineBreakScanner {
+
+    private static final int CLASS_COUNT = LineBreakUtils.LINE_BREAK_PROPERTY_ZW + 1;
+
+    /** The break actions of the pairs of line breaking classes: left * CLASS_COUNT + right */
+    private static final byte[] PAIR_ACTIONS = new byte[CLASS_COUNT * CLASS_COUNT];
+
+    /** The resolved line breaking classes of the Latin-1 characters */
+    private static final byte[] LATIN1_CLASSES = new byte[256];
+
+    static {
+        for (int left = 1; left < CLASS_COUNT; left++) {
+            for (int right = 1; right < CLASS_COUNT; right++) {
+                PAIR_ACTIONS[left * CLASS_COUNT + right]
+                        = LineBreakUtils.getLineBreakPairProperty(left, right);
+            }
+        }
+        for (char c = 0; c < LATIN1_CLASSES.length; c++) {
+            LATIN1_CLASSES[c] = resolveLineBreakClass(c);
+        }
+    }
+
+    private byte[] breakActions = new byte[256];
+
+    /**
+     * Returns the line breaking class of a character, with the classes AI, SA, SG, XX and
+     * unassigned code points resolved as recommended by rule LB 1.
+     */
+    private static byte resolveLineBreakClass(char c) {
+        byte lineBreakClass = LineBreakUtils.getLineBreakProperty(c);
+        switch (lineBreakClass) {
+            case 0: // Unassigned codepoint: same treatment as AI
+            case LineBreakUtils.LINE_BREAK_PROPERTY_AI:
+            case LineBreakUtils.LINE_BREAK_PROPERTY_SG:
+            case LineBreakUtils.LINE_BREAK_PROPERTY_XX:
+                return LineBreakUtils.LINE_BREAK_PROPERTY_AL;
+            case LineBreakUtils.LINE_BREAK_PROPERTY_SA:
+                switch (Character.getType(c)) {
+                    case Character.COMBINING_SPACING_MARK: //General_Category "Mc"
+                    case Character.NON_SPACING_MARK: //General_Category "Mn"
+                        return LineBreakUtils.LINE_BREAK_PROPERTY_CM;
+                    default:
+                        return LineBreakUtils.LINE_BREAK_PROPERTY_AL;
+                }
+            default:
+                return lineBreakClass;
+        }
+    }
+
+    /**
+     * Determines the break actions of the characters of a text, as a new
+     * {@link LineBreakStatus} would return them for each character in turn.
+     * @param text the text
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @return an array holding the break action before the character at
+     *          <code>start + i</code> at index <code>i</code>; the array is reused by the
+     *          next call and may be longer than the text
+     */
+    public byte[] scan(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (breakActions.length < length) {
+            breakActions = new byte[Math.max(length, breakActions.length * 2)];
+        }
+        final byte[] actions = breakActions;
+        int leftClass = -1;
+        boolean hadSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(start + i);
+            int currentClass = c < LATIN1_CLASSES.length
+                    ? LATIN1_CLASSES[c] : resolveLineBreakClass(c);
+
+            /* Check 1: First character or initial character after a mandatory break? */
+            switch (leftClass) {
+                case -1:
+                    // LB 10: Treat any remaining combining marks as AL
+                    leftClass = currentClass == LineBreakUtils.LINE_BREAK_PROPERTY_CM
+                            ? LineBreakUtils.LINE_BREAK_PROPERTY_AL : currentClass;
+                    // LB 2: Never break at the start of text
+                    actions[i] = LineBreakStatus.PROHIBITED_BREAK;
+                    continue;
+                case LineBreakUtils.LINE_BREAK_PROPERTY_CR:
+                    // LB 5: Treat CR followed by LF, as well as CR ... as hard line breaks
+                    if (currentClass == LineBreakUtils.LINE_BREAK_PROPERTY_LF) {
+                        break;
+                    }
+                    //fall through
+                case LineBreakUtils.LINE_BREAK_PROPERTY_BK:
+                case LineBreakUtils.LINE_BREAK_PROPERTY_LF:
+                case LineBreakUtils.LINE_BREAK_PROPERTY_NL:
+                    // LB 4: Always break after hard line breaks
+                    leftClass = currentClass;
+                    hadSpace = false;
+                    actions[i] = LineBreakStatus.EXPLICIT_BREAK;
+                    continue;
+                default:
+                    //nop
+            }
+
+            /* Check 2: current is a mandatory break or space? */
+            switch (currentClass) {
+                case LineBreakUtils.LINE_BREAK_PROPERTY_BK:
+                case LineBreakUtils.LINE_BREAK_PROPERTY_LF:
+                case LineBreakUtils.LINE_BREAK_PROPERTY_NL:
+                case LineBreakUtils.LINE_BREAK_PROPERTY_CR:
+                    // LB 6: Do not break before a hard break
+                    leftClass = currentClass;
+                    actions[i] = LineBreakStatus.PROHIBITED_BREAK;
+                    continue;
+                case LineBreakUtils.LINE_BREAK_PROPERTY_SP:
+                    // LB 7: Do not break before spaces
+                    hadSpace = true;
+                    actions[i] = LineBreakStatus.PROHIBITED_BREAK;
+                    continue;
+                default:
+                    //nop
+            }
+
+            /* Normal treatment with the pair table */
+            byte breakAction = PAIR_ACTIONS[leftClass * CLASS_COUNT + currentClass];
+            switch (breakAction) {
+                case LineBreakStatus.INDIRECT_BREAK:
+                    leftClass = currentClass;
+                    if (!hadSpace) {
+                        breakAction = LineBreakStatus.PROHIBITED_BREAK;
+                    }
+                    break;
+                case LineBreakStatus.COMBINING_INDIRECT_BREAK:
+                    if (hadSpace) {
+                        leftClass = currentClass;
+                    } else {
+                        breakAction = LineBreakStatus.PROHIBITED_BREAK;
+                    }
+                    break;
+                case LineBreakStatus.COMBINING_PROHIBITED_BREAK:
+                    if (hadSpace) {
+                        leftClass = currentClass;
+                    }
+                    break;
+                default:
+                    leftClass = currentClass;
+            }
+            hadSpace = false;
+            actions[i] = breakAction;
+        }
+        return actions;
+    }
+}
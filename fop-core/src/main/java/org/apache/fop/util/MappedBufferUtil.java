@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Releases memory-mapped and direct buffers without waiting for the garbage collector.
+ * A mapped file can't be deleted or replaced on some platforms (Windows) as long as it is
+ * mapped, and the JDK offers no public API to unmap it.
+ */
+public final class MappedBufferUtil {
+
+    private static final Log LOG = LogFactory.getLog(MappedBufferUtil.class);
+
+    private MappedBufferUtil() {
+    }
+
+    /**
+     * Unmaps a memory-mapped buffer or frees a direct buffer right away. The buffer, and any
+     * duplicate or slice of it, must not be used afterwards. Nothing happens for heap buffers,
+     * for duplicates and slices, or if the JVM doesn't allow it.
+     * @param buffer the buffer returned by {@link java.nio.channels.FileChannel#map} or
+     * {@link ByteBuffer#allocateDirect(int)}
+     * @return true if the buffer was released
+     */
+    public static boolean unmap(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return false;
+        }
+        try {
+            //Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return unmapWithCleaner(buffer);
+        } catch (Exception e) {
+            //Duplicates and slices have no cleaner of their own
+            LOG.debug("Could not release the buffer: " + e);
+            return false;
+        }
+    }
+
+    private static boolean unmapWithCleaner(ByteBuffer buffer) {
+        try {
+            //Java 8 and earlier
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner == null) {
+                return false;
+            }
+            Method clean = cleaner.getClass().getMethod("clean");
+            clean.setAccessible(true);
+            clean.invoke(cleaner);
+            return true;
+        } catch (Exception e) {
+            LOG.debug("Could not release the buffer: " + e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A temporary file which is grown and memory-mapped in segments, to which data is spilled
+ * when it doesn't fit in memory. The file is only created when the first segment is added,
+ * and it is unmapped and deleted when it is closed. This class is not thread-safe.
+ */
+public final class MappedSpillFile implements Closeable {
+
+    private static final Log LOG = LogFactory.getLog(MappedSpillFile.class);
+
+    private final String prefix;
+
+    private final String suffix;
+
+    private final File directory;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+
+    private File file;
+
+    private RandomAccessFile raf;
+
+    private long length;
+
+    /**
+     * Creates a new spill file. The file itself is created when the first segment is added.
+     * @param prefix the prefix of the name of the file, at least three characters long
+     * @param suffix the suffix of the name of the file, or null for ".tmp"
+     * @param directory the directory the file is created in, or null for the default
+     *          temporary-file directory
+     */
+    public MappedSpillFile(String prefix, String suffix, File directory) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.directory = directory;
+    }
+
+    /**
+     * Grows the file and maps the new part of it.
+     * @param size the size of the segment
+     * @return the segment, positioned at 0
+     * @throws IOException if the file cannot be created or extended
+     */
+    public MappedByteBuffer addSegment(int size) throws IOException {
+        if (raf == null) {
+            file = File.createTempFile(prefix, suffix, directory);
+            raf = new RandomAccessFile(file, "rw");
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Spilling to " + file);
+            }
+        }
+        MappedByteBuffer segment = raf.getChannel().map(
+                FileChannel.MapMode.READ_WRITE, length, size);
+        length += size;
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Returns a segment of the file.
+     * @param index the index of the segment, in the order they were added
+     * @return the segment
+     */
+    public MappedByteBuffer getSegment(int index) {
+        return segments.get(index);
+    }
+
+    /** @return the number of segments, 0 if the file hasn't been created */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /** @return the size of the file, 0 if it hasn't been created */
+    public long getLength() {
+        return length;
+    }
+
+    /** @return the temporary file, or null if it hasn't been created */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Unmaps and deletes the file. The segments must not be used anymore.
+     * @throws IOException if an I/O error occurs
+     */
+    public void close() throws IOException {
+        //The file can only be deleted on some platforms once it is unmapped
+        for (MappedByteBuffer segment : segments) {
+            MappedBufferUtil.unmap(segment);
+        }
+        segments.clear();
+        if (raf != null) {
+            raf.close();
+            raf = null;
+            if (!file.delete()) {
+                LOG.warn("Could not delete the temporary file " + file);
+            }
+        }
+    }
+}
@@ -18,20 +18,35 @@
 /* $Id$ */
 package org.apache.fop;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.hyphenation.Hyphenation;
 import org.apache.fop.hyphenation.HyphenationException;
+import org.apache.fop.hyphenation.HyphenationResultCache;
 import org.apache.fop.hyphenation.HyphenationTree;
+import org.apache.fop.hyphenation.HyphenationTreeCache;
+import org.apache.fop.hyphenation.HyphenationTreeFile;
 import org.apache.fop.hyphenation.Hyphenator;
 
 public class HyphenationTestCase {
@@ -68,4 +83,195 @@ public class HyphenationTestCase {
         hyp.delete();
         f.delete();
     }
+
+    @Test
+    public void testHyphenatorBinaryFormat() throws HyphenationException, IOException {
+        File f = File.createTempFile("hyp", "fop");
+        f.delete();
+        f.mkdir();
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        File hyp = new File(f, "frbin.hyp");
+        FileOutputStream out = new FileOutputStream(hyp);
+        HyphenationTreeFile.write(hTree, out);
+        out.close();
+
+        Hyphenation hyph = Hyphenator.hyphenate("frbin.hyp" + Hyphenator.HYPTYPE, null, resourceResolver,
+                null, "oello", 0, 0);
+        assertEquals(hyph.toString(), "oel-lo");
+
+        hyp.delete();
+        f.delete();
+    }
+
+    private static HyphenationTree loadTestPatterns() throws HyphenationException, IOException {
+        File xml = File.createTempFile("hyp", ".xml");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(xml), "UTF-8");
+        writer.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<hyphenation-info>\n"
+                + "<classes>\naA\nbB\ncC\ndD\neE\nkK\nlL\nnN\noO\nrR\nsS\ntT\nuU\n\u00e4\u00c4\n</classes>\n"
+                + "<exceptions>\nta-ble\nbac<hyphen pre=\"k-\" no=\"c\" post=\"k\"/>ken\n</exceptions>\n"
+                + "<patterns>\n1ba\n1be\n1ck\n1de\n1ke\n1la\n1le\n1lo\n1na\n1ne\n1ra\n1re\n"
+                + "1ta\n1te\n1to\n2b1l\n2c1k\n2s1t\n3tr\n4n1d\nn1n\nr1t\ns1s\n.un1\n\u00e41\n</patterns>\n"
+                + "</hyphenation-info>\n");
+        writer.close();
+        HyphenationTree hTree = new HyphenationTree();
+        try {
+            hTree.loadPatterns(xml.getAbsolutePath());
+        } finally {
+            xml.delete();
+        }
+        return hTree;
+    }
+
+    private static void assertSameHyphenation(HyphenationTree expected, HyphenationTree actual) {
+        String[] words = {"table", "backen", "Bananen", "understand", "Sonnenterrasse",
+            "unbeladen", "K\u00e4lte", "a", "kostenlos", "Dresden"};
+        for (String word : words) {
+            for (int min = 1; min <= 3; min++) {
+                Hyphenation h1 = expected.hyphenate(word, min, min);
+                Hyphenation h2 = actual.hyphenate(word, min, min);
+                if (h1 == null) {
+                    assertNull(h2);
+                } else {
+                    assertEquals(h1.toString(), h2.toString());
+                    assertTrue(Arrays.equals(h1.getHyphenationPoints(), h2.getHyphenationPoints()));
+                    for (int i = 0; i < h1.length(); i++) {
+                        assertEquals(h1.getPreHyphenText(i), h2.getPreHyphenText(i));
+                        assertEquals(h1.getPostHyphenText(i), h2.getPostHyphenText(i));
+                    }
+                }
+            }
+        }
+        assertEquals(expected.findPattern("1ba"), actual.findPattern("1ba"));
+        assertEquals(expected.size(), actual.size());
+    }
+
+    @Test
+    public void testBinaryFormatRoundTrip() throws HyphenationException, IOException {
+        HyphenationTree hTree = loadTestPatterns();
+        assertEquals("ta-ble", hTree.hyphenate("table", 1, 1).toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HyphenationTreeFile.write(hTree, out);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        assertTrue(HyphenationTreeFile.isHyphenationTreeFile(buffer));
+        assertSameHyphenation(hTree, HyphenationTreeFile.read(buffer));
+
+        File hyp = File.createTempFile("hyp", ".hyp");
+        try {
+            FileOutputStream fout = new FileOutputStream(hyp);
+            HyphenationTreeFile.write(hTree, fout);
+            fout.close();
+            assertSameHyphenation(hTree, HyphenationTreeFile.read(HyphenationTreeFile.map(hyp)));
+        } finally {
+            hyp.delete();
+        }
+    }
+
+    @Test
+    public void testBinaryFormatInvalid() throws HyphenationException, IOException {
+        HyphenationTree hTree = loadTestPatterns();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ObjectOutputStream(out).writeObject(hTree);
+        assertFalse(HyphenationTreeFile.isHyphenationTreeFile(ByteBuffer.wrap(out.toByteArray())));
+
+        out.reset();
+        HyphenationTreeFile.write(hTree, out);
+        byte[] data = out.toByteArray();
+        try {
+            HyphenationTreeFile.read(ByteBuffer.wrap(data, 0, data.length / 2));
+            fail("Truncated file must not be read");
+        } catch (IOException ioe) {
+            //expected
+        }
+        data[7] = (byte) (HyphenationTreeFile.VERSION + 1);
+        try {
+            HyphenationTreeFile.read(ByteBuffer.wrap(data));
+            fail("Unknown versions must not be read");
+        } catch (IOException ioe) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testHyphenationTreeCachePreload() {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        String lang = "fr.xml" + Hyphenator.XMLTYPE;
+        HyphenationTreeCache cache = new HyphenationTreeCache();
+        cache.preload(Arrays.asList(lang, "xx_YY"), resourceResolver, null);
+        HyphenationTree hTree = Hyphenator.getHyphenationTree(lang, null, resourceResolver, null, null, cache);
+        assertNotNull(hTree);
+        assertSame(hTree, cache.getHyphenationTree(lang, null));
+        assertNull(Hyphenator.getHyphenationTree("xx", "YY", resourceResolver, null, null, cache));
+        assertTrue(cache.isMissing("xx"));
+        //Preloading a language again doesn't load it again
+        cache.preload(Collections.singleton(lang), resourceResolver, null);
+        assertSame(hTree, Hyphenator.getHyphenationTree(lang, null, resourceResolver, null, null, cache));
+
+        //The trees of a cache aren't shared with other caches
+        assertNull(new HyphenationTreeCache().getHyphenationTree(lang, null));
+        assertEquals("-hel-lo", Hyphenator.hyphenate(lang, null, resourceResolver, null, "hello", 0, 0, null,
+                new HyphenationTreeCache(), null).toString());
+    }
+
+    @Test
+    public void testHyphenationResultCache() throws HyphenationException {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        HyphenationResultCache cache = new HyphenationResultCache(100);
+        Hyphenation hyph = cache.hyphenate("fr", hTree, "hello", 0, 0);
+        assertEquals("-hel-lo", hyph.toString());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        hyph = cache.hyphenate("fr", hTree, "hello", 0, 0);
+        assertEquals("-hel-lo", hyph.toString());
+        assertEquals(1, cache.getHitCount());
+        //Modifying a result doesn't modify the cached points
+        hyph.getHyphenationPoints()[0] = 4;
+        assertEquals("-hel-lo", cache.hyphenate("fr", hTree, "hello", 0, 0).toString());
+        assertEquals(2, cache.getHitCount());
+
+        assertEquals(hTree.hyphenate("hello", 2, 2).toString(),
+                cache.hyphenate("fr", hTree, "hello", 2, 2).toString());
+        cache.hyphenate("de", hTree, "hello", 0, 0);
+        assertEquals(3, cache.getMissCount());
+        assertEquals(3, cache.size());
+
+        assertNull(cache.hyphenate("fr", hTree, "a", 0, 0));
+        assertNull(cache.hyphenate("fr", hTree, "a", 0, 0));
+        assertEquals(4, cache.getMissCount());
+        assertEquals(3, cache.getHitCount());
+    }
+
+    @Test
+    public void testHyphenationResultCacheBounded() throws HyphenationException {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        HyphenationResultCache cache = new HyphenationResultCache(32);
+        for (int i = 0; i < 1000; i++) {
+            cache.hyphenate("fr", hTree, "hello" + i, 0, 0);
+        }
+        assertTrue(cache.size() <= 32);
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testHyphenatorWithResultCache() {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        HyphenationResultCache cache = new HyphenationResultCache(100);
+        for (int i = 0; i < 3; i++) {
+            Hyphenation hyph = Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver,
+                    null, "hello", 0, 0, null, cache);
+            assertEquals("-hel-lo", hyph.toString());
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
 }
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the concurrent rendering of documents by {@link FopBatch}.
+ */
+public class FopBatchTestCase {
+
+    private static final String FO_NAMESPACE = "http://www.w3.org/1999/XSL/Format";
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    private static String createDocument(int index) {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"" + FO_NAMESPACE + "\"><fo:layout-master-set>"
+                + "<fo:simple-page-master master-name=\"page\" page-height=\"200pt\""
+                + " page-width=\"300pt\" margin=\"20pt\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\">"
+                + "<fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i <= index; i++) {
+            fo.append("<fo:block space-after=\"30pt\">Document ").append(index)
+                    .append(", paragraph ").append(i).append("</fo:block>");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+        return fo.toString();
+    }
+
+    private String render(String fo) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+
+    private static class ClosingOutputStream extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        int documentCount = 12;
+        FopBatch batch = fopFactory.newFopBatch(MimeConstants.MIME_FOP_AREA_TREE, null, 3);
+        List<Future<FormattingResults>> results = new ArrayList<Future<FormattingResults>>();
+        List<ClosingOutputStream> outputs = new ArrayList<ClosingOutputStream>();
+        for (int i = 0; i < documentCount; i++) {
+            ClosingOutputStream out = new ClosingOutputStream();
+            outputs.add(out);
+            results.add(batch.submit(new StreamSource(new StringReader(createDocument(i))), out));
+        }
+        batch.finish();
+
+        long pageCount = 0;
+        for (int i = 0; i < documentCount; i++) {
+            ClosingOutputStream out = outputs.get(i);
+            assertTrue(out.closed);
+            assertEquals(render(createDocument(i)), out.toString("UTF-8"));
+            pageCount += results.get(i).get().getPageCount();
+        }
+        assertEquals(documentCount, batch.getDocumentCount());
+        assertEquals(0, batch.getFailureCount());
+        assertEquals(pageCount, batch.getPageCount());
+        assertTrue(pageCount > documentCount);
+    }
+
+    @Test
+    public void testFailedDocument() throws Exception {
+        FopBatch batch = fopFactory.newFopBatch(MimeConstants.MIME_FOP_AREA_TREE, null, 2);
+        ClosingOutputStream failedOut = new ClosingOutputStream();
+        Future<FormattingResults> failed = batch.submit(new StreamSource(new StringReader(
+                "<fo:root xmlns:fo=\"" + FO_NAMESPACE + "\"><fo:block/></fo:root>")), failedOut);
+        Future<FormattingResults> succeeded = batch.submit(
+                new StreamSource(new StringReader(createDocument(0))), new ByteArrayOutputStream());
+        batch.finish();
+        try {
+            failed.get();
+            fail("The failure of the document must be reported");
+        } catch (ExecutionException e) {
+            //expected
+        }
+        assertTrue(failedOut.closed);
+        assertEquals(1, succeeded.get().getPageCount());
+        assertEquals(2, batch.getDocumentCount());
+        assertEquals(1, batch.getFailureCount());
+        try {
+            batch.submit(new StreamSource(new StringReader(createDocument(0))),
+                    new ByteArrayOutputStream());
+            fail("No document can be submitted to a finished batch");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testCancelledDocuments() throws Exception {
+        FopBatch batch = fopFactory.newFopBatch(MimeConstants.MIME_FOP_AREA_TREE, null, 1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        //Keeps the only worker thread busy until the cancellations are done
+        StringReader blockingReader = new StringReader(createDocument(0)) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e.getMessage());
+                }
+                return super.read(cbuf, off, len);
+            }
+        };
+        Future<FormattingResults> first = batch.submit(new StreamSource(blockingReader),
+                new ByteArrayOutputStream());
+        //Each cancelled document gives its permit back, so submit() doesn't block
+        for (int i = 0; i < 10; i++) {
+            Future<FormattingResults> cancelled = batch.submit(
+                    new StreamSource(new StringReader(createDocument(i))),
+                    new ByteArrayOutputStream());
+            assertTrue(cancelled.cancel(false));
+        }
+        blocked.countDown();
+        batch.finish();
+        assertEquals(1, first.get().getPageCount());
+        assertEquals(1, batch.getDocumentCount());
+    }
+
+    @Test
+    public void testTemplates() throws Exception {
+        String xsl = "<xsl:stylesheet version=\"1.0\""
+                + " xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                + "<xsl:template match=\"/document\">"
+                + "<fo:root xmlns:fo=\"" + FO_NAMESPACE + "\"><fo:layout-master-set>"
+                + "<fo:simple-page-master master-name=\"page\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\">"
+                + "<fo:flow flow-name=\"xsl-region-body\"><xsl:for-each select=\"page\">"
+                + "<fo:block break-before=\"page\"><xsl:value-of select=\".\"/></fo:block>"
+                + "</xsl:for-each></fo:flow></fo:page-sequence></fo:root>"
+                + "</xsl:template></xsl:stylesheet>";
+        Templates templates = TransformerFactory.newInstance().newTemplates(
+                new StreamSource(new StringReader(xsl)));
+        FopBatch batch = fopFactory.newFopBatch(MimeConstants.MIME_FOP_AREA_TREE, templates, 2);
+        List<Future<FormattingResults>> results = new ArrayList<Future<FormattingResults>>();
+        for (int i = 1; i <= 5; i++) {
+            StringBuilder xml = new StringBuilder("<document>");
+            for (int j = 0; j < i; j++) {
+                xml.append("<page>Page ").append(j).append("</page>");
+            }
+            xml.append("</document>");
+            results.add(batch.submit(new StreamSource(new StringReader(xml.toString())),
+                    new ByteArrayOutputStream()));
+        }
+        batch.finish();
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(i, results.get(i - 1).get().getPageCount());
+        }
+        assertEquals(15, batch.getPageCount());
+    }
+}
@@ -141,6 +141,108 @@ public class FopConfBuilder implements FontConfigurator<FopConfBuilder> {
         return createElement("accessibility", String.valueOf(setAccessibility));
     }
 
+    /**
+     * Set the &lt;font-detection-threads&gt; tag within the fop.xconf.
+     *
+     * @param threadCount the number of threads parsing the font files found by font detection
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setFontDetectionThreadCount(int threadCount) {
+        return createElement("font-detection-threads", String.valueOf(threadCount));
+    }
+
+    /**
+     * Set the &lt;lazy-font-registration&gt; tag within the fop.xconf.
+     *
+     * @param lazy true to register the fonts only when they are looked up
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setLazyFontRegistration(boolean lazy) {
+        return createElement("lazy-font-registration", String.valueOf(lazy));
+    }
+
+    /**
+     * Set the &lt;hyphenation-cache-size&gt; tag within the fop.xconf.
+     *
+     * @param size the number of hyphenated words cached, 0 to disable the cache
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setHyphenationCacheSize(int size) {
+        return createElement("hyphenation-cache-size", String.valueOf(size));
+    }
+
+    /**
+     * Adds a &lt;hyphenation-preload&gt; tag within the fop.xconf.
+     *
+     * @param lang the language
+     * @param country the country (may be null)
+     * @return <b>this</b>
+     */
+    public FopConfBuilder addHyphenationPreload(String lang, String country) {
+        Element el = fopConfDOM.createElement("hyphenation-preload");
+        el.setAttribute("lang", lang);
+        if (country != null) {
+            el.setAttribute("country", country);
+        }
+        root.appendChild(el);
+        return this;
+    }
+
+    /**
+     * Set the &lt;line-breaking&gt; tag within the fop.xconf.
+     *
+     * @param maxActiveNodesPerLine the maximum number of active nodes per line
+     * @param maxNodes the number of nodes after which one node per line is kept
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setLineBreakingBounds(int maxActiveNodesPerLine, int maxNodes) {
+        Element el = fopConfDOM.createElement("line-breaking");
+        el.setAttribute("max-active-nodes-per-line", String.valueOf(maxActiveNodesPerLine));
+        el.setAttribute("max-nodes", String.valueOf(maxNodes));
+        root.appendChild(el);
+        return this;
+    }
+
+    /**
+     * Set the &lt;page-breaking-horizon&gt; tag within the fop.xconf.
+     *
+     * @param pages the number of pages the page breaking may look ahead
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setPageBreakingHorizon(int pages) {
+        return createElement("page-breaking-horizon", String.valueOf(pages));
+    }
+
+    /**
+     * Set the &lt;page-sequence-layout-queue&gt; tag within the fop.xconf.
+     *
+     * @param size the number of page-sequences which may wait for their layout
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setPageSequenceLayoutQueueSize(int size) {
+        return createElement("page-sequence-layout-queue", String.valueOf(size));
+    }
+
+    /**
+     * Set the &lt;pdf-stream-cache-size&gt; tag within the fop.xconf.
+     *
+     * @param size the number of bytes of encoded stream data cached, 0 to disable the cache
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setPDFStreamCacheSize(int size) {
+        return createElement("pdf-stream-cache-size", String.valueOf(size));
+    }
+
+    /**
+     * Set the &lt;temp-directory&gt; tag within the fop.xconf.
+     *
+     * @param directory the directory the temporary files are created in
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setTempDirectory(String directory) {
+        return createElement("temp-directory", directory);
+    }
+
     @Deprecated
     public FopConfBuilder setHyphenationBaseURI(String uri) {
         return createElement("hyphenation-base", uri);
@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +32,9 @@ import org.xml.sax.SAXException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -129,6 +134,72 @@ public class FopConfParserTestCase {
         assertTrue(buildFactory().getRendererFactory().isRendererPreferred());
     }
 
+    @Test
+    public void testHyphenationCacheSize() {
+        assertNotNull(buildFactory().getHyphenationResultCache());
+        builder.setHyphenationCacheSize(0);
+        assertNull(buildFactory().getHyphenationResultCache());
+    }
+
+    @Test
+    public void testHyphenationPreload() throws Exception {
+        assertTrue(new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder().buildConfig()
+                .getPreloadedHyphenationLanguages().isEmpty());
+        builder.addHyphenationPreload("de", null);
+        builder.addHyphenationPreload("en", "us");
+        FopFactoryConfig config = new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder()
+                .buildConfig();
+        assertEquals(Arrays.asList("de", "en_US"),
+                new ArrayList<String>(config.getPreloadedHyphenationLanguages()));
+        assertNotSame(buildFactory().getHyphenationTreeCache(), buildFactory().getHyphenationTreeCache());
+    }
+
+    @Test
+    public void testLineBreakingBounds() throws Exception {
+        FopFactoryConfig config = new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder()
+                .buildConfig();
+        assertEquals(0, config.getMaxActiveNodesPerLine());
+        assertEquals(0, config.getMaxLineBreakingNodes());
+        builder.setLineBreakingBounds(20, 200000);
+        config = new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder().buildConfig();
+        assertEquals(20, config.getMaxActiveNodesPerLine());
+        assertEquals(200000, config.getMaxLineBreakingNodes());
+    }
+
+    @Test
+    public void testPageBreakingHorizon() throws Exception {
+        assertEquals(0, new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder()
+                .buildConfig().getPageBreakingHorizon());
+        builder.setPageBreakingHorizon(10);
+        assertEquals(10, new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder()
+                .buildConfig().getPageBreakingHorizon());
+    }
+
+    @Test
+    public void testPageSequenceLayoutQueueSize() throws Exception {
+        assertEquals(0, new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder()
+                .buildConfig().getPageSequenceLayoutQueueSize());
+        builder.setPageSequenceLayoutQueueSize(4);
+        assertEquals(4, new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder()
+                .buildConfig().getPageSequenceLayoutQueueSize());
+    }
+
+    @Test
+    public void testPDFStreamCacheSize() {
+        assertNull(buildFactory().getPDFEncodedStreamCache());
+        builder.setPDFStreamCacheSize(1000000);
+        assertEquals(1000000, buildFactory().getPDFEncodedStreamCache().getCapacity());
+    }
+
+    @Test
+    public void testTempDirectory() throws Exception {
+        assertNull(new FopConfParser(builder.build(), baseURI).getFopFactoryBuilder()
+                .buildConfig().getTempDirectory());
+        builder.setTempDirectory("build/temp");
+        assertEquals(new File("build/temp"), new FopConfParser(builder.build(), baseURI)
+                .getFopFactoryBuilder().buildConfig().getTempDirectory());
+    }
+
     @Test
     public void testRelativeURINoBaseNoFont() throws Exception {
         checkRelativeURIs("test/config/relative-uri/no-base_no-font.xconf",
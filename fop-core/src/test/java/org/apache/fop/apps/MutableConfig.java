@@ -17,6 +17,7 @@
 
 package org.apache.fop.apps;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Map;
 import java.util.Set;
@@ -137,6 +138,38 @@ public final class MutableConfig implements FopFactoryConfig {
         return delegate.getHyphenationResourceResolver();
     }
 
+    public int getHyphenationCacheSize() {
+        return delegate.getHyphenationCacheSize();
+    }
+
+    public Set<String> getPreloadedHyphenationLanguages() {
+        return delegate.getPreloadedHyphenationLanguages();
+    }
+
+    public int getMaxActiveNodesPerLine() {
+        return delegate.getMaxActiveNodesPerLine();
+    }
+
+    public int getMaxLineBreakingNodes() {
+        return delegate.getMaxLineBreakingNodes();
+    }
+
+    public int getPageBreakingHorizon() {
+        return delegate.getPageBreakingHorizon();
+    }
+
+    public int getPageSequenceLayoutQueueSize() {
+        return delegate.getPageSequenceLayoutQueueSize();
+    }
+
+    public int getPDFStreamCacheSize() {
+        return delegate.getPDFStreamCacheSize();
+    }
+
+    public File getTempDirectory() {
+        return delegate.getTempDirectory();
+    }
+
     public FallbackResolver getFallbackResolver() {
         return delegate.getFallbackResolver();
     }
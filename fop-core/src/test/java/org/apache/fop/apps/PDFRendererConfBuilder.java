@@ -68,6 +68,21 @@ public final class PDFRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public PDFRendererConfBuilder createFlateFilterList(String type, String level, String strategy) {
+        Element filterListEl = createElement(FILTER_LIST.getName());
+        if (type != null) {
+            filterListEl.setAttribute("type", type);
+        }
+        Element valueEl = createTextElement("value", "flate", filterListEl);
+        if (level != null) {
+            valueEl.setAttribute("level", level);
+        }
+        if (strategy != null) {
+            valueEl.setAttribute("strategy", strategy);
+        }
+        return this;
+    }
+
     public PDFRendererConfBuilder setPDFAMode(String value) {
         createTextElement(PDF_A_MODE, value);
         return this;
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.Renderer;
+
+/**
+ * Tests the {@linkplain CachedRenderPagesModel} class.
+ */
+public class CachedRenderPagesModelTestCase {
+
+    private static final String IDREF = "last-block";
+
+    private FOUserAgent userAgent;
+
+    private Renderer renderer;
+
+    private int renderedPageCount;
+
+    @Before
+    public void setUp() throws Exception {
+        userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        userAgent.setConserveMemoryPolicy(true);
+        userAgent.setPageSerializer(new CompactPageSerializer());
+        renderer = mock(Renderer.class);
+        when(renderer.getUserAgent()).thenReturn(userAgent);
+        doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) {
+                PageViewport page = (PageViewport) invocation.getArguments()[0];
+                assertNotNull(page.getPage());
+                renderedPageCount++;
+                return null;
+            }
+        }).when(renderer).renderPage(any(PageViewport.class));
+        userAgent.setRendererOverride(renderer);
+    }
+
+    private CachedRenderPagesModel createModel(int pageThreshold) throws Exception {
+        userAgent.setConserveMemoryPageThreshold(pageThreshold);
+        FontInfo fontInfo = mock(FontInfo.class);
+        when(fontInfo.isSetupValid()).thenReturn(true);
+        CachedRenderPagesModel model = new CachedRenderPagesModel(userAgent, null, fontInfo,
+                null);
+        model.startPageSequence(new PageSequence(null));
+        return model;
+    }
+
+    private PageViewport createPage(int index) {
+        Rectangle viewArea = new Rectangle(0, 0, 500000, 700000);
+        PageViewport pageViewport = new PageViewport(viewArea, index + 1,
+                Integer.toString(index + 1), "master", false);
+        Page page = new Page();
+        RegionViewport viewport = new RegionViewport(viewArea);
+        RegionReference region = new RegionReference(Constants.FO_REGION_BEFORE,
+                "xsl-region-before", viewport);
+        viewport.setRegionReference(region);
+        Block block = new Block();
+        block.setBPD(index);
+        region.addBlock(block);
+        page.setRegionViewport(Constants.FO_REGION_BEFORE, viewport);
+        pageViewport.setPage(page);
+        return pageViewport;
+    }
+
+    /**
+     * Adds pages after a first page referring to an id which is only resolved at the end of
+     * the document, so none of them can be rendered in order before.
+     */
+    private PageViewport[] addPendingPages(CachedRenderPagesModel model, int count) {
+        PageViewport[] pages = new PageViewport[count];
+        for (int i = 0; i < count; i++) {
+            pages[i] = createPage(i);
+            if (i == 0) {
+                pages[i].addUnresolvedIDRef(IDREF, mock(Resolvable.class));
+            }
+            model.addPage(pages[i]);
+        }
+        return pages;
+    }
+
+    @Test
+    public void testPageThreshold() throws Exception {
+        CachedRenderPagesModel model = createModel(2);
+        PageViewport[] pages = addPendingPages(model, 5);
+        // the first pages up to the threshold stay in memory, the following ones are saved
+        assertNotNull(pages[0].getPage());
+        assertNotNull(pages[1].getPage());
+        for (int i = 2; i < pages.length; i++) {
+            assertNull(pages[i].getPage());
+        }
+        assertEquals(3, model.getSpilledPageCount());
+        assertEquals(0, model.getReloadedPageCount());
+        assertEquals(0, renderedPageCount);
+        File file = model.getPageCacheFile();
+        assertTrue(file.exists());
+
+        pages[0].resolveIDRef(IDREF, Collections.singletonList(pages[4]));
+        model.endDocument();
+        assertEquals(5, renderedPageCount);
+        assertEquals(3, model.getSpilledPageCount());
+        assertEquals(3, model.getReloadedPageCount());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testPagesBelowThreshold() throws Exception {
+        CachedRenderPagesModel model = createModel(10);
+        PageViewport[] pages = addPendingPages(model, 5);
+        for (PageViewport page : pages) {
+            assertNotNull(page.getPage());
+        }
+        pages[0].resolveIDRef(IDREF, Collections.singletonList(pages[4]));
+        model.endDocument();
+        assertEquals(5, renderedPageCount);
+        assertEquals(0, model.getSpilledPageCount());
+        assertEquals(0, model.getReloadedPageCount());
+        assertNull(model.getPageCacheFile());
+    }
+
+    @Test
+    public void testAbortDocument() throws Exception {
+        CachedRenderPagesModel model = createModel(1);
+        addPendingPages(model, 4);
+        assertEquals(3, model.getSpilledPageCount());
+        File file = model.getPageCacheFile();
+        assertTrue(file.exists());
+
+        model.abortDocument();
+        assertFalse(file.exists());
+        verify(renderer).abortRenderer();
+        assertEquals(0, renderedPageCount);
+    }
+}
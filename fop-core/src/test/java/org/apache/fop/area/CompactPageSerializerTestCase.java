@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.area.inline.BasicLinkArea;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.SpaceArea;
+import org.apache.fop.area.inline.TextArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+import org.apache.fop.area.inline.WordArea;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fonts.FontTriplet;
+import org.apache.fop.traits.BorderProps;
+
+/**
+ * Tests the {@linkplain CompactPageSerializer} class.
+ */
+public class CompactPageSerializerTestCase {
+
+    private final PageSerializer serializer = new CompactPageSerializer();
+
+    private static class CustomBlock extends Block {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private Page createPage(Block block) {
+        Page page = new Page();
+        RegionViewport viewport = new RegionViewport(new Rectangle(0, 0, 500000, 700000));
+        viewport.setIPD(500000);
+        viewport.setBPD(700000);
+        viewport.setClip(true);
+        BodyRegion body = new BodyRegion(Constants.FO_REGION_BODY, "xsl-region-body", viewport, 2,
+                12000);
+        body.setCTM(new CTM(1, 0, 0, 1, 10000, 20000));
+        viewport.setRegionReference(body);
+        page.setRegionViewport(Constants.FO_REGION_BODY, viewport);
+        Span span = body.getMainReference().createSpan(false);
+        span.getCurrentFlow().addBlock(block);
+        span.moveToNextFlow();
+        return page;
+    }
+
+    private Page roundTrip(Page page) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.writePage(page, out);
+        return serializer.readPage(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private Block getFirstBlock(Page page) {
+        BodyRegion body = (BodyRegion) page.getRegionViewport(Constants.FO_REGION_BODY)
+                .getRegionReference();
+        return (Block) body.getMainReference().getSpans().get(0).getNormalFlow(0)
+                .getChildAreas().get(0);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        FontTriplet font = new FontTriplet("Helvetica", "normal", 400);
+        BorderProps border = BorderProps.makeRectangular(Constants.EN_SOLID, 500, new Color(255, 0, 0),
+                BorderProps.Mode.SEPARATE);
+
+        Block block = new Block();
+        block.setIPD(240000);
+        block.setBPD(14400);
+        block.setXOffset(-1000);
+        block.addTrait(Trait.BORDER_BEFORE, border);
+        block.addTrait(Trait.BORDER_AFTER, border);
+        LineArea line = new LineArea();
+        line.setBPD(14400);
+        TextArea text = new TextArea();
+        text.addTrait(Trait.FONT, font);
+        text.addTrait(Trait.FONT_SIZE, 12000);
+        text.addTrait(Trait.COLOR, new Color(0.3f, 0.2f, 0.1f));
+        text.setBaselineOffset(9000);
+        text.addWord("Hello", 0);
+        text.addSpace(' ', 2500, true, 0, -1);
+        line.addChildArea(text);
+        BasicLinkArea link = new BasicLinkArea();
+        link.setBlockProgressionOffset(100);
+        TextArea linkText = new TextArea();
+        linkText.addTrait(Trait.FONT, new FontTriplet("Helvetica", "normal", 400));
+        linkText.setBlockProgressionOffset(-2000);
+        linkText.addWord("page", 0);
+        link.addChildArea(linkText);
+        UnresolvedPageNumber pageNumber = new UnresolvedPageNumber("chapter1", null);
+        pageNumber.addTrait(Trait.FONT, font);
+        link.addChildArea(pageNumber);
+        line.addChildArea(link);
+        LinkResolver resolver = new LinkResolver("chapter1", link);
+        link.setResolver(resolver);
+        block.addLineArea(line);
+
+        Page page = createPage(block);
+        page.fakeNonEmpty();
+        Map<String, List<Resolvable>> unresolved = new HashMap<String, List<Resolvable>>();
+        List<Resolvable> resolvables = new ArrayList<Resolvable>();
+        resolvables.add(pageNumber);
+        resolvables.add(resolver);
+        unresolved.put("chapter1", resolvables);
+        page.setUnresolvedReferences(unresolved);
+
+        Page copy = roundTrip(page);
+
+        assertTrue(copy.isFakeNonEmpty());
+        RegionViewport viewport = copy.getRegionViewport(Constants.FO_REGION_BODY);
+        assertTrue(viewport.hasClip());
+        assertEquals(new Rectangle(0, 0, 500000, 700000), viewport.getViewArea().getBounds());
+        assertNull(copy.getRegionViewport(Constants.FO_REGION_BEFORE));
+        BodyRegion body = (BodyRegion) viewport.getRegionReference();
+        assertSame(viewport, body.getRegionViewport());
+        assertEquals(2, body.getColumnCount());
+        assertEquals(12000, body.getColumnGap());
+        assertEquals(20000.0, body.getCTM().toArray()[5], 0);
+        Span span = body.getMainReference().getSpans().get(0);
+        assertEquals(1, span.getCurrentFlowIndex());
+        assertEquals(span.getNormalFlow(0).getIPD(), span.getNormalFlow(1).getIPD());
+
+        Block blockCopy = getFirstBlock(copy);
+        assertEquals(240000, blockCopy.getIPD());
+        assertEquals(-1000, blockCopy.getXOffset());
+        assertEquals(border, blockCopy.getTrait(Trait.BORDER_BEFORE));
+        assertSame(blockCopy.getTrait(Trait.BORDER_BEFORE), blockCopy.getTrait(Trait.BORDER_AFTER));
+        LineArea lineCopy = (LineArea) blockCopy.getChildAreas().get(0);
+        assertEquals(2, lineCopy.getInlineAreas().size());
+
+        TextArea textCopy = (TextArea) lineCopy.getInlineAreas().get(0);
+        assertSame(lineCopy, textCopy.getParentArea());
+        assertEquals(font, textCopy.getTrait(Trait.FONT));
+        assertEquals(12000, textCopy.getTraitAsInteger(Trait.FONT_SIZE));
+        assertEquals(text.getTrait(Trait.COLOR), textCopy.getTrait(Trait.COLOR));
+        assertEquals(9000, textCopy.getBaselineOffset());
+        assertEquals(text.getIPD(), textCopy.getIPD());
+        assertEquals("Hello", ((WordArea) textCopy.getChildAreas().get(0)).getWord());
+        assertEquals(" ", ((SpaceArea) textCopy.getChildAreas().get(1)).getSpace());
+        assertTrue(((SpaceArea) textCopy.getChildAreas().get(1)).isAdjustable());
+
+        BasicLinkArea linkCopy = (BasicLinkArea) lineCopy.getInlineAreas().get(1);
+        assertEquals(link.getBlockProgressionOffset(), linkCopy.getBlockProgressionOffset());
+        assertEquals(link.getBPD(), linkCopy.getBPD());
+        InlineArea linkTextCopy = linkCopy.getChildAreas().get(0);
+        assertEquals(linkText.getBlockProgressionOffset(),
+                linkTextCopy.getBlockProgressionOffset());
+        UnresolvedPageNumber pageNumberCopy = (UnresolvedPageNumber) linkCopy.getChildAreas().get(1);
+        assertFalse(pageNumberCopy.isResolved());
+        assertEquals("?", pageNumberCopy.getText());
+
+        // resolvables are shared between the area tree and the unresolved references
+        List<Resolvable> resolvablesCopy = copy.getUnresolvedReferences().get("chapter1");
+        assertEquals(2, resolvablesCopy.size());
+        assertSame(pageNumberCopy, resolvablesCopy.get(0));
+        LinkResolver resolverCopy = (LinkResolver) resolvablesCopy.get(1);
+        assertSame(resolverCopy, linkCopy.getResolver());
+        assertSame(linkCopy, resolverCopy.getArea());
+        assertEquals("chapter1", resolverCopy.getIDRefs()[0]);
+    }
+
+    @Test
+    public void testResolvedPageNumber() throws Exception {
+        UnresolvedPageNumber pageNumber = new UnresolvedPageNumber("chapter1", null, false);
+        pageNumber.setResolved("12");
+        LineArea line = new LineArea();
+        line.addChildArea(pageNumber);
+        Block block = new Block();
+        block.addLineArea(line);
+
+        Block blockCopy = getFirstBlock(roundTrip(createPage(block)));
+        LineArea lineCopy = (LineArea) blockCopy.getChildAreas().get(0);
+        UnresolvedPageNumber pageNumberCopy = (UnresolvedPageNumber) lineCopy.getInlineAreas().get(0);
+        assertTrue(pageNumberCopy.isResolved());
+        assertFalse(pageNumberCopy.getPageType());
+        assertEquals("12", pageNumberCopy.getText());
+    }
+
+    @Test
+    public void testUnknownAreaFallsBackToJavaSerialization() throws Exception {
+        Block block = new CustomBlock();
+        block.setBPD(1234);
+
+        Block blockCopy = getFirstBlock(roundTrip(createPage(block)));
+        assertEquals(CustomBlock.class, blockCopy.getClass());
+        assertEquals(1234, blockCopy.getBPD());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.io.File;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.fo.Constants;
+
+/**
+ * Tests the {@linkplain MappedPageStore} class.
+ */
+public class MappedPageStoreTestCase {
+
+    private PageViewport createPage(int index, int blockCount) {
+        Rectangle viewArea = new Rectangle(0, 0, 500000, 700000);
+        PageViewport pageViewport = new PageViewport(viewArea, index + 1, Integer.toString(index + 1),
+                "master", false);
+        pageViewport.setPageIndex(index);
+        Page page = new Page();
+        RegionViewport viewport = new RegionViewport(viewArea);
+        RegionReference region = new RegionReference(Constants.FO_REGION_BEFORE,
+                "xsl-region-before", viewport);
+        viewport.setRegionReference(region);
+        for (int i = 0; i < blockCount; i++) {
+            Block block = new Block();
+            block.setBPD(index * 1000 + i);
+            region.addBlock(block);
+        }
+        page.setRegionViewport(Constants.FO_REGION_BEFORE, viewport);
+        pageViewport.setPage(page);
+        return pageViewport;
+    }
+
+    private void checkPage(PageViewport pageViewport, int index, int blockCount) {
+        RegionReference region = pageViewport.getPage()
+                .getRegionViewport(Constants.FO_REGION_BEFORE).getRegionReference();
+        assertEquals(blockCount, region.getBlocks().size());
+        for (int i = 0; i < blockCount; i++) {
+            assertEquals(index * 1000 + i, ((Block) region.getBlocks().get(i)).getBPD());
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        // small segments so that pages span several segments or need a larger one
+        MappedPageStore store = new MappedPageStore(new CompactPageSerializer(), null, 128);
+        PageViewport[] pages = new PageViewport[5];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = createPage(i, i * 10);
+            store.save(pages[i]);
+            assertNull(pages[i].getPage());
+            assertTrue(store.contains(pages[i]));
+        }
+        File file = store.getFile();
+        assertTrue(file.exists());
+        assertEquals(5, store.getSpilledPageCount());
+
+        for (int i = pages.length - 1; i >= 0; i--) {
+            assertTrue(store.load(pages[i]));
+            checkPage(pages[i], i, i * 10);
+        }
+        assertEquals(5, store.getReloadedPageCount());
+        assertEquals(0, store.getPageCount());
+        assertFalse(store.load(pages[0]));
+
+        store.close();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testNoFileWithoutPages() throws Exception {
+        MappedPageStore store = new MappedPageStore(new JavaPageSerializer(), null);
+        assertFalse(store.load(createPage(0, 1)));
+        assertNull(store.getFile());
+        store.close();
+    }
+
+    @Test
+    public void testSpillFileInDirectory() throws Exception {
+        File directory = File.createTempFile("fop-pages", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        try {
+            MappedPageStore store = new MappedPageStore(new CompactPageSerializer(), directory);
+            store.save(createPage(0, 3));
+            assertEquals(directory, store.getFile().getParentFile());
+            store.close();
+            assertEquals(0, directory.list().length);
+        } finally {
+            directory.delete();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id: ActiveLayouts.java 99 2008-11-24 11:06:55Z vincent $ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.pagination.PageSequence;
+import org.apache.fop.layoutmgr.LayoutManagerMapping;
+import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
+
+/**
+ * Tests the layout of page-sequences on a layout thread while the following ones are parsed.
+ */
+public class PageSequenceLayoutQueueTestCase {
+
+    private static String createDocument(int pageSequenceCount) {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"200pt\" page-width=\"300pt\" margin=\"20pt\">"
+                + "<fo:region-body margin-top=\"20pt\"/><fo:region-before extent=\"20pt\"/>"
+                + "</fo:simple-page-master></fo:layout-master-set>");
+        for (int i = 0; i < pageSequenceCount; i++) {
+            fo.append("<fo:page-sequence master-reference=\"page\" id=\"seq").append(i).append('"');
+            if (i % 3 == 1) {
+                fo.append(" initial-page-number=\"auto-odd\"");
+            }
+            if (i % 4 == 2) {
+                fo.append(" force-page-count=\"even\"");
+            }
+            fo.append("><fo:static-content flow-name=\"xsl-region-before\"><fo:block>Page"
+                    + " <fo:page-number/> of <fo:page-number-citation-last ref-id=\"seq")
+                    .append(i).append("\"/></fo:block></fo:static-content>"
+                    + "<fo:flow flow-name=\"xsl-region-body\">");
+            for (int j = 0; j < i % 5 * 4 + 1; j++) {
+                fo.append("<fo:block id=\"b").append(i).append('_').append(j)
+                        .append("\">Item ").append(j).append(" continues on page"
+                        + " <fo:page-number-citation ref-id=\"b").append(i + 1).append("_0\"/>,"
+                        + " see also <fo:basic-link internal-destination=\"seq")
+                        .append(Math.max(i - 1, 0)).append("\">page <fo:page-number-citation"
+                        + " ref-id=\"seq").append(Math.max(i - 1, 0))
+                        .append("\"/></fo:basic-link>.</fo:block>");
+            }
+            fo.append("</fo:flow></fo:page-sequence>");
+        }
+        fo.append("</fo:root>");
+        return fo.toString();
+    }
+
+    private static String createDocumentWithMarkers(int pageSequenceCount) {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"200pt\" page-width=\"300pt\" margin=\"20pt\">"
+                + "<fo:region-body margin-top=\"20pt\"/><fo:region-before extent=\"20pt\"/>"
+                + "</fo:simple-page-master></fo:layout-master-set>");
+        for (int i = 0; i < pageSequenceCount; i++) {
+            fo.append("<fo:page-sequence master-reference=\"page\">");
+            if (i >= pageSequenceCount / 2) {
+                fo.append("<fo:static-content flow-name=\"xsl-region-before\"><fo:block>"
+                        + "<fo:retrieve-marker retrieve-class-name=\"title\"/>"
+                        + "</fo:block></fo:static-content>");
+            }
+            fo.append("<fo:flow flow-name=\"xsl-region-body\">");
+            for (int j = 0; j < 12; j++) {
+                fo.append("<fo:block><fo:marker marker-class-name=\"title\">  Section ")
+                        .append(i).append('.').append(j).append("  <fo:inline font-weight=\"bold\">"
+                        + " x </fo:inline></fo:marker>"
+                        + "Section ").append(i).append('.').append(j).append("</fo:block>");
+            }
+            fo.append("</fo:flow></fo:page-sequence>");
+        }
+        fo.append("</fo:root>");
+        return fo.toString();
+    }
+
+    private static String layout(String fo, int queueSize, FOUserAgent userAgent)
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = userAgent.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        assertEquals(queueSize, userAgent.getPageSequenceLayoutQueueSize());
+        return out.toString("UTF-8");
+    }
+
+    private static FopFactory createFopFactory(int queueSize) {
+        return new FopFactoryBuilder(new File(".").toURI())
+                .setPageSequenceLayoutQueueSize(queueSize)
+                .build();
+    }
+
+    @Test
+    public void testSameAreaTree() throws Exception {
+        String fo = createDocument(40);
+        String serial = layout(fo, 0, createFopFactory(0).newFOUserAgent());
+        assertEquals(serial, layout(fo, 1, createFopFactory(1).newFOUserAgent()));
+        assertEquals(serial, layout(fo, 4, createFopFactory(4).newFOUserAgent()));
+    }
+
+    @Test
+    public void testRetrieveMarkers() throws Exception {
+        String fo = createDocumentWithMarkers(10);
+        String serial = layout(fo, 0, createFopFactory(0).newFOUserAgent());
+        assertEquals(serial, layout(fo, 4, createFopFactory(4).newFOUserAgent()));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        PageSequenceLayoutQueue queue = new PageSequenceLayoutQueue(4);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger laidOut = new AtomicInteger();
+        queue.submit(new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                laidOut.incrementAndGet();
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            queue.submit(new Runnable() {
+                public void run() {
+                    laidOut.incrementAndGet();
+                }
+            });
+        }
+        started.await();
+        queue.cancel();
+        //The layout in progress is finished, the queued ones are skipped
+        assertEquals(1, laidOut.get());
+    }
+
+    @Test
+    public void testLayoutFailure() throws Exception {
+        String fo = createDocument(20);
+        FopFactory fopFactory = new FopFactoryBuilder(new File(".").toURI())
+                .setPageSequenceLayoutQueueSize(2)
+                .setLayoutManagerMakerOverride(new LayoutManagerMapping() {
+                    public PageSequenceLayoutManager makePageSequenceLayoutManager(
+                            AreaTreeHandler ath, PageSequence ps) {
+                        if ("seq5".equals(ps.getId())) {
+                            throw new IllegalStateException("layout failure");
+                        }
+                        return super.makePageSequenceLayoutManager(ath, ps);
+                    }
+                })
+                .build();
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        try {
+            layout(fo, 2, userAgent);
+            fail("The failure of the layout must be reported");
+        } catch (Exception e) {
+            Throwable cause = e;
+            while (!(cause instanceof IllegalStateException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assertTrue(cause instanceof IllegalStateException);
+            assertEquals("layout failure", cause.getMessage());
+        }
+    }
+}
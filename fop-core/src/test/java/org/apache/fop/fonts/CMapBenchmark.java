@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.truetype.OFFontLoader;
+
+/**
+ * Debug tool measuring the glyph index lookups of {@link MultiByteFont#mapChar(char)} for a
+ * CJK text, compared to a scan of the character map. Without a font file argument, the
+ * character map of a CJK font is simulated: a few thousand segments covering Latin,
+ * punctuation, kana and the CJK Unified Ideographs.
+ */
+public final class CMapBenchmark {
+
+    private final MultiByteFont font;
+    private final List<CMapSegment> cmap = new ArrayList<CMapSegment>();
+    private final char[] text;
+
+    private CMapBenchmark(MultiByteFont font, int length) {
+        this.font = font;
+        for (CMapSegment segment : font.getCMap()) {
+            cmap.add(segment);
+        }
+        Random random = new Random(0);
+        text = new char[length];
+        for (int i = 0; i < length; i++) {
+            int r = random.nextInt(10);
+            if (r == 0) {
+                text[i] = (char) (0x3041 + random.nextInt(0x56)); //Hiragana
+            } else if (r == 1) {
+                text[i] = (char) (0x3001 + random.nextInt(2)); //Ideographic comma and full stop
+            } else {
+                //Frequent ideographs are spread over the whole block
+                text[i] = (char) (0x4E00 + (int) Math.abs(random.nextGaussian() * 0x1800) % 0x51A0);
+            }
+        }
+    }
+
+    private static MultiByteFont createSimulatedFont(InternalResourceResolver resolver) {
+        MultiByteFont font = new MultiByteFont(resolver, EmbeddingMode.FULL);
+        List<CMapSegment> segments = new ArrayList<CMapSegment>();
+        Random random = new Random(1);
+        int glyphIndex = 1;
+        int[][] ranges = {{0x20, 0x7E}, {0xA0, 0x17F}, {0x2000, 0x206F}, {0x3000, 0x30FF},
+            {0x4E00, 0x9FFF}, {0xFF00, 0xFFEF}};
+        for (int[] range : ranges) {
+            int start = range[0];
+            while (start <= range[1]) {
+                //Fonts leave gaps for unsupported characters, which splits the segments
+                int end = Math.min(start + random.nextInt(16), range[1]);
+                segments.add(new CMapSegment(start, end, glyphIndex));
+                glyphIndex += end - start + 1;
+                start = end + 1 + random.nextInt(2);
+            }
+        }
+        font.setCMap(segments.toArray(new CMapSegment[segments.size()]));
+        font.setWidthArray(new int[glyphIndex]);
+        return font;
+    }
+
+    private long measureScan() {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (char c : text) {
+            for (CMapSegment segment : cmap) {
+                if (segment.getUnicodeStart() <= c && segment.getUnicodeEnd() >= c) {
+                    sum += segment.getGlyphStartIndex() + c - segment.getUnicodeStart();
+                    break;
+                }
+            }
+        }
+        long time = (System.nanoTime() - start) / 1000;
+        return sum == Long.MIN_VALUE ? -1 : time;
+    }
+
+    private long measureMapChar() {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (char c : text) {
+            sum += font.mapChar(c);
+        }
+        long time = (System.nanoTime() - start) / 1000;
+        return sum == Long.MIN_VALUE ? -1 : time;
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of characters of the text (default
+     *        200000), the number of iterations (default 5) and optionally a TrueType or
+     *        OpenType font file with CJK glyphs
+     */
+    public static void main(String[] args) {
+        try {
+            int length = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+            int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+            InternalResourceResolver resolver = ResourceResolverFactory
+                    .createDefaultInternalResourceResolver(new File(".").toURI());
+            MultiByteFont font;
+            if (args.length > 2) {
+                font = (MultiByteFont) new OFFontLoader(new File(args[2]).toURI(), null, true,
+                        EmbeddingMode.FULL, EncodingMode.CID, false, false, resolver, false,
+                        false).getFont();
+            } else {
+                font = createSimulatedFont(resolver);
+            }
+            CMapBenchmark benchmark = new CMapBenchmark(font, length);
+            System.out.println(benchmark.cmap.size() + " cmap segments");
+            for (int i = 0; i < iterations; i++) {
+                System.out.println("scan: " + benchmark.measureScan() + " us, mapChar: "
+                        + benchmark.measureMapChar() + " us");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
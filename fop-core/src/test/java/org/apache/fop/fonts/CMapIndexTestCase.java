@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+/**
+ * Tests the glyph index lookups of {@link CMapIndex} against a scan of the character map.
+ */
+public class CMapIndexTestCase {
+
+    private static int scan(List<CMapSegment> cmap, int c) {
+        for (CMapSegment segment : cmap) {
+            if (segment.getUnicodeStart() <= c && segment.getUnicodeEnd() >= c) {
+                int glyphIndex = segment.getGlyphStartIndex() + c - segment.getUnicodeStart();
+                if (glyphIndex != 0) {
+                    return glyphIndex;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static List<CMapSegment> createCMap(Random random, boolean overlapping) {
+        List<CMapSegment> cmap = new ArrayList<CMapSegment>();
+        int start = 0x20;
+        int glyphIndex = 1;
+        while (start < 0x11000) {
+            int length = random.nextInt(40);
+            cmap.add(new CMapSegment(start, start + length, glyphIndex));
+            glyphIndex += length + 1;
+            start += length + 1 + random.nextInt(overlapping ? 20 : 400)
+                    - (overlapping ? 10 : 0);
+        }
+        Collections.shuffle(cmap, random);
+        return cmap;
+    }
+
+    private static void assertSameGlyphIndices(List<CMapSegment> cmap, CMapIndex index) {
+        for (int c = 0; c < 0x11100; c++) {
+            assertEquals(scan(cmap, c), index.findGlyphIndex(c));
+            //Memoized result
+            assertEquals(scan(cmap, c), index.findGlyphIndex(c));
+        }
+    }
+
+    @Test
+    public void testSegments() {
+        List<CMapSegment> cmap = createCMap(new Random(7), false);
+        assertSameGlyphIndices(cmap, new CMapIndex(cmap));
+    }
+
+    @Test
+    public void testOverlappingSegments() {
+        List<CMapSegment> cmap = createCMap(new Random(7), true);
+        cmap.add(0, new CMapSegment(0x100, 0x200, 0));
+        assertSameGlyphIndices(cmap, new CMapIndex(cmap));
+    }
+
+    @Test
+    public void testAddedSegments() {
+        List<CMapSegment> cmap = createCMap(new Random(7), false);
+        CMapIndex index = new CMapIndex(cmap);
+        assertSameGlyphIndices(cmap, index);
+        for (int pu = 0xE000; pu < 0xE100; pu += 3) {
+            if (scan(cmap, pu) == 0) {
+                CMapSegment segment = new CMapSegment(pu, pu, 5000 + pu);
+                cmap.add(segment);
+                index.add(segment);
+            }
+        }
+        CMapSegment segment = new CMapSegment(0x30, 0x40, 6000);
+        cmap.add(segment);
+        index.add(segment);
+        assertSameGlyphIndices(cmap, index);
+    }
+
+    @Test
+    public void testFontCMapReplaced() {
+        MultiByteFont font = new MultiByteFont(ResourceResolverFactory
+                .createDefaultInternalResourceResolver(new File(".").toURI()), EmbeddingMode.AUTO);
+        font.setCMap(new CMapSegment[] {new CMapSegment('A', 'Z', 10)});
+        assertEquals(11, font.findGlyphIndex('B'));
+        assertEquals(0, font.findGlyphIndex('a'));
+        font.setCMap(new CMapSegment[] {new CMapSegment('a', 'z', 40)});
+        assertEquals(0, font.findGlyphIndex('B'));
+        assertEquals(40, font.findGlyphIndex('a'));
+        font.addPrivateUseMapping(0xE000, 100);
+        assertEquals(100, font.findGlyphIndex(0xE000));
+    }
+}
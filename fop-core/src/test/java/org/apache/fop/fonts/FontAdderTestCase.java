@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fonts.autodetect.FontFileFinder;
+
+/**
+ * Tests the detection of fonts by {@link FontAdder}.
+ */
+public class FontAdderTestCase {
+
+    private InternalResourceResolver resolver =
+            ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    @Test
+    public void testParallelDetectionKeepsOrder() throws Exception {
+        List<URL> fontURLList = new FontFileFinder(1, null).find(
+                new File("test/resources/fonts/ttf").getAbsolutePath());
+        List<String> serial = detect(fontURLList, 1);
+        assertTrue(serial.size() > 1);
+        assertEquals(serial, detect(fontURLList, 4));
+    }
+
+    private List<String> detect(List<URL> fontURLList, int threadCount) throws Exception {
+        FontManager fontManager = new FontManager(resolver, FontDetectorFactory.createDefault(),
+                FontCacheManagerFactory.createDisabled());
+        fontManager.setFontDetectionThreadCount(threadCount);
+        List<EmbedFontInfo> fontInfoList = new ArrayList<EmbedFontInfo>();
+        new FontAdder(fontManager, resolver, null).add(fontURLList, fontInfoList);
+        List<String> names = new ArrayList<String>();
+        for (EmbedFontInfo fontInfo : fontInfoList) {
+            names.add(fontInfo.getEmbedURI() + " " + fontInfo.getPostScriptName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+/**
+ * Tests the binary format of the {@link FontCache} file and the font metrics cached in it.
+ */
+public class FontCacheTestCase {
+
+    private InternalResourceResolver resolver =
+            ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private URI fontUri = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI();
+
+    private long lastModified;
+
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        lastModified = FontCache.getLastModified(fontUri);
+        cacheFile = File.createTempFile("fop-fonts", ".cache");
+    }
+
+    @After
+    public void tearDown() {
+        cacheFile.delete();
+    }
+
+    @Test
+    public void testFontInfosSurviveSaveAndLoad() throws Exception {
+        FontCache fontCache = new FontCache();
+        FontTriplet triplet = new FontTriplet("DejaVu LGC Serif", "normal", 400, 2);
+        EmbedFontInfo fontInfo = new EmbedFontInfo(new FontUris(fontUri, null), true, false,
+                Collections.singletonList(triplet), null, EncodingMode.CID, EmbeddingMode.FULL,
+                false, false);
+        fontInfo.setPostScriptName("DejaVuLGCSerif");
+        fontCache.addFont(fontInfo, resolver);
+        fontCache.registerFailedFont("file:/broken.ttf", 42);
+        fontCache.saveTo(cacheFile);
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        String embedUrl = fontUri.toASCIIString();
+        EmbedFontInfo[] fontInfos = loaded.getFontInfos(embedUrl, lastModified);
+        assertEquals(1, fontInfos.length);
+        assertEquals(fontUri, fontInfos[0].getEmbedURI());
+        assertEquals("DejaVuLGCSerif", fontInfos[0].getPostScriptName());
+        assertTrue(fontInfos[0].getKerning());
+        assertFalse(fontInfos[0].getAdvanced());
+        assertEquals(EncodingMode.CID, fontInfos[0].getEncodingMode());
+        assertEquals(EmbeddingMode.FULL, fontInfos[0].getEmbeddingMode());
+        assertEquals(Collections.singletonList(triplet), fontInfos[0].getFontTriplets());
+        assertEquals(2, fontInfos[0].getFontTriplets().get(0).getPriority());
+        assertTrue(loaded.isFailedFont("file:/broken.ttf", 42));
+        assertFalse(loaded.hasChanged());
+    }
+
+    @Test
+    public void testFontMetricsSurviveSaveAndLoad() throws Exception {
+        CustomFont font = loadFont(true, false);
+        FontCache fontCache = new FontCache();
+        CachedFontMetrics.store(fontCache, fontUri, lastModified, font, true, false, resolver);
+        assertTrue(fontCache.hasChanged());
+        fontCache.saveTo(cacheFile);
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        MultiByteFont cached = CachedFontMetrics.load(loaded, fontUri, null, lastModified,
+                EmbeddingMode.AUTO, true, false, resolver);
+        assertNotNull(cached);
+        MultiByteFont original = (MultiByteFont) font;
+        assertEquals(original.getFontName(), cached.getFontName());
+        assertEquals(original.getFullName(), cached.getFullName());
+        assertEquals(original.getFamilyNames(), cached.getFamilyNames());
+        assertEquals(original.getEmbedFileURI(), cached.getEmbedFileURI());
+        assertEquals(original.getCIDType(), cached.getCIDType());
+        assertEquals(original.getAscender(10), cached.getAscender(10));
+        assertEquals(original.getXHeight(10), cached.getXHeight(10));
+        assertEquals(original.getUnderlinePosition(10), cached.getUnderlinePosition(10));
+        assertEquals(original.getStrikeoutThickness(10), cached.getStrikeoutThickness(10));
+        assertArrayEquals(original.getFontBBox(), cached.getFontBBox());
+        assertArrayEquals(original.getWidths(), cached.getWidths());
+        assertArrayEquals(original.getCMap(), cached.getCMap());
+        assertEquals(original.getKerningInfo(), cached.getKerningInfo());
+        char glyph = original.mapChar('A');
+        assertEquals(glyph, cached.mapChar('A'));
+        assertEquals(original.getBoundingBox(glyph, 10), cached.getBoundingBox(glyph, 10));
+    }
+
+    @Test
+    public void testLoadedCacheReplacesItsFile() throws Exception {
+        FontCache fontCache = new FontCache();
+        CachedFontMetrics.store(fontCache, fontUri, lastModified, loadFont(true, false), true,
+                false, resolver);
+        fontCache.saveTo(cacheFile);
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        loaded.registerFailedFont("file:/broken.ttf", 42);
+        loaded.saveTo(cacheFile);
+        assertFalse(loaded.hasChanged());
+        //The records read from the replaced file are still available
+        assertNotNull(CachedFontMetrics.load(loaded, fontUri, null, lastModified,
+                EmbeddingMode.AUTO, true, false, resolver));
+
+        FontCache reloaded = FontCache.loadFrom(cacheFile);
+        assertTrue(reloaded.isFailedFont("file:/broken.ttf", 42));
+        assertNotNull(CachedFontMetrics.load(reloaded, fontUri, null, lastModified,
+                EmbeddingMode.AUTO, true, false, resolver));
+    }
+
+    @Test
+    public void testOutdatedFontMetrics() throws Exception {
+        FontCache fontCache = new FontCache();
+        CachedFontMetrics.store(fontCache, fontUri, lastModified, loadFont(true, false), true,
+                false, resolver);
+        assertNull(CachedFontMetrics.load(fontCache, fontUri, null, lastModified + 1000,
+                EmbeddingMode.AUTO, true, false, resolver));
+    }
+
+    @Test
+    public void testFontMetricsLoadedWithoutRequestedTables() throws Exception {
+        FontCache fontCache = new FontCache();
+        CachedFontMetrics.store(fontCache, fontUri, lastModified, loadFont(false, false), false,
+                false, resolver);
+        assertNull(CachedFontMetrics.load(fontCache, fontUri, null, lastModified,
+                EmbeddingMode.AUTO, true, false, resolver));
+        assertNull(CachedFontMetrics.load(fontCache, fontUri, null, lastModified,
+                EmbeddingMode.AUTO, false, true, resolver));
+        assertNotNull(CachedFontMetrics.load(fontCache, fontUri, null, lastModified,
+                EmbeddingMode.AUTO, false, false, resolver));
+        assertNull(CachedFontMetrics.load(fontCache, fontUri, null, lastModified,
+                EmbeddingMode.FULL, false, false, resolver));
+    }
+
+    @Test
+    public void testUnreadableFileDiscarded() throws Exception {
+        FileOutputStream out = new FileOutputStream(cacheFile);
+        try {
+            //Not the binary format, e.g. a cache file written by an older version
+            out.write(new byte[] {(byte) 0xAC, (byte) 0xED, 0, 5, 1, 2, 3});
+        } finally {
+            out.close();
+        }
+        assertNull(FontCache.loadFrom(cacheFile));
+        assertFalse(cacheFile.exists());
+    }
+
+    private CustomFont loadFont(boolean useKerning, boolean useAdvanced) throws IOException {
+        return FontLoader.loadFont(new FontUris(fontUri, null), null, true, EmbeddingMode.AUTO,
+                EncodingMode.AUTO, useKerning, useAdvanced, resolver, false, false);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Debug tool measuring the latency of the first rendering run of a {@link FopFactory}, which
+ * is dominated by font detection when &lt;auto-detect/&gt; or &lt;directory&gt; is configured,
+ * for a number of font detection threads. The font cache is disabled so every run parses
+ * the font files.
+ */
+public final class FontDetectionBenchmark {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\">"
+            + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block>Hello World!</fo:block></fo:flow></fo:page-sequence></fo:root>";
+
+    private FontDetectionBenchmark() {
+    }
+
+    private long measureFirstCall(String fontsConfig, int threadCount) throws Exception {
+        String fopxconf = "<fop version=\"1.0\"><use-cache>false</use-cache>"
+                + "<font-detection-threads>" + threadCount + "</font-detection-threads>"
+                + "<renderers><renderer mime=\"application/pdf\"><fonts>" + fontsConfig
+                + "</fonts></renderer></renderers></fop>";
+        long start = System.nanoTime();
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI(),
+                new ByteArrayInputStream(fopxconf.getBytes("UTF-8")));
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, new NullOutputStream());
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(FO));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: a font directory ("auto" for
+     *        &lt;auto-detect/&gt;) followed by the numbers of threads to measure
+     */
+    public static void main(String[] args) {
+        try {
+            String fontsConfig = "<auto-detect/>";
+            if (args.length > 0 && !"auto".equals(args[0])) {
+                fontsConfig = "<directory recursive=\"true\">"
+                        + new File(args[0]).getAbsolutePath() + "</directory>";
+            }
+            int[] threadCounts = {1, Runtime.getRuntime().availableProcessors()};
+            if (args.length > 1) {
+                threadCounts = new int[args.length - 1];
+                for (int i = 1; i < args.length; i++) {
+                    threadCounts[i - 1] = Integer.parseInt(args[i]);
+                }
+            }
+            FontDetectionBenchmark benchmark = new FontDetectionBenchmark();
+            //Warm-up
+            benchmark.measureFirstCall(fontsConfig, 1);
+            for (int threadCount : threadCounts) {
+                System.out.println(threadCount + " thread(s): "
+                        + benchmark.measureFirstCall(fontsConfig, threadCount) + " ms");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.apache.fop.fonts.base14.Base14FontCollection;
+
+/**
+ * Tests the lazy registration of fonts in {@link FontInfo}.
+ */
+public class FontInfoTestCase {
+
+    private final Typeface serif = mock(Typeface.class);
+    private final Typeface serifBold = mock(Typeface.class);
+    private final Typeface serifAlternate = mock(Typeface.class);
+    private final Typeface mono = mock(Typeface.class);
+
+    private FontInfo createFontInfo(boolean lazy) {
+        FontInfo fontInfo = new FontInfo();
+        fontInfo.setLazyFontRegistration(lazy);
+        new Base14FontCollection(false).setup(1, fontInfo);
+        fontInfo.addFont("F15", serif, Arrays.asList(
+                new FontTriplet("MySerif", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL),
+                new FontTriplet("serif", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL)));
+        fontInfo.addFont("F16", serifBold, Arrays.asList(
+                new FontTriplet("MySerif", Font.STYLE_NORMAL, Font.WEIGHT_BOLD)));
+        //Loses against F15 because of its priority
+        fontInfo.addFont("F17", serifAlternate, Arrays.asList(
+                new FontTriplet("MySerif", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL, 1),
+                new FontTriplet("MySerif", Font.STYLE_ITALIC, Font.WEIGHT_NORMAL, 1)));
+        fontInfo.addFont("F18", mono, Arrays.asList(
+                new FontTriplet("MyMono", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL)));
+        return fontInfo;
+    }
+
+    @Test
+    public void testLookupsMatchEagerRegistration() {
+        FontInfo eager = createFontInfo(false);
+        FontInfo lazy = createFontInfo(true);
+        assertTrue(lazy.isLazyFontRegistration());
+        String[][] lookups = {
+            {"MySerif", Font.STYLE_NORMAL, "400"},
+            {"MySerif", Font.STYLE_NORMAL, "700"},
+            {"MySerif", Font.STYLE_ITALIC, "400"},
+            {"MySerif", Font.STYLE_ITALIC, "700"},
+            {"serif", Font.STYLE_NORMAL, "400"},
+            {"serif", Font.STYLE_ITALIC, "400"},
+            {"sans-serif", Font.STYLE_NORMAL, "400"},
+            {"unknown", Font.STYLE_NORMAL, "400"},
+        };
+        for (String[] lookup : lookups) {
+            FontTriplet expected = eager.fontLookup(lookup[0], lookup[1],
+                    Integer.parseInt(lookup[2]));
+            FontTriplet actual = lazy.fontLookup(lookup[0], lookup[1],
+                    Integer.parseInt(lookup[2]));
+            assertEquals(expected, actual);
+            assertEquals(eager.getInternalFontKey(expected), lazy.getInternalFontKey(actual));
+        }
+        assertEquals(eager.getTripletsFor("F17"), lazy.getTripletsFor("F17"));
+        assertEquals(eager.getUsedFonts().keySet(), lazy.getUsedFonts().keySet());
+        assertEquals(eager.getFontTriplets(), lazy.getFontTriplets());
+        assertEquals(eager.getFonts().keySet(), lazy.getFonts().keySet());
+        assertEquals(eager.getFonts().get("F17"), lazy.getFonts().get("F17"));
+    }
+
+    @Test
+    public void testUnusedFontsNotRegistered() {
+        FontInfo fontInfo = createFontInfo(true);
+        assertTrue(fontInfo.isSetupValid());
+        assertFalse(fontInfo.hasFont("MyMono", Font.STYLE_ITALIC, Font.WEIGHT_NORMAL));
+        FontTriplet triplet = fontInfo.fontLookup("MySerif", Font.STYLE_NORMAL,
+                Font.WEIGHT_NORMAL);
+        assertEquals("F15", fontInfo.getInternalFontKey(triplet));
+        verify(serif).setEventListener(null);
+        verify(serifBold, never()).setEventListener(any(FontEventListener.class));
+        verify(mono, never()).setEventListener(any(FontEventListener.class));
+        assertFalse(fontInfo.getFonts().isEmpty());
+        verify(mono).setEventListener(null);
+        assertTrue(fontInfo.hasFont("MyMono", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL));
+    }
+
+    @Test
+    public void testEagerRegistrationByDefault() {
+        FontInfo fontInfo = new FontInfo();
+        assertFalse(fontInfo.isLazyFontRegistration());
+        List<FontTriplet> triplets = Arrays.asList(
+                new FontTriplet("MyMono", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL));
+        fontInfo.addFont("F1", mono, triplets);
+        verify(mono).setEventListener(null);
+        assertEquals("F1", fontInfo.getFontTriplets().get(triplets.get(0)));
+    }
+}
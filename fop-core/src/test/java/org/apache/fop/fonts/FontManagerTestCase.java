@@ -72,6 +72,18 @@ public class FontManagerTestCase {
         Assert.assertTrue(fc.containsFont(uri));
     }
 
+    @Test
+    public void testFontDetectionThreadCount() {
+        Assert.assertEquals(1, sut.getFontDetectionThreadCount());
+        sut.setFontDetectionThreadCount(4);
+        Assert.assertEquals(4, sut.getFontDetectionThreadCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFontDetectionThreadCount() {
+        sut.setFontDetectionThreadCount(0);
+    }
+
     @Test
     public void testGetFontCache() {
         sut.getFontCache();
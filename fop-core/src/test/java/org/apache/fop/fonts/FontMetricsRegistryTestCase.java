@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.net.URI;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+/**
+ * Tests the sharing of font metrics between documents by {@link FontMetricsRegistry}.
+ */
+public class FontMetricsRegistryTestCase {
+
+    private InternalResourceResolver resolver =
+            ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private MultiByteFont createFont() {
+        MultiByteFont font = new MultiByteFont(resolver, EmbeddingMode.SUBSET);
+        font.setFontName("Test");
+        font.setEmbedURI(URI.create("file:/test.ttf"));
+        font.setFamilyNames(Collections.singleton("Test"));
+        font.setWidthArray(new int[] {500, 600, 700});
+        font.setBBoxArray(new Rectangle[] {new Rectangle(0, 0, 500, 700),
+                new Rectangle(0, 0, 600, 700), new Rectangle(0, 0, 700, 700)});
+        font.setCMap(new CMapSegment[] {new CMapSegment('A', 'B', 1)});
+        return font;
+    }
+
+    @Test
+    public void testMetricsShared() {
+        FontMetricsRegistry registry = new FontMetricsRegistry();
+        assertNull(registry.getFont("test"));
+        MultiByteFont loaded = createFont();
+        MultiByteFont first = registry.register("test", loaded);
+        MultiByteFont second = registry.getFont("test");
+        assertNotSame(loaded, first);
+        assertNotSame(first, second);
+        assertSame(loaded.width, first.width);
+        assertSame(loaded.width, second.width);
+        assertSame(loaded.boundingBoxes, second.boundingBoxes);
+        assertEquals("Test", second.getFontName());
+        assertEquals(600, second.getWidth(second.mapChar('A'), 1));
+        assertEquals(1, registry.getFontCount());
+    }
+
+    @Test
+    public void testUsedGlyphsPerDocument() {
+        FontMetricsRegistry registry = new FontMetricsRegistry();
+        MultiByteFont first = registry.register("test", createFont());
+        MultiByteFont second = registry.getFont("test");
+        assertEquals(1, first.mapChar('A'));
+        assertEquals(2, first.mapChar('B'));
+        //Each document numbers the glyphs of its own subset
+        assertEquals(1, second.mapChar('B'));
+        //.notdef and the mapped glyphs
+        assertEquals(3, first.getUsedGlyphs().size());
+        assertEquals(2, second.getUsedGlyphs().size());
+    }
+
+    @Test
+    public void testConcurrentRegistration() {
+        FontMetricsRegistry registry = new FontMetricsRegistry();
+        MultiByteFont first = registry.register("test", createFont());
+        MultiByteFont loadedConcurrently = createFont();
+        MultiByteFont second = registry.register("test", loadedConcurrently);
+        assertSame(first.width, second.width);
+        assertNotSame(loadedConcurrently.width, second.width);
+    }
+
+    @Test
+    public void testLazyFontsShareMetrics() {
+        URI fontUri = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI();
+        EmbedFontInfo fontInfo = new EmbedFontInfo(new FontUris(fontUri, null), true, false,
+                Collections.<FontTriplet>emptyList(), null, EncodingMode.AUTO,
+                EmbeddingMode.AUTO, false, false);
+        FontMetricsRegistry registry = new FontMetricsRegistry();
+        LazyFont first = new LazyFont(fontInfo, resolver, false, null, registry);
+        LazyFont second = new LazyFont(fontInfo, resolver, false, null, registry);
+        MultiByteFont firstFont = (MultiByteFont) first.getRealFont();
+        MultiByteFont secondFont = (MultiByteFont) second.getRealFont();
+        assertNotSame(firstFont, secondFont);
+        assertSame(firstFont.width, secondFont.width);
+        assertSame(firstFont.getKerningInfo(), secondFont.getKerningInfo());
+        assertEquals(1, registry.getFontCount());
+    }
+}
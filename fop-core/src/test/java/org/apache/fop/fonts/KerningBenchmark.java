@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Random;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fonts.base14.TimesRoman;
+
+/**
+ * Debug tool measuring kerning lookups: the lookup of all character pairs of a long Latin
+ * text through the kerning map and through the {@link KerningTable}, and the rendering of
+ * a long Latin-text document with kerning enabled.
+ */
+public final class KerningBenchmark {
+
+    private static final String[] WORDS = {"AVAST", "Toward", "WAVE", "Yours", "effect",
+        "fly", "LTAV", "quoted", "Panorama", "Lorem", "ipsum", "dolor", "sit", "amet",
+        "Wyvern", "PAY", "To", "Yo", "Av"};
+
+    private final String text;
+
+    private KerningBenchmark(int wordCount) {
+        Random random = new Random(0);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        text = sb.toString();
+    }
+
+    private long measureMapLookups(Map<Integer, Map<Integer, Integer>> kerning) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 1; i < text.length(); i++) {
+            Map<Integer, Integer> pairs = kerning.get((int) text.charAt(i - 1));
+            if (pairs != null) {
+                Integer value = pairs.get((int) text.charAt(i));
+                if (value != null) {
+                    sum += value;
+                }
+            }
+        }
+        long time = (System.nanoTime() - start) / 1000;
+        return sum == Long.MIN_VALUE ? -1 : time;
+    }
+
+    private long measureTableLookups(KerningTable kerning) {
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 1; i < text.length(); i++) {
+            sum += kerning.getKerning(text.charAt(i - 1), text.charAt(i));
+        }
+        long time = (System.nanoTime() - start) / 1000;
+        return sum == Long.MIN_VALUE ? -1 : time;
+    }
+
+    private long measureRendering() throws Exception {
+        String fopxconf = "<fop version=\"1.0\"><base14-kerning>true</base14-kerning></fop>";
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI(),
+                new ByteArrayInputStream(fopxconf.getBytes("UTF-8")));
+        String fo = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\">"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\">"
+                + "<fo:flow flow-name=\"xsl-region-body\" font-family=\"Times\">"
+                + "<fo:block text-align=\"justify\">" + text + "</fo:block>"
+                + "</fo:flow></fo:page-sequence></fo:root>";
+        long start = System.nanoTime();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, new NullOutputStream());
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(fo));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of words of the text (default
+     *        50000) and the number of iterations (default 5)
+     */
+    public static void main(String[] args) {
+        try {
+            int wordCount = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+            int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+            KerningBenchmark benchmark = new KerningBenchmark(wordCount);
+            TimesRoman font = new TimesRoman(true);
+            Map<Integer, Map<Integer, Integer>> kerningMap = font.getKerningInfo();
+            KerningTable kerningTable = font.getKerningTable();
+            for (int i = 0; i < iterations; i++) {
+                System.out.println("map lookups: " + benchmark.measureMapLookups(kerningMap)
+                        + " us, table lookups: " + benchmark.measureTableLookups(kerningTable)
+                        + " us");
+            }
+            for (int i = 0; i < iterations; i++) {
+                System.out.println("rendering: " + benchmark.measureRendering() + " ms");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.fonts.base14.Helvetica;
+
+/**
+ * Tests {@link KerningTable} and the kerning lookups of {@link Font}.
+ */
+public class KerningTableTestCase {
+
+    @Test
+    public void testSameValuesAsKerningMap() {
+        Random random = new Random(42);
+        Map<Integer, Map<Integer, Integer>> kerning = new HashMap<Integer, Map<Integer, Integer>>();
+        for (int i = 0; i < 200; i++) {
+            Map<Integer, Integer> pairs = new HashMap<Integer, Integer>();
+            for (int j = 0; j < 20; j++) {
+                pairs.put(random.nextInt(0x3000), random.nextInt(400) - 200);
+            }
+            kerning.put(random.nextInt(0x3000), pairs);
+        }
+        int pairCount = 0;
+        for (Map<Integer, Integer> pairs : kerning.values()) {
+            pairCount += pairs.size();
+        }
+        KerningTable table = KerningTable.create(kerning);
+        assertEquals(pairCount, table.size());
+        for (int first = 0; first < 0x3000; first += 7) {
+            Map<Integer, Integer> pairs = kerning.get(first);
+            for (int second = 0; second < 0x3000; second++) {
+                Integer expected = pairs != null ? pairs.get(second) : null;
+                assertEquals(expected != null ? expected : 0, table.getKerning(first, second));
+            }
+        }
+        for (Map.Entry<Integer, Map<Integer, Integer>> entry : kerning.entrySet()) {
+            for (Map.Entry<Integer, Integer> pair : entry.getValue().entrySet()) {
+                assertEquals(pair.getValue().intValue(),
+                        table.getKerning(entry.getKey(), pair.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyTable() {
+        Map<Integer, Map<Integer, Integer>> kerning = Collections.emptyMap();
+        KerningTable table = KerningTable.create(kerning);
+        assertSame(KerningTable.EMPTY, table);
+        assertTrue(table.isEmpty());
+        assertEquals(0, table.getKerning('A', 'V'));
+        assertEquals(0, table.getKerning(-1, 'V'));
+    }
+
+    @Test
+    public void testFontKernValues() {
+        FontMetrics helvetica = new Helvetica(true);
+        Font font = new Font("F1", null, helvetica, 12000);
+        Map<Integer, Integer> pairs = helvetica.getKerningInfo().get((int) 'A');
+        int expected = pairs.get((int) 'V') * 12;
+        assertTrue(expected != 0);
+        assertEquals(expected, font.getKernValue('A', 'V'));
+
+        String word = "AVATAR";
+        int[] kernings = new int[word.length()];
+        assertTrue(font.getKernValues(word, 'L', kernings));
+        int[] single = new int[word.length()];
+        single[0] = font.getKernValue('L', 'A');
+        for (int i = 1; i < word.length(); i++) {
+            single[i] = font.getKernValue(word.charAt(i - 1), word.charAt(i));
+        }
+        assertArrayEquals(single, kernings);
+    }
+
+    @Test
+    public void testKerningDisabled() {
+        Font font = new Font("F1", null, new Helvetica(false), 12000);
+        assertEquals(0, font.getKernValue('A', 'V'));
+        int[] kernings = new int[2];
+        assertFalse(font.getKernValues("AV", 0, kernings));
+        assertArrayEquals(new int[2], kernings);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Debug tool measuring the loading of compiled hyphenation patterns in the binary format of
+ * {@link HyphenationTreeFile}, compared to Java serialized patterns. Without a pattern file
+ * argument, about as many random patterns as a large language has are generated.
+ */
+public final class HyphenationTreeFileBenchmark {
+
+    private HyphenationTreeFileBenchmark() { }
+
+    private static File createPatternFile(int count) throws Exception {
+        Random random = new Random(0);
+        File xml = File.createTempFile("hyph", ".xml");
+        xml.deleteOnExit();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(xml), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<hyphenation-info>\n");
+            writer.write("<classes>\n");
+            for (char c = 'a'; c <= 'z'; c++) {
+                writer.write(c);
+                writer.write(Character.toUpperCase(c));
+                writer.write('\n');
+            }
+            writer.write("</classes>\n<patterns>\n");
+            for (int i = 0; i < count; i++) {
+                int length = 2 + random.nextInt(5);
+                StringBuilder pattern = new StringBuilder();
+                for (int j = 0; j < length; j++) {
+                    if (random.nextInt(3) == 0) {
+                        pattern.append((char) ('1' + random.nextInt(5)));
+                    }
+                    pattern.append((char) ('a' + random.nextInt(26)));
+                }
+                writer.write(pattern.toString());
+                writer.write('\n');
+            }
+            writer.write("</patterns>\n</hyphenation-info>\n");
+        } finally {
+            writer.close();
+        }
+        return xml;
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of loads (default 50) and optionally
+     *        a hyphenation pattern XML file
+     */
+    public static void main(String[] args) {
+        try {
+            int loads = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+            File xml = args.length > 1 ? new File(args[1]) : createPatternFile(10000);
+            HyphenationTree hTree = new HyphenationTree();
+            hTree.loadPatterns(xml.getAbsolutePath());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(hTree);
+            oos.close();
+            byte[] serialized = out.toByteArray();
+            out = new ByteArrayOutputStream();
+            HyphenationTreeFile.write(hTree, out);
+            byte[] binary = out.toByteArray();
+            File hyp = File.createTempFile("hyph", ".hyp");
+            hyp.deleteOnExit();
+            FileOutputStream fout = new FileOutputStream(hyp);
+            fout.write(binary);
+            fout.close();
+            System.out.println(hTree.size() + " patterns, serialized: " + serialized.length
+                    + " bytes, binary: " + binary.length + " bytes");
+
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < loads; i++) {
+                    ObjectInputStream ois = new ObjectInputStream(
+                            new ByteArrayInputStream(serialized));
+                    ois.readObject();
+                }
+                long serializedTime = (System.nanoTime() - start) / 1000 / loads;
+                start = System.nanoTime();
+                for (int i = 0; i < loads; i++) {
+                    HyphenationTreeFile.read(ByteBuffer.wrap(binary));
+                }
+                long binaryTime = (System.nanoTime() - start) / 1000 / loads;
+                start = System.nanoTime();
+                for (int i = 0; i < loads; i++) {
+                    HyphenationTreeFile.read(HyphenationTreeFile.map(hyp));
+                }
+                long mappedTime = (System.nanoTime() - start) / 1000 / loads;
+                System.out.println("serialized: " + serializedTime + " us, binary: " + binaryTime
+                        + " us, mapped: " + mappedTime + " us per load");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutengine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+
+import org.w3c.dom.Document;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.EnvironmentProfile;
+import org.apache.fop.apps.EnvironmentalProfileFactory;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.FopFactoryConfig;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.hyphenation.HyphenationResultCache;
+import org.apache.fop.intermediate.TestAssistant;
+
+/**
+ * Debug tool measuring the layout of the hyphenation layout engine test cases, repeated a
+ * number of times on one {@link FopFactory}, with and without the cache of hyphenated words.
+ */
+public final class HyphenationCacheBenchmark {
+
+    private final List<Document> foDocuments = new ArrayList<Document>();
+
+    private HyphenationCacheBenchmark() throws Exception {
+        TestAssistant testAssistant = new TestAssistant();
+        File dir = new File("test/layoutengine/hyphenation-testcases");
+        for (File testFile : dir.listFiles()) {
+            if (testFile.getName().endsWith(".xml")) {
+                Document testDoc = testAssistant.loadTestCase(testFile);
+                Transformer transformer = testAssistant.getTestcase2FOStylesheet().newTransformer();
+                DOMResult fo = new DOMResult();
+                transformer.transform(new DOMSource(testDoc), fo);
+                foDocuments.add((Document) fo.getNode());
+            }
+        }
+    }
+
+    private void measure(int cacheSize, int rounds) throws Exception {
+        EnvironmentProfile envProfile = EnvironmentalProfileFactory.createRestrictedIO(
+                new File("test/layoutengine").toURI(),
+                ResourceResolverFactory.createDefaultResourceResolver());
+        FopFactory fopFactory = new FopFactoryBuilder(envProfile)
+                .setStrictFOValidation(false)
+                .setHyphenationCacheSize(cacheSize)
+                .build();
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            for (Document fo : foDocuments) {
+                Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, new NullOutputStream());
+                Transformer transformer = TransformerFactory.newInstance().newTransformer();
+                transformer.transform(new DOMSource(fo), new SAXResult(fop.getDefaultHandler()));
+            }
+        }
+        long time = (System.nanoTime() - start) / 1000000;
+        HyphenationResultCache cache = fopFactory.getHyphenationResultCache();
+        System.out.println("cache size " + cacheSize + ": " + time + " ms"
+                + (cache != null ? " (" + cache.getHitCount() + " hits, "
+                        + cache.getMissCount() + " misses)" : ""));
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of times the test cases are laid
+     *        out (default 20)
+     */
+    public static void main(String[] args) {
+        try {
+            int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+            HyphenationCacheBenchmark benchmark = new HyphenationCacheBenchmark();
+            //Warm-up
+            benchmark.measure(0, rounds);
+            benchmark.measure(FopFactoryConfig.DEFAULT_HYPHENATION_CACHE_SIZE, rounds);
+            benchmark.measure(0, rounds);
+            benchmark.measure(FopFactoryConfig.DEFAULT_HYPHENATION_CACHE_SIZE, rounds);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.fo.Constants;
+
+public class BreakingAlgorithmTestCase {
+
+    private static final int LINE_WIDTH = 400000;
+
+    /** Breaks paragraphs, keeping only the best set of breaks, and tracks the active nodes. */
+    private static final class TestBreakingAlgorithm extends BreakingAlgorithm {
+
+        private int maxNodesPerLine;
+
+        private int lineCount;
+
+        TestBreakingAlgorithm() {
+            super(Constants.EN_JUSTIFY, Constants.EN_START, false, true, 2);
+            setConstantLineWidth(LINE_WIDTH);
+        }
+
+        public void updateData1(int total, double demerits) {
+            lineCount = total;
+        }
+
+        public void updateData2(KnuthNode bestActiveNode, KnuthSequence sequence, int total) {
+        }
+
+        protected void addNode(int line, KnuthNode node) {
+            super.addNode(line, node);
+            int count = 0;
+            for (KnuthNode n = getNode(line); n != null; n = n.next) {
+                count++;
+            }
+            maxNodesPerLine = Math.max(maxNodesPerLine, count);
+        }
+
+        protected int filterActiveNodes() {
+            KnuthNode bestActiveNode = null;
+            for (int i = startLine; i < endLine; i++) {
+                for (KnuthNode node = getNode(i); node != null; node = node.next) {
+                    bestActiveNode = compareNodes(bestActiveNode, node);
+                    if (node != bestActiveNode) {
+                        removeNode(i, node);
+                    }
+                }
+            }
+            return bestActiveNode.line;
+        }
+    }
+
+    private static KnuthSequence createParagraph(int wordCount) {
+        Random random = new Random(0);
+        KnuthSequence par = new BlockKnuthSequence();
+        for (int i = 0; i < wordCount; i++) {
+            int syllables = 1 + random.nextInt(4);
+            for (int j = 0; j < syllables; j++) {
+                if (j > 0) {
+                    par.add(new KnuthPenalty(3000, 50, true, null, false));
+                }
+                par.add(new KnuthBox(6000 + random.nextInt(12000), null, false));
+            }
+            par.add(new KnuthGlue(3000, 1500, 1000, null, false));
+        }
+        par.add(new KnuthPenalty(0, KnuthElement.INFINITE, false, null, false));
+        par.add(new KnuthGlue(0, 10000000, 0, null, false));
+        par.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        return par;
+    }
+
+    @Test
+    public void testUnbounded() {
+        TestBreakingAlgorithm alg = new TestBreakingAlgorithm();
+        alg.findBreakingPoints(createParagraph(500), 2, true, BreakingAlgorithm.ALL_BREAKS);
+        assertTrue(alg.lineCount > 0);
+        assertTrue(alg.maxNodesPerLine > 4);
+        assertTrue(alg.getNodeCount() > 0);
+        assertEquals(0, alg.getPrunedNodeCount());
+        assertEquals(0, alg.getRecoveryCount());
+    }
+
+    @Test
+    public void testMaxActiveNodesPerLine() {
+        KnuthSequence par = createParagraph(500);
+        TestBreakingAlgorithm unbounded = new TestBreakingAlgorithm();
+        unbounded.findBreakingPoints(par, 2, true, BreakingAlgorithm.ALL_BREAKS);
+
+        TestBreakingAlgorithm alg = new TestBreakingAlgorithm();
+        alg.setBounds(2, 0);
+        alg.findBreakingPoints(par, 2, true, BreakingAlgorithm.ALL_BREAKS);
+        // a replacing node is added before the node it replaces is removed
+        assertTrue(alg.maxNodesPerLine <= 3);
+        assertTrue(alg.getPrunedNodeCount() > 0);
+        assertTrue(alg.getNodeCount() < unbounded.getNodeCount());
+        assertTrue(Math.abs(alg.lineCount - unbounded.lineCount) <= 1);
+    }
+
+    @Test
+    public void testMaxNodeCount() {
+        KnuthSequence par = createParagraph(500);
+        TestBreakingAlgorithm alg = new TestBreakingAlgorithm();
+        alg.setBounds(0, 100);
+        alg.findBreakingPoints(par, 2, true, BreakingAlgorithm.ALL_BREAKS);
+        assertTrue(alg.lineCount > 0);
+        assertTrue(alg.getPrunedNodeCount() > 0);
+
+        TestBreakingAlgorithm unbounded = new TestBreakingAlgorithm();
+        unbounded.findBreakingPoints(par, 2, true, BreakingAlgorithm.ALL_BREAKS);
+        assertTrue(alg.getNodeCount() < unbounded.getNodeCount());
+    }
+
+    private static int refillMiddleLine(TestBreakingAlgorithm alg) {
+        alg.initialize();
+        for (int line = 1; line <= 3; line++) {
+            alg.addNode(line, alg.createNode(line, line, 1, 0, 0, 0, 0, 0, 0, 0, 0, null));
+        }
+        // the bounds drop the only node of line 2, then a new node ends line 2
+        alg.removeNode(2, alg.getNode(2));
+        alg.addNode(2, alg.createNode(4, 2, 1, 0, 0, 0, 0, 0, 0, 0, 0, null));
+        return alg.endLine;
+    }
+
+    @Test
+    public void testRefilledMiddleLine() {
+        // unbounded: the line of a new first node is the last active line, as before
+        assertEquals(3, refillMiddleLine(new TestBreakingAlgorithm()));
+        // bounded: line 3 stays active, it used to be hidden when line 2 was refilled
+        TestBreakingAlgorithm alg = new TestBreakingAlgorithm();
+        alg.setBounds(2, 0);
+        assertEquals(4, refillMiddleLine(alg));
+    }
+
+    @Test
+    public void testRecoveryCount() {
+        KnuthSequence par = new BlockKnuthSequence();
+        par.add(new KnuthBox(LINE_WIDTH * 2, null, false));
+        par.add(new KnuthGlue(3000, 1500, 1000, null, false));
+        par.add(new KnuthBox(LINE_WIDTH / 2, null, false));
+        par.add(new KnuthPenalty(0, KnuthElement.INFINITE, false, null, false));
+        par.add(new KnuthGlue(0, 10000000, 0, null, false));
+        par.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        TestBreakingAlgorithm alg = new TestBreakingAlgorithm();
+        alg.findBreakingPoints(par, 2, true, BreakingAlgorithm.ALL_BREAKS);
+        assertTrue(alg.getRecoveryCount() > 0);
+    }
+}
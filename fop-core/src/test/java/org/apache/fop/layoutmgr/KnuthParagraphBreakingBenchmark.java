@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.Random;
+
+import org.apache.fop.fo.Constants;
+
+/**
+ * Debug tool measuring {@link BreakingAlgorithm#findBreakingPoints} on a generated paragraph
+ * of words with hyphenation points, as a justified paragraph would be broken into lines.
+ */
+public final class KnuthParagraphBreakingBenchmark {
+
+    private KnuthParagraphBreakingBenchmark() { }
+
+    private static final class ParagraphBreakingAlgorithm extends BreakingAlgorithm {
+
+        ParagraphBreakingAlgorithm() {
+            super(Constants.EN_JUSTIFY, Constants.EN_START, false, true, 2);
+        }
+
+        public void updateData1(int total, double demerits) {
+        }
+
+        public void updateData2(KnuthNode bestActiveNode, KnuthSequence sequence, int total) {
+        }
+
+        protected int filterActiveNodes() {
+            KnuthNode bestActiveNode = null;
+            for (int i = startLine; i < endLine; i++) {
+                for (KnuthNode node = getNode(i); node != null; node = node.next) {
+                    bestActiveNode = compareNodes(bestActiveNode, node);
+                    if (node != bestActiveNode) {
+                        removeNode(i, node);
+                    }
+                }
+            }
+            return bestActiveNode.line;
+        }
+    }
+
+    private static KnuthSequence createParagraph(int wordCount) {
+        Random random = new Random(0);
+        KnuthSequence par = new BlockKnuthSequence();
+        for (int i = 0; i < wordCount; i++) {
+            int syllables = 1 + random.nextInt(4);
+            for (int j = 0; j < syllables; j++) {
+                if (j > 0) {
+                    par.add(new KnuthPenalty(3000, 50, true, null, false));
+                }
+                par.add(new KnuthBox(6000 + random.nextInt(12000), null, false));
+            }
+            par.add(new KnuthGlue(3000, 1500, 1000, null, false));
+        }
+        par.add(new KnuthPenalty(0, KnuthElement.INFINITE, false, null, false));
+        par.add(new KnuthGlue(0, 10000000, 0, null, false));
+        par.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        return par;
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of words (default 5000), the
+     *        number of runs per round (default 50) and optionally the maximum number of
+     *        active nodes per line and of nodes (see {@link BreakingAlgorithm#setBounds})
+     */
+    public static void main(String[] args) {
+        int wordCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int maxActiveNodesPerLine = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int maxNodeCount = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        KnuthSequence par = createParagraph(wordCount);
+        KnuthSequenceColumns columns = new KnuthSequenceColumns();
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int lines = 0;
+            int nodes = 0;
+            for (int i = 0; i < runs; i++) {
+                BreakingAlgorithm alg = new ParagraphBreakingAlgorithm();
+                alg.setConstantLineWidth(400000);
+                alg.setSequenceColumns(columns);
+                alg.setBounds(maxActiveNodesPerLine, maxNodeCount);
+                lines += alg.findBreakingPoints(par, 2, true, BreakingAlgorithm.ALL_BREAKS);
+                nodes += alg.getNodeCount();
+            }
+            long time = (System.nanoTime() - start) / 1000 / runs;
+            System.out.println(par.size() + " elements, " + (lines / runs) + " lines, "
+                    + (nodes / runs) + " nodes: " + time + " us per run");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KnuthSequenceColumnsTestCase {
+
+    @Test
+    public void testLoad() {
+        List<KnuthElement> elements = new ArrayList<KnuthElement>();
+        elements.add(new KnuthPenalty(0, KnuthElement.INFINITE, false, null, true));
+        elements.add(new KnuthGlue(100, 50, 20, null, true));
+        elements.add(new KnuthBox(1000, null, false));
+        elements.add(new KnuthPenalty(300, 50, true, null, false));
+        elements.add(new KnuthGlue(200, 100, 40, null, false));
+        elements.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        KnuthSequenceColumns columns = new KnuthSequenceColumns();
+        columns.load(elements);
+
+        assertEquals(elements.size(), columns.size());
+        for (int i = 0; i < elements.size(); i++) {
+            KnuthElement element = elements.get(i);
+            assertEquals(element.isBox(), columns.isBox(i));
+            assertEquals(element.isGlue(), columns.isGlue(i));
+            assertEquals(element.isPenalty(), columns.isPenalty(i));
+            assertEquals(element.isForcedBreak(), columns.isForcedBreak(i));
+            assertEquals(element.isAuxiliary(), columns.isAuxiliary(i));
+            assertEquals(element.getWidth(), columns.getWidth(i));
+            assertEquals(element.isGlue() ? element.getStretch() : 0, columns.getStretch(i));
+            assertEquals(element.isGlue() ? element.getShrink() : 0, columns.getShrink(i));
+            assertEquals(element.isPenalty() ? element.getPenalty() : 0, columns.getPenalty(i));
+            assertEquals(element.isPenalty() && ((KnuthPenalty) element).isPenaltyFlagged(),
+                    columns.isFlaggedPenalty(i));
+        }
+        assertEquals(2, columns.getFirstBoxIndex(0));
+        assertEquals(2, columns.getFirstBoxIndex(2));
+        assertEquals(6, columns.getFirstBoxIndex(3));
+        assertEquals(6, columns.getFirstBoxIndex(6));
+    }
+
+    @Test
+    public void testReload() {
+        List<KnuthElement> elements = new ArrayList<KnuthElement>();
+        for (int i = 0; i < 1000; i++) {
+            elements.add(new KnuthBox(i, null, false));
+            elements.add(new KnuthPenalty(i, 50, true, null, false));
+        }
+        KnuthSequenceColumns columns = new KnuthSequenceColumns();
+        columns.load(elements);
+        assertEquals(2000, columns.size());
+        assertEquals(999, columns.getWidth(1999));
+        assertTrue(columns.isFlaggedPenalty(1999));
+
+        elements.clear();
+        elements.add(new KnuthGlue(10, 5, 2, null, false));
+        columns.load(elements);
+        assertEquals(1, columns.size());
+        assertTrue(columns.isGlue(0));
+        assertFalse(columns.isFlaggedPenalty(0));
+        assertEquals(1, columns.getFirstBoxIndex(0));
+    }
+}
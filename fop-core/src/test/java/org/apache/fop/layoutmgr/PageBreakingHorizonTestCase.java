@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.layoutmgr.AbstractBreaker.BlockSequence;
+import org.apache.fop.layoutmgr.AbstractBreaker.PageBreakPosition;
+import org.apache.fop.traits.MinOptMax;
+
+/**
+ * Tests the page breaking horizon, beyond which page breaks are committed.
+ */
+public class PageBreakingHorizonTestCase {
+
+    private static final int PAGE_HEIGHT = 100000;
+
+    /**
+     * Creates a page-sequence of paragraphs of random lengths, with keeps to make the page
+     * breaking consider several numbers of pages for the same content.
+     */
+    private static String createDocument(int paragraphCount) {
+        Random random = new Random(0);
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"200pt\" page-width=\"300pt\" margin=\"20pt\">"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < paragraphCount; i++) {
+            fo.append("<fo:block space-before=\"3pt\" space-before.maximum=\"12pt\""
+                    + " orphans=\"2\" widows=\"2\"");
+            if (random.nextInt(4) == 0) {
+                fo.append(" keep-with-next.within-page=\"always\"");
+            }
+            fo.append('>');
+            int wordCount = 1 + random.nextInt(60);
+            for (int j = 0; j < wordCount; j++) {
+                fo.append("word").append(j).append(' ');
+            }
+            fo.append("</fo:block>");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+        return fo.toString();
+    }
+
+    private static int countPages(String areaTree) {
+        int count = 0;
+        for (int index = areaTree.indexOf("<pageViewport "); index >= 0;
+                index = areaTree.indexOf("<pageViewport ", index + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private String layout(String fo, int pageHorizon) throws Exception {
+        FopFactory fopFactory = new FopFactoryBuilder(new File(".").toURI())
+                .setPageBreakingHorizon(pageHorizon)
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testLongPageSequence() throws Exception {
+        String fo = createDocument(300);
+        String unbounded = layout(fo, 0);
+        String bounded = layout(fo, 3);
+        assertEquals(unbounded, bounded);
+    }
+
+    @Test
+    public void testSmallHorizon() throws Exception {
+        String fo = createDocument(300);
+        int unbounded = countPages(layout(fo, 0));
+        int bounded = countPages(layout(fo, 1));
+        assertTrue(Math.abs(unbounded - bounded) <= 2);
+    }
+
+    /**
+     * Creates an element list of lines of random heights, some of which are better not
+     * separated by a page break.
+     */
+    private static BlockSequence createElementList(int lineCount) {
+        Random random = new Random(0);
+        BlockSequence list = new BlockSequence(Constants.EN_ANY, Constants.EN_BEFORE);
+        for (int i = 0; i < lineCount; i++) {
+            if (i > 0) {
+                list.add(new KnuthPenalty(0, random.nextInt(4) == 0 ? 500 : 0, false, null, false));
+                list.add(new KnuthGlue(2000, 4000, 1000, null, false));
+            }
+            list.add(new KnuthBox(8000 + random.nextInt(8000), null, false));
+        }
+        list.endSequence();
+        return list;
+    }
+
+    @Test
+    public void testCommittedPages() {
+        final PageBreakingAlgorithm alg = new PageBreakingAlgorithm(null, null, null,
+                Constants.EN_START, Constants.EN_START, MinOptMax.ZERO, true, false, false);
+        alg.setConstantLineWidth(PAGE_HEIGHT);
+        alg.setPageHorizon(2);
+        final List<PageBreakPosition> committedBreaks = new ArrayList<PageBreakPosition>();
+        alg.setCommittedPagesListener(new PageBreakingAlgorithm.CommittedPagesListener() {
+            public void notifyPagesCommitted(int pageCount) {
+                // the page breaks are the ones of the committed pages, which don't change
+                assertEquals(pageCount, alg.getPageBreaks().size());
+                assertEquals(committedBreaks,
+                        alg.getPageBreaks().subList(0, committedBreaks.size()));
+                committedBreaks.clear();
+                committedBreaks.addAll(alg.getPageBreaks());
+            }
+        });
+        int pageCount = alg.findBreakingPoints(createElementList(1000), 1, true,
+                BreakingAlgorithm.ALL_BREAKS);
+        assertTrue(committedBreaks.size() > 0);
+        assertTrue(committedBreaks.size() < pageCount);
+        assertEquals(committedBreaks.size(), alg.getCommittedPageCount());
+        assertEquals(pageCount, alg.getPageBreaks().size());
+        assertEquals(committedBreaks, alg.getPageBreaks().subList(0, committedBreaks.size()));
+    }
+}
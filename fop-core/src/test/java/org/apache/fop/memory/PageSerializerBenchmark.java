@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.memory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.CompactPageSerializer;
+import org.apache.fop.area.JavaPageSerializer;
+import org.apache.fop.area.Page;
+import org.apache.fop.area.PageSerializer;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.area.RenderPagesModel;
+
+/**
+ * Debug tool comparing the size and speed of the page serializers used to cache pages when
+ * memory-conservation is enabled. Every page laid out for the given FO file is written and
+ * read back with each serializer before it is rendered.
+ */
+public final class PageSerializerBenchmark {
+
+    private final PageSerializer[] serializers = {
+        new JavaPageSerializer(), new CompactPageSerializer()};
+
+    private final long[] sizes = new long[serializers.length];
+    private final long[] writeTimes = new long[serializers.length];
+    private final long[] readTimes = new long[serializers.length];
+
+    private int pageCount;
+
+    private PageSerializerBenchmark() {
+    }
+
+    private void measure(Page page) throws IOException {
+        for (int i = 0; i < serializers.length; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            serializers[i].writePage(page, out);
+            writeTimes[i] += System.nanoTime() - start;
+            sizes[i] += out.size();
+            start = System.nanoTime();
+            serializers[i].readPage(new ByteArrayInputStream(out.toByteArray()));
+            readTimes[i] += System.nanoTime() - start;
+        }
+        pageCount++;
+    }
+
+    private void run(File foFile, int runRepeats) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(foFile.getParentFile().toURI());
+        for (int run = 0; run < runRepeats; run++) {
+            if (run == 1) {
+                // the first run only warms up the JIT
+                reset();
+            }
+            OutputStream out = new NullOutputStream();
+            FOUserAgent userAgent = fopFactory.newFOUserAgent();
+            userAgent.setFOEventHandlerOverride(
+                    new MeasuringAreaTreeHandler(userAgent, MimeConstants.MIME_PDF, out));
+            Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, out);
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            Source src = new StreamSource(foFile);
+            Result res = new SAXResult(fop.getDefaultHandler());
+            transformer.transform(src, res);
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < serializers.length; i++) {
+            sizes[i] = 0;
+            writeTimes[i] = 0;
+            readTimes[i] = 0;
+        }
+        pageCount = 0;
+    }
+
+    private void dumpStats() {
+        System.out.println(pageCount + " pages");
+        for (int i = 0; i < serializers.length; i++) {
+            System.out.println(serializers[i].getClass().getSimpleName() + ": "
+                    + sizes[i] + " bytes, write " + (writeTimes[i] / 1000000)
+                    + " ms, read " + (readTimes[i] / 1000000) + " ms");
+        }
+    }
+
+    private class MeasuringAreaTreeHandler extends AreaTreeHandler {
+
+        MeasuringAreaTreeHandler(FOUserAgent userAgent, String outputFormat, OutputStream stream)
+                throws FOPException {
+            super(userAgent, outputFormat, stream);
+        }
+
+        @Override
+        protected void setupModel(FOUserAgent userAgent, String outputFormat,
+                OutputStream stream) throws FOPException {
+            this.model = new RenderPagesModel(userAgent, outputFormat, fontInfo, stream) {
+                @Override
+                public void addPage(PageViewport page) {
+                    try {
+                        measure(page.getPage());
+                    } catch (IOException ioe) {
+                        throw new RuntimeException(ioe);
+                    }
+                    super.addPage(page);
+                }
+            };
+        }
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the FO file and the number of runs
+     */
+    public static void main(String[] args) {
+        try {
+            File foFile = new File("examples/fo/basic/readme.fo");
+            int runRepeats = 5;
+            if (args.length > 0) {
+                foFile = new File(args[0]);
+            }
+            if (args.length > 1) {
+                runRepeats = Integer.parseInt(args[1]);
+            }
+            PageSerializerBenchmark app = new PageSerializerBenchmark();
+            app.run(foFile, runRepeats);
+            app.dumpStats();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+}
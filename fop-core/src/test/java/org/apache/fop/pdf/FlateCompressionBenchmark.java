@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Debug tool measuring the throughput/size trade-off of the flate compression level and
+ * strategy set per filter type in the &lt;filterList&gt; configuration. Each FO file is
+ * rendered to PDF a number of times with each configuration, the first run only warming
+ * up the JIT.
+ */
+public final class FlateCompressionBenchmark {
+
+    private static final String[][] CONFIGURATIONS = {
+        {"default", ""},
+        {"content level 1",
+            "<filterList type=\"content\"><value level=\"1\">flate</value></filterList>"},
+        {"content level 1, font level 9",
+            "<filterList type=\"content\"><value level=\"1\">flate</value></filterList>"
+            + "<filterList type=\"font\"><value level=\"9\">flate</value></filterList>"},
+        {"all level 9", "<filterList><value level=\"9\">flate</value></filterList>"},
+        {"content filtered",
+            "<filterList type=\"content\"><value strategy=\"filtered\">flate</value></filterList>"},
+        {"content huffman-only",
+            "<filterList type=\"content\"><value strategy=\"huffman-only\">flate</value>"
+            + "</filterList>"},
+    };
+
+    private FlateCompressionBenchmark() {
+    }
+
+    private void run(List<File> foFiles, int runRepeats) throws Exception {
+        for (String[] configuration : CONFIGURATIONS) {
+            long time = 0;
+            long size = 0;
+            for (int run = 0; run < runRepeats; run++) {
+                for (File foFile : foFiles) {
+                    FopFactory fopFactory = createFopFactory(foFile, configuration[1]);
+                    CountingOutputStream out = new CountingOutputStream(new NullOutputStream());
+                    long start = System.nanoTime();
+                    render(fopFactory, foFile, out);
+                    if (run > 0) {
+                        time += System.nanoTime() - start;
+                        size += out.getByteCount();
+                    }
+                }
+            }
+            int measuredRuns = Math.max(runRepeats - 1, 1);
+            System.out.println(configuration[0] + ": " + (size / measuredRuns) + " bytes, "
+                    + (time / measuredRuns / 1000000) + " ms");
+        }
+    }
+
+    private FopFactory createFopFactory(File foFile, String filterLists) throws Exception {
+        String fopxconf = "<fop version=\"1.0\"><renderers>"
+                + "<renderer mime=\"application/pdf\">" + filterLists + "</renderer>"
+                + "</renderers></fop>";
+        return FopFactory.newInstance(foFile.getAbsoluteFile().getParentFile().toURI(),
+                new ByteArrayInputStream(fopxconf.getBytes("UTF-8")));
+    }
+
+    private void render(FopFactory fopFactory, File foFile, CountingOutputStream out)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(foFile);
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of runs followed by the FO files
+     */
+    public static void main(String[] args) {
+        try {
+            int runRepeats = 5;
+            List<File> foFiles = new ArrayList<File>();
+            if (args.length > 0) {
+                runRepeats = Integer.parseInt(args[0]);
+            }
+            for (int i = 1; i < args.length; i++) {
+                foFiles.add(new File(args[i]));
+            }
+            if (foFiles.isEmpty()) {
+                foFiles.add(new File("examples/fo/basic/readme.fo"));
+                foFiles.add(new File("examples/fo/basic/images.fo"));
+            }
+            new FlateCompressionBenchmark().run(foFiles, runRepeats);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+}
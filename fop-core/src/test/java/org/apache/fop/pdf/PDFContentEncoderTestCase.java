@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that {@link PDFContentEncoder} writes the same bytes as the formatted strings.
+ */
+public class PDFContentEncoderTestCase {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private final PDFContentEncoder encoder = new PDFContentEncoder(out);
+
+    private void assertEncoded(String expected) throws IOException {
+        encoder.flush();
+        assertArrayEquals(expected.getBytes(PDFDocument.ENCODING), out.toByteArray());
+        out.reset();
+    }
+
+    @Test
+    public void testRealNumbers() throws IOException {
+        Random random = new Random(0);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+            int decimals = random.nextInt(9);
+            encoder.addNumber(value, decimals).add(' ');
+            encoder.addNumber((float) value).add(' ');
+            expected.append(PDFNumber.doubleOut(value, decimals)).append(' ');
+            expected.append(PDFNumber.doubleOut((float) value)).append(' ');
+        }
+        assertEncoded(expected.toString());
+    }
+
+    @Test
+    public void testIntegers() throws IOException {
+        int[] values = {0, 1, -1, 9, 10, -10, 99, 100, 12345, -98765,
+                Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1};
+        StringBuilder expected = new StringBuilder();
+        for (int value : values) {
+            encoder.addNumber(value).add(' ');
+            expected.append(value).append(' ');
+        }
+        assertEncoded(expected.toString());
+    }
+
+    @Test
+    public void testCharacters() throws IOException {
+        String text = "BT /F1 12 Tf (caf\u00e9 \u20ac \ud83d\ude00 \ud83d) Tj ET\n";
+        encoder.add(text);
+        assertEncoded(text);
+        encoder.add(text.toCharArray(), 0, text.length());
+        assertEncoded(text);
+        encoder.addName("Artifact").add(' ').add('\u0101');
+        assertEncoded("/Artifact \u0101");
+    }
+
+    @Test
+    public void testLongContent() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            text.append(i).append(" 0 0 ").append(-i).append(" re f\n");
+        }
+        encoder.add(text);
+        assertEncoded(text.toString());
+    }
+
+    @Test
+    public void testErrorReportedOnFlush() throws IOException {
+        final IOException error = new IOException("disk full");
+        PDFContentEncoder failing = new PDFContentEncoder(new OutputStream() {
+            public void write(int b) throws IOException {
+                throw error;
+            }
+
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw error;
+            }
+        });
+        for (int i = 0; i < 1000; i++) {
+            failing.add("1 0 0 1 0 0 cm\n");
+        }
+        try {
+            failing.flush();
+            fail("The error of the output stream must be reported");
+        } catch (IOException e) {
+            assertSame(error, e);
+        }
+        assertEquals(0, failing.getBufferedCount());
+    }
+}
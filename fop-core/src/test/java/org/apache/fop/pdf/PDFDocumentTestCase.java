@@ -19,12 +19,15 @@
 
 package org.apache.fop.pdf;
 
+import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test case for {@link PDFDocument}
@@ -59,4 +62,55 @@ public class PDFDocumentTestCase {
         PDFDocument.flushTextBuffer(textBuffer, out);
         assertEquals(fullString, out.toString());
     }
+
+    /**
+     * Test that, with streaming enabled, the number of objects held by the document doesn't
+     * grow with the number of pages written.
+     * @throws IOException when an I/O error occurs
+     */
+    @Test
+    public void testStreamingKeepsHeldObjectsFlat() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamingEnabled(true);
+        int firstPage = writePages(doc, 1);
+        int manyPages = writePages(doc, 50);
+        assertEquals(firstPage, manyPages);
+
+        PDFDocument nonStreaming = new PDFDocument("");
+        firstPage = writePages(nonStreaming, 1);
+        manyPages = writePages(nonStreaming, 50);
+        assertTrue(manyPages > firstPage);
+    }
+
+    /**
+     * Test that streaming is ignored when linearization is enabled.
+     */
+    @Test
+    public void testStreamingDisabledByLinearization() {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamingEnabled(true);
+        assertTrue(doc.isStreamingEnabled());
+        doc.setLinearizationEnabled(true);
+        assertFalse(doc.isStreamingEnabled());
+    }
+
+    private int writePages(PDFDocument doc, int count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PDFFactory factory = doc.getFactory();
+        Rectangle2D rect = new Rectangle2D.Double(0, 0, 100, 100);
+        for (int i = 0; i < count; i++) {
+            PDFPage page = factory.makePage(doc.getResources(), 100, 100, -1);
+            PDFStream content = factory.makeStream(PDFFilterList.CONTENT_FILTER, true);
+            content.add("0 0 m 100 100 l S\n");
+            page.setContents(new PDFReference(content));
+            page.addAnnotation(factory.makeLink(rect, page.referencePDF(), "[0 /XYZ 0 0 null]"));
+            doc.addObject(page.getAnnotations());
+            doc.addObject(page);
+            doc.output(out);
+            if (doc.isStreamingEnabled()) {
+                assertEquals(0, content.getDataLength());
+            }
+        }
+        return doc.getHeldObjectCount();
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the sharing of encoded stream data between documents with
+ * {@link PDFEncodedStreamCache}.
+ */
+public class PDFEncodedStreamCacheTestCase {
+
+    /** A bitmap image standing for an image file, counting how often its data is read */
+    private static final class FileImage extends BitmapImage implements CacheablePDFImage {
+
+        private int readCount;
+
+        FileImage(String key) {
+            super(key, 100, 100, createBitmap(100), null);
+        }
+
+        public String getSourceKey() {
+            return "file:image.png";
+        }
+
+        @Override
+        public void outputContents(OutputStream out) throws IOException {
+            readCount++;
+            super.outputContents(out);
+        }
+    }
+
+    private static byte[] createBitmap(int size) {
+        byte[] data = new byte[size * size * 3];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 251);
+        }
+        return data;
+    }
+
+    @Test
+    public void testEviction() {
+        PDFEncodedStreamCache cache = new PDFEncodedStreamCache(100);
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        assertNotNull(cache.get("a"));
+        cache.put("c", new byte[40]);
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(80, cache.getByteCount());
+        assertEquals(2, cache.size());
+
+        cache.put("d", new byte[101]);
+        assertNull(cache.get("d"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getByteCount());
+    }
+
+    @Test
+    public void testImageSharedBetweenDocuments() throws IOException {
+        PDFEncodedStreamCache cache = new PDFEncodedStreamCache(1000000);
+        byte[] expected = createDocument(null, new FileImage("a"), null);
+
+        FileImage first = new FileImage("a");
+        assertArrayEquals(expected, createDocument(cache, first, null));
+        assertEquals(1, first.readCount);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.size());
+
+        FileImage second = new FileImage("a");
+        assertArrayEquals(expected, createDocument(cache, second, null));
+        assertEquals(0, second.readCount);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testFiltersPartOfTheKey() throws IOException {
+        PDFEncodedStreamCache cache = new PDFEncodedStreamCache(1000000);
+        createDocument(cache, new FileImage("a"), null);
+        byte[] expected = createDocument(null, new FileImage("a"), "flate;level=1");
+        FileImage image = new FileImage("a");
+        assertArrayEquals(expected, createDocument(cache, image, "flate;level=1"));
+        assertEquals(1, image.readCount);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testNotUsedWithEncryption() throws IOException {
+        PDFEncodedStreamCache cache = new PDFEncodedStreamCache(1000000);
+        for (int i = 0; i < 2; i++) {
+            PDFDocument doc = new PDFDocument("");
+            doc.setEncodedStreamCache(cache);
+            doc.setEncryption(new PDFEncryptionParams());
+            PDFImageXObject xObject = doc.addImage(null, new FileImage("a"));
+            xObject.output(new ByteArrayOutputStream());
+        }
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testColorProfileSharedBetweenDocuments() throws IOException {
+        PDFEncodedStreamCache cache = new PDFEncodedStreamCache(1000000);
+        ICC_Profile profile = ICC_Profile.getInstance(ColorSpace.CS_sRGB);
+        byte[] expected = null;
+        for (int i = 0; i < 3; i++) {
+            PDFDocument doc = new PDFDocument("");
+            doc.setEncodedStreamCache(i > 0 ? cache : null);
+            PDFICCStream iccStream = doc.getFactory().makePDFICCStream();
+            iccStream.setColorSpace(profile, null);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            iccStream.output(out);
+            if (expected == null) {
+                expected = out.toByteArray();
+            } else {
+                assertArrayEquals(expected, out.toByteArray());
+            }
+        }
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    private byte[] createDocument(PDFEncodedStreamCache cache, PDFImage image, String imageFilter)
+            throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setEncodedStreamCache(cache);
+        doc.setCreationDate(new Date(0));
+        if (imageFilter != null) {
+            doc.getFilterMap().put(PDFFilterList.IMAGE_FILTER, Arrays.asList(imageFilter));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFFactory factory = doc.getFactory();
+        PDFPage page = factory.makePage(doc.getResources(), 100, 100, -1);
+        PDFImageXObject xObject = doc.addImage(page, image);
+        PDFStream content = factory.makeStream(PDFFilterList.CONTENT_FILTER, true);
+        content.add("q 100 0 0 100 0 0 cm " + xObject.getName() + " Do Q\n");
+        page.setContents(new PDFReference(content));
+        doc.addObject(page);
+        doc.output(out);
+        doc.outputTrailer(out);
+        //The file identifier in the trailer is time based, leave it out
+        String pdf = out.toString("ISO-8859-1");
+        return pdf.substring(0, pdf.lastIndexOf("trailer")).getBytes("ISO-8859-1");
+    }
+}
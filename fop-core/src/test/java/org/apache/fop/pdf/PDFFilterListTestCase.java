@@ -19,9 +19,19 @@
 
 package org.apache.fop.pdf;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class PDFFilterListTestCase {
 
@@ -30,4 +40,65 @@ public class PDFFilterListTestCase {
         PDFFilterList filterList = new PDFFilterList();
         assertFalse(filterList.isInitialized());
     }
+
+    @Test
+    public void testFlateParameters() {
+        Map<String, List<String>> filterMap = Collections.singletonMap(
+                PDFFilterList.CONTENT_FILTER,
+                Collections.singletonList("flate;level=1;strategy=huffman-only"));
+        PDFFilterList filterList = new PDFFilterList();
+        filterList.addDefaultFilters(filterMap, PDFFilterList.CONTENT_FILTER);
+        FlateFilter filter = (FlateFilter) filterList.getFilters().get(0);
+        assertEquals(1, filter.getCompressionLevel());
+        assertEquals(Deflater.HUFFMAN_ONLY, filter.getStrategy());
+
+        filterList = new PDFFilterList();
+        filterList.addFilter("flate");
+        filter = (FlateFilter) filterList.getFilters().get(0);
+        assertEquals(Deflater.DEFAULT_COMPRESSION, filter.getCompressionLevel());
+        assertEquals(Deflater.DEFAULT_STRATEGY, filter.getStrategy());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFlateStrategy() {
+        new PDFFilterList().addFilter("flate;strategy=fastest");
+    }
+
+    @Test
+    public void testFlateLevelChangesCompression() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append(i % 97).append(" 0 m ").append(i % 13).append(" 10 l S\n");
+        }
+        byte[] data = sb.toString().getBytes("US-ASCII");
+        int stored = compress("flate;level=0", data);
+        int best = compress("flate;level=9", data);
+        assertTrue(stored > data.length);
+        assertTrue(best < data.length / 4);
+    }
+
+    @Test
+    public void testPassThrough() {
+        PDFFilterList filterList = new PDFFilterList();
+        assertTrue(filterList.isPassThrough());
+        filterList.addFilter(new NullFilter());
+        FlateFilter flate = new FlateFilter();
+        flate.setApplied(true);
+        filterList.addFilter(flate);
+        assertTrue(filterList.isPassThrough());
+        filterList.addFilter("ascii-85");
+        assertFalse(filterList.isPassThrough());
+        filterList.setDisableAllFilters(true);
+        assertTrue(filterList.isPassThrough());
+    }
+
+    private int compress(String filterType, byte[] data) throws IOException {
+        PDFFilterList filterList = new PDFFilterList();
+        filterList.addFilter(filterType);
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        OutputStream out = filterList.applyFilters(bout);
+        out.write(data);
+        out.close();
+        return bout.size();
+    }
 }
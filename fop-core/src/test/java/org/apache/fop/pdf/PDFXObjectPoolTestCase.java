@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the deduplication of XObjects by their content with {@link PDFXObjectPool}.
+ */
+public class PDFXObjectPoolTestCase {
+
+    private static byte[] createBitmap(int size, int seed) {
+        byte[] data = new byte[size * size * 3];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * seed);
+        }
+        return data;
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        PDFDocument doc = new PDFDocument("");
+        assertNull(doc.getXObjectPool());
+        PDFImageXObject first = doc.addImage(null, new BitmapImage("a", 10, 10, createBitmap(10, 3), null));
+        PDFImageXObject second = doc.addImage(null, new BitmapImage("b", 10, 10, createBitmap(10, 3), null));
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testSameContentWithDifferentKeys() {
+        PDFDocument doc = new PDFDocument("");
+        doc.setXObjectDeduplicationEnabled(true);
+        PDFResourceContext res = new PDFResourceContext(new PDFResources(doc));
+        PDFImageXObject first = doc.addImage(res, new BitmapImage("a", 10, 10, createBitmap(10, 3), null));
+        PDFImageXObject second = doc.addImage(res, new BitmapImage("b", 10, 10, createBitmap(10, 3), null));
+        PDFImageXObject other = doc.addImage(res, new BitmapImage("c", 10, 10, createBitmap(10, 5), null));
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertSame(first, doc.getXObject("b"));
+        assertEquals("/Im1", first.getName().toString());
+        assertEquals("/Im2", other.getName().toString());
+
+        PDFXObjectPool pool = doc.getXObjectPool();
+        assertEquals(1, pool.getDuplicateCount());
+        assertEquals(2, pool.size());
+        assertTrue(pool.getSavedByteCount() > 0);
+    }
+
+    @Test
+    public void testSameDataWithDifferentDictionaries() {
+        PDFDocument doc = new PDFDocument("");
+        doc.setXObjectDeduplicationEnabled(true);
+        byte[] data = createBitmap(10, 3);
+        PDFImageXObject first = doc.addImage(null, new BitmapImage("a", 10, 10, data, null));
+        PDFImageXObject second = doc.addImage(null, new BitmapImage("b", 20, 5, data, null));
+        assertNotSame(first, second);
+        assertEquals(0, doc.getXObjectPool().getDuplicateCount());
+    }
+
+    @Test
+    public void testOutputWithoutDuplicates() throws IOException {
+        byte[] plain = createDocument(false, 1);
+        byte[] deduplicated = createDocument(true, 1);
+        assertArrayEquals(plain, deduplicated);
+
+        //Unfiltered images of 100 x 100 RGB pixels, embedded once instead of 10 times
+        int imageSize = 100 * 100 * 3;
+        assertTrue(createDocument(false, 10).length - createDocument(true, 10).length
+                >= 9 * imageSize);
+    }
+
+    private byte[] createDocument(boolean deduplication, int imageCount) throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setXObjectDeduplicationEnabled(deduplication);
+        doc.setCreationDate(new Date(0));
+        doc.getFilterMap().put(PDFFilterList.IMAGE_FILTER, Arrays.asList("null"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFFactory factory = doc.getFactory();
+        for (int i = 0; i < imageCount; i++) {
+            PDFPage page = factory.makePage(doc.getResources(), 100, 100, -1);
+            PDFImageXObject xObject = doc.addImage(page,
+                    new BitmapImage("image" + i, 100, 100, createBitmap(100, 7), null));
+            PDFStream content = factory.makeStream(PDFFilterList.CONTENT_FILTER, true);
+            content.add("q 100 0 0 100 0 0 cm " + xObject.getName() + " Do Q\n");
+            page.setContents(new PDFReference(content));
+            doc.addObject(page);
+        }
+        doc.output(out);
+        doc.outputTrailer(out);
+        //The file identifier in the trailer is time based, leave it out
+        String pdf = out.toString("ISO-8859-1");
+        return pdf.substring(0, pdf.lastIndexOf("trailer")).getBytes("ISO-8859-1");
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the compression of PDF streams by {@link ParallelStreamEncoder}.
+ */
+public class ParallelStreamEncoderTestCase {
+
+    @Test
+    public void testOutputIdenticalToSerialCompression() throws IOException {
+        byte[] serial = createDocument(0);
+        assertArrayEquals(serial, createDocument(1));
+        assertArrayEquals(serial, createDocument(4));
+    }
+
+    @Test
+    public void testPrecompressedImageCopiedByOutputThread() throws IOException {
+        byte[] serial = createImageDocument(0, new PrecompressedImage());
+        PrecompressedImage image = new PrecompressedImage();
+        assertArrayEquals(serial, createImageDocument(2, image));
+        assertSame(Thread.currentThread(), image.readingThread);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeThreadCount() {
+        new PDFDocument("").setCompressionThreadCount(-1);
+    }
+
+    @Test
+    public void testThreadCount() {
+        PDFDocument doc = new PDFDocument("");
+        assertEquals(0, doc.getCompressionThreadCount());
+        doc.setCompressionThreadCount(2);
+        assertEquals(2, doc.getCompressionThreadCount());
+    }
+
+    /** An image whose data is already compressed, remembering the thread reading it */
+    private static final class PrecompressedImage extends BitmapImage {
+
+        private Thread readingThread;
+
+        PrecompressedImage() {
+            super("precompressed", 10, 10, new byte[300], null);
+            FlateFilter flate = new FlateFilter();
+            flate.setApplied(true);
+            setPDFFilter(flate);
+            disallowMultipleFilters();
+        }
+
+        @Override
+        public void outputContents(OutputStream out) throws IOException {
+            readingThread = Thread.currentThread();
+            super.outputContents(out);
+        }
+    }
+
+    private byte[] createImageDocument(int threads, PDFImage image) throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setCompressionThreadCount(threads);
+        doc.setCreationDate(new Date(0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFFactory factory = doc.getFactory();
+        PDFPage page = factory.makePage(doc.getResources(), 100, 100, -1);
+        PDFImageXObject xObject = doc.addImage(page, image);
+        PDFStream content = factory.makeStream(PDFFilterList.CONTENT_FILTER, true);
+        content.add("q 100 0 0 100 0 0 cm " + xObject.getName() + " Do Q\n");
+        page.setContents(new PDFReference(content));
+        doc.addObject(page);
+        doc.output(out);
+        doc.outputTrailer(out);
+        String pdf = out.toString("ISO-8859-1");
+        return pdf.substring(0, pdf.lastIndexOf("trailer")).getBytes("ISO-8859-1");
+    }
+
+    private byte[] createDocument(int threads) throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setCompressionThreadCount(threads);
+        doc.setCreationDate(new Date(0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFFactory factory = doc.getFactory();
+        for (int i = 0; i < 20; i++) {
+            PDFPage page = factory.makePage(doc.getResources(), 100, 100, -1);
+            PDFStream content = factory.makeStream(PDFFilterList.CONTENT_FILTER, true);
+            for (int j = 0; j < 200 * (i + 1); j++) {
+                content.add(j + " " + i + " m " + (j * i) + " 100 l S\n");
+            }
+            page.setContents(new PDFReference(content));
+            doc.addObject(page);
+            if (i % 5 == 4) {
+                doc.output(out);
+            }
+        }
+        doc.outputTrailer(out);
+        //The file identifier in the trailer is time based, leave it out
+        String pdf = out.toString("ISO-8859-1");
+        return pdf.substring(0, pdf.lastIndexOf("trailer")).getBytes("ISO-8859-1");
+    }
+}
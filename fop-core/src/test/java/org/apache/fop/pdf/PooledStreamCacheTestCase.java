@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link PooledStreamCache} and {@link StreamBufferPool}.
+ */
+public class PooledStreamCacheTestCase {
+
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 251);
+        }
+        return data;
+    }
+
+    @Test
+    public void testDataSpanningChunks() throws IOException {
+        StreamBufferPool pool = new StreamBufferPool(1024 * 1024, 1024);
+        PooledStreamCache cache = new PooledStreamCache(pool);
+        byte[] data = createData(5000);
+        cache.write(data);
+        cache.getOutputStream().write(7);
+        assertEquals(5001, cache.getSize());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(5001, cache.outputContents(out));
+        byte[] written = out.toByteArray();
+        assertEquals(7, written[5000]);
+        byte[] expected = new byte[5001];
+        System.arraycopy(data, 0, expected, 0, 5000);
+        expected[5000] = 7;
+        assertArrayEquals(expected, written);
+        assertEquals(5 * 1024, pool.getUsedBytes());
+        pool.close();
+    }
+
+    @Test
+    public void testChunksReused() throws IOException {
+        StreamBufferPool pool = new StreamBufferPool(1024 * 1024, 1024);
+        for (int i = 0; i < 10; i++) {
+            PooledStreamCache cache = new PooledStreamCache(pool);
+            cache.write(createData(3000));
+            cache.clear();
+            assertEquals(0, cache.getSize());
+        }
+        assertEquals(0, pool.getUsedBytes());
+        assertEquals(3 * 1024, pool.getPeakUsedBytes());
+        assertEquals(3 * 1024, pool.getDirectBytes());
+        pool.close();
+    }
+
+    @Test
+    public void testSpillBeyondBudget() throws IOException {
+        StreamBufferPool pool = new StreamBufferPool(2048, 1024);
+        PooledStreamCache cache = new PooledStreamCache(pool);
+        byte[] data = createData(10000);
+        cache.write(data);
+        assertEquals(2048, pool.getDirectBytes());
+        assertEquals(10 * 1024, pool.getPeakUsedBytes());
+        assertTrue(pool.getSpilledBytes() > 0);
+        File file = pool.getFile();
+        assertNotNull(file);
+        assertTrue(file.exists());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.outputContents(out);
+        assertArrayEquals(data, out.toByteArray());
+
+        long spilled = pool.getSpilledBytes();
+        cache.clear();
+        cache.write(data);
+        assertEquals(spilled, pool.getSpilledBytes());
+        pool.close();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testSpillFileInDirectory() throws IOException {
+        File directory = File.createTempFile("fop-streams", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        try {
+            PDFDocument doc = new PDFDocument("");
+            doc.setStreamBufferBudget(1, directory);
+            doc.getStreamCacheFactory().createStreamCache().write(createData(100));
+            assertEquals(directory, doc.getStreamBufferPool().getFile().getParentFile());
+            doc.releaseStreamBuffers();
+            assertEquals(0, directory.list().length);
+        } finally {
+            directory.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testClosedPool() throws IOException {
+        StreamBufferPool pool = new StreamBufferPool(1024);
+        pool.close();
+        new PooledStreamCache(pool).write(new byte[1]);
+    }
+
+    @Test(expected = IOException.class)
+    public void testClosedPoolWithCurrentChunk() throws IOException {
+        StreamBufferPool pool = new StreamBufferPool(1024, 1024);
+        PooledStreamCache cache = new PooledStreamCache(pool);
+        cache.write(new byte[1]);
+        pool.close();
+        //The chunk has been freed
+        cache.write(new byte[1]);
+    }
+
+    @Test
+    public void testReleaseWithoutTrailer() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamBufferBudget(1);
+        doc.getStreamCacheFactory().createStreamCache().write(createData(100));
+        StreamBufferPool pool = doc.getStreamBufferPool();
+        File file = pool.getFile();
+        assertNotNull(file);
+        //As after a failed rendering
+        doc.releaseStreamBuffers();
+        assertTrue(pool.isClosed());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testDocumentOutputUnchanged() throws IOException {
+        byte[] expected = createDocument(0, 0);
+        assertArrayEquals(expected, createDocument(1024 * 1024, 0));
+        assertArrayEquals(expected, createDocument(16 * 1024, 0));
+        assertArrayEquals(expected, createDocument(16 * 1024, 2));
+    }
+
+    @Test
+    public void testStreamBufferBudget() {
+        PDFDocument doc = new PDFDocument("");
+        assertNull(doc.getStreamBufferPool());
+        doc.setStreamBufferBudget(4096);
+        StreamBufferPool pool = doc.getStreamBufferPool();
+        assertEquals(4096, pool.getBudget());
+        assertTrue(doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false).data
+                instanceof PooledStreamCache);
+        doc.setStreamBufferBudget(0);
+        assertNull(doc.getStreamBufferPool());
+    }
+
+    private byte[] createDocument(long budget, int threads) throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamBufferBudget(budget);
+        doc.setCompressionThreadCount(threads);
+        doc.setCreationDate(new Date(0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        PDFFactory factory = doc.getFactory();
+        for (int i = 0; i < 20; i++) {
+            PDFPage page = factory.makePage(doc.getResources(), 100, 100, -1);
+            PDFStream content = factory.makeStream(PDFFilterList.CONTENT_FILTER, true);
+            for (int j = 0; j < 200 * (i + 1); j++) {
+                content.add(j + " " + i + " m " + (j * i) + " 100 l S\n");
+            }
+            page.setContents(new PDFReference(content));
+            doc.addObject(page);
+        }
+        doc.outputTrailer(out);
+        //The file identifier in the trailer is time based, leave it out
+        String pdf = out.toString("ISO-8859-1");
+        return pdf.substring(0, pdf.lastIndexOf("trailer")).getBytes("ISO-8859-1");
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Debug tool measuring the output size and time of PDF documents with and without the
+ * "xobject-deduplication" option. Without FO file arguments, a document is generated which
+ * shows a JPEG and a PNG image on each page, loaded from a different copy of the image
+ * files for every page, like a logo served from different URIs.
+ */
+public final class XObjectDeduplicationBenchmark {
+
+    private XObjectDeduplicationBenchmark() {
+    }
+
+    private static File createDocument(int pageCount) throws Exception {
+        File dir = File.createTempFile("dedup", "");
+        dir.delete();
+        dir.mkdir();
+        File images = new File("test/resources/images");
+        StringBuilder fo = new StringBuilder();
+        fo.append("<?xml version=\"1.0\"?>\n"
+                + "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"A4\""
+                + " page-height=\"29.7cm\" page-width=\"21cm\" margin=\"2cm\">"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"A4\">"
+                + "<fo:flow flow-name=\"xsl-region-body\">\n");
+        for (int i = 0; i < pageCount; i++) {
+            FileUtils.copyFile(new File(images, "bgimg300dpi.jpg"), new File(dir, "photo" + i + ".jpg"));
+            FileUtils.copyFile(new File(images, "fop-logo-color-24bit.png"),
+                    new File(dir, "logo" + i + ".png"));
+            fo.append("<fo:block break-before=\"page\">Page " + (i + 1)
+                    + "<fo:external-graphic src=\"logo" + i + ".png\"/>"
+                    + "<fo:external-graphic src=\"photo" + i + ".jpg\"/></fo:block>\n");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>\n");
+        File foFile = new File(dir, "dedup.fo");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(foFile), "UTF-8");
+        try {
+            writer.write(fo.toString());
+        } finally {
+            writer.close();
+        }
+        return foFile;
+    }
+
+    private static FopFactory createFopFactory(File foFile, boolean deduplication)
+            throws Exception {
+        String fopxconf = "<fop version=\"1.0\"><renderers>"
+                + "<renderer mime=\"application/pdf\">"
+                + "<xobject-deduplication>" + deduplication + "</xobject-deduplication>"
+                + "</renderer></renderers></fop>";
+        return FopFactory.newInstance(foFile.getAbsoluteFile().getParentFile().toURI(),
+                new ByteArrayInputStream(fopxconf.getBytes("UTF-8")));
+    }
+
+    private static void measure(List<File> foFiles, boolean deduplication, int runRepeats)
+            throws Exception {
+        long time = 0;
+        long size = 0;
+        for (int run = 0; run < runRepeats; run++) {
+            for (File foFile : foFiles) {
+                //A new factory each time, so images aren't found in the image cache
+                FopFactory fopFactory = createFopFactory(foFile, deduplication);
+                CountingOutputStream out = new CountingOutputStream(new NullOutputStream());
+                long start = System.nanoTime();
+                Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, out);
+                Transformer transformer = TransformerFactory.newInstance().newTransformer();
+                transformer.transform(new StreamSource(foFile),
+                        new SAXResult(fop.getDefaultHandler()));
+                if (run > 0) {
+                    time += System.nanoTime() - start;
+                    size += out.getByteCount();
+                }
+            }
+        }
+        int measuredRuns = Math.max(runRepeats - 1, 1);
+        System.out.println("deduplication " + (deduplication ? "on" : "off") + ": "
+                + (size / measuredRuns) + " bytes, " + (time / measuredRuns / 1000000) + " ms");
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of runs followed by the FO files
+     */
+    public static void main(String[] args) {
+        try {
+            int runRepeats = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+            List<File> foFiles = new ArrayList<File>();
+            for (int i = 1; i < args.length; i++) {
+                foFiles.add(new File(args[i]));
+            }
+            if (foFiles.isEmpty()) {
+                foFiles.add(createDocument(50));
+            }
+            for (int i = 0; i < 2; i++) {
+                measure(foFiles, false, runRepeats);
+                measure(foFiles, true, runRepeats);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.AbstractRendererConfigParserTester;
@@ -124,6 +125,21 @@ public class PDFRendererConfigParserTestCase
         assertEquals("ascii-85", conf.getConfigOptions().getFilterMap().get("image").get(1));
     }
 
+    @Test
+    public void testFilterListFlateParameters() throws Exception {
+        parseConfig(createRenderer().createFlateFilterList("content", "1", "filtered")
+                .createFlateFilterList("font", "9", null));
+        assertEquals("flate;level=1;strategy=filtered",
+                conf.getConfigOptions().getFilterMap().get("content").get(0));
+        assertEquals("flate;level=9", conf.getConfigOptions().getFilterMap().get("font").get(0));
+    }
+
+    @Test
+    public void testFilterListInvalidFlateLevel() throws Exception {
+        parseConfig(createRenderer().createFlateFilterList("content", "10", null));
+        assertNull(conf.getConfigOptions().getFilterMap());
+    }
+
     @Test
     public void testPDFAMode() throws Exception {
         parseConfig(createRenderer().setPDFAMode(PDFAMode.PDFA_1A.getName()));
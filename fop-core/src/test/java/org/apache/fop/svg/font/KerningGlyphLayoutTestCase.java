@@ -24,7 +24,11 @@ import java.text.StringCharacterIterator;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -72,9 +76,34 @@ public class KerningGlyphLayoutTestCase extends FOPGVTGlyphVectorTest {
         when(font.getCharWidth(86)).thenReturn(22912);
         when(font.getCharWidth(111)).thenReturn(20850);
         when(font.getKernValue('V', 'o')).thenReturn(-2812);
+        when(font.getKernValues(any(CharSequence.class), anyInt(), any(int[].class)))
+                .thenAnswer(new KernValuesAnswer(font));
         return font;
     }
 
+    private static class KernValuesAnswer implements Answer<Boolean> {
+
+        private final Font font;
+
+        KernValuesAnswer(Font font) {
+            this.font = font;
+        }
+
+        @Override
+        public Boolean answer(InvocationOnMock invocation) throws Throwable {
+            CharSequence cs = (CharSequence) invocation.getArguments()[0];
+            int previous = (Integer) invocation.getArguments()[1];
+            int[] kernings = (int[]) invocation.getArguments()[2];
+            boolean hasKerning = false;
+            for (int i = 0; i < cs.length(); i++) {
+                kernings[i] = previous != 0 ? font.getKernValue(previous, cs.charAt(i)) : 0;
+                hasKerning |= kernings[i] != 0;
+                previous = cs.charAt(i);
+            }
+            return hasKerning;
+        }
+    }
+
     private FOPGVTFont mockGVTFont(Font font) {
         FOPGVTFont gvtFont = mock(FOPGVTFont.class);
         when(gvtFont.getFont()).thenReturn(font);
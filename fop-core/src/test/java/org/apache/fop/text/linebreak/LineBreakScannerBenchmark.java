@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.text.linebreak;
+
+import java.util.Random;
+
+/**
+ * Debug tool measuring the throughput of {@link LineBreakScanner} compared to
+ * {@link LineBreakStatus} on generated text of words and spaces.
+ */
+public final class LineBreakScannerBenchmark {
+
+    private LineBreakScannerBenchmark() { }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of characters (default 1000000)
+     *        and the number of rounds (default 20)
+     */
+    public static void main(String[] args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Random random = new Random(0);
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            int wordLength = 1 + random.nextInt(10);
+            for (int i = 0; i < wordLength; i++) {
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+            text.append(random.nextInt(10) == 0 ? ", " : " ");
+        }
+        text.setLength(length);
+
+        LineBreakScanner scanner = new LineBreakScanner();
+        int checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                LineBreakStatus lbs = new LineBreakStatus();
+                for (int i = 0; i < length; i++) {
+                    checksum += lbs.nextChar(text.charAt(i));
+                }
+            }
+            long statusTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                byte[] actions = scanner.scan(text, 0, length);
+                for (int i = 0; i < length; i++) {
+                    checksum -= actions[i];
+                }
+            }
+            long scannerTime = System.nanoTime() - start;
+            long chars = (long) length * rounds;
+            System.out.println("LineBreakStatus: " + (chars * 1000 / statusTime)
+                    + " Mchars/s, LineBreakScanner: " + (chars * 1000 / scannerTime)
+                    + " Mchars/s");
+        }
+        if (checksum != 0) {
+            System.out.println("Break actions differ");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.text.linebreak;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that {@link LineBreakScanner} determines the same break actions as
+ * {@link LineBreakStatus}.
+ */
+public class LineBreakScannerTestCase {
+
+    private static final String[] TEXTS = {
+        "Nobreak",
+        "Thin Space" + "\u2009" + "break",
+        "Shy" + "\u00AD" + "break",
+        "Alternate Lines" + "\r\n" + "with CR/LF\rand CR\nand LF\u2028and LS\u0085and NEL",
+        "Lots    of   spaces   ",
+        "  leading spaces",
+        "\u0301combining mark first, e\u0301 and \u0301 after space",
+        "(ABC)  [123] {xyz} 'quoted' \"quoted\" 100% $100 -5 1,000.00 a/b x-y",
+        "\u0E20\u0E32\u0E29\u0E32\u0E44\u0E17\u0E22 \u0E20\u0E34\u0E29\u0E31",
+        "zero\u200Bwidth\u200B \u200Bspace",
+        "\u65E5\u672C\u8A9E\u306E\u6587\u7AE0\u3002\u300C\u5F15\u7528\u300D",
+        "no\u00A0break\u2060space\uFEFF",
+        "\u05E2\u05D1\u05E8\u05D9\u05EA \u0627\u0644\u0639\u0631\u0628\u064A\u0629",
+        "\uD83D\uDE00 surrogates \uDBFF\uDFFF",
+        "",
+    };
+
+    private static void assertSameBreakActions(String text, int start, int end) {
+        byte[] actions = new LineBreakScanner().scan(text, start, end);
+        LineBreakStatus lbs = new LineBreakStatus();
+        for (int i = start; i < end; i++) {
+            assertEquals("break action before index " + i + " of \"" + text + "\"",
+                    lbs.nextChar(text.charAt(i)), actions[i - start]);
+        }
+    }
+
+    /** Compares the break actions of typical texts. */
+    @Test
+    public void testTexts() {
+        for (String text : TEXTS) {
+            assertSameBreakActions(text, 0, text.length());
+            if (text.length() > 4) {
+                assertSameBreakActions(text, 2, text.length() - 1);
+            }
+        }
+    }
+
+    /** Compares the break actions of random texts mixing all kinds of characters. */
+    @Test
+    public void testRandomTexts() {
+        Random random = new Random(0);
+        StringBuilder chars = new StringBuilder(" \t\r\n\u2028\u00AD\u200B\u00A0-/()!?,.;:'\"0123456789");
+        for (String text : TEXTS) {
+            chars.append(text);
+        }
+        LineBreakScanner scanner = new LineBreakScanner();
+        for (int round = 0; round < 200; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(round < 100 ? 50 : 1000);
+            for (int i = 0; i < length; i++) {
+                text.append(random.nextInt(4) == 0
+                        ? (char) random.nextInt(0x10000)
+                        : chars.charAt(random.nextInt(chars.length())));
+            }
+            // the scanner is reused, so its array gets longer than some of the texts
+            byte[] actions = scanner.scan(text, 0, length);
+            LineBreakStatus lbs = new LineBreakStatus();
+            for (int i = 0; i < length; i++) {
+                assertEquals(lbs.nextChar(text.charAt(i)), actions[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link MappedSpillFile}.
+ */
+public class MappedSpillFileTestCase {
+
+    @Test
+    public void testNoFileWithoutSegments() throws IOException {
+        MappedSpillFile spillFile = new MappedSpillFile("fop-test", ".tmp", null);
+        assertNull(spillFile.getFile());
+        assertEquals(0, spillFile.getLength());
+        spillFile.close();
+    }
+
+    @Test
+    public void testSegments() throws IOException {
+        MappedSpillFile spillFile = new MappedSpillFile("fop-test", ".tmp", null);
+        MappedByteBuffer first = spillFile.addSegment(1024);
+        MappedByteBuffer second = spillFile.addSegment(4096);
+        first.put((byte) 1);
+        second.put((byte) 2);
+        assertEquals(2, spillFile.getSegmentCount());
+        assertEquals(5120, spillFile.getLength());
+        assertEquals(1, spillFile.getSegment(0).get(0));
+        assertEquals(2, spillFile.getSegment(1).get(0));
+        File file = spillFile.getFile();
+        assertEquals(5120, file.length());
+        spillFile.close();
+        assertEquals(0, spillFile.getSegmentCount());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testFileInDirectory() throws IOException {
+        File directory = File.createTempFile("fop-test", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        try {
+            MappedSpillFile spillFile = new MappedSpillFile("fop-test", ".bin", directory);
+            spillFile.addSegment(1024);
+            File file = spillFile.getFile();
+            assertEquals(directory, file.getParentFile());
+            assertTrue(file.getName().endsWith(".bin"));
+            spillFile.close();
+            assertEquals(0, directory.list().length);
+        } finally {
+            directory.delete();
+        }
+    }
+}
@@ -68,7 +68,8 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
     }
 
     private static List<EventModel> eventModels = new java.util.ArrayList();
-    private Map proxies = new java.util.HashMap();
+    /** The event producers may be requested by the parsing and the layout thread at once */
+    private Map proxies = new java.util.concurrent.ConcurrentHashMap();
 
     /**
      * Loads an event model and returns its instance.